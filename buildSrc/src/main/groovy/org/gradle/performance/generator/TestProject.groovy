@@ -21,6 +21,7 @@ class TestProject {
     final Object defaults
     Integer sourceFiles
     Integer testSourceFiles
+    Integer resourceFiles
     Integer linesOfCodePerSourceFile
     List<MavenModule> dependencies
     MavenRepository repository;
@@ -40,6 +41,10 @@ class TestProject {
         return testSourceFiles ?: defaults.testSourceFiles
     }
 
+    int getResourceFiles() {
+        return resourceFiles ?: defaults.resourceFiles
+    }
+
     int getLinesOfCodePerSourceFile() {
         return linesOfCodePerSourceFile ?: defaults.linesOfCodePerSourceFile
     }
@@ -51,6 +51,15 @@ class JvmProjectGeneratorTask extends ProjectGeneratorTask {
         if (scalaProject) {
             generateProjectSource(projectDir, "scala", testProject, args)
         }
+        generateProjectResources(projectDir, testProject)
+    }
+
+    void generateProjectResources(File projectDir, TestProject testProject) {
+        testProject.resourceFiles.times { fileNumber ->
+            File resourceFile = new File(projectDir, "src/main/resources/org/gradle/test/performance${(int) (fileNumber / filesPerPackage) + 1}/resource${fileNumber + 1}.properties")
+            resourceFile.parentFile.mkdirs()
+            resourceFile.text = (1..testProject.linesOfCodePerSourceFile).collect { "property${it}=value${fileNumber}_${it}\n" }.join('')
+        }
     }
 
     void generateProjectSource(File projectDir, String sourceLang, TestProject testProject, Map args) {
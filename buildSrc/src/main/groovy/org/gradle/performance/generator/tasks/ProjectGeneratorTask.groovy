@@ -32,6 +32,7 @@ abstract class ProjectGeneratorTask extends DefaultTask {
 
     int sourceFiles = 1
     Integer testSourceFiles
+    int resourceFiles = 0
     int linesOfCodePerSourceFile = 5
     int filesPerPackage = 100
     boolean useSubProjectNumberInSourceFileNames = false
@@ -76,6 +76,8 @@ public class StartParameter extends LoggingConfiguration implements Serializable
     private boolean configureOnDemand;
     private int maxWorkerCount;
     private boolean continuous;
+    private boolean criticalPathScheduling;
+    private boolean taskOutputCache;
 
     /**
      * Sets the project's cache location. Set to null to use the default location.
@@ -160,6 +162,8 @@ public class StartParameter extends LoggingConfiguration implements Serializable
         p.parallelProjectExecution = parallelProjectExecution;
         p.configureOnDemand = configureOnDemand;
         p.maxWorkerCount = maxWorkerCount;
+        p.criticalPathScheduling = criticalPathScheduling;
+        p.taskOutputCache = taskOutputCache;
         return p;
     }
 
@@ -674,6 +678,8 @@ public class StartParameter extends LoggingConfiguration implements Serializable
             + ", parallelProjectExecution=" + parallelProjectExecution
             + ", configureOnDemand=" + configureOnDemand
             + ", maxWorkerCount=" + maxWorkerCount
+            + ", criticalPathScheduling=" + criticalPathScheduling
+            + ", taskOutputCache=" + taskOutputCache
             + '}';
     }
 
@@ -699,4 +705,42 @@ public class StartParameter extends LoggingConfiguration implements Serializable
         this.continuous = enabled;
     }
 
+    /**
+     * Returns true if tasks that are ready to execute are ordered by the estimated duration of the longest chain of tasks that depends on them,
+     * based on how long tasks took in previous builds. Otherwise, tasks are executed in the order of the task graph.
+     */
+    @Incubating
+    public boolean isCriticalPathSchedulingEnabled() {
+        return criticalPathScheduling;
+    }
+
+    /**
+     * Enables/disables critical path task scheduling.
+     *
+     * @see #isCriticalPathSchedulingEnabled()
+     */
+    @Incubating
+    public void setCriticalPathSchedulingEnabled(boolean criticalPathScheduling) {
+        this.criticalPathScheduling = criticalPathScheduling;
+    }
+
+    /**
+     * Returns true if the outputs of tasks are stored in the task output cache, and restored from the cache instead of executing a task
+     * when the task has previously been executed with the same inputs.
+     */
+    @Incubating
+    public boolean isTaskOutputCacheEnabled() {
+        return taskOutputCache;
+    }
+
+    /**
+     * Enables/disables the task output cache.
+     *
+     * @see #isTaskOutputCacheEnabled()
+     */
+    @Incubating
+    public void setTaskOutputCacheEnabled(boolean taskOutputCache) {
+        this.taskOutputCache = taskOutputCache;
+    }
+
 }
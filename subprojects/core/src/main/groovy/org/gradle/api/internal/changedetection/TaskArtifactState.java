@@ -15,7 +15,10 @@
  */
 package org.gradle.api.internal.changedetection;
 
+import org.gradle.api.Nullable;
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.TaskExecutionHistory;
+import org.gradle.api.internal.tasks.cache.TaskOutputCacheKey;
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 
 import java.util.Collection;
@@ -33,6 +36,19 @@ public interface TaskArtifactState {
 
     IncrementalTaskInputs getInputChanges();
 
+    /**
+     * Returns the key that identifies the outputs the task produces from its current inputs, or null when the outputs of the task cannot be cached.
+     * Should be called after {@link #isUpToDate(java.util.Collection)}.
+     */
+    @Nullable
+    TaskOutputCacheKey calculateCacheKey();
+
+    /**
+     * Returns the output files that the task has produced, excluding any files in its output directories that were created by something else, such as
+     * another task that shares the directory. Should be called after the task has executed successfully.
+     */
+    FileCollection getProducedOutputFiles();
+
     /**
      * Called before the task is to be executed. Note that {@link #isUpToDate(java.util.Collection)} may not necessarily have been called.
      */
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.changedetection.changes;
 
+import org.gradle.api.UncheckedIOException;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.TaskExecutionHistory;
 import org.gradle.api.internal.TaskInternal;
@@ -24,16 +25,19 @@ import org.gradle.api.internal.changedetection.TaskArtifactStateRepository;
 import org.gradle.api.internal.changedetection.rules.TaskStateChange;
 import org.gradle.api.internal.changedetection.rules.TaskStateChanges;
 import org.gradle.api.internal.changedetection.rules.TaskUpToDateState;
+import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot;
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshotter;
 import org.gradle.api.internal.changedetection.state.TaskExecution;
 import org.gradle.api.internal.changedetection.state.TaskHistoryRepository;
+import org.gradle.api.internal.changedetection.state.TaskImplementationHasher;
 import org.gradle.api.internal.file.collections.SimpleFileCollection;
+import org.gradle.api.internal.tasks.cache.TaskOutputCacheKey;
+import org.gradle.api.internal.tasks.cache.TaskOutputCacheKeyBuilder;
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.internal.reflect.Instantiator;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.io.File;
+import java.util.*;
 
 public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepository {
 
@@ -41,13 +45,16 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
     private final FileCollectionSnapshotter outputFilesSnapshotter;
     private final FileCollectionSnapshotter inputFilesSnapshotter;
     private final Instantiator instantiator;
+    private final TaskImplementationHasher taskImplementationHasher;
 
     public DefaultTaskArtifactStateRepository(TaskHistoryRepository taskHistoryRepository, Instantiator instantiator,
-                                              FileCollectionSnapshotter outputFilesSnapshotter, FileCollectionSnapshotter inputFilesSnapshotter) {
+                                              FileCollectionSnapshotter outputFilesSnapshotter, FileCollectionSnapshotter inputFilesSnapshotter,
+                                              TaskImplementationHasher taskImplementationHasher) {
         this.taskHistoryRepository = taskHistoryRepository;
         this.instantiator = instantiator;
         this.outputFilesSnapshotter = outputFilesSnapshotter;
         this.inputFilesSnapshotter = inputFilesSnapshotter;
+        this.taskImplementationHasher = taskImplementationHasher;
     }
 
     public TaskArtifactState getStateFor(final TaskInternal task) {
@@ -109,6 +116,53 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
             return this;
         }
 
+        public TaskOutputCacheKey calculateCacheKey() {
+            // Tasks that discover inputs while executing may depend on files that are not part of the key
+            if (taskInputs != null && !taskInputs.getDiscoveredInputs().isEmpty()) {
+                return null;
+            }
+            TaskExecution previousExecution = history.getPreviousExecution();
+            if (previousExecution != null && previousExecution.getDiscoveredInputFilesSnapshot() != null
+                && !previousExecution.getDiscoveredInputFilesSnapshot().getFiles().isEmpty()) {
+                return null;
+            }
+
+            // Calculates the state of the current execution, if not already done
+            FileCollectionSnapshot inputFiles = getStates().getInputFiles();
+            TaskExecution currentExecution = history.getCurrentExecution();
+            File projectDir = task.getProject().getProjectDir();
+            TaskOutputCacheKeyBuilder builder = new TaskOutputCacheKeyBuilder();
+            builder.putString(currentExecution.getTaskClass());
+            builder.putBytes(taskImplementationHasher.hash(task.getClass()));
+            Map<String, Object> inputProperties = new TreeMap<String, Object>(currentExecution.getInputProperties());
+            builder.putInt(inputProperties.size());
+            try {
+                for (Map.Entry<String, Object> entry : inputProperties.entrySet()) {
+                    builder.putString(entry.getKey());
+                    builder.putObject(entry.getValue());
+                }
+            } catch (UncheckedIOException e) {
+                // An input property cannot be serialized
+                return null;
+            }
+            inputFiles.appendToCacheKey(builder, projectDir);
+            List<String> outputFiles = new ArrayList<String>();
+            for (String outputFile : currentExecution.getOutputFiles()) {
+                outputFiles.add(TaskOutputCacheKeyBuilder.relativePath(outputFile, projectDir));
+            }
+            Collections.sort(outputFiles);
+            builder.putInt(outputFiles.size());
+            for (String outputFile : outputFiles) {
+                builder.putString(outputFile);
+            }
+            return builder.build();
+        }
+
+        public FileCollection getProducedOutputFiles() {
+            getStates().getOutputFilesChanges().snapshotAfterTask();
+            return history.getCurrentExecution().getOutputFilesSnapshot().getFiles();
+        }
+
         public void beforeTask() {
         }
 
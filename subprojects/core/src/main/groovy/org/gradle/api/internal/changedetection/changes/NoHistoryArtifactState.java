@@ -19,6 +19,7 @@ package org.gradle.api.internal.changedetection.changes;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.TaskExecutionHistory;
 import org.gradle.api.internal.changedetection.TaskArtifactState;
+import org.gradle.api.internal.tasks.cache.TaskOutputCacheKey;
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 
 import java.util.Collection;
@@ -37,6 +38,14 @@ class NoHistoryArtifactState implements TaskArtifactState, TaskExecutionHistory
         return this;
     }
 
+    public TaskOutputCacheKey calculateCacheKey() {
+        return null;
+    }
+
+    public FileCollection getProducedOutputFiles() {
+        throw new UnsupportedOperationException();
+    }
+
     public void beforeTask() {
     }
 
@@ -16,11 +16,13 @@
 package org.gradle.api.internal.changedetection.changes;
 
 import org.gradle.StartParameter;
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.TaskExecutionHistory;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.changedetection.TaskArtifactState;
 import org.gradle.api.internal.changedetection.TaskArtifactStateRepository;
 import org.gradle.api.internal.changedetection.state.FilesSnapshotSet;
+import org.gradle.api.internal.tasks.cache.TaskOutputCacheKey;
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.internal.reflect.Instantiator;
 
@@ -81,6 +83,15 @@ public class ShortCircuitTaskArtifactStateRepository implements TaskArtifactStat
             return delegate.getExecutionHistory();
         }
 
+        public TaskOutputCacheKey calculateCacheKey() {
+            // The task has to be executed
+            return null;
+        }
+
+        public FileCollection getProducedOutputFiles() {
+            return delegate.getProducedOutputFiles();
+        }
+
         public void beforeTask() {
             delegate.beforeTask();
         }
@@ -34,6 +34,7 @@ class OutputFilesStateChangeRule {
         final FileCollectionSnapshot outputFilesBefore = outputFilesSnapshotter.snapshot(task.getOutputs().getFiles());
 
         return new TaskStateChanges() {
+            private boolean snapshotTaken;
 
             public Iterator<TaskStateChange> iterator() {
                 if (previousExecution.getOutputFilesSnapshot() == null) {
@@ -55,6 +56,11 @@ class OutputFilesStateChangeRule {
             }
 
             public void snapshotAfterTask() {
+                // The outputs may already have been snapshotted to find the files the task produced
+                if (snapshotTaken) {
+                    return;
+                }
+                snapshotTaken = true;
                 FileCollectionSnapshot lastExecutionOutputFiles;
                 if (previousExecution == null || previousExecution.getOutputFilesSnapshot() == null) {
                     lastExecutionOutputFiles = outputFilesSnapshotter.emptySnapshot();
@@ -25,6 +25,7 @@ import org.gradle.api.internal.changedetection.state.*;
  */
 public class TaskUpToDateState {
     private static final int MAX_OUT_OF_DATE_MESSAGES = 3;
+    private final FileCollectionSnapshot inputFiles;
     private final FilesSnapshotSet inputFilesSnapshot;
 
     private TaskStateChanges noHistoryState;
@@ -54,6 +55,7 @@ public class TaskUpToDateState {
         // Capture inputs state
         try {
             FileCollectionSnapshot inputFilesSnapshot = inputFilesSnapshotter.snapshot(task.getInputs().getFiles());
+            this.inputFiles = inputFilesSnapshot;
             this.inputFilesSnapshot = inputFilesSnapshot.getSnapshot();
             inputFilesState = caching(InputFilesStateChangeRule.create(lastExecution, thisExecution, inputFilesSnapshot));
         } catch (UncheckedIOException e) {
@@ -80,6 +82,10 @@ public class TaskUpToDateState {
         return inputFilesState;
     }
 
+    public TaskStateChanges getOutputFilesChanges() {
+        return outputFilesState;
+    }
+
     public TaskStateChanges getAllTaskChanges() {
         return allTaskChanges;
     }
@@ -92,6 +98,10 @@ public class TaskUpToDateState {
         return inputFilesSnapshot;
     }
 
+    public FileCollectionSnapshot getInputFiles() {
+        return inputFiles;
+    }
+
     public DiscoveredTaskStateChanges getDiscoveredInputFilesChanges() {
         return discoveredInputFilesState;
     }
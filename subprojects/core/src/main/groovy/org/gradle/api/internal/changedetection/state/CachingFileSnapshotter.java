@@ -17,6 +17,7 @@ package org.gradle.api.internal.changedetection.state;
 
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.hash.HashAlgorithm;
 import org.gradle.api.internal.hash.Hasher;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.PersistentStore;
@@ -29,11 +30,13 @@ import java.io.File;
 public class CachingFileSnapshotter implements FileSnapshotter, FileTreeElementSnapshotter {
     private final PersistentIndexedCache<String, FileInfo> cache;
     private final Hasher hasher;
+    private final HashAlgorithm algorithm;
     private final FileInfoSerializer serializer = new FileInfoSerializer();
     private final StringInterner stringInterner;
 
     public CachingFileSnapshotter(Hasher hasher, PersistentStore store, StringInterner stringInterner) {
         this.hasher = hasher;
+        this.algorithm = hasher.getAlgorithm();
         this.cache = store.createCache("fileHashes", String.class, serializer);
         this.stringInterner = stringInterner;
     }
@@ -46,34 +49,67 @@ public class CachingFileSnapshotter implements FileSnapshotter, FileTreeElementS
         return snapshot(file.getFile(), file.getSize(), file.getLastModified());
     }
 
+    public FileInfo findCachedSnapshot(FileTreeElement file) {
+        FileInfo info = cache.get(file.getFile().getAbsolutePath());
+        return isUpToDate(info, file.getSize(), file.getLastModified()) ? info : null;
+    }
+
+    public FileInfo calculateSnapshot(FileTreeElement file) {
+        long length = file.getSize();
+        long timestamp = file.getLastModified();
+        return new FileInfo(hasher.hash(file.getFile()), length, timestamp, algorithm);
+    }
+
+    public void storeSnapshot(FileTreeElement file, FileSnapshot snapshot) {
+        cache.put(stringInterner.intern(file.getFile().getAbsolutePath()), (FileInfo) snapshot);
+    }
+
     private FileInfo snapshot(File file, long length, long timestamp) {
         String absolutePath = file.getAbsolutePath();
         FileInfo info = cache.get(absolutePath);
 
-        if (info != null && length == info.length && timestamp == info.timestamp) {
+        if (isUpToDate(info, length, timestamp)) {
             return info;
         }
 
         byte[] hash = hasher.hash(file);
-        info = new FileInfo(hash, length, timestamp);
+        info = new FileInfo(hash, length, timestamp, algorithm);
         cache.put(stringInterner.intern(absolutePath), info);
         return info;
     }
 
+    private boolean isUpToDate(FileInfo info, long length, long timestamp) {
+        return info != null && length == info.length && timestamp == info.timestamp && algorithm == info.algorithm;
+    }
+
     public static class FileInfo implements FileSnapshot {
         private final byte[] hash;
         private final long timestamp;
         private final long length;
+        private final HashAlgorithm algorithm;
 
-        public FileInfo(byte[] hash, long length, long timestamp) {
+        public FileInfo(byte[] hash, long length, long timestamp, HashAlgorithm algorithm) {
             this.hash = hash;
             this.length = length;
             this.timestamp = timestamp;
+            this.algorithm = algorithm;
         }
 
         public byte[] getHash() {
             return hash;
         }
+
+        public long getLength() {
+            return length;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public HashAlgorithm getAlgorithm() {
+            return algorithm;
+        }
     }
 
     private static class FileInfoSerializer implements Serializer<FileInfo> {
@@ -81,13 +117,15 @@ public class CachingFileSnapshotter implements FileSnapshotter, FileTreeElementS
             byte[] hash = decoder.readBinary();
             long timestamp = decoder.readLong();
             long length = decoder.readLong();
-            return new FileInfo(hash, length, timestamp);
+            HashAlgorithm algorithm = HashAlgorithm.values()[decoder.readSmallInt()];
+            return new FileInfo(hash, length, timestamp, algorithm);
         }
 
         public void write(Encoder encoder, FileInfo value) throws Exception {
             encoder.writeBinary(value.hash);
             encoder.writeLong(value.timestamp);
             encoder.writeLong(value.length);
+            encoder.writeSmallInt(value.algorithm.ordinal());
         }
     }
 }
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.cache.AbstractCache;
+import com.google.common.cache.CacheStats;
+import org.gradle.api.internal.hash.HashAlgorithm;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+/**
+ * An in-memory cache of {@link CachingFileSnapshotter.FileInfo} values keyed by absolute path. Rather than holding a graph of objects for each entry,
+ * the hash, length and timestamp of each entry are stored as a fixed-width record in a single {@code long[]}, and entries are located through an
+ * open-addressed {@code int[]} index. An entry costs about {@value #BYTES_PER_ENTRY} bytes plus its path, which is usually the interned path that is
+ * also referenced by the file snapshots.
+ *
+ * <p>The number of entries is bounded by a budget in bytes. Once the budget is used up, entries are evicted using the clock algorithm, an
+ * approximation of least-recently-used.</p>
+ */
+class CompactFileInfoCache extends AbstractCache<Object, Object> {
+    private static final Logger LOGGER = Logging.getLogger(CompactFileInfoCache.class);
+
+    private static final int RECORD_LONGS = 5;
+    private static final int HASH_HIGH = 0;
+    private static final int HASH_LOW = 1;
+    private static final int LENGTH = 2;
+    private static final int TIMESTAMP = 3;
+    private static final int META = 4;
+
+    // The record, the reference to the path and two index slots, as the index is kept at most half full
+    static final int BYTES_PER_ENTRY = RECORD_LONGS * 8 + 8 + 2 * 4;
+
+    private static final int MAX_HASH_LENGTH = 16;
+    private static final int MAX_ENTRIES = 1 << 26;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Layout of the meta data of a record: the hash length in bits 0-7, the hash algorithm in bits 8-15, and flags
+    private static final long REFERENCED = 1L << 16;
+    private static final long MISSING = 1L << 17;
+
+    private final String cacheId;
+    private final Object missingValue;
+    private final int maxEntries;
+    private final int logInterval;
+    private final StatsCounter stats = new SimpleStatsCounter();
+
+    private String[] paths;
+    private long[] records;
+    private int[] index;
+    private int size;
+    private int clockHand;
+    private int evictionCounter;
+
+    /**
+     * @param missingValue the value that is put to record that the backing cache has no entry for a key.
+     */
+    CompactFileInfoCache(String cacheId, long maxBytes, Object missingValue) {
+        this.cacheId = cacheId;
+        this.missingValue = missingValue;
+        this.maxEntries = (int) Math.max(1, Math.min(MAX_ENTRIES, maxBytes / BYTES_PER_ENTRY));
+        this.logInterval = Math.max(1, maxEntries / 10);
+        allocate(Math.min(INITIAL_CAPACITY, maxEntries));
+    }
+
+    int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public synchronized Object getIfPresent(Object key) {
+        int slot = key instanceof String ? findSlot((String) key) : -1;
+        if (slot < 0) {
+            stats.recordMisses(1);
+            return null;
+        }
+        stats.recordHits(1);
+        int offset = (index[slot] - 1) * RECORD_LONGS;
+        long meta = records[offset + META];
+        records[offset + META] = meta | REFERENCED;
+        if ((meta & MISSING) != 0) {
+            return missingValue;
+        }
+        byte[] hash = new byte[(int) (meta & 0xff)];
+        unpack(records[offset + HASH_HIGH], hash, 0);
+        unpack(records[offset + HASH_LOW], hash, 8);
+        HashAlgorithm algorithm = HashAlgorithm.values()[(int) ((meta >>> 8) & 0xff)];
+        return new CachingFileSnapshotter.FileInfo(hash, records[offset + LENGTH], records[offset + TIMESTAMP], algorithm);
+    }
+
+    public synchronized void put(Object key, Object value) {
+        String path = (String) key;
+        long hashHigh = 0;
+        long hashLow = 0;
+        long length = 0;
+        long timestamp = 0;
+        long meta;
+        if (value == missingValue) {
+            meta = MISSING;
+        } else {
+            CachingFileSnapshotter.FileInfo fileInfo = (CachingFileSnapshotter.FileInfo) value;
+            byte[] hash = fileInfo.getHash();
+            if (hash.length > MAX_HASH_LENGTH) {
+                // Does not fit into a record, so fall back to the backing cache
+                invalidate(key);
+                return;
+            }
+            hashHigh = pack(hash, 0);
+            hashLow = pack(hash, 8);
+            length = fileInfo.getLength();
+            timestamp = fileInfo.getTimestamp();
+            meta = hash.length | (fileInfo.getAlgorithm().ordinal() << 8);
+        }
+
+        int slot = findSlot(path);
+        int record = slot < 0 ? addRecord(path) : index[slot] - 1;
+        int offset = record * RECORD_LONGS;
+        records[offset + HASH_HIGH] = hashHigh;
+        records[offset + HASH_LOW] = hashLow;
+        records[offset + LENGTH] = length;
+        records[offset + TIMESTAMP] = timestamp;
+        records[offset + META] = meta | REFERENCED;
+    }
+
+    public synchronized void invalidate(Object key) {
+        int slot = key instanceof String ? findSlot((String) key) : -1;
+        if (slot >= 0) {
+            removeRecord(slot);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        allocate(Math.min(INITIAL_CAPACITY, maxEntries));
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public CacheStats stats() {
+        return stats.snapshot();
+    }
+
+    private void allocate(int capacity) {
+        paths = new String[capacity];
+        records = new long[capacity * RECORD_LONGS];
+        index = new int[indexSizeFor(capacity)];
+        size = 0;
+        clockHand = 0;
+    }
+
+    private int addRecord(String path) {
+        if (size == paths.length) {
+            if (size < maxEntries) {
+                grow();
+            } else {
+                evict();
+            }
+        }
+        int record = size++;
+        paths[record] = path;
+        insertIntoIndex(path, record);
+        return record;
+    }
+
+    private void grow() {
+        int capacity = (int) Math.min(maxEntries, 2L * paths.length);
+        String[] oldPaths = paths;
+        long[] oldRecords = records;
+        paths = new String[capacity];
+        records = new long[capacity * RECORD_LONGS];
+        System.arraycopy(oldPaths, 0, paths, 0, size);
+        System.arraycopy(oldRecords, 0, records, 0, size * RECORD_LONGS);
+        index = new int[indexSizeFor(capacity)];
+        for (int record = 0; record < size; record++) {
+            insertIntoIndex(paths[record], record);
+        }
+    }
+
+    private void evict() {
+        while (true) {
+            if (clockHand >= size) {
+                clockHand = 0;
+            }
+            int offset = clockHand * RECORD_LONGS;
+            long meta = records[offset + META];
+            if ((meta & REFERENCED) == 0) {
+                removeRecord(findSlot(paths[clockHand]));
+                stats.recordEviction();
+                if (evictionCounter++ % logInterval == 0) {
+                    LOGGER.info("Cache entries evicted. In-memory cache of {}: Size{{}} MaxSize{{}}, {}\nPerformance may suffer from in-memory cache misses. Increase max heap size of Gradle build process to reduce cache misses.",
+                        cacheId, size, maxEntries, stats.snapshot());
+                }
+                return;
+            }
+            // Give the record a second chance
+            records[offset + META] = meta & ~REFERENCED;
+            clockHand++;
+        }
+    }
+
+    /**
+     * Removes the record referenced by the given index slot. The last record is moved into its place, so that the records stay dense.
+     */
+    private void removeRecord(int slot) {
+        int record = index[slot] - 1;
+        removeFromIndex(slot);
+        int last = size - 1;
+        if (record != last) {
+            paths[record] = paths[last];
+            System.arraycopy(records, last * RECORD_LONGS, records, record * RECORD_LONGS, RECORD_LONGS);
+            index[findSlot(paths[last])] = record + 1;
+        }
+        paths[last] = null;
+        size--;
+    }
+
+    private int findSlot(String path) {
+        int mask = index.length - 1;
+        int slot = spread(path.hashCode()) & mask;
+        while (true) {
+            int entry = index[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (path.equals(paths[entry - 1])) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void insertIntoIndex(String path, int record) {
+        int mask = index.length - 1;
+        int slot = spread(path.hashCode()) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = record + 1;
+    }
+
+    private void removeFromIndex(int slot) {
+        // Shift later entries of the probe sequence back, so that lookups do not stop at the freed slot
+        int mask = index.length - 1;
+        int free = slot;
+        int next = (slot + 1) & mask;
+        while (index[next] != 0) {
+            int preferred = spread(paths[index[next] - 1].hashCode()) & mask;
+            if (((next - preferred) & mask) >= ((next - free) & mask)) {
+                index[free] = index[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        index[free] = 0;
+    }
+
+    private static int indexSizeFor(int capacity) {
+        return Integer.highestOneBit(Math.max(1, capacity) * 2 - 1) << 1;
+    }
+
+    private static int spread(int hashCode) {
+        int h = hashCode * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static long pack(byte[] bytes, int start) {
+        long value = 0;
+        for (int i = start; i < start + 8; i++) {
+            value = (value << 8) | (i < bytes.length ? bytes[i] & 0xff : 0);
+        }
+        return value;
+    }
+
+    private static void unpack(long value, byte[] bytes, int start) {
+        for (int i = start; i < start + 8; i++) {
+            if (i < bytes.length) {
+                bytes[i] = (byte) (value >>> (8 * (start + 7 - i)));
+            }
+        }
+    }
+}
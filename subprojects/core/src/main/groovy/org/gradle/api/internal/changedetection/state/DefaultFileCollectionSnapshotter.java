@@ -16,6 +16,8 @@
 
 package org.gradle.api.internal.changedetection.state;
 
+import com.google.common.collect.Lists;
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
@@ -23,6 +25,11 @@ import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.file.CachingFileVisitDetails;
 import org.gradle.api.internal.file.FileTreeInternal;
 import org.gradle.api.internal.file.collections.*;
+import org.gradle.api.internal.tasks.cache.TaskOutputCacheKeyBuilder;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
 import org.gradle.internal.serialize.SerializerRegistry;
 import org.gradle.util.ChangeListener;
 import org.gradle.util.NoOpChangeListener;
@@ -32,14 +39,26 @@ import java.math.BigInteger;
 import java.util.*;
 
 public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshotter {
+    // Number of files hashed by a single build operation. Small enough to balance the work between workers, large enough to amortize the cost of an operation.
+    private static final int HASHING_BATCH_SIZE = 50;
+
     private final FileTreeElementSnapshotter snapshotter;
     private TaskArtifactStateCacheAccess cacheAccess;
     private final StringInterner stringInterner;
+    private final BuildOperationProcessor buildOperationProcessor;
 
     public DefaultFileCollectionSnapshotter(FileTreeElementSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner) {
+        this(snapshotter, cacheAccess, stringInterner, null);
+    }
+
+    /**
+     * @param buildOperationProcessor used to hash files that are not in the cache concurrently. When null, files are hashed by the calling thread.
+     */
+    public DefaultFileCollectionSnapshotter(FileTreeElementSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner, @Nullable BuildOperationProcessor buildOperationProcessor) {
         this.snapshotter = snapshotter;
         this.cacheAccess = cacheAccess;
         this.stringInterner = stringInterner;
+        this.buildOperationProcessor = buildOperationProcessor;
     }
 
     public void registerSerializers(SerializerRegistry<FileCollectionSnapshot> registry) {
@@ -61,6 +80,10 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
 
         cacheAccess.useCache("Create file snapshot", new Runnable() {
             public void run() {
+                if (buildOperationProcessor != null) {
+                    snapshotConcurrently(allFileVisitDetails, snapshots);
+                    return;
+                }
                 for (FileVisitDetails fileDetails : allFileVisitDetails) {
                     final String absolutePath = stringInterner.intern(fileDetails.getFile().getAbsolutePath());
                     if (!snapshots.containsKey(absolutePath)) {
@@ -77,6 +100,95 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
         return new FileCollectionSnapshotImpl(snapshots);
     }
 
+    /**
+     * Looks up the files in the cache on the calling thread, which owns the cache, and hashes the cache misses in batches using the build operation processor.
+     * The snapshots are added to the result in visit order, so the result is the same as when hashing sequentially.
+     */
+    private void snapshotConcurrently(List<FileVisitDetails> allFileVisitDetails, Map<String, IncrementalFileSnapshot> snapshots) {
+        Map<String, IncrementalFileSnapshot> visitedSnapshots = new LinkedHashMap<String, IncrementalFileSnapshot>();
+        List<HashFile> cacheMisses = new ArrayList<HashFile>();
+        for (FileVisitDetails fileDetails : allFileVisitDetails) {
+            String absolutePath = stringInterner.intern(fileDetails.getFile().getAbsolutePath());
+            if (visitedSnapshots.containsKey(absolutePath)) {
+                continue;
+            }
+            if (fileDetails.isDirectory()) {
+                visitedSnapshots.put(absolutePath, DirSnapshot.getInstance());
+                continue;
+            }
+            FileSnapshot cachedSnapshot = snapshotter.findCachedSnapshot(fileDetails);
+            if (cachedSnapshot != null) {
+                visitedSnapshots.put(absolutePath, new FileHashSnapshot(cachedSnapshot.getHash()));
+            } else {
+                // Reserve the position of the file, the snapshot is filled in once the file has been hashed
+                visitedSnapshots.put(absolutePath, null);
+                cacheMisses.add(new HashFile(absolutePath, fileDetails));
+            }
+        }
+
+        hash(cacheMisses);
+
+        for (HashFile hashFile : cacheMisses) {
+            snapshotter.storeSnapshot(hashFile.fileDetails, hashFile.snapshot);
+            visitedSnapshots.put(hashFile.absolutePath, new FileHashSnapshot(hashFile.snapshot.getHash()));
+        }
+        snapshots.putAll(visitedSnapshots);
+    }
+
+    private void hash(List<HashFile> files) {
+        if (files.size() <= HASHING_BATCH_SIZE) {
+            for (HashFile file : files) {
+                file.snapshot = snapshotter.calculateSnapshot(file.fileDetails);
+            }
+            return;
+        }
+        final BuildOperationQueue<HashFilesOperation> queue = buildOperationProcessor.newQueue(new HashFilesWorker(), null);
+        for (List<HashFile> batch : Lists.partition(files, HASHING_BATCH_SIZE)) {
+            queue.add(new HashFilesOperation(batch));
+        }
+        // The workers do not use the cache, so release it while waiting for the shared build operation pool, rather than blocking other tasks' history access
+        cacheAccess.longRunningOperation("Hash files", new Runnable() {
+            public void run() {
+                queue.waitForCompletion();
+            }
+        });
+    }
+
+    private static class HashFile {
+        final String absolutePath;
+        final FileVisitDetails fileDetails;
+        FileSnapshot snapshot;
+
+        HashFile(String absolutePath, FileVisitDetails fileDetails) {
+            this.absolutePath = absolutePath;
+            this.fileDetails = fileDetails;
+        }
+    }
+
+    private static class HashFilesOperation implements BuildOperation {
+        final List<HashFile> files;
+
+        HashFilesOperation(List<HashFile> files) {
+            this.files = files;
+        }
+
+        public String getDescription() {
+            return String.format("hash %d files starting with %s", files.size(), files.get(0).absolutePath);
+        }
+    }
+
+    private class HashFilesWorker implements BuildOperationWorker<HashFilesOperation> {
+        public String getDisplayName() {
+            return "file hasher";
+        }
+
+        public void execute(HashFilesOperation operation) {
+            for (HashFile file : operation.files) {
+                file.snapshot = snapshotter.calculateSnapshot(file.fileDetails);
+            }
+        }
+    }
+
     private List<FileVisitDetails> visitFiles(FileCollection input) {
         final List<FileVisitDetails> allFileVisitDetails = new LinkedList<FileVisitDetails>();
 
@@ -205,6 +317,36 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
             };
         }
 
+        public void appendToCacheKey(TaskOutputCacheKeyBuilder builder, File baseDir) {
+            // Orders by relative path, so the order does not depend on where the build is located
+            SortedMap<String, List<IncrementalFileSnapshot>> relativePaths = new TreeMap<String, List<IncrementalFileSnapshot>>();
+            List<String> paths = new ArrayList<String>(snapshots.keySet());
+            Collections.sort(paths);
+            for (String path : paths) {
+                String relativePath = TaskOutputCacheKeyBuilder.relativePath(path, baseDir);
+                List<IncrementalFileSnapshot> snapshotsWithPath = relativePaths.get(relativePath);
+                if (snapshotsWithPath == null) {
+                    snapshotsWithPath = new ArrayList<IncrementalFileSnapshot>(1);
+                    relativePaths.put(relativePath, snapshotsWithPath);
+                }
+                snapshotsWithPath.add(snapshots.get(path));
+            }
+            builder.putInt(paths.size());
+            for (Map.Entry<String, List<IncrementalFileSnapshot>> entry : relativePaths.entrySet()) {
+                for (IncrementalFileSnapshot snapshot : entry.getValue()) {
+                    builder.putString(entry.getKey());
+                    if (snapshot instanceof FileHashSnapshot) {
+                        builder.putInt(0);
+                        builder.putBytes(((FileHashSnapshot) snapshot).hash);
+                    } else if (snapshot instanceof DirSnapshot) {
+                        builder.putInt(1);
+                    } else {
+                        builder.putInt(2);
+                    }
+                }
+            }
+        }
+
         public ChangeIterator<String> iterateChangesSince(FileCollectionSnapshot oldSnapshot) {
             FileCollectionSnapshotImpl other = (FileCollectionSnapshotImpl) oldSnapshot;
             final Map<String, IncrementalFileSnapshot> otherSnapshots = new HashMap<String, IncrementalFileSnapshot>(other.snapshots);
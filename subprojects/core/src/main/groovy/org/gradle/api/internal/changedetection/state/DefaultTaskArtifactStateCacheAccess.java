@@ -26,10 +26,13 @@ import org.gradle.internal.Factory;
 import org.gradle.internal.serialize.Serializer;
 
 import java.io.Closeable;
+import java.util.Collections;
 
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 
 public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCacheAccess, Closeable {
+    // Increment when the format of any of the caches changes, so that caches written in an earlier format are discarded
+    static final String CACHE_LAYOUT_VERSION = "2";
     private final CacheDecorator inMemoryDecorator;
     private final PersistentCache cache;
 
@@ -38,6 +41,7 @@ public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCac
         cache = cacheRepository
                 .cache(gradle, "taskArtifacts")
                 .withDisplayName("task history cache")
+                .withProperties(Collections.singletonMap("layoutVersion", CACHE_LAYOUT_VERSION))
                 .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
                 .open();
     }
@@ -17,8 +17,11 @@
 package org.gradle.api.internal.changedetection.state;
 
 import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.tasks.cache.TaskOutputCacheKeyBuilder;
 import org.gradle.util.ChangeListener;
 
+import java.io.File;
+
 /**
  * An immutable snapshot of the contents of a collection of files.
  */
@@ -32,6 +35,11 @@ public interface FileCollectionSnapshot {
 
     FilesSnapshotSet getSnapshot();
 
+    /**
+     * Adds the paths and contents of the files in this snapshot to the given cache key, in a stable order. Paths are added relative to the given base directory.
+     */
+    void appendToCacheKey(TaskOutputCacheKeyBuilder builder, File baseDir);
+
     public interface Diff {
         /**
          * Applies this diff to the given snapshot. Adds any added or changed files in this diff to the given snapshot.
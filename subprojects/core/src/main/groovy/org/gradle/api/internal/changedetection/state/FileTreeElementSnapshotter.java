@@ -16,8 +16,25 @@
 
 package org.gradle.api.internal.changedetection.state;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileTreeElement;
 
 public interface FileTreeElementSnapshotter extends FileSnapshotter {
     FileSnapshot snapshot(FileTreeElement fileDetails);
+
+    /**
+     * Returns the cached snapshot of the given file, or null when the file has changed since it was last snapshotted.
+     */
+    @Nullable
+    FileSnapshot findCachedSnapshot(FileTreeElement fileDetails);
+
+    /**
+     * Calculates the snapshot of the given file without using the cache. Can be called concurrently from any thread.
+     */
+    FileSnapshot calculateSnapshot(FileTreeElement fileDetails);
+
+    /**
+     * Caches a snapshot created by {@link #calculateSnapshot(FileTreeElement)}.
+     */
+    void storeSnapshot(FileTreeElement fileDetails, FileSnapshot snapshot);
 }
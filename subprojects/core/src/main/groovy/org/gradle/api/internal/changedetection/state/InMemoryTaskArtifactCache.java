@@ -33,16 +33,21 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
     private final static Logger LOG = Logging.getLogger(InMemoryTaskArtifactCache.class);
     private final static Object NULL = new Object();
     private static final Map<String, Integer> CACHE_CAPS = new CacheCapSizer().calculateCaps();
+    private static final Map<String, Integer> CACHE_BYTE_CAPS = new CacheCapSizer().calculateByteCaps();
 
     static class CacheCapSizer {
         private static final Map<String, Integer> DEFAULT_CAP_SIZES = new HashMap<String, Integer>();
+        // Caps for the caches held in a compact store, which are bounded by size in bytes rather than by number of entries
+        private static final Map<String, Integer> DEFAULT_BYTE_CAP_SIZES = new HashMap<String, Integer>();
+        private static final int MEGABYTE = 1024 * 1024;
 
         static {
             DEFAULT_CAP_SIZES.put("fileSnapshots", 10000);
             DEFAULT_CAP_SIZES.put("taskArtifacts", 2000);
+            DEFAULT_CAP_SIZES.put("taskDurations", 2000);
             DEFAULT_CAP_SIZES.put("outputFileStates", 3000);
-            DEFAULT_CAP_SIZES.put("fileHashes", 400000);
             DEFAULT_CAP_SIZES.put("compilationState", 1000);
+            DEFAULT_BYTE_CAP_SIZES.put("fileHashes", 32 * MEGABYTE);
         }
 
         final HeapProportionalSizer sizer;
@@ -62,12 +67,20 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
             }
             return capSizes;
         }
+
+        public Map<String, Integer> calculateByteCaps() {
+            Map<String, Integer> capSizes = new HashMap<String, Integer>();
+            for (Map.Entry<String, Integer> entry : DEFAULT_BYTE_CAP_SIZES.entrySet()) {
+                capSizes.put(entry.getKey(), sizer.scaleValue(entry.getValue(), MEGABYTE));
+            }
+            return capSizes;
+        }
     }
 
 
     private final Object lock = new Object();
     private final Cache<String, Cache<Object, Object>> cache = CacheBuilder.newBuilder()
-            .maximumSize(CACHE_CAPS.size() * 2) //X2 to factor in a child build (for example buildSrc)
+            .maximumSize((CACHE_CAPS.size() + CACHE_BYTE_CAPS.size()) * 2) //X2 to factor in a child build (for example buildSrc)
             .build();
 
     private final Map<String, FileLock.State> states = new HashMap<String, FileLock.State>();
@@ -131,6 +144,11 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
             theData = this.cache.getIfPresent(cacheId);
             if (theData != null) {
                 LOG.info("In-memory cache of {}: Size{{}}, {}", cacheId, theData.size() , theData.stats());
+            } else if (CACHE_BYTE_CAPS.containsKey(cacheName)) {
+                int maxBytes = CACHE_BYTE_CAPS.get(cacheName);
+                LOG.info("Creating compact in-memory cache of {}: MaxBytes{{}}", cacheId, maxBytes);
+                theData = new CompactFileInfoCache(cacheId, maxBytes, NULL);
+                this.cache.put(cacheId, theData);
             } else {
                 Integer maxSize = CACHE_CAPS.get(cacheName);
                 assert maxSize != null : "Unknown cache.";
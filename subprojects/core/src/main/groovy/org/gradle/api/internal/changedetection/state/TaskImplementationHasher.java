@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.gradle.internal.Factory;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.util.*;
+
+/**
+ * Calculates a hash of the classpath that a task type and its super types are loaded from, so that the outputs of a task are not reused once the
+ * implementation of the task has changed. Each jar is identified by its contents, and each classes directory by the paths and contents of its files.
+ * Types that are not loaded from a local file, such as generated types, do not contribute to the hash.
+ */
+public class TaskImplementationHasher {
+    private final FileSnapshotter fileSnapshotter;
+    private final TaskArtifactStateCacheAccess cacheAccess;
+    private final Map<Class<?>, byte[]> hashes = new HashMap<Class<?>, byte[]>();
+
+    public TaskImplementationHasher(FileSnapshotter fileSnapshotter, TaskArtifactStateCacheAccess cacheAccess) {
+        this.fileSnapshotter = fileSnapshotter;
+        this.cacheAccess = cacheAccess;
+    }
+
+    public synchronized byte[] hash(final Class<?> taskType) {
+        byte[] hash = hashes.get(taskType);
+        if (hash == null) {
+            hash = cacheAccess.useCache("Hash task implementation", new Factory<byte[]>() {
+                public byte[] create() {
+                    return calculateHash(taskType);
+                }
+            });
+            hashes.put(taskType, hash);
+        }
+        return hash;
+    }
+
+    private byte[] calculateHash(Class<?> taskType) {
+        Set<File> locations = new LinkedHashSet<File>();
+        for (Class<?> type = taskType; type != null && type != Object.class; type = type.getSuperclass()) {
+            File location = getLocation(type);
+            if (location != null) {
+                locations.add(location);
+            }
+        }
+        Hasher hasher = Hashing.md5().newHasher();
+        for (File location : locations) {
+            if (location.isFile()) {
+                hasher.putBytes(fileSnapshotter.snapshot(location).getHash());
+            } else if (location.isDirectory()) {
+                hashDirectory(location, "", hasher);
+            }
+        }
+        return hasher.hash().asBytes();
+    }
+
+    private void hashDirectory(File dir, String relativePath, Hasher hasher) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            String childPath = relativePath + child.getName();
+            if (child.isDirectory()) {
+                hashDirectory(child, childPath + "/", hasher);
+            } else if (child.isFile()) {
+                hasher.putInt(childPath.length());
+                hasher.putString(childPath, Charsets.UTF_8);
+                hasher.putBytes(fileSnapshotter.snapshot(child).getHash());
+            }
+        }
+    }
+
+    private static File getLocation(Class<?> type) {
+        CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+        if (codeSource == null) {
+            return null;
+        }
+        URL location = codeSource.getLocation();
+        if (location == null || !location.getProtocol().equals("file")) {
+            return null;
+        }
+        try {
+            return new File(location.toURI());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+}
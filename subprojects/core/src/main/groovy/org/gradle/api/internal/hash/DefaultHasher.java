@@ -15,12 +15,94 @@
  */
 package org.gradle.api.internal.hash;
 
-import org.gradle.internal.hash.HashUtil;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.os.OperatingSystem;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 
 public class DefaultHasher implements Hasher {
+    /**
+     * The system property used to select the {@link HashAlgorithm} used for up-to-date checks.
+     */
+    public static final String ALGORITHM_PROPERTY = "org.gradle.hashing.algorithm";
+
+    private static final long MEMORY_MAPPING_THRESHOLD = 1024 * 1024;
+    private static final int MAPPED_REGION_SIZE = 64 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final HashAlgorithm algorithm;
+    private final boolean memoryMapLargeFiles;
+
+    public DefaultHasher() {
+        this(HashAlgorithm.MD5);
+    }
+
+    public DefaultHasher(HashAlgorithm algorithm) {
+        // A mapped file cannot be deleted on Windows until the mapping is garbage collected
+        this(algorithm, !OperatingSystem.current().isWindows());
+    }
+
+    DefaultHasher(HashAlgorithm algorithm, boolean memoryMapLargeFiles) {
+        this.algorithm = algorithm;
+        this.memoryMapLargeFiles = memoryMapLargeFiles;
+    }
+
+    /**
+     * Creates a hasher using the algorithm selected by the {@value #ALGORITHM_PROPERTY} system property, or {@link HashAlgorithm#MD5} if not set.
+     */
+    public static DefaultHasher fromSystemProperty() {
+        String algorithm = System.getProperty(ALGORITHM_PROPERTY);
+        return algorithm == null ? new DefaultHasher() : new DefaultHasher(HashAlgorithm.forName(algorithm));
+    }
+
+    public HashAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
     public byte[] hash(File file) {
-        return HashUtil.createHash(file, "MD5").asByteArray();
+        com.google.common.hash.Hasher hasher = algorithm.getHashFunction().newHasher();
+        try {
+            FileInputStream inputStream = new FileInputStream(file);
+            try {
+                long length = inputStream.getChannel().size();
+                if (memoryMapLargeFiles && length >= MEMORY_MAPPING_THRESHOLD) {
+                    hashMapped(inputStream.getChannel(), length, hasher);
+                } else {
+                    hashStreamed(inputStream, hasher);
+                }
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to create %s hash for file %s.", algorithm, file.getAbsolutePath()), e);
+        }
+        return hasher.hash().asBytes();
+    }
+
+    private void hashStreamed(FileInputStream inputStream, com.google.common.hash.Hasher hasher) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (true) {
+            int nread = inputStream.read(buffer);
+            if (nread < 0) {
+                break;
+            }
+            hasher.putBytes(buffer, 0, nread);
+        }
+    }
+
+    private void hashMapped(FileChannel channel, long length, com.google.common.hash.Hasher hasher) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (long position = 0; position < length; position += MAPPED_REGION_SIZE) {
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPED_REGION_SIZE, length - position));
+            while (region.hasRemaining()) {
+                int count = Math.min(buffer.length, region.remaining());
+                region.get(buffer, 0, count);
+                hasher.putBytes(buffer, 0, count);
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.hash;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * The hash functions that can be used to detect changes to file contents.
+ */
+public enum HashAlgorithm {
+    /**
+     * The default. Produces the same hashes as earlier Gradle versions.
+     */
+    MD5 {
+        @Override
+        public HashFunction getHashFunction() {
+            return Hashing.md5();
+        }
+    },
+    /**
+     * A non-cryptographic hash function, which is considerably cheaper to calculate than {@link #MD5}.
+     */
+    MURMUR3_128 {
+        @Override
+        public HashFunction getHashFunction() {
+            return Hashing.murmur3_128();
+        }
+    };
+
+    public abstract HashFunction getHashFunction();
+
+    /**
+     * Locates the algorithm with the given name, ignoring case.
+     *
+     * @throws IllegalArgumentException when there is no such algorithm.
+     */
+    public static HashAlgorithm forName(String name) {
+        for (HashAlgorithm algorithm : values()) {
+            if (algorithm.name().equalsIgnoreCase(name)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown hash algorithm '%s'.", name));
+    }
+}
@@ -19,4 +19,9 @@ import java.io.File;
 
 public interface Hasher {
     byte[] hash(File file);
+
+    /**
+     * The algorithm used to calculate hashes. Hashes calculated with different algorithms cannot be compared.
+     */
+    HashAlgorithm getAlgorithm();
 }
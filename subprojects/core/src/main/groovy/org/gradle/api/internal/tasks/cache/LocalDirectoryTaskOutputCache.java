@@ -0,0 +1,180 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.FileLockManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.UUID;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * A {@link TaskOutputCache} that stores each entry as a file in a directory in the Gradle user home. Entries are written to a temporary file and
+ * then renamed, so that processes sharing the directory never see partially written entries.
+ *
+ * <p>Loading an entry marks it as recently used. When the total size of the entries exceeds the maximum size, the least recently used entries
+ * are deleted until the total size is below 80% of the maximum.</p>
+ */
+public class LocalDirectoryTaskOutputCache implements TaskOutputCache, Closeable {
+    public static final long DEFAULT_MAX_SIZE = 5L * 1024 * 1024 * 1024;
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalDirectoryTaskOutputCache.class);
+    private static final String TEMP_FILE_SUFFIX = ".part";
+    private static final long STALE_TEMP_FILE_AGE = 60 * 60 * 1000;
+
+    private final CacheRepository cacheRepository;
+    private final long maxSize;
+    private PersistentCache cache;
+    private long totalSize = -1;
+
+    public LocalDirectoryTaskOutputCache(CacheRepository cacheRepository, long maxSize) {
+        this.cacheRepository = cacheRepository;
+        this.maxSize = maxSize;
+    }
+
+    public String getDescription() {
+        return "local task output cache";
+    }
+
+    public boolean load(TaskOutputCacheKey key, TaskOutputReader reader) {
+        File entry = new File(getDirectory(), key.getHashCode());
+        try {
+            InputStream input;
+            try {
+                input = new BufferedInputStream(new FileInputStream(entry));
+            } catch (FileNotFoundException e) {
+                return false;
+            }
+            try {
+                entry.setLastModified(System.currentTimeMillis());
+                reader.readFrom(input);
+            } finally {
+                input.close();
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not load cached task outputs from '%s'.", entry), e);
+        }
+    }
+
+    public void store(TaskOutputCacheKey key, TaskOutputWriter writer) {
+        File dir = getDirectory();
+        File entry = new File(dir, key.getHashCode());
+        File tempFile = new File(dir, key.getHashCode() + "-" + UUID.randomUUID() + TEMP_FILE_SUFFIX);
+        try {
+            OutputStream output = new BufferedOutputStream(new FileOutputStream(tempFile));
+            try {
+                writer.writeTo(output);
+            } finally {
+                output.close();
+            }
+            entry.delete();
+            if (!tempFile.renameTo(entry)) {
+                throw new IOException(String.format("Could not rename '%s' to '%s'.", tempFile, entry));
+            }
+        } catch (IOException e) {
+            tempFile.delete();
+            throw new UncheckedIOException(String.format("Could not store task outputs in '%s'.", entry), e);
+        }
+        entryAdded(entry.length());
+    }
+
+    private synchronized void entryAdded(long size) {
+        if (totalSize < 0) {
+            totalSize = 0;
+            for (File entry : listEntries()) {
+                totalSize += entry.length();
+            }
+        } else {
+            totalSize += size;
+        }
+        if (totalSize > maxSize) {
+            evict();
+        }
+    }
+
+    private void evict() {
+        File[] entries = listEntries();
+        final long[] lastUsed = new long[entries.length];
+        Integer[] order = new Integer[entries.length];
+        totalSize = 0;
+        for (int i = 0; i < entries.length; i++) {
+            lastUsed[i] = entries[i].lastModified();
+            totalSize += entries[i].length();
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer o1, Integer o2) {
+                return lastUsed[o1] < lastUsed[o2] ? -1 : lastUsed[o1] > lastUsed[o2] ? 1 : 0;
+            }
+        });
+        long targetSize = maxSize / 5 * 4;
+        int evicted = 0;
+        for (int i = 0; i < order.length && totalSize > targetSize; i++) {
+            File entry = entries[order[i]];
+            long size = entry.length();
+            if (entry.delete()) {
+                totalSize -= size;
+                evicted++;
+            }
+        }
+        LOGGER.info("Evicted {} entries from {}.", evicted, getDescription());
+    }
+
+    private File[] listEntries() {
+        final long staleTime = System.currentTimeMillis() - STALE_TEMP_FILE_AGE;
+        File[] entries = getDirectory().listFiles(new FileFilter() {
+            public boolean accept(File file) {
+                if (file.getName().endsWith(TEMP_FILE_SUFFIX)) {
+                    // Left behind by a process that failed while storing an entry
+                    if (file.lastModified() < staleTime) {
+                        file.delete();
+                    }
+                    return false;
+                }
+                // Entry names are hash codes, which contain no '.', unlike the files that manage the cache directory
+                return file.isFile() && file.getName().indexOf('.') < 0;
+            }
+        });
+        return entries == null ? new File[0] : entries;
+    }
+
+    private synchronized File getDirectory() {
+        if (cache == null) {
+            cache = cacheRepository
+                    .cache("taskOutputs")
+                    .withDisplayName("task output cache")
+                    .withLockOptions(mode(FileLockManager.LockMode.None)) // Entries are written atomically
+                    .open();
+        }
+        return cache.getBaseDir();
+    }
+
+    public synchronized void close() {
+        if (cache != null) {
+            cache.close();
+            cache = null;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache;
+
+/**
+ * Stores the packed outputs of tasks, so that a task that has previously been executed with the same inputs, possibly in another workspace,
+ * can restore its outputs instead of executing. Implementations must be thread-safe.
+ */
+public interface TaskOutputCache {
+    /**
+     * Loads the entry with the given key, if present.
+     *
+     * @return true when the entry was found and passed to the given reader, false when there is no such entry.
+     */
+    boolean load(TaskOutputCacheKey key, TaskOutputReader reader);
+
+    /**
+     * Stores an entry with the given key, replacing any existing entry.
+     */
+    void store(TaskOutputCacheKey key, TaskOutputWriter writer);
+
+    String getDescription();
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache;
+
+/**
+ * Identifies the outputs of a task, as a hash of the task type, input properties, input files and output locations.
+ */
+public class TaskOutputCacheKey {
+    private final String hashCode;
+
+    public TaskOutputCacheKey(String hashCode) {
+        this.hashCode = hashCode;
+    }
+
+    public String getHashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != getClass()) {
+            return false;
+        }
+        TaskOutputCacheKey other = (TaskOutputCacheKey) obj;
+        return hashCode.equals(other.hashCode);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return hashCode;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.gradle.api.UncheckedIOException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
+/**
+ * Calculates a {@link TaskOutputCacheKey}. Variable length values are prefixed with their length, so that different sequences of values produce different keys.
+ */
+public class TaskOutputCacheKeyBuilder {
+    private final Hasher hasher = Hashing.md5().newHasher();
+
+    public TaskOutputCacheKeyBuilder putInt(int value) {
+        hasher.putInt(value);
+        return this;
+    }
+
+    public TaskOutputCacheKeyBuilder putString(CharSequence value) {
+        hasher.putInt(value.length());
+        hasher.putString(value, Charsets.UTF_8);
+        return this;
+    }
+
+    /**
+     * Adds the given path, as returned by {@link #relativePath(String, File)}.
+     */
+    public TaskOutputCacheKeyBuilder putPath(String absolutePath, File baseDir) {
+        return putString(relativePath(absolutePath, baseDir));
+    }
+
+    /**
+     * Returns the given path relative to the given base directory, so that a key does not change when the build is checked out in another location.
+     * A path outside the base directory, such as a file in the Gradle user home, is reduced to its file name, so the file should also be identified by its contents.
+     */
+    public static String relativePath(String absolutePath, File baseDir) {
+        String basePath = baseDir.getAbsolutePath();
+        if (absolutePath.equals(basePath)) {
+            return "";
+        }
+        if (absolutePath.startsWith(basePath + File.separator)) {
+            return absolutePath.substring(basePath.length() + 1).replace(File.separatorChar, '/');
+        }
+        return new File(absolutePath).getName();
+    }
+
+    public TaskOutputCacheKeyBuilder putBytes(byte[] value) {
+        hasher.putInt(value.length);
+        hasher.putBytes(value);
+        return this;
+    }
+
+    /**
+     * Adds the serialized form of the given value.
+     *
+     * @throws UncheckedIOException when the value cannot be serialized.
+     */
+    public TaskOutputCacheKeyBuilder putObject(Object value) {
+        try {
+            ObjectOutputStream objectStream = new ObjectOutputStream(Funnels.asOutputStream(hasher));
+            objectStream.writeObject(value);
+            objectStream.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    public TaskOutputCacheKey build() {
+        return new TaskOutputCacheKey(hasher.hash().toString());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache;
+
+import com.google.common.io.ByteStreams;
+import org.gradle.util.GFileUtils;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Packs the output files of a task into a zip stream, and restores them from such a stream.
+ *
+ * <p>Only the given files are packed, rather than the whole contents of the output roots, as a task may share an output directory with other tasks.
+ * Each output root is identified by its position in the given list of roots. An output file root is stored as entry {@code <index>}, and a file in an
+ * output directory as entry {@code <index>/<path>}. Each output directory is also stored as entry {@code <index>/}, so that it is restored even when
+ * the task did not produce any files in it. File permissions are not preserved.</p>
+ */
+public class TaskOutputPacker {
+    /**
+     * Packs the given files, each of which is one of the given roots or located in one of them.
+     */
+    public void pack(List<File> roots, Collection<File> files, OutputStream output) throws IOException {
+        ZipOutputStream zipOutput = new ZipOutputStream(output);
+        for (int i = 0; i < roots.size(); i++) {
+            if (roots.get(i).isDirectory()) {
+                zipOutput.putNextEntry(new ZipEntry(i + "/"));
+                zipOutput.closeEntry();
+            }
+        }
+        List<File> sortedFiles = new ArrayList<File>(files);
+        Collections.sort(sortedFiles);
+        for (File file : sortedFiles) {
+            String name = entryName(roots, file);
+            if (name == null) {
+                throw new IOException(String.format("Output file '%s' is not located in any of the output roots.", file));
+            }
+            packFile(file, name, zipOutput);
+        }
+        zipOutput.finish();
+    }
+
+    private String entryName(List<File> roots, File file) {
+        String path = file.getAbsolutePath();
+        for (int i = 0; i < roots.size(); i++) {
+            String rootPath = roots.get(i).getAbsolutePath();
+            if (path.equals(rootPath)) {
+                return String.valueOf(i);
+            }
+            if (path.startsWith(rootPath + File.separator)) {
+                return i + "/" + path.substring(rootPath.length() + 1).replace(File.separatorChar, '/');
+            }
+        }
+        return null;
+    }
+
+    private void packFile(File file, String name, ZipOutputStream zipOutput) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(file.lastModified());
+        zipOutput.putNextEntry(entry);
+        InputStream input = new FileInputStream(file);
+        try {
+            ByteStreams.copy(input, zipOutput);
+        } finally {
+            input.close();
+        }
+        zipOutput.closeEntry();
+    }
+
+    /**
+     * Removes the given previous output files of the task, and then restores the outputs read from the given stream into the given roots. Other files
+     * in the output roots are left in place.
+     */
+    public void unpack(List<File> roots, Collection<File> previousFiles, InputStream input) throws IOException {
+        for (File file : previousFiles) {
+            if (file.isFile()) {
+                GFileUtils.forceDelete(file);
+            }
+        }
+        ZipInputStream zipInput = new ZipInputStream(input);
+        ZipEntry entry;
+        while ((entry = zipInput.getNextEntry()) != null) {
+            String name = entry.getName();
+            int separator = name.indexOf('/');
+            File root = roots.get(parseIndex(separator < 0 ? name : name.substring(0, separator), roots.size()));
+            File target = separator < 0 ? root : resolve(root, name.substring(separator + 1));
+            if (entry.isDirectory()) {
+                GFileUtils.mkdirs(target);
+            } else {
+                GFileUtils.parentMkdirs(target);
+                OutputStream output = new FileOutputStream(target);
+                try {
+                    ByteStreams.copy(zipInput, output);
+                } finally {
+                    output.close();
+                }
+                if (entry.getTime() >= 0) {
+                    target.setLastModified(entry.getTime());
+                }
+            }
+        }
+    }
+
+    private int parseIndex(String index, int rootCount) throws IOException {
+        try {
+            int value = Integer.parseInt(index);
+            if (value >= 0 && value < rootCount) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through
+        }
+        throw new IOException(String.format("Unexpected output root '%s' in cached task outputs.", index));
+    }
+
+    private File resolve(File root, String relativePath) throws IOException {
+        for (String segment : relativePath.split("/")) {
+            if (segment.equals("..")) {
+                throw new IOException(String.format("Unexpected path '%s' in cached task outputs.", relativePath));
+            }
+        }
+        return relativePath.length() == 0 ? root : new File(root, relativePath);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.TaskArtifactState;
+import org.gradle.api.internal.tasks.TaskExecuter;
+import org.gradle.api.internal.tasks.TaskExecutionContext;
+import org.gradle.api.internal.tasks.TaskStateInternal;
+import org.gradle.api.internal.tasks.cache.*;
+import org.gradle.util.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link TaskExecuter} which restores the outputs of a task from a {@link TaskOutputCache} instead of executing the task, when the cache contains the
+ * outputs for the current inputs of the task. Otherwise, executes the task and stores its outputs in the cache. Only tasks which opt in using
+ * {@link org.gradle.api.tasks.TaskOutputs#cacheIf(org.gradle.api.specs.Spec)} are cached.
+ */
+public class SkipCachedTaskExecuter implements TaskExecuter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SkipCachedTaskExecuter.class);
+    private final TaskOutputCache cache;
+    private final TaskOutputPacker packer;
+    private final TaskExecuter executer;
+
+    public SkipCachedTaskExecuter(TaskOutputCache cache, TaskOutputPacker packer, TaskExecuter executer) {
+        this.cache = cache;
+        this.packer = packer;
+        this.executer = executer;
+    }
+
+    public void execute(final TaskInternal task, TaskStateInternal state, TaskExecutionContext context) {
+        if (!task.getOutputs().isCacheAllowed(task)) {
+            LOGGER.debug("Not caching {} as it does not allow its outputs to be cached.", task);
+            executer.execute(task, state, context);
+            return;
+        }
+
+        Clock clock = new Clock();
+        TaskArtifactState taskArtifactState = context.getTaskArtifactState();
+        TaskOutputCacheKey cacheKey = taskArtifactState.calculateCacheKey();
+        if (cacheKey != null) {
+            final List<File> outputRoots = getOutputRoots(task);
+            // Only replaces the files this task produced before, as other tasks may write to the same output directories
+            final Set<File> previousOutputFiles = taskArtifactState.getExecutionHistory().getOutputFiles().getFiles();
+            boolean found;
+            try {
+                found = cache.load(cacheKey, new TaskOutputReader() {
+                    public void readFrom(InputStream input) throws IOException {
+                        packer.unpack(outputRoots, previousOutputFiles, input);
+                    }
+                });
+            } catch (Exception e) {
+                // The outputs may have been partially restored, so the task cannot be executed against them
+                throw new GradleException(String.format("Could not restore the outputs of %s from the %s.", task, cache.getDescription()), e);
+            }
+            if (found) {
+                LOGGER.info("Restored outputs of {} from the {} (took {}).", task, cache.getDescription(), clock.getTime());
+                state.skipped("FROM-CACHE");
+                return;
+            }
+            LOGGER.debug("No outputs found for {} in the {} with key {}.", task, cache.getDescription(), cacheKey);
+        }
+
+        executer.execute(task, state, context);
+
+        if (state.getFailure() != null) {
+            return;
+        }
+        // Looks at the state again, as the task may have discovered additional inputs
+        cacheKey = taskArtifactState.calculateCacheKey();
+        if (cacheKey == null) {
+            return;
+        }
+        final List<File> outputRoots = getOutputRoots(task);
+        try {
+            final Set<File> producedOutputFiles = taskArtifactState.getProducedOutputFiles().getFiles();
+            cache.store(cacheKey, new TaskOutputWriter() {
+                public void writeTo(OutputStream output) throws IOException {
+                    packer.pack(outputRoots, producedOutputFiles, output);
+                }
+            });
+        } catch (Exception e) {
+            LOGGER.warn("Could not store the outputs of {} in the {}: {}", task, cache.getDescription(), e.getMessage());
+        }
+    }
+
+    private static List<File> getOutputRoots(TaskInternal task) {
+        List<File> outputRoots = new ArrayList<File>(task.getOutputs().getFiles().getFiles());
+        Collections.sort(outputRoots);
+        return outputRoots;
+    }
+}
@@ -17,6 +17,7 @@
 package org.gradle.api.tasks;
 
 import groovy.lang.Closure;
+import org.gradle.api.Incubating;
 import org.gradle.api.Task;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.specs.Spec;
@@ -51,6 +52,32 @@ public interface TaskOutputs {
      */
     void upToDateWhen(Spec<? super Task> upToDateSpec);
 
+    /**
+     * <p>Allows the outputs of this task to be stored in and restored from the task output cache, when the given closure returns true. The closure
+     * is executed at task execution time, and is passed the task as a parameter. The task output cache is only used when it is enabled with the
+     * {@code --task-output-cache} command-line option.</p>
+     *
+     * <p>You can add multiple such predicates. The outputs of the task are cached only when every predicate returns true. The outputs of a task
+     * which has no such predicates are never cached.</p>
+     *
+     * @param cacheClosure The closure to use to determine whether the task outputs can be cached.
+     */
+    @Incubating
+    void cacheIf(Closure cacheClosure);
+
+    /**
+     * <p>Allows the outputs of this task to be stored in and restored from the task output cache, when the given spec is satisfied. The spec is
+     * evaluated at task execution time. The task output cache is only used when it is enabled with the {@code --task-output-cache} command-line
+     * option.</p>
+     *
+     * <p>You can add multiple such predicates. The outputs of the task are cached only when every predicate returns true. The outputs of a task
+     * which has no such predicates are never cached.</p>
+     *
+     * @param cacheSpec The spec to use to determine whether the task outputs can be cached.
+     */
+    @Incubating
+    void cacheIf(Spec<? super Task> cacheSpec);
+
     /**
      * Returns true if this task has declared any outputs. Note that a task may be able to produce output files and
      * still have an empty set of output files.
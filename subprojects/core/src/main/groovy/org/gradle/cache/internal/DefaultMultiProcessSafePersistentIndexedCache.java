@@ -19,17 +19,41 @@ import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
 import org.gradle.internal.Factory;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Buffers updates in memory and writes them to the backing cache in batches. Pending updates are written when the number of pending updates
+ * reaches a threshold, and when the cache is closed, which happens before the file lock is released.
+ */
 public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements MultiProcessSafePersistentIndexedCache<K, V> {
+    static final int DEFAULT_MAX_PENDING_UPDATES = 1000;
     private final FileAccess fileAccess;
     private final Factory<BTreePersistentIndexedCache<K, V>> factory;
+    private final int maxPendingUpdates;
+    private final Map<K, V> pendingPuts = new HashMap<K, V>();
+    private final Set<K> pendingRemovals = new HashSet<K>();
     private BTreePersistentIndexedCache<K, V> cache;
 
     public DefaultMultiProcessSafePersistentIndexedCache(Factory<BTreePersistentIndexedCache<K, V>> factory, FileAccess fileAccess) {
+        this(factory, fileAccess, DEFAULT_MAX_PENDING_UPDATES);
+    }
+
+    DefaultMultiProcessSafePersistentIndexedCache(Factory<BTreePersistentIndexedCache<K, V>> factory, FileAccess fileAccess, int maxPendingUpdates) {
         this.factory = factory;
         this.fileAccess = fileAccess;
+        this.maxPendingUpdates = maxPendingUpdates;
     }
 
     public V get(final K key) {
+        if (pendingRemovals.contains(key)) {
+            return null;
+        }
+        if (pendingPuts.containsKey(key)) {
+            return pendingPuts.get(key);
+        }
         final PersistentIndexedCache<K, V> cache = getCache();
         try {
             return fileAccess.readFile(new Factory<V>() {
@@ -42,26 +66,51 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
         }
     }
 
-    public void put(final K key, final V value) {
-        final PersistentIndexedCache<K, V> cache = getCache();
+    public void put(K key, V value) {
+        getCache();
+        pendingRemovals.remove(key);
+        pendingPuts.put(key, value);
+        maybeFlush();
+    }
+
+    public void remove(K key) {
+        getCache();
+        pendingPuts.remove(key);
+        pendingRemovals.add(key);
+        maybeFlush();
+    }
+
+    private void maybeFlush() {
+        if (pendingPuts.size() + pendingRemovals.size() >= maxPendingUpdates) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (pendingPuts.isEmpty() && pendingRemovals.isEmpty()) {
+            return;
+        }
         // Use writeFile because the cache can internally recover from datafile
         // corruption, so we don't care at this level if it's corrupt
         fileAccess.writeFile(new Runnable() {
             public void run() {
-                cache.put(key, value);
+                writePending();
             }
         });
     }
 
-    public void remove(final K key) {
-        final PersistentIndexedCache<K, V> cache = getCache();
-        // Use writeFile because the cache can internally recover from datafile
-        // corruption, so we don't care at this level if it's corrupt
-        fileAccess.writeFile(new Runnable() {
-            public void run() {
-                cache.remove(key);
+    private void writePending() {
+        try {
+            if (!pendingRemovals.isEmpty()) {
+                cache.removeAll(pendingRemovals);
             }
-        });
+            if (!pendingPuts.isEmpty()) {
+                cache.putAll(pendingPuts);
+            }
+        } finally {
+            pendingPuts.clear();
+            pendingRemovals.clear();
+        }
     }
 
     public void onStartWork(String operationDisplayName, FileLock.State currentCacheState) {
@@ -75,16 +124,22 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
             try {
                 fileAccess.writeFile(new Runnable() {
                     public void run() {
-                        cache.close();
+                        try {
+                            writePending();
+                        } finally {
+                            cache.close();
+                        }
                     }
                 });
             } finally {
+                pendingPuts.clear();
+                pendingRemovals.clear();
                 cache = null;
             }
         }
     }
 
-    private PersistentIndexedCache<K, V> getCache() {
+    private BTreePersistentIndexedCache<K, V> getCache() {
         if (cache == null) {
             // Use writeFile because the cache can internally recover from datafile
             // corruption, so we don't care at this level if it's corrupt
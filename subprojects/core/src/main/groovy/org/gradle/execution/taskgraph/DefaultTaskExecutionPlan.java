@@ -18,10 +18,10 @@ package org.gradle.execution.taskgraph;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
-import com.google.common.base.StandardSystemProperty;
 import com.google.common.collect.*;
 import org.gradle.api.*;
 import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.state.TaskDurationRepository;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.tasks.CachingTaskDependencyResolveContext;
 import org.gradle.api.logging.Logger;
@@ -41,7 +41,6 @@ import org.gradle.internal.graph.DirectedGraphRenderer;
 import org.gradle.internal.graph.GraphNodeRenderer;
 import org.gradle.logging.StyledTextOutput;
 import org.gradle.util.CollectionUtils;
-import org.gradle.util.TextUtil;
 
 import java.io.File;
 import java.io.IOException;
@@ -67,16 +66,19 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private final Set<TaskInfo> entryTasks = new LinkedHashSet<TaskInfo>();
     private final TaskDependencyGraph graph = new TaskDependencyGraph();
     private final LinkedHashMap<Task, TaskInfo> executionPlan = new LinkedHashMap<Task, TaskInfo>();
-    private final List<TaskInfo> executionQueue = new LinkedList<TaskInfo>();
+    private final Set<TaskInfo> readyTasks = new TreeSet<TaskInfo>(new ReadyTaskComparator());
     private final List<Throwable> failures = new ArrayList<Throwable>();
     private Spec<? super Task> filter = Specs.satisfyAll();
 
     private TaskFailureHandler failureHandler = new RethrowingFailureHandler();
+    private TaskDurationRepository taskDurations;
     private final BuildCancellationToken cancellationToken;
     private final Multiset<String> projectsWithRunningTasks = HashMultiset.create();
     private final Multiset<String> projectsWithRunningNonParallelizableTasks = HashMultiset.create();
     private final Set<TaskInternal> runningTasks = Sets.newIdentityHashSet();
     private final Map<Task, Set<String>> canonicalizedOutputCache = Maps.newIdentityHashMap();
+    private final OutputPathTrie<TaskInternal> runningTaskOutputs = new OutputPathTrie<TaskInternal>();
+    private final Set<TaskInternal> tasksWithIndexedOutputs = Sets.newIdentityHashSet();
     private final Map<Task, Boolean> isParallelSafeCache = Maps.newIdentityHashMap();
     private boolean tasksCancelled;
 
@@ -313,8 +315,72 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                 }
             }
         }
-        executionQueue.clear();
-        executionQueue.addAll(executionPlan.values());
+        initializeReadyTasks();
+    }
+
+    private void initializeReadyTasks() {
+        readyTasks.clear();
+        int position = 0;
+        for (TaskInfo taskInfo : executionPlan.values()) {
+            taskInfo.setExecutionPosition(position++);
+            taskInfo.countIncompleteDependencies();
+        }
+        if (taskDurations != null) {
+            estimateCriticalPaths();
+        }
+        for (TaskInfo taskInfo : executionPlan.values()) {
+            maybeReady(taskInfo);
+        }
+    }
+
+    /**
+     * Estimates for each task how long it takes to execute the task and the longest chain of tasks that has to run after it,
+     * using the durations of previous executions. Tasks that have not been executed before are assumed to take the average time.
+     */
+    private void estimateCriticalPaths() {
+        Map<TaskInternal, Long> previousDurations = taskDurations.getPreviousDurations(Lists.newArrayList(Iterables.transform(executionPlan.values(), new Function<TaskInfo, TaskInternal>() {
+            public TaskInternal apply(TaskInfo taskInfo) {
+                return taskInfo.getTask();
+            }
+        })));
+        long defaultDuration = 1;
+        if (!previousDurations.isEmpty()) {
+            long total = 0;
+            for (Long duration : previousDurations.values()) {
+                total += duration;
+            }
+            defaultDuration = Math.max(1, total / previousDurations.size());
+        }
+
+        // The execution plan lists every task after the tasks it waits for, so walking it backwards visits the waiting tasks first
+        List<TaskInfo> reversedPlan = Lists.reverse(Lists.newArrayList(executionPlan.values()));
+        for (TaskInfo taskInfo : reversedPlan) {
+            long longestSuccessorPath = 0;
+            for (TaskInfo predecessor : Iterables.concat(taskInfo.getMustPredecessors(), taskInfo.getDependencyPredecessors())) {
+                if (executionPlan.containsKey(predecessor.getTask())) {
+                    longestSuccessorPath = Math.max(longestSuccessorPath, predecessor.getCriticalPathDuration());
+                }
+            }
+            Long duration = previousDurations.get(taskInfo.getTask());
+            taskInfo.setCriticalPathDuration(longestSuccessorPath + (duration == null ? defaultDuration : duration));
+        }
+    }
+
+    private void maybeReady(TaskInfo taskInfo) {
+        if (taskInfo.isReady() && !taskInfo.hasIncompleteDependencies() && executionPlan.containsKey(taskInfo.getTask())) {
+            readyTasks.add(taskInfo);
+        }
+    }
+
+    /**
+     * Notifies the tasks that wait for the given task, which has just become complete, and queues those that no longer wait for anything.
+     */
+    private void dependencyCompleted(TaskInfo taskInfo) {
+        for (TaskInfo predecessor : Iterables.concat(taskInfo.getMustPredecessors(), taskInfo.getDependencyPredecessors())) {
+            if (predecessor.dependencyCompleted()) {
+                maybeReady(predecessor);
+            }
+        }
     }
 
     private void maybeRemoveProcessedShouldRunAfterEdge(Stack<GraphEdge> walkedShouldRunAfterEdges, TaskInfo taskNode) {
@@ -435,13 +501,15 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             graph.clear();
             entryTasks.clear();
             executionPlan.clear();
-            executionQueue.clear();
+            readyTasks.clear();
             failures.clear();
             projectsWithRunningTasks.clear();
             projectsWithRunningNonParallelizableTasks.clear();
             canonicalizedOutputCache.clear();
             isParallelSafeCache.clear();
             runningTasks.clear();
+            runningTaskOutputs.clear();
+            tasksWithIndexedOutputs.clear();
         } finally {
             lock.unlock();
         }
@@ -459,6 +527,13 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         this.failureHandler = handler;
     }
 
+    /**
+     * Executes ready tasks in the order of the estimated duration of the longest chain of tasks that starts with them, rather than in task graph order.
+     */
+    public void useCriticalPathOrdering(TaskDurationRepository taskDurations) {
+        this.taskDurations = taskDurations;
+    }
+
     public TaskInfo getTaskToExecute() {
         lock.lock();
         try {
@@ -469,18 +544,20 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                     }
                 }
                 TaskInfo nextMatching = null;
-                boolean allTasksComplete = true;
-                Iterator<TaskInfo> iterator = executionQueue.iterator();
+                Iterator<TaskInfo> iterator = readyTasks.iterator();
                 while (iterator.hasNext()) {
                     TaskInfo taskInfo = iterator.next();
-                    allTasksComplete = allTasksComplete && taskInfo.isComplete();
-                    if (taskInfo.isReady() && taskInfo.allDependenciesComplete() && canRunWithWithCurrentlyExecutedTasks(taskInfo)) {
+                    if (!taskInfo.isReady()) {
+                        // Skipped since it was queued
+                        iterator.remove();
+                    } else if (canRunWithWithCurrentlyExecutedTasks(taskInfo)) {
                         nextMatching = taskInfo;
                         iterator.remove();
                         break;
                     }
                 }
-                if (allTasksComplete) {
+                if (nextMatching == null && runningTasks.isEmpty()) {
+                    // Nothing is running that could make further tasks ready
                     return null;
                 }
                 if (nextMatching == null) {
@@ -496,6 +573,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                         return nextMatching;
                     } else {
                         nextMatching.skipExecution();
+                        dependencyCompleted(nextMatching);
                         condition.signalAll();
                     }
                 }
@@ -556,35 +634,23 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             return null;
         }
 
-        for (String candidateTaskOutputPath : canonicalizedOutputPaths(candidateTask)) {
-            for (TaskInternal runningTask : runningTasks) {
-                for (String runningTaskOutputPath : canonicalizedOutputPaths(runningTask)) {
-                    if (pathsOverlap(candidateTaskOutputPath, runningTaskOutputPath)) {
-                        return Pair.of(runningTask, TextUtil.shorterOf(candidateTaskOutputPath, runningTaskOutputPath));
-                    }
+        // Outputs are only canonicalized once another task wants to start alongside, so sequential builds never pay for it
+        for (TaskInternal runningTask : runningTasks) {
+            if (tasksWithIndexedOutputs.add(runningTask)) {
+                for (String path : canonicalizedOutputPaths(runningTask)) {
+                    runningTaskOutputs.add(runningTask, path);
                 }
             }
         }
 
-        return null;
-    }
-
-
-    private boolean pathsOverlap(String firstPath, String secondPath) {
-        if (firstPath.equals(secondPath)) {
-            return true;
+        for (String candidateTaskOutputPath : canonicalizedOutputPaths(candidateTask)) {
+            Pair<TaskInternal, String> overlap = runningTaskOutputs.findOverlap(candidateTaskOutputPath);
+            if (overlap != null) {
+                return overlap;
+            }
         }
 
-        String shorter;
-        String longer;
-        if (firstPath.length() > secondPath.length()) {
-            shorter = secondPath;
-            longer = firstPath;
-        } else {
-            shorter = firstPath;
-            longer = secondPath;
-        }
-        return longer.startsWith(shorter + StandardSystemProperty.FILE_SEPARATOR.value());
+        return null;
     }
 
     boolean isParallelizable(TaskInternal task) {
@@ -630,6 +696,11 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             projectsWithRunningNonParallelizableTasks.remove(projectPath);
         }
         projectsWithRunningTasks.remove(projectPath);
+        if (tasksWithIndexedOutputs.remove(task)) {
+            for (String path : canonicalizedOutputPaths(task)) {
+                runningTaskOutputs.remove(task, path);
+            }
+        }
         canonicalizedOutputCache.remove(task);
         isParallelSafeCache.remove(task);
         runningTasks.remove(task);
@@ -645,6 +716,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
             taskInfo.finishExecution();
             recordTaskCompleted(taskInfo);
+            dependencyCompleted(taskInfo);
             condition.signalAll();
         } finally {
             lock.unlock();
@@ -663,7 +735,15 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         for (TaskInfo dependencyNode : node.getDependencySuccessors()) {
             enforceWithDependencies(dependencyNode);
         }
-        if (node.isMustNotRun() || node.isRequired()) {
+        if (node.isMustNotRun()) {
+            // Was considered complete until now, so anything waiting for it has to wait a bit longer
+            for (TaskInfo predecessor : Iterables.concat(node.getMustPredecessors(), node.getDependencyPredecessors())) {
+                predecessor.dependencyEnforced();
+                readyTasks.remove(predecessor);
+            }
+            node.enforceRun();
+            maybeReady(node);
+        } else if (node.isRequired()) {
             node.enforceRun();
         }
     }
@@ -694,6 +774,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         for (TaskInfo taskInfo : executionPlan.values()) {
             if (taskInfo.isRequired()) {
                 taskInfo.skipExecution();
+                dependencyCompleted(taskInfo);
                 aborted = true;
             }
         }
@@ -760,6 +841,15 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
     }
 
+    private static class ReadyTaskComparator implements Comparator<TaskInfo> {
+        public int compare(TaskInfo taskInfo1, TaskInfo taskInfo2) {
+            if (taskInfo1.getCriticalPathDuration() != taskInfo2.getCriticalPathDuration()) {
+                return taskInfo1.getCriticalPathDuration() > taskInfo2.getCriticalPathDuration() ? -1 : 1;
+            }
+            return taskInfo1.getExecutionPosition() - taskInfo2.getExecutionPosition();
+        }
+    }
+
     private static class RethrowingFailureHandler implements TaskFailureHandler {
         public void onTaskFailure(Task task) {
             task.getState().rethrowFailure();
@@ -24,6 +24,7 @@ import org.gradle.api.execution.TaskExecutionListener;
 import org.gradle.api.execution.internal.InternalTaskExecutionListener;
 import org.gradle.api.execution.internal.TaskOperationInternal;
 import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.state.TaskDurationRepository;
 import org.gradle.api.internal.tasks.TaskExecuter;
 import org.gradle.api.internal.tasks.TaskStateInternal;
 import org.gradle.api.internal.tasks.execution.DefaultTaskExecutionContext;
@@ -81,6 +82,10 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
         taskExecutionPlan.useFailureHandler(handler);
     }
 
+    public void useCriticalPathOrdering(TaskDurationRepository taskDurations) {
+        taskExecutionPlan.useCriticalPathOrdering(taskDurations);
+    }
+
     public void useFilter(Spec<? super Task> filter) {
         taskExecutionPlan.useFilter(filter);
         taskGraphState = TaskGraphState.DIRTY;
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.gradle.api.Nullable;
+import org.gradle.internal.Pair;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexes canonical output paths by path segment, so that checking whether a path overlaps any of the indexed paths is proportional to the depth of the path,
+ * rather than to the number of indexed paths. Two paths overlap when they are equal or when one is an ancestor of the other.
+ *
+ * <p>Not thread-safe.</p>
+ *
+ * @param <T> the type of the owner of an indexed path.
+ */
+class OutputPathTrie<T> {
+    private final char separator;
+    private final Node<T> root = new Node<T>();
+
+    OutputPathTrie() {
+        this(File.separatorChar);
+    }
+
+    OutputPathTrie(char separator) {
+        this.separator = separator;
+    }
+
+    public boolean isEmpty() {
+        return root.ownersInSubtree == 0;
+    }
+
+    public void add(T owner, String path) {
+        Node<T> node = root;
+        node.ownersInSubtree++;
+        int start = 0;
+        while (start < path.length()) {
+            int end = segmentEnd(path, start);
+            node = node.child(path.substring(start, end));
+            node.ownersInSubtree++;
+            start = end + 1;
+        }
+        node.path = path;
+        node.owners.add(owner);
+    }
+
+    public void remove(T owner, String path) {
+        List<Node<T>> visited = new ArrayList<Node<T>>();
+        List<String> segments = new ArrayList<String>();
+        Node<T> node = root;
+        visited.add(node);
+        int start = 0;
+        while (start < path.length()) {
+            int end = segmentEnd(path, start);
+            String segment = path.substring(start, end);
+            node = node.children == null ? null : node.children.get(segment);
+            if (node == null) {
+                return;
+            }
+            visited.add(node);
+            segments.add(segment);
+            start = end + 1;
+        }
+        if (!node.owners.remove(owner)) {
+            return;
+        }
+        for (int i = visited.size() - 1; i >= 0; i--) {
+            Node<T> current = visited.get(i);
+            current.ownersInSubtree--;
+            if (i > 0 && current.ownersInSubtree == 0) {
+                visited.get(i - 1).children.remove(segments.get(i - 1));
+            }
+        }
+    }
+
+    public void clear() {
+        root.children = null;
+        root.owners.clear();
+        root.ownersInSubtree = 0;
+    }
+
+    /**
+     * Locates an indexed path that overlaps the given path.
+     *
+     * @return the owner of the overlapping path together with the shorter of the two overlapping paths, or null when there is no overlap.
+     */
+    @Nullable
+    public Pair<T, String> findOverlap(String path) {
+        Node<T> node = root;
+        int start = 0;
+        while (true) {
+            if (!node.owners.isEmpty()) {
+                // An indexed path is an ancestor of, or equal to, the given path
+                return Pair.of(node.owners.get(0), node.path);
+            }
+            if (start >= path.length()) {
+                break;
+            }
+            int end = segmentEnd(path, start);
+            node = node.children == null ? null : node.children.get(path.substring(start, end));
+            if (node == null) {
+                return null;
+            }
+            start = end + 1;
+        }
+        if (node.ownersInSubtree == 0) {
+            return null;
+        }
+        // The given path is an ancestor of an indexed path
+        Node<T> descendant = node;
+        while (descendant.owners.isEmpty()) {
+            descendant = firstOccupiedChild(descendant);
+        }
+        return Pair.of(descendant.owners.get(0), path);
+    }
+
+    private Node<T> firstOccupiedChild(Node<T> node) {
+        for (Node<T> child : node.children.values()) {
+            if (child.ownersInSubtree > 0) {
+                return child;
+            }
+        }
+        throw new IllegalStateException("Inconsistent output path index.");
+    }
+
+    private int segmentEnd(String path, int start) {
+        int end = path.indexOf(separator, start);
+        return end < 0 ? path.length() : end;
+    }
+
+    private static class Node<T> {
+        private final List<T> owners = new ArrayList<T>(1);
+        private Map<String, Node<T>> children;
+        private int ownersInSubtree;
+        private String path;
+
+        Node<T> child(String segment) {
+            if (children == null) {
+                children = new HashMap<String, Node<T>>();
+            }
+            Node<T> child = children.get(segment);
+            if (child == null) {
+                child = new Node<T>();
+                children.put(segment, child);
+            }
+            return child;
+        }
+    }
+}
@@ -34,8 +34,12 @@ public class TaskInfo implements Comparable<TaskInfo> {
     private final TreeSet<TaskInfo> dependencyPredecessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> dependencySuccessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> mustSuccessors = new TreeSet<TaskInfo>();
+    private final TreeSet<TaskInfo> mustPredecessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> shouldSuccessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> finalizers = new TreeSet<TaskInfo>();
+    private int incompleteDependencies;
+    private int executionPosition;
+    private long criticalPathDuration;
 
     public TaskInfo(TaskInternal task) {
         this.task = task;
@@ -138,6 +142,57 @@ public class TaskInfo implements Comparable<TaskInfo> {
         return true;
     }
 
+    /**
+     * Recalculates the number of dependencies and must run after successors that are yet to complete.
+     */
+    public void countIncompleteDependencies() {
+        incompleteDependencies = 0;
+        for (TaskInfo dependency : Iterables.concat(mustSuccessors, dependencySuccessors)) {
+            if (!dependency.isComplete()) {
+                incompleteDependencies++;
+            }
+        }
+    }
+
+    /**
+     * Called when one of the dependencies or must run after successors of this task has completed.
+     *
+     * @return true when this was the last incomplete dependency.
+     */
+    public boolean dependencyCompleted() {
+        return --incompleteDependencies == 0;
+    }
+
+    /**
+     * Called when one of the dependencies or must run after successors of this task that was previously considered complete needs to run after all.
+     */
+    public void dependencyEnforced() {
+        incompleteDependencies++;
+    }
+
+    public boolean hasIncompleteDependencies() {
+        return incompleteDependencies > 0;
+    }
+
+    public int getExecutionPosition() {
+        return executionPosition;
+    }
+
+    public void setExecutionPosition(int executionPosition) {
+        this.executionPosition = executionPosition;
+    }
+
+    /**
+     * The estimated time it takes to execute this task and the longest chain of tasks that depend on it, or 0 when not known.
+     */
+    public long getCriticalPathDuration() {
+        return criticalPathDuration;
+    }
+
+    public void setCriticalPathDuration(long criticalPathDuration) {
+        this.criticalPathDuration = criticalPathDuration;
+    }
+
     public boolean allDependenciesSuccessful() {
         for (TaskInfo dependency : dependencySuccessors) {
             if (!dependency.isSuccessful()) {
@@ -159,6 +214,10 @@ public class TaskInfo implements Comparable<TaskInfo> {
         return mustSuccessors;
     }
 
+    public TreeSet<TaskInfo> getMustPredecessors() {
+        return mustPredecessors;
+    }
+
     public TreeSet<TaskInfo> getFinalizers() {
         return finalizers;
     }
@@ -182,6 +241,7 @@ public class TaskInfo implements Comparable<TaskInfo> {
 
     public void addMustSuccessor(TaskInfo toNode) {
         mustSuccessors.add(toNode);
+        toNode.mustPredecessors.add(this);
     }
 
     public void addFinalizer(TaskInfo finalizerNode) {
@@ -48,8 +48,14 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
 
     private static final String MAX_WORKERS = "max-workers";
 
+    private static final String SCHEDULING = "scheduling";
+    private static final String DEFAULT_SCHEDULING = "default";
+    private static final String CRITICAL_PATH_SCHEDULING = "critical-path";
+
     private static final String CONFIGURE_ON_DEMAND = "configure-on-demand";
 
+    private static final String TASK_OUTPUT_CACHE = "task-output-cache";
+
     private static final String CONTINUOUS = "continuous";
     private static final String CONTINUOUS_SHORT_FLAG = "t";
 
@@ -86,6 +92,8 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
         parser.option(PARALLEL_THREADS).hasArgument().hasDescription("Build projects in parallel, using the specified number of executor threads.").
                 deprecated("Please use --parallel, optionally in conjunction with --max-workers.").incubating();
         parser.option(MAX_WORKERS).hasArgument().hasDescription("Configure the number of concurrent workers Gradle is allowed to use.").incubating();
+        parser.option(SCHEDULING).hasArgument().hasDescription("Specifies the order in which ready tasks are executed: 'default' follows the task graph, 'critical-path' starts tasks on the longest chain first, based on task durations from previous builds.").incubating();
+        parser.option(TASK_OUTPUT_CACHE).hasDescription("Restores the outputs of tasks from a cache in the Gradle user home when the tasks have previously been executed with the same inputs.").incubating();
         parser.option(CONFIGURE_ON_DEMAND).hasDescription("Only relevant projects are configured in this build run. This means faster build for large multi-project builds.").incubating();
         parser.option(CONTINUOUS, CONTINUOUS_SHORT_FLAG).hasDescription("Enables continuous build. Gradle does not exit and will re-execute tasks when task file inputs change.").incubating();
         parser.allowOneOf(MAX_WORKERS, PARALLEL_THREADS);
@@ -193,10 +201,25 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
             }
         }
 
+        if (options.hasOption(SCHEDULING)) {
+            String value = options.option(SCHEDULING).getValue();
+            if (CRITICAL_PATH_SCHEDULING.equals(value)) {
+                startParameter.setCriticalPathSchedulingEnabled(true);
+            } else if (DEFAULT_SCHEDULING.equals(value)) {
+                startParameter.setCriticalPathSchedulingEnabled(false);
+            } else {
+                throw new CommandLineArgumentException(String.format("Argument value '%s' given for --%s option is invalid (must be '%s' or '%s')", value, SCHEDULING, DEFAULT_SCHEDULING, CRITICAL_PATH_SCHEDULING));
+            }
+        }
+
         if (options.hasOption(CONFIGURE_ON_DEMAND)) {
             startParameter.setConfigureOnDemand(true);
         }
 
+        if (options.hasOption(TASK_OUTPUT_CACHE)) {
+            startParameter.setTaskOutputCacheEnabled(true);
+        }
+
         if (options.hasOption(CONTINUOUS)) {
             startParameter.setContinuous(true);
         }
@@ -38,6 +38,7 @@ import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.messaging.remote.MessagingServer;
 import org.gradle.plugin.use.internal.InjectedPluginClasspath;
 import org.gradle.process.internal.DefaultWorkerProcessFactory;
+import org.gradle.process.internal.ReusableWorkerProcessPool;
 import org.gradle.process.internal.WorkerProcessBuilder;
 import org.gradle.process.internal.child.WorkerProcessClassPathProvider;
 import org.gradle.util.GradleVersion;
@@ -66,14 +67,15 @@ public class BuildSessionScopeServices extends DefaultServiceRegistry {
     }
 
     protected Factory<WorkerProcessBuilder> createWorkerProcessFactory(StartParameter startParameter, MessagingServer messagingServer, ClassPathRegistry classPathRegistry,
-                                                                       FileResolver fileResolver) {
+                                                                       FileResolver fileResolver, ReusableWorkerProcessPool workerProcessPool) {
         return new DefaultWorkerProcessFactory(
             startParameter.getLogLevel(),
             messagingServer,
             classPathRegistry,
             fileResolver,
             new LongIdGenerator(),
-            startParameter.getGradleUserHomeDir());
+            startParameter.getGradleUserHomeDir(),
+            workerProcessPool);
     }
 
     protected CacheRepository createCacheRepository() {
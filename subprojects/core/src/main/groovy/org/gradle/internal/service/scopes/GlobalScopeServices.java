@@ -66,6 +66,7 @@ import org.gradle.model.internal.manage.schema.extract.*;
 import org.gradle.model.internal.persist.AlwaysNewModelRegistryStore;
 import org.gradle.model.internal.persist.ModelRegistryStore;
 import org.gradle.model.internal.persist.ReusingModelRegistryStore;
+import org.gradle.process.internal.ReusableWorkerProcessPool;
 
 import java.util.List;
 
@@ -262,4 +263,8 @@ public class GlobalScopeServices {
     StringInterner createStringInterner() {
         return new StringInterner();
     }
+
+    ReusableWorkerProcessPool createReusableWorkerProcessPool() {
+        return new ReusableWorkerProcessPool();
+    }
 }
@@ -16,6 +16,7 @@
 package org.gradle.internal.service.scopes;
 
 import org.gradle.StartParameter;
+import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.execution.TaskActionListener;
 import org.gradle.api.execution.internal.TaskInputsListener;
 import org.gradle.api.internal.cache.StringInterner;
@@ -25,6 +26,10 @@ import org.gradle.api.internal.changedetection.changes.ShortCircuitTaskArtifactS
 import org.gradle.api.internal.changedetection.state.*;
 import org.gradle.api.internal.hash.DefaultHasher;
 import org.gradle.api.internal.tasks.TaskExecuter;
+import org.gradle.api.internal.tasks.cache.LocalDirectoryTaskOutputCache;
+import org.gradle.api.internal.tasks.cache.RemoteTaskOutputCacheFactory;
+import org.gradle.api.internal.tasks.cache.TaskOutputCache;
+import org.gradle.api.internal.tasks.cache.TaskOutputPacker;
 import org.gradle.api.internal.tasks.execution.*;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.cache.CacheRepository;
@@ -40,10 +45,15 @@ import org.gradle.internal.operations.DefaultBuildOperationProcessor;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.serialize.DefaultSerializerRegistry;
 import org.gradle.internal.serialize.SerializerRegistry;
+import org.gradle.internal.service.ServiceRegistry;
+
+import java.net.URI;
 
 public class TaskExecutionServices {
+    private static final String REMOTE_TASK_OUTPUT_CACHE_PROPERTY = "org.gradle.cache.tasks.uri";
 
-    TaskExecuter createTaskExecuter(TaskArtifactStateRepository repository, ListenerManager listenerManager, Gradle gradle) {
+    TaskExecuter createTaskExecuter(TaskArtifactStateRepository repository, ListenerManager listenerManager, Gradle gradle, StartParameter startParameter, TaskDurationRepository taskDurationRepository,
+                                    TaskOutputCache taskOutputCache) {
         // TODO - need a more comprehensible way to only collect inputs for the outer build
         //      - we are trying to ignore buildSrc here, but also avoid weirdness with use of GradleBuild tasks
         boolean isOuterBuild = gradle.getParent() == null;
@@ -51,19 +61,26 @@ public class TaskExecutionServices {
             ? listenerManager.getBroadcaster(TaskInputsListener.class)
             : TaskInputsListener.NOOP;
 
+        TaskExecuter actionsExecuter = new PostExecutionAnalysisTaskExecuter(
+            new ExecuteActionsTaskExecuter(
+                listenerManager.getBroadcaster(TaskActionListener.class)
+            )
+        );
+        if (startParameter.isTaskOutputCacheEnabled()) {
+            actionsExecuter = new SkipCachedTaskExecuter(taskOutputCache, new TaskOutputPacker(), actionsExecuter);
+        }
+        TaskExecuter upToDateExecuter = new SkipUpToDateTaskExecuter(repository, actionsExecuter);
+        if (startParameter.isCriticalPathSchedulingEnabled()) {
+            upToDateExecuter = new RecordTaskDurationTaskExecuter(taskDurationRepository, upToDateExecuter);
+        }
+
         return new ExecuteAtMostOnceTaskExecuter(
             new SkipOnlyIfTaskExecuter(
                 new SkipTaskWithNoActionsExecuter(
                     new SkipEmptySourceFilesTaskExecuter(
                         taskInputsListener,
                         new ValidatingTaskExecuter(
-                            new SkipUpToDateTaskExecuter(repository,
-                                new PostExecutionAnalysisTaskExecuter(
-                                    new ExecuteActionsTaskExecuter(
-                                        listenerManager.getBroadcaster(TaskActionListener.class)
-                                    )
-                                )
-                            )
+                            upToDateExecuter
                         )
                     )
                 )
@@ -71,6 +88,24 @@ public class TaskExecutionServices {
         );
     }
 
+    TaskOutputCache createTaskOutputCache(CacheRepository cacheRepository, ServiceRegistry services) {
+        String remoteLocation = System.getProperty(REMOTE_TASK_OUTPUT_CACHE_PROPERTY);
+        if (remoteLocation == null) {
+            return new LocalDirectoryTaskOutputCache(cacheRepository, LocalDirectoryTaskOutputCache.DEFAULT_MAX_SIZE);
+        }
+        URI location = URI.create(remoteLocation);
+        for (RemoteTaskOutputCacheFactory factory : services.getAll(RemoteTaskOutputCacheFactory.class)) {
+            if (factory.getSupportedSchemes().contains(location.getScheme())) {
+                return factory.createCache(location);
+            }
+        }
+        throw new InvalidUserDataException(String.format("Task output cache location '%s' uses an unsupported scheme.", remoteLocation));
+    }
+
+    TaskDurationRepository createTaskDurationRepository(TaskArtifactStateCacheAccess cacheAccess) {
+        return new CacheBackedTaskDurationRepository(cacheAccess);
+    }
+
     TaskArtifactStateCacheAccess createCacheAccess(Gradle gradle, CacheRepository cacheRepository, InMemoryTaskArtifactCache inMemoryTaskArtifactCache, GradleBuildEnvironment environment) {
         CacheDecorator decorator;
         if (environment.isLongLivingProcess()) {
@@ -82,11 +117,11 @@ public class TaskExecutionServices {
     }
 
     FileTreeElementSnapshotter createFileSnapshotter(TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner) {
-        return new CachingFileSnapshotter(new DefaultHasher(), cacheAccess, stringInterner);
+        return new CachingFileSnapshotter(DefaultHasher.fromSystemProperty(), cacheAccess, stringInterner);
     }
 
-    TaskArtifactStateRepository createTaskArtifactStateRepository(Instantiator instantiator, TaskArtifactStateCacheAccess cacheAccess, StartParameter startParameter, FileTreeElementSnapshotter fileSnapshotter, StringInterner stringInterner) {
-        FileCollectionSnapshotter fileCollectionSnapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner);
+    TaskArtifactStateRepository createTaskArtifactStateRepository(Instantiator instantiator, TaskArtifactStateCacheAccess cacheAccess, StartParameter startParameter, FileTreeElementSnapshotter fileSnapshotter, StringInterner stringInterner, BuildOperationProcessor buildOperationProcessor) {
+        FileCollectionSnapshotter fileCollectionSnapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner, buildOperationProcessor);
 
         FileCollectionSnapshotter outputFilesSnapshotter = new OutputFilesCollectionSnapshotter(fileCollectionSnapshotter, new RandomLongIdGenerator(), cacheAccess, stringInterner);
 
@@ -107,7 +142,8 @@ public class TaskExecutionServices {
                 taskHistoryRepository,
                 instantiator,
                 outputFilesSnapshotter,
-                fileCollectionSnapshotter
+                fileCollectionSnapshotter,
+                new TaskImplementationHasher(fileSnapshotter, cacheAccess)
             )
         );
     }
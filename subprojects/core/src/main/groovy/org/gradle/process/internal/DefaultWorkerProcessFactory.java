@@ -35,6 +35,8 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -46,16 +48,19 @@ public class DefaultWorkerProcessFactory implements Factory<WorkerProcessBuilder
     private final FileResolver resolver;
     private final IdGenerator<?> idGenerator;
     private final File gradleUserHomeDir;
+    private final ReusableWorkerProcessPool workerProcessPool;
 
     public DefaultWorkerProcessFactory(LogLevel workerLogLevel, MessagingServer server,
                                        ClassPathRegistry classPathRegistry, FileResolver resolver,
-                                       IdGenerator<?> idGenerator, File gradleUserHomeDir) {
+                                       IdGenerator<?> idGenerator, File gradleUserHomeDir,
+                                       ReusableWorkerProcessPool workerProcessPool) {
         this.workerLogLevel = workerLogLevel;
         this.server = server;
         this.classPathRegistry = classPathRegistry;
         this.resolver = resolver;
         this.idGenerator = idGenerator;
         this.gradleUserHomeDir = gradleUserHomeDir;
+        this.workerProcessPool = workerProcessPool;
     }
 
     public WorkerProcessBuilder create() {
@@ -89,6 +94,14 @@ public class DefaultWorkerProcessFactory implements Factory<WorkerProcessBuilder
             Object id = idGenerator.generateId();
             String displayName = getBaseName() + " " + id;
 
+            if (isReusable()) {
+                ApplicationClassesInIsolatedClassLoaderWorkerFactory sessionFactory = new ApplicationClassesInIsolatedClassLoaderWorkerFactory(id, displayName, this,
+                        implementationClassPath, localAddress, classPathRegistry);
+                LOGGER.debug("Creating {} in a reusable worker process", displayName);
+                workerProcess.setExecHandle(createSessionExecHandle(displayName, implementationClassPath, sessionFactory.createSession()));
+                return workerProcess;
+            }
+
             WorkerFactory workerFactory;
             if (isLoadApplicationInSystemClassLoader()) {
                 workerFactory = new ApplicationClassesInSystemClassLoaderWorkerFactory(id, displayName, this,
@@ -112,5 +125,32 @@ public class DefaultWorkerProcessFactory implements Factory<WorkerProcessBuilder
 
             return workerProcess;
         }
+
+        private ExecHandle createSessionExecHandle(String displayName, List<URL> implementationClassPath, byte[] session) {
+            final JavaExecHandleBuilder javaCommand = getJavaCommand();
+            javaCommand.setDisplayName(displayName);
+            List<String> implementationClassPathEntries = new ArrayList<String>();
+            for (URL url : implementationClassPath) {
+                implementationClassPathEntries.add(url.toString());
+            }
+            Object key = Arrays.asList(javaCommand.getExecutable(), javaCommand.getWorkingDir(), javaCommand.getActualEnvironment(), javaCommand.getAllJvmArgs(),
+                    implementationClassPathEntries, getLogLevel(), getGradleUserHomeDir());
+
+            Factory<WorkerProcessBuilder> hostBuilderFactory = new Factory<WorkerProcessBuilder>() {
+                public WorkerProcessBuilder create() {
+                    WorkerProcessBuilder hostBuilder = new DefaultWorkerProcessBuilder();
+                    hostBuilder.setBaseName("Gradle Worker Host");
+                    hostBuilder.setLogLevel(getLogLevel());
+                    hostBuilder.setGradleUserHomeDir(getGradleUserHomeDir());
+                    JavaExecHandleBuilder hostCommand = hostBuilder.getJavaCommand();
+                    hostCommand.setExecutable(javaCommand.getExecutable());
+                    hostCommand.setWorkingDir(javaCommand.getWorkingDir());
+                    hostCommand.setEnvironment(javaCommand.getEnvironment());
+                    hostCommand.jvmArgs(javaCommand.getAllJvmArgs());
+                    return hostBuilder;
+                }
+            };
+            return new WorkerSessionExecHandle(displayName, javaCommand, workerProcessPool, key, hostBuilderFactory, session);
+        }
     }
 }
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal;
+
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.Factory;
+import org.gradle.internal.TimeProvider;
+import org.gradle.internal.TrueTimeProvider;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.ThreadFactoryImpl;
+import org.gradle.messaging.remote.ObjectConnection;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.child.WorkerSessionHost;
+import org.gradle.process.internal.child.WorkerSessionListener;
+import org.gradle.process.internal.child.WorkerSessionRunner;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>A pool of long-lived worker JVMs which run reusable worker processes. Each JVM runs a {@link WorkerSessionHost}, and each reusable worker process
+ * is executed as a session in an idle JVM whose key matches that of the worker process.</p>
+ *
+ * <p>A JVM is returned to the pool once its session has completed, unless the session failed, the JVM has run {@link #MAX_SESSIONS_PER_WORKER} sessions,
+ * or the heap retained by the JVM after its session exceeds {@link #MAX_RETAINED_HEAP_RATIO} of its maximum heap. Idle JVMs are stopped after {@link #MAX_IDLE_MILLIS}, whether or not
+ * the pool is used again.</p>
+ */
+public class ReusableWorkerProcessPool implements Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(ReusableWorkerProcessPool.class);
+    static final int MAX_SESSIONS_PER_WORKER = 20;
+    static final double MAX_RETAINED_HEAP_RATIO = 0.8;
+    static final long MAX_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    static final long EXPIRY_CHECK_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private final TimeProvider timeProvider;
+    private final ScheduledExecutorService expiryExecutor;
+    private final Lock lock = new ReentrantLock();
+    private final ListMultimap<Object, PooledWorker> idle = LinkedListMultimap.create();
+    private final Set<PooledWorker> workers = new LinkedHashSet<PooledWorker>();
+    private boolean stopped;
+
+    public ReusableWorkerProcessPool() {
+        this(new TrueTimeProvider(), Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("reusable worker process expiry")));
+    }
+
+    ReusableWorkerProcessPool(TimeProvider timeProvider, ScheduledExecutorService expiryExecutor) {
+        this.timeProvider = timeProvider;
+        this.expiryExecutor = expiryExecutor;
+        expiryExecutor.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                expireIdleWorkers();
+            }
+        }, EXPIRY_CHECK_MILLIS, EXPIRY_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Takes an idle worker JVM with the given key from the pool, or starts a new one using a builder from the given factory when there is no such worker.
+     * The worker must be handed back using {@link #release(PooledWorker, boolean, long, long)} once its session has completed.
+     */
+    PooledWorker acquire(Object key, Factory<? extends WorkerProcessBuilder> builderFactory) {
+        List<PooledWorker> discarded;
+        PooledWorker worker = null;
+        lock.lock();
+        try {
+            if (stopped) {
+                throw new IllegalStateException("Cannot acquire a worker process, as the worker process pool has been stopped.");
+            }
+            discarded = removeUnusableIdleWorkers();
+            List<PooledWorker> candidates = idle.get(key);
+            if (!candidates.isEmpty()) {
+                // Prefer the most recently used worker, as it is likely to be the most warmed up
+                worker = candidates.remove(candidates.size() - 1);
+                worker.sessions++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        stop(discarded);
+
+        if (worker != null) {
+            LOGGER.debug("Reusing {} for session {}.", worker, worker.sessions);
+            return worker;
+        }
+        return start(key, builderFactory);
+    }
+
+    /**
+     * Hands back a worker JVM whose session has completed. The worker is returned to the pool when it is healthy, and is stopped otherwise.
+     */
+    void release(PooledWorker worker, boolean sessionSucceeded, long usedMemory, long maxMemory) {
+        boolean reuse;
+        lock.lock();
+        try {
+            worker.sessionListener = null;
+            reuse = !stopped && worker.alive && sessionSucceeded
+                    && worker.sessions < MAX_SESSIONS_PER_WORKER
+                    && usedMemory <= MAX_RETAINED_HEAP_RATIO * maxMemory;
+            if (reuse) {
+                worker.idleSince = timeProvider.getCurrentTime();
+                idle.put(worker.key, worker);
+            } else {
+                workers.remove(worker);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (!reuse) {
+            LOGGER.debug("Discarding {} after {} sessions (session succeeded: {}, used heap: {}, max heap: {}).", worker, worker.sessions, sessionSucceeded, usedMemory, maxMemory);
+            worker.stop();
+        }
+    }
+
+    public void stop() {
+        List<PooledWorker> idleWorkers;
+        List<PooledWorker> busyWorkers;
+        lock.lock();
+        try {
+            stopped = true;
+            idleWorkers = new ArrayList<PooledWorker>(idle.values());
+            busyWorkers = new ArrayList<PooledWorker>(workers);
+            busyWorkers.removeAll(idleWorkers);
+            idle.clear();
+            workers.clear();
+        } finally {
+            lock.unlock();
+        }
+        expiryExecutor.shutdownNow();
+        for (PooledWorker worker : busyWorkers) {
+            worker.abort();
+        }
+        stop(idleWorkers);
+        stop(busyWorkers);
+    }
+
+    private void expireIdleWorkers() {
+        List<PooledWorker> discarded;
+        lock.lock();
+        try {
+            discarded = removeUnusableIdleWorkers();
+        } finally {
+            lock.unlock();
+        }
+        stop(discarded);
+    }
+
+    private List<PooledWorker> removeUnusableIdleWorkers() {
+        List<PooledWorker> discarded = new ArrayList<PooledWorker>();
+        long expiry = timeProvider.getCurrentTime() - MAX_IDLE_MILLIS;
+        Iterator<PooledWorker> iterator = idle.values().iterator();
+        while (iterator.hasNext()) {
+            PooledWorker worker = iterator.next();
+            if (!worker.alive || worker.idleSince < expiry) {
+                iterator.remove();
+                workers.remove(worker);
+                discarded.add(worker);
+            }
+        }
+        return discarded;
+    }
+
+    private void stop(List<PooledWorker> workers) {
+        for (PooledWorker worker : workers) {
+            worker.stop();
+        }
+    }
+
+    private PooledWorker start(Object key, Factory<? extends WorkerProcessBuilder> builderFactory) {
+        PooledWorker worker = new PooledWorker(key);
+        WorkerProcessBuilder builder = builderFactory.create();
+        builder.worker(new WorkerSessionHost());
+        builder.getJavaCommand().listener(worker);
+        WorkerProcess process = builder.build();
+        process.start();
+
+        ObjectConnection connection = process.getConnection();
+        connection.addIncoming(WorkerSessionListener.class, worker);
+        WorkerSessionRunner runner = connection.addOutgoing(WorkerSessionRunner.class);
+        connection.connect();
+
+        boolean poolStopped;
+        lock.lock();
+        try {
+            worker.process = process;
+            worker.runner = runner;
+            worker.sessions = 1;
+            workers.add(worker);
+            poolStopped = stopped;
+        } finally {
+            lock.unlock();
+        }
+        if (poolStopped) {
+            worker.abort();
+        }
+        LOGGER.debug("Started {}.", worker);
+        return worker;
+    }
+
+    /**
+     * Creates daemon threads, so that a pool which is never stopped does not prevent the JVM from exiting.
+     */
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final ThreadFactory delegate;
+
+        DaemonThreadFactory(String displayName) {
+            delegate = new ThreadFactoryImpl(displayName);
+        }
+
+        public Thread newThread(Runnable r) {
+            Thread thread = delegate.newThread(r);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * A worker JVM owned by this pool.
+     */
+    class PooledWorker implements WorkerSessionListener, ExecHandleListener {
+        private final Object key;
+        private WorkerProcess process;
+        private WorkerSessionRunner runner;
+        private ExecHandle execHandle;
+        private WorkerSessionListener sessionListener;
+        private boolean alive = true;
+        private int sessions;
+        private long idleSince;
+
+        PooledWorker(Object key) {
+            this.key = key;
+        }
+
+        /**
+         * Runs the given session in this worker. The given listener is notified when the session completes, or when this worker's JVM exits before the session completes.
+         */
+        void runSession(byte[] serializedSession, WorkerSessionListener listener) {
+            lock.lock();
+            try {
+                if (alive) {
+                    sessionListener = listener;
+                    runner.runSession(serializedSession);
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            listener.sessionFinished(String.format("%s has stopped.", this), 0, 0);
+        }
+
+        void abort() {
+            ExecHandle handle;
+            lock.lock();
+            try {
+                handle = execHandle;
+            } finally {
+                lock.unlock();
+            }
+            if (handle != null) {
+                handle.abort();
+            }
+        }
+
+        private void stop() {
+            try {
+                runner.stop();
+                process.waitForStop();
+            } catch (Exception e) {
+                LOGGER.debug(String.format("Could not stop %s.", this), e);
+            }
+        }
+
+        public void sessionFinished(String failure, long usedMemory, long maxMemory) {
+            WorkerSessionListener listener;
+            lock.lock();
+            try {
+                listener = sessionListener;
+            } finally {
+                lock.unlock();
+            }
+            if (listener != null) {
+                listener.sessionFinished(failure, usedMemory, maxMemory);
+            }
+        }
+
+        public void executionStarted(ExecHandle execHandle) {
+            lock.lock();
+            try {
+                this.execHandle = execHandle;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public void executionFinished(ExecHandle execHandle, ExecResult execResult) {
+            lock.lock();
+            try {
+                alive = false;
+            } finally {
+                lock.unlock();
+            }
+            sessionFinished(String.format("%s exited unexpectedly with exit value %d.", this, execResult.getExitValue()), 0, 0);
+        }
+
+        @Override
+        public String toString() {
+            return execHandle == null ? "reusable worker process" : execHandle.toString();
+        }
+    }
+}
@@ -34,6 +34,9 @@ import java.util.Set;
  *
  * <p>A worker process can optionally specify an application classpath. The classes of this classpath are loaded into an isolated ClassLoader, which is made visible to the worker action ClassLoader.
  * Only the packages specified in the set of shared packages are visible to the worker action ClassLoader.</p>
+ *
+ * <p>A worker process can optionally be reusable. A reusable worker is executed in a JVM taken from a pool of long-lived JVMs which share the same JVM options and implementation classpath,
+ * rather than in a freshly started JVM. The application classes are always loaded in a new isolated ClassLoader for each worker, regardless of {@link #isLoadApplicationInSystemClassLoader()}.</p>
  */
 public abstract class WorkerProcessBuilder {
     private final JavaExecHandleBuilder javaCommand;
@@ -42,6 +45,7 @@ public abstract class WorkerProcessBuilder {
     private Action<? super WorkerProcessContext> action;
     private LogLevel logLevel = LogLevel.LIFECYCLE;
     private boolean loadApplicationInSystemClassLoader;
+    private boolean reusable;
     private String baseName = "Gradle Worker";
     private File gradleUserHomeDir;
 
@@ -110,6 +114,14 @@ public abstract class WorkerProcessBuilder {
         this.loadApplicationInSystemClassLoader = loadApplicationInSystemClassLoader;
     }
 
+    public boolean isReusable() {
+        return reusable;
+    }
+
+    public void setReusable(boolean reusable) {
+        this.reusable = reusable;
+    }
+
     public File getGradleUserHomeDir() {
         return gradleUserHomeDir;
     }
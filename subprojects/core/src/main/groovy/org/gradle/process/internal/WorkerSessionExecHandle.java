@@ -0,0 +1,231 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal;
+
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.event.ListenerBroadcast;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.child.WorkerSessionListener;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An {@link ExecHandle} which runs a worker process as a session in a JVM taken from a {@link ReusableWorkerProcessPool}, rather than in a new JVM.
+ * The JVM is handed back to the pool once the session has completed and {@link #waitForFinish()} has been called.
+ */
+class WorkerSessionExecHandle implements ExecHandle, WorkerSessionListener {
+    private final String displayName;
+    private final File directory;
+    private final String command;
+    private final List<String> arguments;
+    private final Map<String, String> environment;
+    private final ReusableWorkerProcessPool pool;
+    private final Object key;
+    private final Factory<? extends WorkerProcessBuilder> hostBuilderFactory;
+    private final byte[] serializedSession;
+    private final ListenerBroadcast<ExecHandleListener> broadcast = new ListenerBroadcast<ExecHandleListener>(ExecHandleListener.class);
+    private final Lock lock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+    private ExecHandleState state = ExecHandleState.INIT;
+    private ReusableWorkerProcessPool.PooledWorker worker;
+    private ExecResult result;
+    private boolean sessionSucceeded;
+    private long usedMemory;
+    private long maxMemory;
+
+    WorkerSessionExecHandle(String displayName, JavaExecHandleBuilder sessionCommand, ReusableWorkerProcessPool pool, Object key,
+                            Factory<? extends WorkerProcessBuilder> hostBuilderFactory, byte[] serializedSession) {
+        this.displayName = displayName;
+        this.directory = sessionCommand.getWorkingDir();
+        this.command = sessionCommand.getExecutable();
+        this.arguments = sessionCommand.getAllJvmArgs();
+        this.environment = sessionCommand.getActualEnvironment();
+        this.pool = pool;
+        this.key = key;
+        this.hostBuilderFactory = hostBuilderFactory;
+        this.serializedSession = serializedSession;
+        broadcast.addAll(sessionCommand.getListeners());
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public List<String> getArguments() {
+        return arguments;
+    }
+
+    public Map<String, String> getEnvironment() {
+        return environment;
+    }
+
+    public ExecHandleState getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ExecHandle start() {
+        lock.lock();
+        try {
+            if (state != ExecHandleState.INIT) {
+                throw new IllegalStateException(String.format("Cannot start %s, as it has already been started.", displayName));
+            }
+            state = ExecHandleState.STARTING;
+        } finally {
+            lock.unlock();
+        }
+
+        ReusableWorkerProcessPool.PooledWorker pooledWorker;
+        try {
+            pooledWorker = pool.acquire(key, hostBuilderFactory);
+        } catch (Throwable t) {
+            finished(ExecHandleState.FAILED, new ExecException(String.format("A problem occurred starting %s.", displayName), t), false);
+            throw UncheckedException.throwAsUncheckedException(t);
+        }
+
+        lock.lock();
+        try {
+            worker = pooledWorker;
+            state = ExecHandleState.STARTED;
+        } finally {
+            lock.unlock();
+        }
+        broadcast.getSource().executionStarted(this);
+        pooledWorker.runSession(serializedSession, this);
+        return this;
+    }
+
+    public void sessionFinished(String failure, long usedMemory, long maxMemory) {
+        lock.lock();
+        try {
+            this.usedMemory = usedMemory;
+            this.maxMemory = maxMemory;
+        } finally {
+            lock.unlock();
+        }
+        if (failure == null) {
+            finished(ExecHandleState.SUCCEEDED, null, true);
+        } else {
+            finished(ExecHandleState.FAILED, new ExecException(String.format("%s failed: %s", displayName, failure)), false);
+        }
+    }
+
+    public void abort() {
+        ReusableWorkerProcessPool.PooledWorker pooledWorker;
+        lock.lock();
+        try {
+            pooledWorker = worker;
+        } finally {
+            lock.unlock();
+        }
+        if (pooledWorker != null) {
+            pooledWorker.abort();
+        }
+        finished(ExecHandleState.ABORTED, null, false);
+    }
+
+    private void finished(ExecHandleState finalState, ExecException failure, boolean succeeded) {
+        lock.lock();
+        try {
+            if (result != null) {
+                return;
+            }
+            state = finalState;
+            sessionSucceeded = succeeded;
+            result = new SessionResult(succeeded ? 0 : 1, failure);
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        broadcast.getSource().executionFinished(this, result);
+    }
+
+    public ExecResult waitForFinish() {
+        ReusableWorkerProcessPool.PooledWorker pooledWorker;
+        ExecResult finalResult;
+        lock.lock();
+        try {
+            while (result == null) {
+                condition.awaitUninterruptibly();
+            }
+            finalResult = result;
+            pooledWorker = worker;
+            worker = null;
+        } finally {
+            lock.unlock();
+        }
+        if (pooledWorker != null) {
+            pool.release(pooledWorker, sessionSucceeded, usedMemory, maxMemory);
+        }
+        return finalResult;
+    }
+
+    public void addListener(ExecHandleListener listener) {
+        broadcast.add(listener);
+    }
+
+    public void removeListener(ExecHandleListener listener) {
+        broadcast.remove(listener);
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+
+    private class SessionResult implements ExecResult {
+        private final int exitValue;
+        private final ExecException failure;
+
+        SessionResult(int exitValue, ExecException failure) {
+            this.exitValue = exitValue;
+            this.failure = failure;
+        }
+
+        public int getExitValue() {
+            return exitValue;
+        }
+
+        public ExecResult assertNormalExitValue() throws ExecException {
+            if (exitValue != 0) {
+                throw new ExecException(String.format("Process '%s' finished with non-zero exit value %d", displayName, exitValue));
+            }
+            return this;
+        }
+
+        public ExecResult rethrowFailure() throws ExecException {
+            if (failure != null) {
+                throw failure;
+            }
+            return this;
+        }
+    }
+}
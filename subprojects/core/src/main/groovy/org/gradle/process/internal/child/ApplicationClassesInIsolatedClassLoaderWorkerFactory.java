@@ -97,6 +97,14 @@ public class ApplicationClassesInIsolatedClassLoaderWorkerFactory implements Wor
         execSpec.setStandardInput(new ByteArrayInputStream(bytes.toByteArray()));
     }
 
+    /**
+     * Creates a serialized {@link IsolatedApplicationClassLoaderWorker} for this worker, to be run by a {@link WorkerSessionHost} in an existing JVM.
+     */
+    public byte[] createSession() {
+        Collection<URI> applicationClassPath = new DefaultClassPath(processBuilder.getApplicationClasspath()).getAsURIs();
+        return GUtil.serialize(new IsolatedApplicationClassLoaderWorker(applicationClassPath, create()));
+    }
+
     private ImplementationClassLoaderWorker create() {
         ActionExecutionWorker injectedWorker = new ActionExecutionWorker(processBuilder.getWorker(), workerId,
                 displayName, serverAddress, processBuilder.getGradleUserHomeDir());
@@ -56,7 +56,15 @@ public class ImplementationClassLoaderWorker implements Action<WorkerContext>, S
     public void execute(WorkerContext workerContext) {
         LoggingManagerInternal loggingManager = createLoggingManager();
         loggingManager.setLevel(logLevel).start();
+        try {
+            executeWorker(workerContext);
+        } finally {
+            // Restore the logging configuration, in case this JVM is reused to run further workers
+            loggingManager.stop();
+        }
+    }
 
+    private void executeWorker(WorkerContext workerContext) {
         FilteringClassLoader filteredWorkerClassLoader = new FilteringClassLoader(getClass().getClassLoader());
         filteredWorkerClassLoader.allowPackage("org.slf4j");
         filteredWorkerClassLoader.allowClass(Logger.class);
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.child;
+
+import org.gradle.api.Action;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.io.ClassLoaderObjectInputStream;
+import org.gradle.messaging.remote.ObjectConnection;
+import org.gradle.process.internal.WorkerProcessContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * <p>A worker action which keeps its JVM alive and runs worker sessions sent to it by the build process, one at a time.</p>
+ *
+ * <p>Each session is an {@link IsolatedApplicationClassLoaderWorker}, so that the application classes of each session are loaded in a new ClassLoader
+ * and are discarded once the session has completed.</p>
+ */
+public class WorkerSessionHost implements Action<WorkerProcessContext>, Serializable {
+    public void execute(WorkerProcessContext workerProcessContext) {
+        ObjectConnection connection = workerProcessContext.getServerConnection();
+        WorkerSessionListener listener = connection.addOutgoing(WorkerSessionListener.class);
+        SessionRunner runner = new SessionRunner(listener);
+        connection.addIncoming(WorkerSessionRunner.class, runner);
+        connection.connect();
+        runner.awaitStop();
+    }
+
+    private static class SessionRunner implements WorkerSessionRunner {
+        private static final Logger LOGGER = LoggerFactory.getLogger(WorkerSessionHost.class);
+        private final CountDownLatch stopped = new CountDownLatch(1);
+        private final WorkerSessionListener listener;
+
+        SessionRunner(WorkerSessionListener listener) {
+            this.listener = listener;
+        }
+
+        public void runSession(byte[] serializedSession) {
+            String failure = null;
+            try {
+                ObjectInputStream instr = new ClassLoaderObjectInputStream(new ByteArrayInputStream(serializedSession), getClass().getClassLoader());
+                Callable<?> session = (Callable<?>) instr.readObject();
+                session.call();
+            } catch (Throwable t) {
+                LOGGER.error("Worker session failed.", t);
+                failure = t.toString();
+            }
+
+            // Report the heap retained once the session's ClassLoaders are unreachable, so the build process can decide whether to reuse this JVM
+            System.gc();
+            Runtime runtime = Runtime.getRuntime();
+            listener.sessionFinished(failure, runtime.totalMemory() - runtime.freeMemory(), runtime.maxMemory());
+        }
+
+        public void stop() {
+            stopped.countDown();
+        }
+
+        void awaitStop() {
+            try {
+                stopped.await();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
+}
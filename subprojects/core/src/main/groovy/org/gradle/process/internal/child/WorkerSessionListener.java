@@ -0,0 +1,31 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.child;
+
+import org.gradle.api.Nullable;
+
+/**
+ * Sent by a {@link WorkerSessionHost} to the build process when a worker session has completed.
+ */
+public interface WorkerSessionListener {
+    /**
+     * @param failure a description of the failure of the session, or null if it completed successfully.
+     * @param usedMemory the heap used by the host JVM once the session has completed, in bytes.
+     * @param maxMemory the maximum heap of the host JVM, in bytes.
+     */
+    void sessionFinished(@Nullable String failure, long usedMemory, long maxMemory);
+}
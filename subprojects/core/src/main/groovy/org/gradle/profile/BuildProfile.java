@@ -46,6 +46,7 @@ public class BuildProfile {
 
     private final Map<String, ProjectProfile> projects = new LinkedHashMap<String, ProjectProfile>();
     private final Map<String, ContinuousOperation> dependencySets = new LinkedHashMap<String, ContinuousOperation>();
+    private final Map<String, String> networkStatistics = new LinkedHashMap<String, String>();
     private long profilingStarted;
     private long buildStarted;
     private long settingsEvaluated;
@@ -250,5 +251,17 @@ public class BuildProfile {
         return startParameter;
     }
 
+    /**
+     * Adds a statistic about the network activity of the build, such as the utilization of an HTTP connection pool.
+     * Should be called from a {@link ProfileListener} that is notified before the report is generated.
+     */
+    public void addNetworkStatistic(String description, String value) {
+        networkStatistics.put(description, value);
+    }
+
+    public Map<String, String> getNetworkStatistics() {
+        return networkStatistics;
+    }
+
 
 }
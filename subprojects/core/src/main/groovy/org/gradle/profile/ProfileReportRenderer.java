@@ -24,6 +24,7 @@ import org.gradle.reporting.TabbedPageRenderer;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.Map;
 
 public class ProfileReportRenderer {
     private static final DurationFormatter DURATION_FORMAT = new DurationFormatter();
@@ -71,8 +72,11 @@ public class ProfileReportRenderer {
                             .startElement("li").startElement("a").attribute("href", "#tab0").characters("Summary").endElement().endElement()
                             .startElement("li").startElement("a").attribute("href", "#tab1").characters("Configuration").endElement().endElement()
                             .startElement("li").startElement("a").attribute("href", "#tab2").characters("Dependency Resolution").endElement().endElement()
-                            .startElement("li").startElement("a").attribute("href", "#tab3").characters("Task Execution").endElement().endElement()
-                        .endElement();
+                            .startElement("li").startElement("a").attribute("href", "#tab3").characters("Task Execution").endElement().endElement();
+                            if (!model.getNetworkStatistics().isEmpty()) {
+                                htmlWriter.startElement("li").startElement("a").attribute("href", "#tab4").characters("Network").endElement().endElement();
+                            }
+                        htmlWriter.endElement();
                         htmlWriter.startElement("div").attribute("class", "tab").attribute("id", "tab0");
                             htmlWriter.startElement("h2").characters("Summary").endElement();
                             htmlWriter.startElement("table");
@@ -176,8 +180,27 @@ public class ProfileReportRenderer {
                                     }
                                 }
                             htmlWriter.endElement()
-                        .endElement()
-                    .endElement();
+                        .endElement();
+                        if (!model.getNetworkStatistics().isEmpty()) {
+                            htmlWriter.startElement("div").attribute("class", "tab").attribute("id", "tab4");
+                                htmlWriter.startElement("h2").characters("Network").endElement();
+                                htmlWriter.startElement("table");
+                                    htmlWriter.startElement("thead");
+                                        htmlWriter.startElement("tr");
+                                            htmlWriter.startElement("th").characters("Description").endElement();
+                                            htmlWriter.startElement("th").characters("Value").endElement();
+                                        htmlWriter.endElement();
+                                    htmlWriter.endElement();
+                                    for (Map.Entry<String, String> statistic : model.getNetworkStatistics().entrySet()) {
+                                        htmlWriter.startElement("tr");
+                                            htmlWriter.startElement("td").characters(statistic.getKey()).endElement();
+                                            htmlWriter.startElement("td").characters(statistic.getValue()).endElement();
+                                        htmlWriter.endElement();
+                                    }
+                                htmlWriter.endElement();
+                            htmlWriter.endElement();
+                        }
+                    htmlWriter.endElement();
                 }
             };
         }
@@ -259,6 +259,8 @@ class StartParameterTest extends Specification {
         parameter.logLevel = LogLevel.DEBUG
         parameter.colorOutput = false
         parameter.configureOnDemand = true
+        parameter.criticalPathSchedulingEnabled = true
+        parameter.taskOutputCacheEnabled = true
 
         // Non-copied
         parameter.currentDir = new File("other")
@@ -281,6 +283,8 @@ class StartParameterTest extends Specification {
         newParameter != parameter
 
         newParameter.configureOnDemand == parameter.configureOnDemand
+        newParameter.criticalPathSchedulingEnabled
+        newParameter.taskOutputCacheEnabled
         newParameter.gradleUserHomeDir == parameter.gradleUserHomeDir
         newParameter.logLevel == parameter.logLevel
         newParameter.colorOutput == parameter.colorOutput
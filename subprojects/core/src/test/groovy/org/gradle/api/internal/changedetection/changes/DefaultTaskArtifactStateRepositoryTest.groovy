@@ -72,13 +72,14 @@ public class DefaultTaskArtifactStateRepositoryTest extends Specification {
         CacheRepository cacheRepository = new DefaultCacheRepository(mapping, new InMemoryCacheFactory())
         TaskArtifactStateCacheAccess cacheAccess = new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, new NoOpDecorator())
         def stringInterner = new StringInterner()
-        FileCollectionSnapshotter inputFilesSnapshotter = new DefaultFileCollectionSnapshotter(new CachingFileSnapshotter(new DefaultHasher(), cacheAccess, stringInterner), cacheAccess, stringInterner)
+        def fileSnapshotter = new CachingFileSnapshotter(new DefaultHasher(), cacheAccess, stringInterner)
+        FileCollectionSnapshotter inputFilesSnapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner)
         FileCollectionSnapshotter outputFilesSnapshotter = new OutputFilesCollectionSnapshotter(inputFilesSnapshotter, new RandomLongIdGenerator(), cacheAccess, stringInterner)
         SerializerRegistry<FileCollectionSnapshot> serializerRegistry = new DefaultSerializerRegistry<FileCollectionSnapshot>();
         inputFilesSnapshotter.registerSerializers(serializerRegistry);
         outputFilesSnapshotter.registerSerializers(serializerRegistry);
         TaskHistoryRepository taskHistoryRepository = new CacheBackedTaskHistoryRepository(cacheAccess, new CacheBackedFileSnapshotRepository(cacheAccess, serializerRegistry.build(), new RandomLongIdGenerator()), stringInterner)
-        repository = new DefaultTaskArtifactStateRepository(taskHistoryRepository, DirectInstantiator.INSTANCE, outputFilesSnapshotter, inputFilesSnapshotter)
+        repository = new DefaultTaskArtifactStateRepository(taskHistoryRepository, DirectInstantiator.INSTANCE, outputFilesSnapshotter, inputFilesSnapshotter, new TaskImplementationHasher(fileSnapshotter, cacheAccess))
     }
 
     def artifactsAreNotUpToDateWhenCacheIsEmpty() {
@@ -543,6 +544,92 @@ public class DefaultTaskArtifactStateRepositoryTest extends Specification {
         state2.executionHistory.outputFiles.files == [outputDirFile2] as Set
     }
 
+    def cacheKeyIsTheSameForTasksWithTheSameTypeInputsAndOutputs() {
+        expect:
+        cacheKey(builder.withPath("a").task()) != null
+        cacheKey(builder.withPath("a").task()) == cacheKey(builder.withPath("b").task())
+    }
+
+    def cacheKeyChangesWhenAnyInputFileHasChangedHash() {
+        given:
+        def originalKey = cacheKey(task)
+
+        when:
+        inputFile.write("some new content")
+
+        then:
+        cacheKey(builder.task()) != originalKey
+    }
+
+    def cacheKeyChangesWhenAnyFileCreatedInInputDir() {
+        given:
+        def originalKey = cacheKey(task)
+
+        when:
+        inputDir.file("other-file").createFile()
+
+        then:
+        cacheKey(builder.task()) != originalKey
+    }
+
+    def cacheKeyChangesWhenAnyInputPropertyValueChanged() {
+        expect:
+        cacheKey(builder.withProperty("prop", "original value").task()) != cacheKey(builder.withProperty("prop", "new value").task())
+    }
+
+    def cacheKeyChangesWhenTaskTypeChanged() {
+        expect:
+        cacheKey(builder.task()) != cacheKey(builder.withType(TaskSubType.class).task())
+    }
+
+    def cacheKeyChangesWhenOutputFilesChanged() {
+        expect:
+        cacheKey(builder.task()) != cacheKey(builder.withOutputFiles(outputFile).task())
+    }
+
+    def hasNoCacheKeyWhenAnyInputPropertyCannotBeSerialized() {
+        expect:
+        cacheKey(builder.withProperty("prop", new Object()).task()) == null
+    }
+
+    def cacheKeyIsTheSameWhenBuildIsInAnotherLocation() {
+        expect:
+        cacheKeyForProjectIn(tmpDir.createDir("checkout-1")) == cacheKeyForProjectIn(tmpDir.createDir("checkout-2"))
+    }
+
+    def producedOutputFilesDoNotIncludeFilesCreatedBySomethingElse() {
+        given:
+        outputDir.file("other-file").createFile()
+        def task = builder.createsFiles(outputDirFile).task()
+        def state = repository.getStateFor(task)
+        state.isUpToDate([])
+        task.execute()
+
+        expect:
+        state.producedOutputFiles.files == [outputDirFile] as Set
+
+        when:
+        state.afterTask()
+
+        then:
+        def nextState = repository.getStateFor(task)
+        nextState.isUpToDate([])
+        nextState.executionHistory.outputFiles.files == [outputDirFile] as Set
+    }
+
+    private def cacheKeyForProjectIn(TestFile projectDir) {
+        def task = TestUtil.createTask(TaskInternal, TestUtil.createRootProject(projectDir), "task")
+        task.inputs.files(projectDir.file("src/input-file").write("content"))
+        task.outputs.files(projectDir.file("build/output-dir"))
+        return cacheKey(task)
+    }
+
+    private def cacheKey(TaskInternal task) {
+        final state = repository.getStateFor(task)
+        state.isUpToDate([])
+        return state.calculateCacheKey()
+    }
+
     private void outOfDate(TaskInternal task) {
         final state = repository.getStateFor(task)
         assert !state.upToDate
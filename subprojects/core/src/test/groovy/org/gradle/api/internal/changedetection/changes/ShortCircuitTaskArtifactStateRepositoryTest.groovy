@@ -48,6 +48,7 @@ public class ShortCircuitTaskArtifactStateRepositoryTest extends Specification {
         state instanceof NoHistoryArtifactState
         !state.isUpToDate(messages)
         !messages.empty
+        state.calculateCacheKey() == null
     }
 
     def delegatesDirectToBackingRepositoryWithoutRerunTasks() {
@@ -84,6 +85,9 @@ public class ShortCircuitTaskArtifactStateRepositoryTest extends Specification {
 
         and:
         !state.inputChanges.incremental
+
+        and:
+        state.calculateCacheKey() == null
     }
 
     def taskArtifactsAreAlwaysOutOfDateWhenUpToDateSpecReturnsFalse() {
@@ -108,5 +112,8 @@ public class ShortCircuitTaskArtifactStateRepositoryTest extends Specification {
 
         and:
         !state.inputChanges.incremental
+
+        and:
+        state.calculateCacheKey() == null
     }
 }
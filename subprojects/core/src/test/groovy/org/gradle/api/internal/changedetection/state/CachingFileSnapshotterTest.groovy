@@ -16,7 +16,9 @@
 
 package org.gradle.api.internal.changedetection.state
 
+import org.gradle.api.file.FileTreeElement
 import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.hash.HashAlgorithm
 import org.gradle.api.internal.hash.Hasher
 import org.gradle.cache.PersistentIndexedCache
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
@@ -36,6 +38,7 @@ class CachingFileSnapshotterTest extends Specification {
     def setup() {
         file.write("some-content")
         1 * cacheAccess.createCache("fileHashes", _, _) >> cache
+        _ * target.algorithm >> HashAlgorithm.MD5
         hasher = new CachingFileSnapshotter(target, cacheAccess, new StringInterner());
     }
 
@@ -65,7 +68,7 @@ class CachingFileSnapshotterTest extends Specification {
         result.hash == hash
 
         and:
-        1 * cache.get(file.getAbsolutePath()) >> new CachingFileSnapshotter.FileInfo(hash, 1024, file.lastModified())
+        1 * cache.get(file.getAbsolutePath()) >> new CachingFileSnapshotter.FileInfo(hash, 1024, file.lastModified(), HashAlgorithm.MD5)
         1 * target.hash(file) >> hash
         1 * cache.put(file.getAbsolutePath(), _) >> { String key, CachingFileSnapshotter.FileInfo fileInfo ->
             fileInfo.hash == hash
@@ -83,7 +86,7 @@ class CachingFileSnapshotterTest extends Specification {
         result.hash == hash
 
         and:
-        1 * cache.get(file.getAbsolutePath()) >> new CachingFileSnapshotter.FileInfo(hash, file.length(), 124)
+        1 * cache.get(file.getAbsolutePath()) >> new CachingFileSnapshotter.FileInfo(hash, file.length(), 124, HashAlgorithm.MD5)
         1 * target.hash(file) >> hash
         1 * cache.put(file.getAbsolutePath(), _) >> { String key, CachingFileSnapshotter.FileInfo fileInfo ->
             fileInfo.hash == hash
@@ -93,6 +96,20 @@ class CachingFileSnapshotterTest extends Specification {
         0 * _._
     }
 
+    def hashesFileWhenHashAlgorithmHasChanged() {
+        when:
+        def result = hasher.snapshot(file)
+
+        then:
+        result.hash == hash
+
+        and:
+        1 * cache.get(file.getAbsolutePath()) >> new CachingFileSnapshotter.FileInfo(hash, file.length(), file.lastModified(), HashAlgorithm.MURMUR3_128)
+        1 * target.hash(file) >> hash
+        1 * cache.put(file.getAbsolutePath(), _)
+        0 * _._
+    }
+
     def doesNotHashFileWhenTimestampAndLengthHaveNotChanged() {
         when:
         def result = hasher.snapshot(file)
@@ -101,7 +118,39 @@ class CachingFileSnapshotterTest extends Specification {
         result.hash == hash
 
         and:
-        1 * cache.get(file.getAbsolutePath()) >> new CachingFileSnapshotter.FileInfo(hash, file.length(), file.lastModified())
+        1 * cache.get(file.getAbsolutePath()) >> new CachingFileSnapshotter.FileInfo(hash, file.length(), file.lastModified(), HashAlgorithm.MD5)
         0 * _._
     }
+
+    def calculatesSnapshotWithoutUsingCacheWhenCachedSnapshotIsOutOfDate() {
+        def fileDetails = Stub(FileTreeElement) {
+            getFile() >> file
+            getSize() >> file.length()
+            getLastModified() >> file.lastModified()
+        }
+
+        when:
+        def cached = hasher.findCachedSnapshot(fileDetails)
+
+        then:
+        cached == null
+
+        and:
+        1 * cache.get(file.getAbsolutePath()) >> new CachingFileSnapshotter.FileInfo(hash, file.length(), 124, HashAlgorithm.MD5)
+        0 * target._
+        0 * cache._
+
+        when:
+        def result = hasher.calculateSnapshot(fileDetails)
+        hasher.storeSnapshot(fileDetails, result)
+
+        then:
+        result.hash == hash
+
+        and:
+        1 * target.hash(file) >> hash
+        1 * cache.put(file.getAbsolutePath(), result)
+        0 * target._
+        0 * cache._
+    }
 }
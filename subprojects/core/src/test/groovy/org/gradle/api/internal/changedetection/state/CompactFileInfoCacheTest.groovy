@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.internal.hash.HashAlgorithm
+import spock.lang.Specification
+
+class CompactFileInfoCacheTest extends Specification {
+    def missing = new Object()
+    def cache = new CompactFileInfoCache("fileHashes", 1024 * 1024, missing)
+
+    def "returns copy of cached file info"() {
+        def hash = (0..15).collect { it as byte } as byte[]
+
+        when:
+        cache.put("/some/file", new CachingFileSnapshotter.FileInfo(hash, 123, 456, HashAlgorithm.MURMUR3_128))
+        def result = cache.getIfPresent("/some/file")
+
+        then:
+        result.hash == hash
+        result.length == 123
+        result.timestamp == 456
+        result.algorithm == HashAlgorithm.MURMUR3_128
+        cache.size() == 1
+    }
+
+    def "supports hashes shorter than a record"() {
+        when:
+        cache.put("/some/file", new CachingFileSnapshotter.FileInfo([1, 2, 3] as byte[], 1, 2, HashAlgorithm.MD5))
+
+        then:
+        cache.getIfPresent("/some/file").hash == [1, 2, 3] as byte[]
+    }
+
+    def "does not hold hashes longer than a record"() {
+        given:
+        cache.put("/some/file", new CachingFileSnapshotter.FileInfo(new byte[16], 1, 2, HashAlgorithm.MD5))
+
+        when:
+        cache.put("/some/file", new CachingFileSnapshotter.FileInfo(new byte[20], 1, 2, HashAlgorithm.MD5))
+
+        then:
+        cache.getIfPresent("/some/file") == null
+    }
+
+    def "records missing entries"() {
+        when:
+        cache.put("/some/file", missing)
+
+        then:
+        cache.getIfPresent("/some/file").is(missing)
+        cache.getIfPresent("/other/file") == null
+    }
+
+    def "can replace and remove entries"() {
+        given:
+        1000.times { cache.put("/file$it", fileInfo(it)) }
+
+        when:
+        cache.put("/file1", fileInfo(1001))
+        (0..<1000).findAll { it % 3 == 0 }.each { cache.invalidate("/file$it") }
+
+        then:
+        cache.size() == 666
+        cache.getIfPresent("/file1").length == 1001
+        (0..<1000).every { it == 1 || it % 3 == 0 ? true : cache.getIfPresent("/file$it").length == it }
+        (0..<1000).findAll { it % 3 == 0 }.every { cache.getIfPresent("/file$it") == null }
+
+        when:
+        cache.invalidateAll()
+
+        then:
+        cache.size() == 0
+        cache.getIfPresent("/file1") == null
+    }
+
+    def "evicts entries that have not been used recently when budget is used up"() {
+        given:
+        def cache = new CompactFileInfoCache("fileHashes", 10 * CompactFileInfoCache.BYTES_PER_ENTRY, missing)
+        10.times { cache.put("/file$it", fileInfo(it)) }
+
+        when:
+        cache.put("/file10", fileInfo(10))
+        cache.getIfPresent("/file1")
+        cache.put("/file11", fileInfo(11))
+
+        then:
+        cache.maxEntries == 10
+        cache.size() == 10
+        cache.stats().evictionCount() == 2
+        cache.getIfPresent("/file1") != null
+        cache.getIfPresent("/file10") != null
+        cache.getIfPresent("/file11") != null
+    }
+
+    private static CachingFileSnapshotter.FileInfo fileInfo(int value) {
+        new CachingFileSnapshotter.FileInfo([value] as byte[], value, value, HashAlgorithm.MD5)
+    }
+}
@@ -19,7 +19,10 @@ import org.gradle.api.file.FileCollection
 import org.gradle.api.file.FileTreeElement
 import org.gradle.api.internal.cache.StringInterner
 import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.api.internal.hash.HashAlgorithm
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.hash.HashUtil
+import org.gradle.internal.operations.DefaultBuildOperationProcessor
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.ChangeListener
@@ -371,6 +374,45 @@ public class DefaultFileCollectionSnapshotterTest extends Specification {
         0 * _
     }
 
+    def hashesFilesMissingFromCacheConcurrentlyAndProducesSameSnapshotAsSequentialHashing() {
+        given:
+        def buildOperationProcessor = new DefaultBuildOperationProcessor(new DefaultExecutorFactory(), 4)
+        def concurrentFileSnapshotter = Mock(FileTreeElementSnapshotter)
+        def concurrentSnapshotter = new DefaultFileCollectionSnapshotter(concurrentFileSnapshotter, cacheAccess, new StringInterner(), buildOperationProcessor)
+        TestFile cached = tmpDir.createFile('cached')
+        List<TestFile> changed = (1..200).collect { tmpDir.file("dir/file$it").createFile() }
+        TestFile dir = tmpDir.file('dir')
+        def fileCollection = files(([cached, dir] + changed + changed.take(10)) as File[])
+
+        when:
+        def snapshot = concurrentSnapshotter.snapshot(fileCollection)
+
+        then:
+        1 * concurrentFileSnapshotter.findCachedSnapshot({ it.file == cached }) >> fileInfo(cached)
+        200 * concurrentFileSnapshotter.findCachedSnapshot(_) >> null
+        200 * concurrentFileSnapshotter.calculateSnapshot(_) >> { FileTreeElement fileTreeElement -> fileInfo(fileTreeElement.file) }
+        200 * concurrentFileSnapshotter.storeSnapshot(_, _)
+        0 * concurrentFileSnapshotter._
+
+        and:
+        // Waits for the hashing without holding the cache lock
+        1 * cacheAccess.longRunningOperation(_, _ as Runnable) >> { String name, Runnable action ->
+            action.run()
+        }
+
+        and:
+        def expected = snapshotter.snapshot(fileCollection)
+        snapshot.snapshots.keySet() as List == expected.snapshots.keySet() as List
+        snapshot.snapshots.every { path, fileSnapshot -> fileSnapshot.isUpToDate(expected.snapshots[path]) }
+
+        cleanup:
+        buildOperationProcessor?.stop()
+    }
+
+    private static CachingFileSnapshotter.FileInfo fileInfo(File file) {
+        new CachingFileSnapshotter.FileInfo(HashUtil.sha1(file).asByteArray(), file.length(), file.lastModified(), HashAlgorithm.MD5)
+    }
+
     private FileCollection files(File... files) {
         new SimpleFileCollection(files)
     }
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.changedetection.state
 
+import org.gradle.api.internal.hash.HashAlgorithm
 import org.gradle.cache.internal.MultiProcessSafePersistentIndexedCache
 import spock.lang.Specification
 
@@ -133,4 +134,41 @@ class InMemoryTaskArtifactCacheTest extends Specification {
         0 * target._
     }
 
+    def "caches file hashes in compact store"() {
+        given:
+        def cache = cacheFactory.decorate("path/fileHashes.bin", "fileHashes", target)
+        def fileInfo = new CachingFileSnapshotter.FileInfo(new byte[16], 12, 34, HashAlgorithm.MD5)
+
+        when:
+        def result = cache.get("/some/file")
+
+        then:
+        result.length == 12
+        result.timestamp == 34
+
+        and:
+        1 * target.get("/some/file") >> fileInfo
+        0 * target._
+
+        when:
+        result = cache.get("/some/file")
+        def missing = cache.get("/missing/file")
+
+        then:
+        result.length == 12
+        missing == null
+
+        and:
+        1 * target.get("/missing/file") >> null
+        0 * target._
+
+        when:
+        missing = cache.get("/missing/file")
+
+        then:
+        missing == null
+
+        and:
+        0 * target._
+    }
 }
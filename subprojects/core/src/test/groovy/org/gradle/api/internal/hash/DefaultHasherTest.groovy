@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.hash
+
+import org.gradle.internal.hash.HashUtil
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class DefaultHasherTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def "default hasher creates MD5 hash of file content"() {
+        def file = tmpDir.file("small.txt")
+        file.text = "some-content"
+
+        expect:
+        new DefaultHasher().algorithm == HashAlgorithm.MD5
+        new DefaultHasher().hash(file) == HashUtil.createHash(file, "MD5").asByteArray()
+    }
+
+    @Unroll
+    def "memory mapped and streamed #algorithm hashes of large file are equal"() {
+        def file = tmpDir.file("large.bin")
+        def content = new byte[3 * 1024 * 1024 + 17]
+        new Random(42).nextBytes(content)
+        file.bytes = content
+
+        expect:
+        new DefaultHasher(algorithm, true).hash(file) == new DefaultHasher(algorithm, false).hash(file)
+
+        where:
+        algorithm << HashAlgorithm.values()
+    }
+
+    def "different algorithms produce different hashes"() {
+        def file = tmpDir.file("small.txt")
+        file.text = "some-content"
+
+        expect:
+        new DefaultHasher(HashAlgorithm.MD5).hash(file) != new DefaultHasher(HashAlgorithm.MURMUR3_128).hash(file)
+    }
+
+    def "looks up algorithm by name"() {
+        expect:
+        HashAlgorithm.forName("md5") == HashAlgorithm.MD5
+        HashAlgorithm.forName("MURMUR3_128") == HashAlgorithm.MURMUR3_128
+
+        when:
+        HashAlgorithm.forName("unknown")
+
+        then:
+        IllegalArgumentException e = thrown()
+        e.message.contains("unknown")
+    }
+}
@@ -90,6 +90,27 @@ class DefaultTaskOutputsTest extends Specification {
         outputs.upToDateSpec.isSatisfiedBy(task)
     }
 
+    public void doesNotAllowCachingByDefault() {
+        expect:
+        !outputs.isCacheAllowed(task)
+    }
+
+    public void canSpecifyCachePredicateUsingClosure() {
+        boolean cacheable = false
+
+        when:
+        outputs.cacheIf { cacheable }
+
+        then:
+        !outputs.isCacheAllowed(task)
+
+        when:
+        cacheable = true
+
+        then:
+        outputs.isCacheAllowed(task)
+    }
+
     public void getPreviousFilesDelegatesToTaskHistory() {
         TaskExecutionHistory history = Mock()
         FileCollection outputFiles = Mock()
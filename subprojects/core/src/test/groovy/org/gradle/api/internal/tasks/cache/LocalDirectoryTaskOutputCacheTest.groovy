@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache
+
+import org.gradle.cache.CacheBuilder
+import org.gradle.cache.CacheRepository
+import org.gradle.cache.PersistentCache
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class LocalDirectoryTaskOutputCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def cacheDir = tmpDir.createDir("cache")
+    def persistentCache = Mock(PersistentCache) {
+        getBaseDir() >> cacheDir
+    }
+    def cacheBuilder = Stub(CacheBuilder) {
+        withDisplayName(_) >> { cacheBuilder }
+        withLockOptions(_) >> { cacheBuilder }
+        open() >> { persistentCache }
+    }
+    def cacheRepository = Stub(CacheRepository) {
+        cache("taskOutputs") >> { cacheBuilder }
+    }
+    def cache = new LocalDirectoryTaskOutputCache(cacheRepository, 100)
+    def key = new TaskOutputCacheKey("0123abcd")
+
+    def "loads stored entry"() {
+        when:
+        store(key, "content")
+
+        then:
+        load(key) == "content"
+        cacheDir.file("0123abcd").file
+    }
+
+    def "does not find entry that has not been stored"() {
+        def reader = Mock(TaskOutputReader)
+
+        when:
+        def found = cache.load(key, reader)
+
+        then:
+        !found
+        0 * reader._
+    }
+
+    def "replaces existing entry"() {
+        when:
+        store(key, "old")
+        store(key, "new")
+
+        then:
+        load(key) == "new"
+        cacheDir.listFiles().findAll { !it.name.contains('.') }.size() == 1
+    }
+
+    def "does not leave entry behind when writing entry fails"() {
+        when:
+        cache.store(key, new TaskOutputWriter() {
+            void writeTo(OutputStream output) throws IOException {
+                output.write(1)
+                throw new IOException("broken")
+            }
+        })
+
+        then:
+        thrown(org.gradle.api.UncheckedIOException)
+        cacheDir.listFiles().length == 0
+    }
+
+    def "evicts least recently used entries when cache exceeds maximum size"() {
+        def key1 = new TaskOutputCacheKey("1111")
+        def key2 = new TaskOutputCacheKey("2222")
+        def key3 = new TaskOutputCacheKey("3333")
+        store(key1, "a" * 40)
+        store(key2, "b" * 40)
+        cacheDir.file("1111").lastModified = System.currentTimeMillis() - 20000
+        cacheDir.file("2222").lastModified = System.currentTimeMillis() - 10000
+
+        when:
+        load(key1)
+        store(key3, "c" * 40)
+
+        then:
+        cacheDir.file("1111").file
+        !cacheDir.file("2222").exists()
+        cacheDir.file("3333").file
+    }
+
+    def "closes directory cache when closed"() {
+        given:
+        store(key, "content")
+
+        when:
+        cache.close()
+
+        then:
+        1 * persistentCache.close()
+    }
+
+    def "does not open directory cache until used"() {
+        def cacheRepository = Mock(CacheRepository)
+
+        when:
+        new LocalDirectoryTaskOutputCache(cacheRepository, 100).close()
+
+        then:
+        0 * cacheRepository._
+    }
+
+    private void store(TaskOutputCacheKey key, String content) {
+        cache.store(key, new TaskOutputWriter() {
+            void writeTo(OutputStream output) throws IOException {
+                output.write(content.bytes)
+            }
+        })
+    }
+
+    private String load(TaskOutputCacheKey key) {
+        String content = null
+        assert cache.load(key, new TaskOutputReader() {
+            void readFrom(InputStream input) throws IOException {
+                content = new String(input.bytes)
+            }
+        })
+        return content
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.zip.ZipEntry
+import java.util.zip.ZipInputStream
+import java.util.zip.ZipOutputStream
+
+class TaskOutputPackerTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def packer = new TaskOutputPacker()
+
+    def "restores output files produced by the task"() {
+        def outputFile = tmpDir.file("out/file.txt")
+        def outputDir = tmpDir.file("out/classes")
+        def missingOutput = tmpDir.file("out/missing.txt")
+        def roots = [outputFile, outputDir, missingOutput]
+        outputFile.text = "file"
+        outputDir.file("a/b/c.class").text = "c"
+        outputDir.file("d.class").text = "d"
+        def producedFiles = [outputFile, outputDir.file("a/b/c.class"), outputDir.file("d.class")]
+        def packed = new ByteArrayOutputStream()
+
+        when:
+        packer.pack(roots, producedFiles, packed)
+        outputFile.text = "changed"
+        outputDir.file("stale.class").text = "stale"
+        outputDir.file("d.class").delete()
+        missingOutput.text = "stale"
+        packer.unpack(roots, producedFiles + [outputDir.file("stale.class"), missingOutput], new ByteArrayInputStream(packed.toByteArray()))
+
+        then:
+        outputFile.text == "file"
+        outputDir.assertHasDescendants("a/b/c.class", "d.class")
+        outputDir.file("a/b/c.class").text == "c"
+        outputDir.file("d.class").text == "d"
+        !missingOutput.exists()
+    }
+
+    def "leaves files produced by something else in a shared output directory"() {
+        def outputDir = tmpDir.file("out/classes")
+        outputDir.file("a.class").text = "a"
+        outputDir.file("other.class").text = "other"
+        def packed = new ByteArrayOutputStream()
+
+        when:
+        packer.pack([outputDir], [outputDir.file("a.class")], packed)
+        outputDir.file("a.class").text = "changed"
+
+        then:
+        new ZipInputStream(new ByteArrayInputStream(packed.toByteArray())).with { zip ->
+            def names = []
+            def entry
+            while ((entry = zip.nextEntry) != null) {
+                names << entry.name
+            }
+            names
+        } == ["0/", "0/a.class"]
+
+        when:
+        packer.unpack([outputDir], [outputDir.file("a.class")], new ByteArrayInputStream(packed.toByteArray()))
+
+        then:
+        outputDir.assertHasDescendants("a.class", "other.class")
+        outputDir.file("a.class").text == "a"
+        outputDir.file("other.class").text == "other"
+    }
+
+    def "restores output directory that does not exist"() {
+        def outputDir = tmpDir.file("out/classes")
+        outputDir.file("a.class").text = "a"
+        def packed = new ByteArrayOutputStream()
+
+        when:
+        packer.pack([outputDir], [outputDir.file("a.class")], packed)
+        outputDir.deleteDir()
+        packer.unpack([outputDir], [], new ByteArrayInputStream(packed.toByteArray()))
+
+        then:
+        outputDir.assertHasDescendants("a.class")
+    }
+
+    def "restores empty output directory"() {
+        def outputDir = tmpDir.file("out/classes").createDir()
+        def packed = new ByteArrayOutputStream()
+
+        when:
+        packer.pack([outputDir], [], packed)
+        outputDir.deleteDir()
+        packer.unpack([outputDir], [], new ByteArrayInputStream(packed.toByteArray()))
+
+        then:
+        outputDir.directory
+    }
+
+    def "rejects entries outside of the output roots"() {
+        def outputDir = tmpDir.file("out/classes")
+        def packed = new ByteArrayOutputStream()
+        def zip = new ZipOutputStream(packed)
+        zip.putNextEntry(new ZipEntry(entryName))
+        zip.closeEntry()
+        zip.close()
+
+        when:
+        packer.unpack([outputDir], [], new ByteArrayInputStream(packed.toByteArray()))
+
+        then:
+        thrown(IOException)
+
+        where:
+        entryName << ["1", "x/a.class", "0/../a.class"]
+    }
+}
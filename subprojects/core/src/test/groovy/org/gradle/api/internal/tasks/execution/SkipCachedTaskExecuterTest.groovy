@@ -0,0 +1,183 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution
+
+import org.gradle.api.GradleException
+import org.gradle.api.file.FileCollection
+import org.gradle.api.internal.TaskExecutionHistory
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.TaskOutputsInternal
+import org.gradle.api.internal.changedetection.TaskArtifactState
+import org.gradle.api.internal.tasks.TaskExecuter
+import org.gradle.api.internal.tasks.TaskExecutionContext
+import org.gradle.api.internal.tasks.TaskStateInternal
+import org.gradle.api.internal.tasks.cache.*
+import spock.lang.Specification
+
+class SkipCachedTaskExecuterTest extends Specification {
+    def delegate = Mock(TaskExecuter)
+    def task = Mock(TaskInternal)
+    def outputs = Mock(TaskOutputsInternal)
+    def outputFiles = Mock(FileCollection)
+    def taskState = Mock(TaskStateInternal)
+    def taskContext = Mock(TaskExecutionContext)
+    def taskArtifactState = Mock(TaskArtifactState)
+    def cache = Mock(TaskOutputCache)
+    def packer = Mock(TaskOutputPacker)
+    def cacheKey = new TaskOutputCacheKey("0123")
+    def outputDir = new File("out")
+    def outputFile = new File("a.txt")
+    def previousOutputFiles = [new File("out/previous.txt")] as Set
+    def producedOutputFiles = [new File("out/produced.txt")] as Set
+
+    def executer = new SkipCachedTaskExecuter(cache, packer, delegate)
+
+    def setup() {
+        _ * taskContext.taskArtifactState >> taskArtifactState
+        _ * task.outputs >> outputs
+        _ * outputs.isCacheAllowed(task) >> true
+        _ * outputs.files >> outputFiles
+        _ * outputFiles.files >> ([outputDir, outputFile] as Set)
+        _ * cache.description >> "test cache"
+        _ * taskArtifactState.executionHistory >> Stub(TaskExecutionHistory) {
+            getOutputFiles() >> Stub(FileCollection) {
+                getFiles() >> previousOutputFiles
+            }
+        }
+        _ * taskArtifactState.producedOutputFiles >> Stub(FileCollection) {
+            getFiles() >> producedOutputFiles
+        }
+    }
+
+    def "restores outputs from cache instead of executing task"() {
+        def input = new ByteArrayInputStream(new byte[0])
+
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * cache.load(cacheKey, _) >> { TaskOutputCacheKey key, TaskOutputReader reader ->
+            reader.readFrom(input)
+            return true
+        }
+        1 * packer.unpack([outputFile, outputDir], previousOutputFiles, input)
+        1 * taskState.skipped("FROM-CACHE")
+        0 * delegate._
+        0 * cache.store(_, _)
+    }
+
+    def "executes task and stores outputs in cache when cache does not contain outputs"() {
+        def output = new ByteArrayOutputStream()
+
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * cache.load(cacheKey, _) >> false
+
+        then:
+        1 * delegate.execute(task, taskState, taskContext)
+        _ * taskState.failure >> null
+
+        then:
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * cache.store(cacheKey, _) >> { TaskOutputCacheKey key, TaskOutputWriter writer ->
+            writer.writeTo(output)
+        }
+        1 * packer.pack([outputFile, outputDir], producedOutputFiles, output)
+        0 * taskState.skipped(_)
+    }
+
+    def "executes task without calculating cache key when task does not allow caching"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * outputs.isCacheAllowed(task) >> false
+        1 * delegate.execute(task, taskState, taskContext)
+        0 * taskArtifactState.calculateCacheKey()
+        0 * cache._
+    }
+
+    def "executes task without using cache when task has no cache key"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * taskArtifactState.calculateCacheKey() >> null
+        1 * delegate.execute(task, taskState, taskContext)
+        _ * taskState.failure >> null
+        1 * taskArtifactState.calculateCacheKey() >> null
+        0 * cache._
+    }
+
+    def "does not store outputs when task fails"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * cache.load(cacheKey, _) >> false
+        1 * delegate.execute(task, taskState, taskContext)
+        _ * taskState.failure >> new RuntimeException()
+        0 * cache.store(_, _)
+    }
+
+    def "does not store outputs when task discovered additional inputs"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * cache.load(cacheKey, _) >> false
+        1 * delegate.execute(task, taskState, taskContext)
+        _ * taskState.failure >> null
+        1 * taskArtifactState.calculateCacheKey() >> null
+        0 * cache.store(_, _)
+    }
+
+    def "ignores failure to store outputs"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        2 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * cache.load(cacheKey, _) >> false
+        1 * delegate.execute(task, taskState, taskContext)
+        _ * taskState.failure >> null
+        1 * cache.store(cacheKey, _) >> { throw new RuntimeException("broken") }
+        noExceptionThrown()
+    }
+
+    def "fails when outputs cannot be restored"() {
+        def failure = new RuntimeException("broken")
+
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * cache.load(cacheKey, _) >> { throw failure }
+        0 * delegate._
+
+        and:
+        def e = thrown(GradleException)
+        e.cause == failure
+    }
+}
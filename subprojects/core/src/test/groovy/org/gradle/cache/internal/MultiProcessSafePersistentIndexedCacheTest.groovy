@@ -50,29 +50,91 @@ class MultiProcessSafePersistentIndexedCacheTest extends Specification {
         0 * _._
     }
 
-    def "holds write lock while putting entry into cache"() {
+    def "writes pending puts and removals holding write lock when cache is closed"() {
         given:
         cacheOpened()
 
         when:
         cache.put("key", "value")
+        cache.remove("other")
+
+        then:
+        0 * _._
+
+        when:
+        cache.close()
 
         then:
         1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
-        1 * backingCache.put("key", "value")
+        1 * backingCache.removeAll(["other"] as Set)
+
+        then:
+        1 * backingCache.putAll([key: "value"])
+
+        then:
+        1 * backingCache.close()
+        0 * _._
+    }
+
+    def "reads pending puts and removals without accessing cache"() {
+        given:
+        cacheOpened()
+
+        when:
+        cache.put("key", "value")
+        cache.put("other", "value")
+        cache.remove("other")
+
+        then:
+        cache.get("key") == "value"
+        cache.get("other") == null
+
+        and:
         0 * _._
     }
 
-    def "holds write lock while removing entry from cache"() {
+    def "later update replaces pending update of same key"() {
         given:
         cacheOpened()
 
         when:
         cache.remove("key")
+        cache.put("key", "value")
+        cache.put("other", "value")
+        cache.remove("other")
+        cache.close()
+
+        then:
+        1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * backingCache.removeAll(["other"] as Set)
+        1 * backingCache.putAll([key: "value"])
+        1 * backingCache.close()
+        0 * _._
+    }
+
+    def "writes pending updates holding write lock when number of pending updates reaches threshold"() {
+        given:
+        def cache = new DefaultMultiProcessSafePersistentIndexedCache<String, String>(factory, fileAccess, 3)
+        1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * factory.create() >> backingCache
+        cache.put("a", "1")
+        cache.remove("b")
+
+        when:
+        cache.put("c", "3")
 
         then:
         1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
-        1 * backingCache.remove("key")
+        1 * backingCache.removeAll(["b"] as Set)
+        1 * backingCache.putAll([a: "1", c: "3"])
+        0 * _._
+
+        when:
+        cache.close()
+
+        then:
+        1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * backingCache.close()
         0 * _._
     }
 
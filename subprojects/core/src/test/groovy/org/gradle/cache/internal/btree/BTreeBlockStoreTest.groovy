@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree
+
+import org.gradle.internal.serialize.DefaultSerializer
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+/**
+ * Runs the same get/put load through a {@link BTreePersistentIndexedCache} backed by each {@link BlockStore} implementation.
+ */
+class BTreeBlockStoreTest extends Specification {
+    static final int ENTRIES = 500
+
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def cacheFile = tmpDir.file("cache.bin")
+
+    @Unroll
+    def "reads entries written to cache using #storeType.simpleName"() {
+        when:
+        2.times { round ->
+            // Reopens the cache for each round, as happens when the cross-process cache lock is released and reacquired
+            def writeCache = open(storeType)
+            ENTRIES.times { writeCache.put("key $it".toString(), "value $it in round $round".toString()) }
+            writeCache.close()
+        }
+        def cache = open(storeType)
+
+        then:
+        (0..<ENTRIES).every { cache.get("key $it".toString()) == "value $it in round 1" }
+        cache.get("unknown") == null
+
+        cleanup:
+        cache?.close()
+
+        where:
+        storeType << [FileBackedBlockStore, MappedFileBlockStore]
+    }
+
+    def "stores use the same file format"() {
+        given:
+        def cache = open(FileBackedBlockStore)
+        ENTRIES.times { cache.put("key $it".toString(), "value $it".toString()) }
+        cache.close()
+
+        when:
+        cache = open(MappedFileBlockStore)
+
+        then:
+        (0..<ENTRIES).every { cache.get("key $it".toString()) == "value $it" }
+
+        cleanup:
+        cache?.close()
+    }
+
+    private BTreePersistentIndexedCache<String, String> open(Class<? extends BlockStore> storeType) {
+        return new BTreePersistentIndexedCache<String, String>(cacheFile, storeType.newInstance(cacheFile), new DefaultSerializer<String>(), new DefaultSerializer<String>(), (short) 512, 512)
+    }
+}
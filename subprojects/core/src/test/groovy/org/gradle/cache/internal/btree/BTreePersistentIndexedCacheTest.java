@@ -241,6 +241,37 @@ public class BTreePersistentIndexedCacheTest {
         verifyAndCloseCache();
     }
 
+    @Test
+    public void persistsBatchesOfAddedAndRemovedEntries() {
+        createCache();
+
+        Map<String, Integer> entries = new LinkedHashMap<String, Integer>();
+        for (int i = 0; i < 100; i++) {
+            entries.put(String.format("key_%d", i), i);
+        }
+        cache.putAll(entries);
+        cache.verify();
+
+        List<String> removed = new ArrayList<String>();
+        for (int i = 0; i < 100; i += 3) {
+            removed.add(String.format("key_%d", i));
+        }
+        cache.removeAll(removed);
+        cache.verify();
+
+        cache.reset();
+
+        for (int i = 0; i < 100; i++) {
+            if (i % 3 == 0) {
+                assertNull(cache.get(String.format("key_%d", i)));
+            } else {
+                assertThat(cache.get(String.format("key_%d", i)), equalTo(i));
+            }
+        }
+
+        verifyAndCloseCache();
+    }
+
     @Test
     public void handlesBadlyFormedCacheFile() throws IOException {
         cacheFile.createNewFile();
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class MappedFileBlockStoreTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def cacheFile = tmpDir.file("cache.bin")
+    def factory = { Class type -> new TestPayload() } as BlockStore.Factory
+    def initAction = {} as Runnable
+
+    def "reads blocks written to store"() {
+        def store = open(new MappedFileBlockStore(cacheFile))
+
+        when:
+        def positions = (0..<2000).collect { write(store, "value $it") }
+
+        then:
+        (0..<2000).every { read(store, positions[it]) == "value $it" }
+
+        cleanup:
+        store?.close()
+    }
+
+    def "reads blocks replaced in place"() {
+        def store = open(new MappedFileBlockStore(cacheFile))
+        def positions = (0..<2000).collect { write(store, "value $it") }
+        def length = cacheFile.length()
+
+        when:
+        def payload = store.read(positions[10], TestPayload)
+        payload.value = "other 10"
+        store.write(payload)
+
+        then:
+        read(store, positions[10]) == "other 10"
+        read(store, positions[11]) == "value 11"
+        cacheFile.length() == length
+
+        cleanup:
+        store?.close()
+    }
+
+    def "uses same file format as file backed store"() {
+        def store = open(new MappedFileBlockStore(cacheFile))
+        def positions = (0..<100).collect { write(store, "value $it") }
+        store.close()
+
+        when:
+        def fileStore = open(new FileBackedBlockStore(cacheFile))
+        def fileStorePosition = write(fileStore, "written by file store")
+
+        then:
+        (0..<100).every { read(fileStore, positions[it]) == "value $it" }
+
+        when:
+        fileStore.close()
+        store = open(new MappedFileBlockStore(cacheFile))
+
+        then:
+        read(store, fileStorePosition) == "written by file store"
+        read(store, positions[50]) == "value 50"
+
+        cleanup:
+        store?.close()
+    }
+
+    def "detects corrupted block"() {
+        def store = open(new MappedFileBlockStore(cacheFile))
+        def position = write(store, "value")
+
+        when:
+        store.read(new BlockPointer(position.pos + 1), TestPayload)
+
+        then:
+        thrown(CorruptedCacheException)
+
+        cleanup:
+        store?.close()
+    }
+
+    def "discards blocks on clear"() {
+        def store = open(new MappedFileBlockStore(cacheFile))
+        write(store, "value")
+
+        when:
+        store.clear()
+        def position = write(store, "new value")
+
+        then:
+        position.pos == 0
+        read(store, position) == "new value"
+
+        cleanup:
+        store?.close()
+    }
+
+    private BlockStore open(BlockStore store) {
+        store.open(initAction, factory)
+        return store
+    }
+
+    private static BlockPointer write(BlockStore store, String value) {
+        def payload = new TestPayload(value: value)
+        store.attach(payload)
+        store.write(payload)
+        return payload.pos
+    }
+
+    private static String read(BlockStore store, BlockPointer pos) {
+        return store.read(pos, TestPayload).value
+    }
+
+    static class TestPayload extends BlockPayload {
+        String value
+
+        @Override
+        protected int getSize() {
+            return 2 + 3 * value.length()
+        }
+
+        @Override
+        protected int getType() {
+            return 0x55
+        }
+
+        @Override
+        protected void read(DataInputStream inputStream) throws Exception {
+            value = inputStream.readUTF()
+        }
+
+        @Override
+        protected void write(DataOutputStream outputStream) throws Exception {
+            outputStream.writeUTF(value)
+        }
+    }
+}
@@ -21,6 +21,7 @@ import org.gradle.api.CircularReferenceException
 import org.gradle.api.Task
 import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.TaskOutputsInternal
+import org.gradle.api.internal.changedetection.state.TaskDurationRepository
 import org.gradle.api.internal.project.DefaultProject
 import org.gradle.api.internal.tasks.TaskStateInternal
 import org.gradle.api.specs.Spec
@@ -865,6 +866,66 @@ public class DefaultTaskExecutionPlanTest extends Specification {
         t3.task.project != t4.task.project
     }
 
+    def "schedules every task of a layered graph after all of its dependencies"() {
+        given:
+        def layers = []
+        def previous = []
+        10.times { layer ->
+            def current = (0..<10).collect { i ->
+                task("t${layer}_${i}", dependsOn: previous.empty ? [] : [previous[i], previous[(i + 3) % 10]])
+            }
+            layers << current
+            previous = current
+        }
+
+        when:
+        addToGraphAndPopulate(previous)
+        def executed = executedTasks
+
+        then:
+        executed.size() == 100
+        layers.eachWithIndex { List<Task> layer, int index ->
+            if (index > 0) {
+                layer.eachWithIndex { Task t, int i ->
+                    assert executed.indexOf(t) > executed.indexOf(layers[index - 1][i])
+                    assert executed.indexOf(t) > executed.indexOf(layers[index - 1][(i + 3) % 10])
+                }
+            }
+        }
+    }
+
+    def "task becomes ready when a finalizer it must run after is enforced and completes"() {
+        given:
+        Task finalizer = task("finalizer")
+        Task a = task("a", finalizedBy: [finalizer])
+        Task b = task("b", mustRunAfter: [finalizer])
+
+        when:
+        addToGraphAndPopulate([a, b])
+
+        then:
+        executedTasks == [a, finalizer, b]
+    }
+
+    def "executes ready tasks on the longest critical path first when using critical path ordering"() {
+        given:
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c", dependsOn: [b])
+        Task d = task("d")
+        def durations = Stub(TaskDurationRepository) {
+            getPreviousDurations(_) >> [(a): 10L, (b): 5L, (c): 20L]
+        }
+        executionPlan.useCriticalPathOrdering(durations)
+
+        when:
+        addToGraphAndPopulate([a, c, d])
+
+        then:
+        executes(a, b, c, d)
+        executedTasks == [b, c, d, a]
+    }
+
     void executes(Task... expectedTasks) {
         assert executionPlan.tasks == expectedTasks as List
         assert expectedTasks == expectedTasks as List
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class OutputPathTrieTest extends Specification {
+    def trie = new OutputPathTrie<String>('/' as char)
+
+    def "empty index has no overlaps"() {
+        expect:
+        trie.empty
+        trie.findOverlap("/a/b") == null
+    }
+
+    @Unroll
+    def "path #path overlaps indexed path #indexed"() {
+        given:
+        trie.add("task", indexed)
+
+        when:
+        def overlap = trie.findOverlap(path)
+
+        then:
+        overlap.left == "task"
+        overlap.right == shorter
+
+        where:
+        indexed    | path       | shorter
+        "/a/b"     | "/a/b"     | "/a/b"
+        "/a/b"     | "/a/b/c/d" | "/a/b"
+        "/a/b/c/d" | "/a/b"     | "/a/b"
+        "/a/b/c/d" | "/a"       | "/a"
+    }
+
+    @Unroll
+    def "path #path does not overlap indexed path #indexed"() {
+        given:
+        trie.add("task", indexed)
+
+        expect:
+        trie.findOverlap(path) == null
+
+        where:
+        indexed | path
+        "/a/b"  | "/a/bc"
+        "/a/bc" | "/a/b"
+        "/a/b"  | "/a/c"
+        "/a/b"  | "/b"
+    }
+
+    def "removed paths no longer overlap"() {
+        given:
+        trie.add("one", "/a/b")
+        trie.add("two", "/a/b/c")
+        trie.add("three", "/a/d")
+
+        when:
+        trie.remove("two", "/a/b/c")
+
+        then:
+        trie.findOverlap("/a/b/c").left == "one"
+
+        when:
+        trie.remove("one", "/a/b")
+
+        then:
+        trie.findOverlap("/a/b/c") == null
+        trie.findOverlap("/a").left == "three"
+
+        when:
+        trie.remove("three", "/a/d")
+
+        then:
+        trie.empty
+        trie.findOverlap("/a") == null
+    }
+
+    def "removing a path owned by another task has no effect"() {
+        given:
+        trie.add("one", "/a/b")
+
+        when:
+        trie.remove("two", "/a/b")
+        trie.remove("one", "/a/c")
+
+        then:
+        trie.findOverlap("/a/b").left == "one"
+    }
+
+    def "clear removes all paths"() {
+        given:
+        trie.add("one", "/a/b")
+
+        when:
+        trie.clear()
+
+        then:
+        trie.empty
+        trie.findOverlap("/a/b") == null
+    }
+}
@@ -60,6 +60,8 @@ public class CommandLineConverterTestSupport {
     protected int expectedMaxWorkersCount = Runtime.getRuntime().availableProcessors();
     protected boolean expectedConfigureOnDemand;
     protected boolean expectedContinuous;
+    protected boolean expectedCriticalPathScheduling;
+    protected boolean expectedTaskOutputCache;
 
     protected void checkConversion(String... args) {
         actualStartParameter = new StartParameter();
@@ -99,5 +101,7 @@ public class CommandLineConverterTestSupport {
         assertEquals(expectedConfigureOnDemand, startParameter.isConfigureOnDemand());
         assertEquals(expectedMaxWorkersCount, startParameter.getMaxWorkerCount());
         assertEquals(expectedContinuous, startParameter.isContinuous());
+        assertEquals(expectedCriticalPathScheduling, startParameter.isCriticalPathSchedulingEnabled());
+        assertEquals(expectedTaskOutputCache, startParameter.isTaskOutputCacheEnabled());
     }
 }
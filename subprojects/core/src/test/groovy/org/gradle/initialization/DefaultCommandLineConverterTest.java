@@ -341,12 +341,34 @@ public class DefaultCommandLineConverterTest extends CommandLineConverterTestSup
         checkConversion("--max-workers", "foo");
     }
 
+    @Test
+    public void withCriticalPathScheduling() {
+        expectedCriticalPathScheduling = true;
+        checkConversion("--scheduling", "critical-path");
+    }
+
+    @Test
+    public void withDefaultScheduling() {
+        checkConversion("--scheduling", "default");
+    }
+
+    @Test(expected = CommandLineArgumentException.class)
+    public void withInvalidScheduling() {
+        checkConversion("--scheduling", "fastest");
+    }
+
     @Test
     public void withConfigureOnDemand() {
         expectedConfigureOnDemand = true;
         checkConversion("--configure-on-demand");
     }
 
+    @Test
+    public void withTaskOutputCache() {
+        expectedTaskOutputCache = true;
+        checkConversion("--task-output-cache");
+    }
+
     @Test
     public void withContinuous() {
         expectedContinuous = true;
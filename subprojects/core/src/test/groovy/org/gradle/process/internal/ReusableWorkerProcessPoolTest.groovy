@@ -0,0 +1,235 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal
+
+import org.gradle.internal.Factory
+import org.gradle.internal.TimeProvider
+import org.gradle.messaging.remote.ObjectConnection
+import org.gradle.process.ExecResult
+import org.gradle.process.internal.child.WorkerSessionListener
+import org.gradle.process.internal.child.WorkerSessionRunner
+import spock.lang.Specification
+
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
+class ReusableWorkerProcessPoolTest extends Specification {
+    def timeProvider = Mock(TimeProvider)
+    def builderFactory = Mock(Factory)
+    def expiryExecutor = Mock(ScheduledExecutorService)
+    Runnable expiryCheck
+    def pool
+    def started = []
+
+    def setup() {
+        _ * builderFactory.create() >> { newBuilder() }
+        1 * expiryExecutor.scheduleWithFixedDelay(_, ReusableWorkerProcessPool.EXPIRY_CHECK_MILLIS, ReusableWorkerProcessPool.EXPIRY_CHECK_MILLIS, TimeUnit.MILLISECONDS) >> { expiryCheck = it[0]; null }
+        pool = new ReusableWorkerProcessPool(timeProvider, expiryExecutor)
+    }
+
+    def "starts a worker when there is no idle worker with the same key"() {
+        when:
+        def worker1 = pool.acquire("a", builderFactory)
+        def worker2 = pool.acquire("a", builderFactory)
+        pool.release(worker1, true, 10, 100)
+        def worker3 = pool.acquire("b", builderFactory)
+
+        then:
+        started.size() == 3
+        worker1 != worker2
+        worker3 != worker1
+    }
+
+    def "reuses an idle worker with the same key"() {
+        given:
+        def worker = pool.acquire("a", builderFactory)
+        pool.release(worker, true, 10, 100)
+
+        when:
+        def reused = pool.acquire("a", builderFactory)
+
+        then:
+        reused == worker
+        started.size() == 1
+    }
+
+    def "runs session in worker and forwards completion to session listener"() {
+        def listener = Mock(WorkerSessionListener)
+        def session = [1, 2, 3] as byte[]
+
+        given:
+        def worker = pool.acquire("a", builderFactory)
+
+        when:
+        worker.runSession(session, listener)
+        worker.sessionFinished(null, 10, 100)
+
+        then:
+        1 * started[0].runner.runSession(session)
+        1 * listener.sessionFinished(null, 10, 100)
+    }
+
+    def "discards worker when session fails"() {
+        given:
+        def worker = pool.acquire("a", builderFactory)
+
+        when:
+        pool.release(worker, false, 10, 100)
+
+        then:
+        1 * started[0].runner.stop()
+        1 * started[0].process.waitForStop()
+
+        when:
+        def other = pool.acquire("a", builderFactory)
+
+        then:
+        other != worker
+        started.size() == 2
+    }
+
+    def "discards worker when retained heap exceeds threshold"() {
+        given:
+        def worker = pool.acquire("a", builderFactory)
+
+        when:
+        pool.release(worker, true, 81, 100)
+
+        then:
+        1 * started[0].runner.stop()
+        1 * started[0].process.waitForStop()
+    }
+
+    def "discards worker once it has run the maximum number of sessions"() {
+        given:
+        def worker = pool.acquire("a", builderFactory)
+
+        when:
+        (ReusableWorkerProcessPool.MAX_SESSIONS_PER_WORKER - 1).times {
+            pool.release(worker, true, 10, 100)
+            assert pool.acquire("a", builderFactory) == worker
+        }
+
+        then:
+        0 * started[0].runner.stop()
+
+        when:
+        pool.release(worker, true, 10, 100)
+
+        then:
+        1 * started[0].runner.stop()
+        started.size() == 1
+    }
+
+    def "does not reuse worker whose JVM has exited"() {
+        def listener = Mock(WorkerSessionListener)
+
+        given:
+        def worker = pool.acquire("a", builderFactory)
+        worker.runSession([1] as byte[], listener)
+
+        when:
+        worker.executionFinished(Mock(ExecHandle), Stub(ExecResult) { getExitValue() >> 1 })
+
+        then:
+        1 * listener.sessionFinished({ it.contains("exited unexpectedly") }, 0, 0)
+
+        when:
+        pool.release(worker, true, 10, 100)
+        def other = pool.acquire("a", builderFactory)
+
+        then:
+        other != worker
+        started.size() == 2
+    }
+
+    def "stops idle workers that have expired"() {
+        given:
+        timeProvider.getCurrentTime() >>> [0, 1000, 1000 + ReusableWorkerProcessPool.MAX_IDLE_MILLIS + 1]
+        def worker = pool.acquire("a", builderFactory)
+        pool.release(worker, true, 10, 100)
+
+        when:
+        def other = pool.acquire("a", builderFactory)
+
+        then:
+        other != worker
+        1 * started[0].runner.stop()
+        1 * started[0].process.waitForStop()
+    }
+
+    def "stops expired idle workers without waiting for the pool to be used again"() {
+        given:
+        timeProvider.getCurrentTime() >>> [0, 0, ReusableWorkerProcessPool.MAX_IDLE_MILLIS, ReusableWorkerProcessPool.MAX_IDLE_MILLIS + 1]
+        def worker = pool.acquire("a", builderFactory)
+        pool.release(worker, true, 10, 100)
+
+        when:
+        expiryCheck.run()
+
+        then:
+        0 * started[0].runner.stop()
+
+        when:
+        expiryCheck.run()
+
+        then:
+        1 * started[0].runner.stop()
+        1 * started[0].process.waitForStop()
+
+        when:
+        def other = pool.acquire("a", builderFactory)
+
+        then:
+        other != worker
+        started.size() == 2
+    }
+
+    def "stops idle workers when stopped"() {
+        given:
+        def worker = pool.acquire("a", builderFactory)
+        pool.release(worker, true, 10, 100)
+
+        when:
+        pool.stop()
+
+        then:
+        1 * expiryExecutor.shutdownNow()
+        1 * started[0].runner.stop()
+        1 * started[0].process.waitForStop()
+
+        when:
+        pool.acquire("a", builderFactory)
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    private WorkerProcessBuilder newBuilder() {
+        def builder = Mock(WorkerProcessBuilder)
+        def javaCommand = Mock(JavaExecHandleBuilder)
+        def process = Mock(WorkerProcess)
+        def connection = Mock(ObjectConnection)
+        def runner = Mock(WorkerSessionRunner)
+        _ * builder.getJavaCommand() >> javaCommand
+        _ * builder.build() >> process
+        _ * process.getConnection() >> connection
+        _ * connection.addOutgoing(WorkerSessionRunner) >> runner
+        started << [builder: builder, process: process, runner: runner]
+        builder
+    }
+}
@@ -24,6 +24,7 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.Resol
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.ResolvedGraphResults;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.TransientConfigurationResultsBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.projectresult.ResolvedLocalComponentsResult;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolvedGraphCache;
 
 public class DefaultResolverResults implements ResolverResults {
     private ResolvedConfiguration resolvedConfiguration;
@@ -33,6 +34,7 @@ public class DefaultResolverResults implements ResolverResults {
     private TransientConfigurationResultsBuilder transientConfigurationResultsBuilder;
     private ResolvedGraphResults graphResults;
     private ResolvedArtifactsBuilder artifactResults;
+    private ResolvedGraphCache.Lookup reusedGraph;
 
     @Override
     public boolean hasError() {
@@ -102,6 +104,7 @@ public class DefaultResolverResults implements ResolverResults {
         this.graphResults = null;
         this.transientConfigurationResultsBuilder = null;
         this.artifactResults = null;
+        this.reusedGraph = null;
     }
 
     // State not exposed via BuildableResolverResults, that is only accessed via DefaultConfigurationResolver
@@ -109,6 +112,17 @@ public class DefaultResolverResults implements ResolverResults {
         this.graphResults = graphResults;
         this.artifactResults = artifactResults;
         this.transientConfigurationResultsBuilder = transientConfigurationResultsBuilder;
+        this.reusedGraph = null;
+    }
+
+    // The new model was reused from a previous build, so the old model and the artifacts are yet to be resolved
+    public void reusedGraph(ResolvedGraphCache.Lookup graphLookup) {
+        retainState(null, null, null);
+        this.reusedGraph = graphLookup;
+    }
+
+    public ResolvedGraphCache.Lookup getReusedGraph() {
+        return reusedGraph;
     }
 
     public ResolvedGraphResults getGraphResults() {
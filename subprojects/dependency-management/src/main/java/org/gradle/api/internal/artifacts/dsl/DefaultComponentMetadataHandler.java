@@ -129,6 +129,10 @@ public class DefaultComponentMetadataHandler implements ComponentMetadataHandler
         }
     }
 
+    public boolean hasRules() {
+        return !rules.isEmpty();
+    }
+
     private void processAllRules(ModuleComponentResolveMetaData metadata, ComponentMetadataDetails details) {
         for (SpecRuleAction<? super ComponentMetadataDetails> rule : rules) {
             processRule(rule, metadata, details);
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ResolveOperationExecutor;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
+import org.gradle.internal.resolve.ArtifactResolveException;
+import org.gradle.logging.ProgressLogger;
+import org.gradle.logging.ProgressLoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Resolves the files of a set of artifacts concurrently, ahead of them being requested one at a time.
+ *
+ * <p>Artifacts that fail to resolve are left unresolved, so that the failure is reported when the file is requested.</p>
+ */
+public class ArtifactFilePrefetcher {
+    private final ResolveOperationExecutor operationExecutor;
+    private final ProgressLoggerFactory progressLoggerFactory;
+
+    public ArtifactFilePrefetcher(ResolveOperationExecutor operationExecutor, ProgressLoggerFactory progressLoggerFactory) {
+        this.operationExecutor = operationExecutor;
+        this.progressLoggerFactory = progressLoggerFactory;
+    }
+
+    public void prefetch(String displayName, Collection<? extends ResolvedArtifact> artifacts) {
+        List<DefaultResolvedArtifact> unresolved = new ArrayList<DefaultResolvedArtifact>();
+        for (ResolvedArtifact artifact : artifacts) {
+            // Artifacts of local components are already available
+            if (artifact instanceof DefaultResolvedArtifact && artifact.getId() instanceof ModuleComponentArtifactIdentifier && !((DefaultResolvedArtifact) artifact).isResolved()) {
+                unresolved.add((DefaultResolvedArtifact) artifact);
+            }
+        }
+        if (unresolved.size() < 2) {
+            return;
+        }
+
+        String description = String.format("Resolve artifacts for %s", displayName);
+        ProgressLogger progressLogger = progressLoggerFactory.newOperation(ArtifactFilePrefetcher.class);
+        progressLogger.setDescription(description);
+        progressLogger.started();
+        Progress progress = new Progress(progressLogger, unresolved.size());
+        try {
+            List<ResolveArtifactFile> operations = new ArrayList<ResolveArtifactFile>(unresolved.size());
+            for (DefaultResolvedArtifact artifact : unresolved) {
+                operations.add(new ResolveArtifactFile(artifact, progress));
+            }
+            operationExecutor.executeAll(description, operations);
+        } finally {
+            progressLogger.completed(progress.getStatus());
+        }
+    }
+
+    private static class ResolveArtifactFile implements Runnable {
+        private final DefaultResolvedArtifact artifact;
+        private final Progress progress;
+
+        ResolveArtifactFile(DefaultResolvedArtifact artifact, Progress progress) {
+            this.artifact = artifact;
+            this.progress = progress;
+        }
+
+        @Override
+        public String toString() {
+            return "Resolve " + artifact.getId();
+        }
+
+        public void run() {
+            File file;
+            try {
+                file = artifact.getFile();
+            } catch (ArtifactResolveException e) {
+                // Reported when the file is requested
+                file = null;
+            }
+            progress.artifactResolved(file);
+        }
+    }
+
+    /**
+     * Reports the number of artifacts and the number of bytes resolved so far, and the rate at which they are being resolved.
+     */
+    private static class Progress {
+        private final ProgressLogger progressLogger;
+        private final int total;
+        private final long startTime = System.currentTimeMillis();
+        private int resolved;
+        private long bytes;
+
+        Progress(ProgressLogger progressLogger, int total) {
+            this.progressLogger = progressLogger;
+            this.total = total;
+        }
+
+        synchronized void artifactResolved(File file) {
+            resolved++;
+            if (file != null) {
+                bytes += file.length();
+            }
+            progressLogger.progress(getStatus());
+        }
+
+        synchronized String getStatus() {
+            long elapsedMillis = Math.max(1, System.currentTimeMillis() - startTime);
+            return String.format("%d/%d artifacts, %s (%s/s)", resolved, total, getLengthText(bytes), getLengthText(bytes * 1000 / elapsedMillis));
+        }
+
+        private static String getLengthText(long bytes) {
+            if (bytes < 1024) {
+                return bytes + " B";
+            } else if (bytes < 1048576) {
+                return (bytes / 1024) + " KB";
+            } else {
+                return String.format("%.2f MB", bytes / 1048576.0);
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.artifacts.ivyservice;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.ResolveException;
 import org.gradle.api.artifacts.dsl.RepositoryHandler;
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
@@ -36,6 +37,8 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.Resolut
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ResolutionResultDependencyGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.StreamingResolutionResultBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolvedGraphCache;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolvedGraphRecorder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.StoreSet;
 import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
 import org.gradle.api.internal.cache.BinaryStore;
@@ -43,30 +46,62 @@ import org.gradle.api.internal.cache.Store;
 import org.gradle.internal.Factory;
 import org.gradle.internal.Transformers;
 import org.gradle.util.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.List;
 
 public class DefaultConfigurationResolver implements ConfigurationResolver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultConfigurationResolver.class);
     private final ArtifactDependencyResolver resolver;
     private final RepositoryHandler repositories;
     private final GlobalDependencyResolutionRules metadataHandler;
     private final CacheLockingManager cacheLockingManager;
     private final ResolutionResultsStoreFactory storeFactory;
     private final boolean buildProjectDependencies;
+    private final ArtifactFilePrefetcher artifactFilePrefetcher;
+    private final ResolvedGraphCache resolvedGraphCache;
 
     public DefaultConfigurationResolver(ArtifactDependencyResolver resolver, RepositoryHandler repositories,
                                         GlobalDependencyResolutionRules metadataHandler, CacheLockingManager cacheLockingManager,
-                                        ResolutionResultsStoreFactory storeFactory, boolean buildProjectDependencies) {
+                                        ResolutionResultsStoreFactory storeFactory, boolean buildProjectDependencies, ArtifactFilePrefetcher artifactFilePrefetcher,
+                                        ResolvedGraphCache resolvedGraphCache) {
         this.resolver = resolver;
         this.repositories = repositories;
         this.metadataHandler = metadataHandler;
         this.cacheLockingManager = cacheLockingManager;
         this.storeFactory = storeFactory;
         this.buildProjectDependencies = buildProjectDependencies;
+        this.artifactFilePrefetcher = artifactFilePrefetcher;
+        this.resolvedGraphCache = resolvedGraphCache;
     }
 
     public void resolve(ConfigurationInternal configuration, ResolverResults results) throws ResolveException {
-        List<ResolutionAwareRepository> resolutionAwareRepositories = CollectionUtils.collect(repositories, Transformers.cast(ResolutionAwareRepository.class));
+        DefaultResolverResults defaultResolverResults = (DefaultResolverResults) results;
+        ResolvedGraphCache.Lookup graphLookup = resolvedGraphCache.lookup(configuration, getResolutionAwareRepositories(), metadataHandler);
+        if (graphLookup.getCachedGraph() != null) {
+            reuseGraph(graphLookup, defaultResolverResults);
+            return;
+        }
+
+        ResolvedGraphRecorder graphRecorder = resolveGraph(configuration, defaultResolverResults, graphLookup);
+        if (graphRecorder != null) {
+            graphLookup.store(graphRecorder);
+        }
+    }
+
+    private List<ResolutionAwareRepository> getResolutionAwareRepositories() {
+        return CollectionUtils.collect(repositories, Transformers.cast(ResolutionAwareRepository.class));
+    }
+
+    /**
+     * Resolves the graph of the given configuration, and attaches the new model, the old model and the artifacts to the given results.
+     *
+     * @return the recorder of the graph, or null when the graph cannot be persisted.
+     */
+    @Nullable
+    private ResolvedGraphRecorder resolveGraph(ConfigurationInternal configuration, DefaultResolverResults results, ResolvedGraphCache.Lookup graphLookup) {
         StoreSet stores = storeFactory.createStoreSet();
 
         BinaryStore oldModelStore = stores.nextBinaryStore();
@@ -76,6 +111,10 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
         ResolvedConfigurationDependencyGraphVisitor oldModelVisitor = new ResolvedConfigurationDependencyGraphVisitor(oldModelBuilder);
 
         BinaryStore newModelStore = stores.nextBinaryStore();
+        ResolvedGraphRecorder graphRecorder = graphLookup.startRecording(newModelStore);
+        if (graphRecorder != null) {
+            newModelStore = graphRecorder.getNewModelStore();
+        }
         Store<ResolvedComponentResult> newModelCache = stores.newModelCache();
         ResolutionResultBuilder newModelBuilder = new StreamingResolutionResultBuilder(newModelStore, newModelCache);
         DependencyGraphVisitor newModelVisitor = new ResolutionResultDependencyGraphVisitor(newModelBuilder);
@@ -85,20 +124,49 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
 
         ResolvedArtifactsBuilder artifactsBuilder = new DefaultResolvedArtifactsBuilder();
 
-        DependencyGraphVisitor graphVisitor = new CompositeDependencyGraphVisitor(oldModelVisitor, newModelVisitor, projectModelVisitor);
+        DependencyGraphVisitor graphVisitor = graphRecorder == null
+            ? new CompositeDependencyGraphVisitor(oldModelVisitor, newModelVisitor, projectModelVisitor)
+            : new CompositeDependencyGraphVisitor(oldModelVisitor, newModelVisitor, projectModelVisitor, graphRecorder);
         DependencyArtifactsVisitor artifactsVisitor = new CompositeDependencyArtifactsVisitor(oldModelVisitor, artifactsBuilder);
 
-        resolver.resolve(configuration, resolutionAwareRepositories, metadataHandler, graphVisitor, artifactsVisitor);
-
-        DefaultResolverResults defaultResolverResults = (DefaultResolverResults) results;
-        defaultResolverResults.resolved(newModelBuilder.complete(), localComponentsResultBuilder.complete());
+        resolver.resolve(configuration, getResolutionAwareRepositories(), metadataHandler, graphVisitor, artifactsVisitor);
 
+        results.resolved(newModelBuilder.complete(), localComponentsResultBuilder.complete());
         ResolvedGraphResults graphResults = oldModelBuilder.complete();
-        defaultResolverResults.retainState(graphResults, artifactsBuilder, oldTransientModelBuilder);
+        results.retainState(graphResults, artifactsBuilder, oldTransientModelBuilder);
+        return graphRecorder;
+    }
+
+    private void reuseGraph(ResolvedGraphCache.Lookup graphLookup, DefaultResolverResults results) {
+        ResolvedGraphCache.CachedGraph cachedGraph = graphLookup.getCachedGraph();
+        StoreSet stores = storeFactory.createStoreSet();
+        StreamingResolutionResultBuilder newModelBuilder = new StreamingResolutionResultBuilder(stores.nextBinaryStore(), stores.newModelCache());
+        ResolvedLocalComponentsResultBuilder localComponentsResultBuilder = new DefaultResolvedLocalComponentsResultBuilder(buildProjectDependencies);
+        cachedGraph.replayLocalComponents(localComponentsResultBuilder);
+        results.resolved(newModelBuilder.complete(cachedGraph.getNewModelRecords()), localComponentsResultBuilder.complete());
+        results.reusedGraph(graphLookup);
+    }
+
+    /**
+     * The old model and the artifacts are not persisted with a reused graph, so resolve the graph again when they are first required. The new model is
+     * replaced as well, so that all views of the configuration agree when the module cache gives a different graph than the persisted one, for example
+     * when cached meta-data has expired.
+     */
+    private void resolveReusedGraph(ConfigurationInternal configuration, DefaultResolverResults results) {
+        ResolvedGraphCache.Lookup graphLookup = results.getReusedGraph();
+        ResolvedGraphRecorder graphRecorder = resolveGraph(configuration, results, graphLookup);
+        // Never null, as the reused graph was recorded with the same fingerprint
+        if (!Arrays.equals(graphRecorder.getNewModelRecords(), graphLookup.getCachedGraph().getNewModelRecords())) {
+            LOGGER.info("Resolved graph for {} differs from the graph persisted by a previous build, replacing the persisted graph.", configuration);
+            graphLookup.store(graphRecorder);
+        }
     }
 
     public void resolveArtifacts(ConfigurationInternal configuration, ResolverResults results) throws ResolveException {
         DefaultResolverResults defaultResolverResults = (DefaultResolverResults) results;
+        if (defaultResolverResults.getReusedGraph() != null) {
+            resolveReusedGraph(configuration, defaultResolverResults);
+        }
         ResolvedGraphResults graphResults = defaultResolverResults.getGraphResults();
         ResolvedArtifactResults artifactResults = defaultResolverResults.getResolvedArtifacts();
         TransientConfigurationResultsBuilder transientConfigurationResultsBuilder = defaultResolverResults.getTransientConfigurationResultsBuilder();
@@ -107,7 +175,7 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
                 new TransientConfigurationResultsLoader(transientConfigurationResultsBuilder, graphResults, artifactResults);
 
         DefaultLenientConfiguration result = new DefaultLenientConfiguration(
-            configuration, cacheLockingManager, graphResults.getUnresolvedDependencies(), artifactResults, transientConfigurationResultsFactory);
+            configuration, cacheLockingManager, graphResults.getUnresolvedDependencies(), artifactResults, transientConfigurationResultsFactory, artifactFilePrefetcher);
         results.withResolvedConfiguration(new DefaultResolvedConfiguration(result));
     }
 }
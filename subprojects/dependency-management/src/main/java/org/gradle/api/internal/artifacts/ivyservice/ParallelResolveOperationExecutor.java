@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.apache.ivy.Ivy;
+import org.gradle.api.Action;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ResolveOperationExecutor;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Executes resolve operations on a bounded pool of worker threads.
+ *
+ * <p>Each operation holds the cache lock and an Ivy context for its duration, so the resolvers see the same environment as they would on
+ * the calling thread. The lock is released by the resolvers while they access a remote repository, which is where operations overlap.
+ * The calling thread releases the cache lock while it waits for the operations to complete.</p>
+ */
+public class ParallelResolveOperationExecutor implements ResolveOperationExecutor, Stoppable {
+    private final CacheLockingManager cacheLockingManager;
+    private final IvyContextManager ivyContextManager;
+    private final StoppableExecutor executor;
+
+    public ParallelResolveOperationExecutor(ExecutorFactory executorFactory, int maxParallelism, CacheLockingManager cacheLockingManager, IvyContextManager ivyContextManager) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.ivyContextManager = ivyContextManager;
+        this.executor = maxParallelism > 1 ? executorFactory.create("dependency resolution", maxParallelism) : null;
+    }
+
+    public void executeAll(String displayName, Collection<? extends Runnable> operations) {
+        if (executor == null || operations.size() < 2) {
+            for (Runnable operation : operations) {
+                operation.run();
+            }
+            return;
+        }
+
+        final List<Future<?>> futures = new ArrayList<Future<?>>(operations.size());
+        for (final Runnable operation : operations) {
+            futures.add(executor.submit(new Runnable() {
+                public void run() {
+                    executeInContext(operation);
+                }
+            }));
+        }
+        cacheLockingManager.longRunningOperation(displayName, new Runnable() {
+            public void run() {
+                waitFor(futures);
+            }
+        });
+    }
+
+    private void executeInContext(final Runnable operation) {
+        cacheLockingManager.useCache(operation.toString(), new Runnable() {
+            public void run() {
+                ivyContextManager.withIvy(new Action<Ivy>() {
+                    public void execute(Ivy ivy) {
+                        operation.run();
+                    }
+                });
+            }
+        });
+    }
+
+    private static void waitFor(List<Future<?>> futures) {
+        Throwable failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+        if (failure != null) {
+            throw UncheckedException.throwAsUncheckedException(failure);
+        }
+    }
+
+    public void stop() {
+        if (executor != null) {
+            executor.stop();
+        }
+    }
+}
@@ -0,0 +1,423 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.apache.ivy.core.module.descriptor.*;
+import org.apache.ivy.core.module.id.ArtifactId;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.plugins.parser.xml.XmlModuleDescriptorParser;
+import org.apache.ivy.util.extendable.ExtendableItem;
+import org.gradle.api.internal.artifacts.ivyservice.IvyUtil;
+import org.gradle.api.internal.artifacts.ivyservice.NamespaceId;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.ResolverStrategy;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.*;
+
+/**
+ * Serializes a module descriptor in a compact binary form, so that cached meta-data can be read without parsing an ivy.xml file.
+ * Writes the same information as {@link org.gradle.api.internal.artifacts.ivyservice.IvyXmlModuleDescriptorWriter}, and reads it back
+ * in the same form as {@link org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyXmlModuleDescriptorParser}.
+ */
+class ModuleDescriptorSerializer implements Serializer<ModuleDescriptor> {
+    private final ResolverStrategy resolverStrategy;
+    private final Field dependencyConfigField;
+
+    ModuleDescriptorSerializer(ResolverStrategy resolverStrategy) {
+        this.resolverStrategy = resolverStrategy;
+        try {
+            dependencyConfigField = DefaultDependencyDescriptor.class.getDeclaredField("confs");
+        } catch (NoSuchFieldException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        dependencyConfigField.setAccessible(true);
+    }
+
+    public void write(Encoder encoder, ModuleDescriptor md) throws Exception {
+        writeInfo(encoder, md);
+        writeConfigurations(encoder, md);
+        writeArtifacts(encoder, md);
+        writeDependencies(encoder, md);
+        writeExcludeRules(encoder, md.getAllExcludeRules());
+    }
+
+    public ModuleDescriptor read(Decoder decoder) throws Exception {
+        DefaultModuleDescriptor md = new DefaultModuleDescriptor(XmlModuleDescriptorParser.getInstance(), null);
+        readInfo(decoder, md);
+        readConfigurations(decoder, md);
+        readArtifacts(decoder, md);
+        readDependencies(decoder, md);
+        for (ExcludeRule excludeRule : readExcludeRules(decoder)) {
+            md.addExcludeRule(excludeRule);
+        }
+        return md;
+    }
+
+    private void writeInfo(Encoder encoder, ModuleDescriptor md) throws IOException {
+        writeStringMap(encoder, md.getExtraAttributesNamespaces());
+        ModuleRevisionId moduleRevisionId = md.getModuleRevisionId();
+        ModuleRevisionId resolvedModuleRevisionId = md.getResolvedModuleRevisionId();
+        encoder.writeString(moduleRevisionId.getOrganisation());
+        encoder.writeString(moduleRevisionId.getName());
+        encoder.writeNullableString(resolvedModuleRevisionId.getBranch());
+        encoder.writeNullableString(resolvedModuleRevisionId.getRevision());
+        writeExtraAttributes(encoder, md);
+        encoder.writeString(md.getStatus());
+        Date publicationDate = md.getResolvedPublicationDate();
+        encoder.writeBoolean(publicationDate != null);
+        if (publicationDate != null) {
+            encoder.writeLong(publicationDate.getTime());
+        }
+        encoder.writeBoolean(md.isDefault());
+
+        if (md.getInheritedDescriptors().length != 0) {
+            throw new UnsupportedOperationException("Extends descriptors not supported.");
+        }
+        License[] licenses = md.getLicenses();
+        encoder.writeSmallInt(licenses.length);
+        for (License license : licenses) {
+            encoder.writeNullableString(license.getName());
+            encoder.writeNullableString(license.getUrl());
+        }
+        encoder.writeNullableString(md.getHomePage());
+        encoder.writeNullableString(md.getDescription());
+
+        Map<NamespaceId, String> extraInfo = new LinkedHashMap<NamespaceId, String>();
+        for (Object o : md.getExtraInfo().entrySet()) {
+            Map.Entry entry = (Map.Entry) o;
+            if (entry.getValue() == null || ((String) entry.getValue()).length() == 0) {
+                continue;
+            }
+            // Elements without a namespace are read back with an empty namespace, as the XML parser does
+            NamespaceId id = entry.getKey() instanceof NamespaceId ? (NamespaceId) entry.getKey() : new NamespaceId("", entry.getKey().toString());
+            extraInfo.put(id, entry.getValue().toString());
+        }
+        encoder.writeSmallInt(extraInfo.size());
+        for (Map.Entry<NamespaceId, String> entry : extraInfo.entrySet()) {
+            encoder.writeString(entry.getKey().getNamespace());
+            encoder.writeString(entry.getKey().getName());
+            encoder.writeString(entry.getValue());
+        }
+    }
+
+    private void readInfo(Decoder decoder, DefaultModuleDescriptor md) throws IOException {
+        for (Map.Entry<String, String> namespace : readStringMap(decoder).entrySet()) {
+            md.addExtraAttributeNamespace(namespace.getKey(), namespace.getValue());
+        }
+        String organisation = decoder.readString();
+        String module = decoder.readString();
+        String branch = decoder.readNullableString();
+        String revision = decoder.readNullableString();
+        Map<String, String> extraAttributes = readStringMap(decoder);
+        md.setModuleRevisionId(IvyUtil.createModuleRevisionId(organisation, module, branch, revision, extraAttributes));
+        md.setStatus(decoder.readString());
+        if (decoder.readBoolean()) {
+            md.setPublicationDate(new Date(decoder.readLong()));
+        }
+        md.setDefault(decoder.readBoolean());
+
+        int licenses = decoder.readSmallInt();
+        for (int i = 0; i < licenses; i++) {
+            md.addLicense(new License(decoder.readNullableString(), decoder.readNullableString()));
+        }
+        md.setHomePage(decoder.readNullableString());
+        md.setDescription(decoder.readNullableString());
+
+        int extraInfo = decoder.readSmallInt();
+        for (int i = 0; i < extraInfo; i++) {
+            NamespaceId id = new NamespaceId(decoder.readString(), decoder.readString());
+            md.getExtraInfo().put(id, decoder.readString());
+        }
+    }
+
+    private void writeConfigurations(Encoder encoder, ModuleDescriptor md) throws IOException {
+        Configuration[] configurations = md.getConfigurations();
+        encoder.writeSmallInt(configurations.length);
+        for (Configuration configuration : configurations) {
+            encoder.writeString(configuration.getName());
+            encoder.writeString(configuration.getVisibility().toString());
+            encoder.writeNullableString(configuration.getDescription());
+            writeStrings(encoder, configuration.getExtends());
+            encoder.writeBoolean(configuration.isTransitive());
+            encoder.writeNullableString(configuration.getDeprecated());
+            writeExtraAttributes(encoder, configuration);
+        }
+    }
+
+    private void readConfigurations(Decoder decoder, DefaultModuleDescriptor md) throws IOException {
+        int configurations = decoder.readSmallInt();
+        for (int i = 0; i < configurations; i++) {
+            String name = decoder.readString();
+            Configuration.Visibility visibility = Configuration.Visibility.getVisibility(decoder.readString());
+            String description = decoder.readNullableString();
+            String[] extendsFrom = readStrings(decoder);
+            boolean transitive = decoder.readBoolean();
+            String deprecated = decoder.readNullableString();
+            Configuration configuration = new Configuration(name, visibility, description, extendsFrom, transitive, deprecated);
+            for (Map.Entry<String, String> attribute : readStringMap(decoder).entrySet()) {
+                configuration.setExtraAttribute(attribute.getKey(), attribute.getValue());
+            }
+            md.addConfiguration(configuration);
+        }
+    }
+
+    private void writeArtifacts(Encoder encoder, ModuleDescriptor md) throws IOException {
+        Artifact[] artifacts = md.getAllArtifacts();
+        encoder.writeSmallInt(artifacts.length);
+        for (Artifact artifact : artifacts) {
+            encoder.writeString(artifact.getName());
+            encoder.writeString(artifact.getType());
+            encoder.writeNullableString(artifact.getExt());
+            writeStrings(encoder, artifact.getConfigurations());
+            writeExtraAttributes(encoder, artifact);
+        }
+    }
+
+    private void readArtifacts(Decoder decoder, DefaultModuleDescriptor md) throws IOException {
+        int artifacts = decoder.readSmallInt();
+        for (int i = 0; i < artifacts; i++) {
+            String name = decoder.readString();
+            String type = decoder.readString();
+            String ext = decoder.readNullableString();
+            String[] configurations = readStrings(decoder);
+            MDArtifact artifact = new MDArtifact(md, name, type, ext, null, readStringMap(decoder));
+            for (String configuration : configurations) {
+                artifact.addConfiguration(configuration);
+                md.addArtifact(configuration, artifact);
+            }
+        }
+    }
+
+    private void writeDependencies(Encoder encoder, ModuleDescriptor md) throws IOException {
+        DependencyDescriptor[] dependencies = md.getDependencies();
+        encoder.writeSmallInt(dependencies.length);
+        for (DependencyDescriptor dependency : dependencies) {
+            ModuleRevisionId revisionId = dependency.getDependencyRevisionId();
+            encoder.writeString(revisionId.getOrganisation());
+            encoder.writeString(revisionId.getName());
+            encoder.writeNullableString(revisionId.getBranch());
+            encoder.writeNullableString(revisionId.getRevision());
+            writeExtraAttributes(encoder, dependency);
+            ModuleRevisionId dynamicId = dependency.getDynamicConstraintDependencyRevisionId();
+            boolean hasConstraint = !dynamicId.equals(revisionId);
+            encoder.writeBoolean(hasConstraint);
+            if (hasConstraint) {
+                encoder.writeNullableString(dynamicId.getBranch());
+                encoder.writeNullableString(dynamicId.getRevision());
+            }
+            encoder.writeBoolean(dependency.isForce());
+            encoder.writeBoolean(dependency.isChanging());
+            encoder.writeBoolean(dependency.isTransitive());
+
+            Map<String, List<String>> configMappings = getConfigMappings(dependency);
+            String[] moduleConfigurations = dependency.getModuleConfigurations();
+            encoder.writeSmallInt(moduleConfigurations.length);
+            for (String moduleConfiguration : moduleConfigurations) {
+                encoder.writeString(moduleConfiguration);
+                List<String> dependencyConfigurations = configMappings.get(moduleConfiguration);
+                writeStrings(encoder, dependencyConfigurations.toArray(new String[dependencyConfigurations.size()]));
+            }
+
+            DependencyArtifactDescriptor[] artifacts = dependency.getAllDependencyArtifacts();
+            encoder.writeSmallInt(artifacts.length);
+            for (DependencyArtifactDescriptor artifact : artifacts) {
+                encoder.writeString(artifact.getName());
+                encoder.writeString(artifact.getType());
+                encoder.writeNullableString(artifact.getExt());
+                writeStrings(encoder, artifact.getConfigurations());
+                writeExtraAttributes(encoder, artifact);
+            }
+            IncludeRule[] includeRules = dependency.getAllIncludeRules();
+            encoder.writeSmallInt(includeRules.length);
+            for (IncludeRule includeRule : includeRules) {
+                writeRule(encoder, includeRule.getId(), includeRule.getMatcher().getName(), includeRule.getConfigurations(), includeRule);
+            }
+            writeExcludeRules(encoder, dependency.getAllExcludeRules());
+        }
+    }
+
+    private void readDependencies(Decoder decoder, DefaultModuleDescriptor md) throws IOException {
+        int dependencies = decoder.readSmallInt();
+        for (int i = 0; i < dependencies; i++) {
+            String organisation = decoder.readString();
+            String name = decoder.readString();
+            String branch = decoder.readNullableString();
+            String revision = decoder.readNullableString();
+            Map<String, String> extraAttributes = readStringMap(decoder);
+            ModuleRevisionId revisionId = IvyUtil.createModuleRevisionId(organisation, name, branch, revision, extraAttributes);
+            ModuleRevisionId dynamicId;
+            if (!decoder.readBoolean()) {
+                dynamicId = IvyUtil.createModuleRevisionId(organisation, name, branch, revision, extraAttributes, false);
+            } else {
+                String branchConstraint = decoder.readNullableString();
+                String revisionConstraint = decoder.readNullableString();
+                if (branchConstraint == null) {
+                    dynamicId = IvyUtil.createModuleRevisionId(organisation, name, null, revisionConstraint, extraAttributes, false);
+                } else {
+                    dynamicId = IvyUtil.createModuleRevisionId(organisation, name, branchConstraint, revisionConstraint, extraAttributes);
+                }
+            }
+            boolean force = decoder.readBoolean();
+            boolean changing = decoder.readBoolean();
+            boolean transitive = decoder.readBoolean();
+            DefaultDependencyDescriptor dependency = new DefaultDependencyDescriptor(md, revisionId, dynamicId, force, changing, transitive);
+            md.addDependency(dependency);
+
+            int moduleConfigurations = decoder.readSmallInt();
+            for (int j = 0; j < moduleConfigurations; j++) {
+                String moduleConfiguration = decoder.readString();
+                for (String dependencyConfiguration : readStrings(decoder)) {
+                    dependency.addDependencyConfiguration(moduleConfiguration, dependencyConfiguration);
+                }
+            }
+
+            int artifacts = decoder.readSmallInt();
+            for (int j = 0; j < artifacts; j++) {
+                String artifactName = decoder.readString();
+                String type = decoder.readString();
+                String ext = decoder.readNullableString();
+                String[] configurations = readStrings(decoder);
+                DefaultDependencyArtifactDescriptor artifact = new DefaultDependencyArtifactDescriptor(dependency, artifactName, type, ext, null, readStringMap(decoder));
+                for (String configuration : configurations) {
+                    artifact.addConfiguration(configuration);
+                    dependency.addDependencyArtifact(configuration, artifact);
+                }
+            }
+            int includeRules = decoder.readSmallInt();
+            for (int j = 0; j < includeRules; j++) {
+                ArtifactId id = readArtifactId(decoder);
+                String matcher = decoder.readString();
+                String[] configurations = readStrings(decoder);
+                DefaultIncludeRule includeRule = new DefaultIncludeRule(id, resolverStrategy.getPatternMatcher(matcher), readStringMap(decoder));
+                for (String configuration : configurations) {
+                    includeRule.addConfiguration(configuration);
+                    dependency.addIncludeRule(configuration, includeRule);
+                }
+            }
+            for (ExcludeRule excludeRule : readExcludeRules(decoder)) {
+                for (String configuration : excludeRule.getConfigurations()) {
+                    dependency.addExcludeRule(configuration, excludeRule);
+                }
+            }
+        }
+    }
+
+    private Map<String, List<String>> getConfigMappings(DependencyDescriptor dependency) {
+        if (dependency instanceof DefaultDependencyDescriptor) {
+            // As for IvyXmlModuleDescriptorWriter, use the raw mappings, as `getDependencyConfigurations()` interprets the right hand side of the mapping
+            try {
+                return (Map<String, List<String>>) dependencyConfigField.get(dependency);
+            } catch (IllegalAccessException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+        Map<String, List<String>> configMappings = new HashMap<String, List<String>>();
+        String[] moduleConfigurations = dependency.getModuleConfigurations();
+        for (String moduleConfiguration : moduleConfigurations) {
+            configMappings.put(moduleConfiguration, Arrays.asList(dependency.getDependencyConfigurations(moduleConfigurations)));
+        }
+        return configMappings;
+    }
+
+    private void writeExcludeRules(Encoder encoder, ExcludeRule[] excludeRules) throws IOException {
+        encoder.writeSmallInt(excludeRules.length);
+        for (ExcludeRule excludeRule : excludeRules) {
+            writeRule(encoder, excludeRule.getId(), excludeRule.getMatcher().getName(), excludeRule.getConfigurations(), excludeRule);
+        }
+    }
+
+    private List<ExcludeRule> readExcludeRules(Decoder decoder) throws IOException {
+        int count = decoder.readSmallInt();
+        List<ExcludeRule> excludeRules = new ArrayList<ExcludeRule>(count);
+        for (int i = 0; i < count; i++) {
+            ArtifactId id = readArtifactId(decoder);
+            String matcher = decoder.readString();
+            String[] configurations = readStrings(decoder);
+            DefaultExcludeRule excludeRule = new DefaultExcludeRule(id, resolverStrategy.getPatternMatcher(matcher), readStringMap(decoder));
+            for (String configuration : configurations) {
+                excludeRule.addConfiguration(configuration);
+            }
+            excludeRules.add(excludeRule);
+        }
+        return excludeRules;
+    }
+
+    private void writeRule(Encoder encoder, ArtifactId id, String matcher, String[] configurations, ExtendableItem rule) throws IOException {
+        encoder.writeString(id.getModuleId().getOrganisation());
+        encoder.writeString(id.getModuleId().getName());
+        encoder.writeString(id.getName());
+        encoder.writeString(id.getType());
+        encoder.writeNullableString(id.getExt());
+        encoder.writeString(matcher);
+        writeStrings(encoder, configurations);
+        writeExtraAttributes(encoder, rule);
+    }
+
+    private ArtifactId readArtifactId(Decoder decoder) throws IOException {
+        String organisation = decoder.readString();
+        String module = decoder.readString();
+        String name = decoder.readString();
+        String type = decoder.readString();
+        String ext = decoder.readNullableString();
+        return new ArtifactId(IvyUtil.createModuleId(organisation, module), name, type, ext);
+    }
+
+    private void writeExtraAttributes(Encoder encoder, ExtendableItem item) throws IOException {
+        writeStringMap(encoder, item.getQualifiedExtraAttributes());
+    }
+
+    private void writeStringMap(Encoder encoder, Map<?, ?> map) throws IOException {
+        if (map == null) {
+            encoder.writeSmallInt(0);
+            return;
+        }
+        encoder.writeSmallInt(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            encoder.writeString(entry.getKey().toString());
+            encoder.writeString(entry.getValue().toString());
+        }
+    }
+
+    private Map<String, String> readStringMap(Decoder decoder) throws IOException {
+        int size = decoder.readSmallInt();
+        Map<String, String> map = new LinkedHashMap<String, String>(size);
+        for (int i = 0; i < size; i++) {
+            map.put(decoder.readString(), decoder.readString());
+        }
+        return map;
+    }
+
+    private void writeStrings(Encoder encoder, String[] values) throws IOException {
+        encoder.writeSmallInt(values.length);
+        for (String value : values) {
+            encoder.writeString(value);
+        }
+    }
+
+    private String[] readStrings(Decoder decoder) throws IOException {
+        String[] values = new String[decoder.readSmallInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = decoder.readString();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import java.util.Collection;
+
+/**
+ * Executes batches of independent resolve operations, such as fetching the meta-data for a set of dependencies.
+ */
+public interface ResolveOperationExecutor {
+    /**
+     * Executes the given operations, potentially concurrently, and returns once all of them have completed.
+     * Each operation runs with access to the dependency caches, as it would when run by the calling thread.
+     */
+    void executeAll(String displayName, Collection<? extends Runnable> operations);
+}
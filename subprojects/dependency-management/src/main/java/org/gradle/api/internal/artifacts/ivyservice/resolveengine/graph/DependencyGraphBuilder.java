@@ -17,12 +17,14 @@ package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph;
 
 import com.google.common.base.Joiner;
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.ModuleDependency;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
 import org.gradle.api.artifacts.ModuleVersionSelector;
 import org.gradle.api.artifacts.component.ComponentIdentifier;
 import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
 import org.gradle.api.artifacts.result.ComponentSelectionReason;
 import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
 import org.gradle.api.internal.artifacts.ResolveContext;
@@ -54,15 +56,26 @@ public class DependencyGraphBuilder {
     private final ResolveContextToComponentResolver moduleResolver;
     private final DependencyToComponentIdResolver idResolver;
     private final ComponentMetaDataResolver metaDataResolver;
+    private final ResolveOperationExecutor operationExecutor;
 
     public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
                                   ResolveContextToComponentResolver resolveContextToComponentResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver,
                                   ConflictHandler conflictHandler) {
+        this(componentIdResolver, componentMetaDataResolver, resolveContextToComponentResolver, dependencyToConfigurationResolver, conflictHandler, null);
+    }
+
+    /**
+     * @param operationExecutor Used to fetch the meta-data for each level of the graph ahead of traversing it. When null, meta-data is fetched as each dependency is traversed.
+     */
+    public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
+                                  ResolveContextToComponentResolver resolveContextToComponentResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver,
+                                  ConflictHandler conflictHandler, @Nullable ResolveOperationExecutor operationExecutor) {
         this.idResolver = componentIdResolver;
         this.metaDataResolver = componentMetaDataResolver;
         this.moduleResolver = resolveContextToComponentResolver;
         this.conflictHandler = conflictHandler;
         this.dependencyToConfigurationResolver = dependencyToConfigurationResolver;
+        this.operationExecutor = operationExecutor;
     }
 
     public void resolve(ResolveContext resolveContext, DependencyGraphVisitor modelVisitor) {
@@ -84,8 +97,15 @@ public class DependencyGraphBuilder {
         resolveState.onMoreSelected(resolveState.root);
 
         List<DependencyEdge> dependencies = new ArrayList<DependencyEdge>();
+        int remainingInLevel = 0;
         while (resolveState.peek() != null || conflictHandler.hasConflicts()) {
             if (resolveState.peek() != null) {
+                if (operationExecutor != null && remainingInLevel == 0) {
+                    remainingInLevel = prefetchQueuedDependencies(resolveState);
+                }
+                if (remainingInLevel > 0) {
+                    remainingInLevel--;
+                }
                 ConfigurationNode node = resolveState.pop();
                 LOGGER.debug("Visiting configuration {}.", node);
 
@@ -154,6 +174,43 @@ public class DependencyGraphBuilder {
         }
     }
 
+    /**
+     * Fetches the ids and meta-data of the dependencies that the configurations currently queued for traversal are expected to have, so that
+     * the traversal does not wait for each repository request in turn. The traversal only uses a prefetched result when it later resolves the same
+     * dependency declaration, so the shape of the graph and the outcome of conflict resolution are the same as without prefetching.
+     *
+     * @return The number of configurations in this level of the graph.
+     */
+    private int prefetchQueuedDependencies(ResolveState resolveState) {
+        Map<ModuleVersionSelector, DependencyMetaData> candidates = new LinkedHashMap<ModuleVersionSelector, DependencyMetaData>();
+        List<DependencyMetaData> dependencies = new ArrayList<DependencyMetaData>();
+        for (ConfigurationNode node : resolveState.queue) {
+            dependencies.clear();
+            node.collectDependenciesToTraverse(dependencies);
+            for (DependencyMetaData dependency : dependencies) {
+                ModuleVersionSelector requested = dependency.getRequested();
+                // Project dependencies are cheap to resolve, and are resolved by the traversal
+                if (dependency.getSelector() instanceof ModuleComponentSelector && !resolveState.selectors.containsKey(requested) && !candidates.containsKey(requested)) {
+                    candidates.put(requested, dependency);
+                }
+            }
+        }
+
+        if (candidates.size() > 1) {
+            Set<ModuleIdentifier> knownModules = resolveState.getModulesWithVersions();
+            List<PrefetchOperation> operations = new ArrayList<PrefetchOperation>(candidates.size());
+            for (DependencyMetaData dependency : candidates.values()) {
+                operations.add(new PrefetchOperation(dependency, idResolver, metaDataResolver, knownModules));
+            }
+            LOGGER.debug("Prefetching meta-data for {} dependencies.", operations.size());
+            operationExecutor.executeAll(String.format("Resolve %s dependencies", operations.size()), operations);
+            for (PrefetchOperation operation : operations) {
+                resolveState.addPrefetched(operation);
+            }
+        }
+        return resolveState.queue.size();
+    }
+
     /**
      * Populates the result from the graph traversal state.
      */
@@ -317,6 +374,7 @@ public class DependencyGraphBuilder {
         private final DependencyToConfigurationResolver dependencyToConfigurationResolver;
         private final Set<ConfigurationNode> queued = new HashSet<ConfigurationNode>();
         private final LinkedList<ConfigurationNode> queue = new LinkedList<ConfigurationNode>();
+        private final Map<DependencyMetaData, PrefetchOperation> prefetched = new IdentityHashMap<DependencyMetaData, PrefetchOperation>();
 
         public ResolveState(ComponentResolveResult rootResult, String rootConfigurationName, DependencyToComponentIdResolver idResolver,
                             ComponentMetaDataResolver metaDataResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver) {
@@ -367,6 +425,43 @@ public class DependencyGraphBuilder {
             return resolveState;
         }
 
+        public Set<ModuleIdentifier> getModulesWithVersions() {
+            Set<ModuleIdentifier> moduleIds = new HashSet<ModuleIdentifier>();
+            for (ModuleResolveState module : modules.values()) {
+                if (!module.versions.isEmpty()) {
+                    moduleIds.add(module.id);
+                }
+            }
+            return moduleIds;
+        }
+
+        public void addPrefetched(PrefetchOperation operation) {
+            if (operation.idResolveResult != null) {
+                prefetched.put(operation.dependencyMetaData, operation);
+            }
+        }
+
+        /**
+         * Returns the prefetched id for the given dependency declaration, if any.
+         */
+        @Nullable
+        public BuildableComponentIdResolveResult getPrefetchedId(DependencyMetaData dependencyMetaData) {
+            PrefetchOperation operation = prefetched.get(dependencyMetaData);
+            return operation == null ? null : operation.idResolveResult;
+        }
+
+        /**
+         * Returns the prefetched meta-data for the given component, when it was fetched on behalf of the given dependency declaration.
+         */
+        @Nullable
+        public ComponentResolveResult takePrefetchedMetaData(DependencyMetaData dependencyMetaData, ComponentIdentifier componentId) {
+            PrefetchOperation operation = prefetched.remove(dependencyMetaData);
+            if (operation == null || operation.metaDataResolveResult == null || !componentId.equals(operation.idResolveResult.getId())) {
+                return null;
+            }
+            return operation.metaDataResolveResult;
+        }
+
         public ConfigurationNode peek() {
             return queue.isEmpty() ? null : queue.getFirst();
         }
@@ -556,8 +651,12 @@ public class DependencyGraphBuilder {
                 return;
             }
 
-            DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
-            resolver.resolve(idResolveResult.getId(), DefaultComponentOverrideMetadata.forDependency(firstReference.dependencyMetaData), result);
+            ComponentResolveResult result = module.resolveState.takePrefetchedMetaData(firstReference.dependencyMetaData, idResolveResult.getId());
+            if (result == null) {
+                DefaultBuildableComponentResolveResult resolveResult = new DefaultBuildableComponentResolveResult();
+                resolver.resolve(idResolveResult.getId(), DefaultComponentOverrideMetadata.forDependency(firstReference.dependencyMetaData), resolveResult);
+                result = resolveResult;
+            }
             if (result.getFailure() != null) {
                 failure = result.getFailure();
                 return;
@@ -682,13 +781,7 @@ public class DependencyGraphBuilder {
                 return;
             }
 
-            List<DependencyEdge> transitiveIncoming = new ArrayList<DependencyEdge>();
-            for (DependencyEdge edge : incomingEdges) {
-                if (edge.isTransitive()) {
-                    transitiveIncoming.add(edge);
-                }
-            }
-
+            List<DependencyEdge> transitiveIncoming = getTransitiveIncomingEdges();
             if (transitiveIncoming.isEmpty() && this != resolveState.root) {
                 if (previousTraversal != null) {
                     removeOutgoingEdges();
@@ -724,6 +817,39 @@ public class DependencyGraphBuilder {
             previousTraversal = resolutionFilter;
         }
 
+        /**
+         * Collects the dependencies that {@link #visitOutgoingDependencies(Collection)} is expected to traverse, without changing any state.
+         */
+        public void collectDependenciesToTraverse(Collection<DependencyMetaData> target) {
+            if (moduleRevision.state != ModuleState.Selected) {
+                return;
+            }
+            List<DependencyEdge> transitiveIncoming = getTransitiveIncomingEdges();
+            if (transitiveIncoming.isEmpty() && this != resolveState.root) {
+                return;
+            }
+            ModuleResolutionFilter resolutionFilter = getModuleResolutionFilter(transitiveIncoming);
+            if (previousTraversal != null && previousTraversal.acceptsSameModulesAs(resolutionFilter)) {
+                return;
+            }
+            for (DependencyMetaData dependency : metaData.getDependencies()) {
+                ModuleIdentifier targetModuleId = DefaultModuleIdentifier.newId(dependency.getRequested().getGroup(), dependency.getRequested().getName());
+                if (resolutionFilter.acceptModule(targetModuleId)) {
+                    target.add(dependency);
+                }
+            }
+        }
+
+        private List<DependencyEdge> getTransitiveIncomingEdges() {
+            List<DependencyEdge> transitiveIncoming = new ArrayList<DependencyEdge>();
+            for (DependencyEdge edge : incomingEdges) {
+                if (edge.isTransitive()) {
+                    transitiveIncoming.add(edge);
+                }
+            }
+            return transitiveIncoming;
+        }
+
         private boolean isExcluded(ModuleResolutionFilter selector, ModuleIdentifier targetModuleId) {
             if(!selector.acceptModule(targetModuleId)) {
                 LOGGER.debug("{} is excluded from {}.", targetModuleId, this);
@@ -864,8 +990,11 @@ public class DependencyGraphBuilder {
                 return null;
             }
 
-            idResolveResult = new DefaultBuildableComponentIdResolveResult();
-            resolver.resolve(dependencyMetaData, idResolveResult);
+            idResolveResult = resolveState.getPrefetchedId(dependencyMetaData);
+            if (idResolveResult == null) {
+                idResolveResult = new DefaultBuildableComponentIdResolveResult();
+                resolver.resolve(dependencyMetaData, idResolveResult);
+            }
             if (idResolveResult.getFailure() != null) {
                 failure = idResolveResult.getFailure();
                 return null;
@@ -886,6 +1015,50 @@ public class DependencyGraphBuilder {
         }
     }
 
+    /**
+     * Resolves the id and meta-data for a dependency declaration ahead of the graph traversal. Holds no references to the traversal state, so
+     * can run on any thread.
+     */
+    private static class PrefetchOperation implements Runnable {
+        final DependencyMetaData dependencyMetaData;
+        private final DependencyToComponentIdResolver idResolver;
+        private final ComponentMetaDataResolver metaDataResolver;
+        private final Set<ModuleIdentifier> knownModules;
+        BuildableComponentIdResolveResult idResolveResult;
+        BuildableComponentResolveResult metaDataResolveResult;
+
+        private PrefetchOperation(DependencyMetaData dependencyMetaData, DependencyToComponentIdResolver idResolver, ComponentMetaDataResolver metaDataResolver,
+                                  Set<ModuleIdentifier> knownModules) {
+            this.dependencyMetaData = dependencyMetaData;
+            this.idResolver = idResolver;
+            this.metaDataResolver = metaDataResolver;
+            this.knownModules = knownModules;
+        }
+
+        @Override
+        public String toString() {
+            return "Resolve " + dependencyMetaData;
+        }
+
+        public void run() {
+            try {
+                BuildableComponentIdResolveResult idResult = new DefaultBuildableComponentIdResolveResult();
+                idResolver.resolve(dependencyMetaData, idResult);
+                BuildableComponentResolveResult metaDataResult = null;
+                // When the graph already contains a version of the module, the meta-data has been fetched already or the version may be evicted
+                if (idResult.getFailure() == null && idResult.getMetaData() == null && !knownModules.contains(idResult.getModuleVersionId().getModule())) {
+                    metaDataResult = new DefaultBuildableComponentResolveResult();
+                    metaDataResolver.resolve(idResult.getId(), DefaultComponentOverrideMetadata.forDependency(dependencyMetaData), metaDataResult);
+                }
+                idResolveResult = idResult;
+                metaDataResolveResult = metaDataResult;
+            } catch (Throwable throwable) {
+                // Leave it to the traversal to resolve this dependency again, and to report the failure
+                LOGGER.debug("Could not prefetch meta-data for {}.", dependencyMetaData, throwable);
+            }
+        }
+    }
+
     private static class DirectDependencyForcingResolver implements ModuleConflictResolver {
         private final ModuleVersionResolveState root;
 
@@ -69,6 +69,21 @@ public class StreamingResolutionResultBuilder implements ResolutionResultBuilder
         return new DefaultResolutionResult(rootSource);
     }
 
+    /**
+     * Completes the result from the records written by another builder of this type, rather than from the records written to this builder.
+     * Failures are not part of the records, so this can only be used for a graph that resolved without failures.
+     */
+    public ResolutionResult complete(final byte[] records) {
+        store.write(new BinaryStore.WriteAction() {
+            public void write(Encoder encoder) throws IOException {
+                encoder.writeBytes(records);
+            }
+        });
+        BinaryStore.BinaryData data = store.done();
+        RootFactory rootSource = new RootFactory(data, failures, cache);
+        return new DefaultResolutionResult(rootSource);
+    }
+
     public ResolutionResultBuilder start(final ModuleVersionIdentifier root, final ComponentIdentifier componentIdentifier) {
         store.write(new BinaryStore.WriteAction() {
             public void write(Encoder encoder) throws IOException {
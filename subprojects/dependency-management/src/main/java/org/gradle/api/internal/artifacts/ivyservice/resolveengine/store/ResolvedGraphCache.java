@@ -0,0 +1,450 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
+
+import org.apache.ivy.core.module.descriptor.ExcludeRule;
+import org.gradle.api.Nullable;
+import org.gradle.api.artifacts.ClientModule;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier;
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.DefaultResolvedModuleVersion;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConfiguredModuleComponentRepository;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectComponentRegistry;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.projectresult.DefaultResolvedProjectConfiguration;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.projectresult.ResolvedLocalComponentsResultBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.projectresult.ResolvedProjectConfiguration;
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
+import org.gradle.api.internal.cache.BinaryStore;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.project.ProjectRegistry;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.Factory;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.local.model.DefaultProjectComponentIdentifier;
+import org.gradle.internal.component.local.model.DslOriginDependencyMetaData;
+import org.gradle.internal.component.local.model.LocalComponentMetaData;
+import org.gradle.internal.component.local.model.LocalConfigurationMetaData;
+import org.gradle.internal.component.model.ComponentResolveMetaData;
+import org.gradle.internal.component.model.ConfigurationMetaData;
+import org.gradle.internal.component.model.DependencyMetaData;
+import org.gradle.internal.component.model.IvyArtifactName;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.util.BuildCommencedTimeProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Persists the resolved graph of a configuration across builds, so that the graph can be reused when nothing that contributed to it has changed.
+ *
+ * <p>A graph is reused only when the declared dependencies of the configuration's project and of every project in the graph, the resolution strategy
+ * and the repositories are the same as when the graph was resolved, and no dynamic version or changing module in the graph is due for a refresh according
+ * to the cache policy of the configuration. Graphs that use rules which cannot be compared across builds, local repositories, changing dependencies
+ * or client modules, or that contain failures, are never persisted.</p>
+ */
+public class ResolvedGraphCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResolvedGraphCache.class);
+
+    private final CacheLockingManager cacheLockingManager;
+    private final BuildCommencedTimeProvider timeProvider;
+    private final ProjectComponentRegistry projectComponentRegistry;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final ProjectRegistry<ProjectInternal> projectRegistry;
+    private final boolean refreshDependencies;
+    private PersistentIndexedCache<String, ResolvedGraphCacheEntry> cache;
+
+    public ResolvedGraphCache(CacheLockingManager cacheLockingManager, BuildCommencedTimeProvider timeProvider, ProjectComponentRegistry projectComponentRegistry,
+                              VersionSelectorScheme versionSelectorScheme, ProjectRegistry<ProjectInternal> projectRegistry, boolean refreshDependencies) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.timeProvider = timeProvider;
+        this.projectComponentRegistry = projectComponentRegistry;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.projectRegistry = projectRegistry;
+        this.refreshDependencies = refreshDependencies;
+    }
+
+    private PersistentIndexedCache<String, ResolvedGraphCacheEntry> getCache() {
+        if (cache == null) {
+            cache = initCache();
+        }
+        return cache;
+    }
+
+    private PersistentIndexedCache<String, ResolvedGraphCacheEntry> initCache() {
+        return cacheLockingManager.createCache("resolved-graphs", BaseSerializerFactory.STRING_SERIALIZER, new ResolvedGraphCacheEntrySerializer());
+    }
+
+    /**
+     * Locates the persisted graph for the given configuration.
+     */
+    public Lookup lookup(ConfigurationInternal configuration, List<? extends ResolutionAwareRepository> repositories, GlobalDependencyResolutionRules metadataHandler) {
+        ProjectInternal rootProject = projectRegistry.getProject(":");
+        String fingerprint = rootProject == null ? null : calculateFingerprint(configuration, repositories, metadataHandler);
+        if (fingerprint == null) {
+            return new Lookup(null, null, null, null);
+        }
+        final String key = rootProject.getRootDir().getAbsolutePath() + configuration.getPath();
+        ResolvedGraphCacheEntry entry = cacheLockingManager.useCache(String.format("load resolved graph for %s", configuration), new Factory<ResolvedGraphCacheEntry>() {
+            public ResolvedGraphCacheEntry create() {
+                return getCache().get(key);
+            }
+        });
+        ModuleReplacementsData moduleReplacements = metadataHandler.getModuleMetadataProcessor().getModuleReplacements();
+        if (entry == null || !entry.fingerprint.equals(fingerprint)) {
+            return new Lookup(key, fingerprint, moduleReplacements, null);
+        }
+        Map<String, LocalComponentMetaData> projects = loadUnchangedProjects(entry);
+        if (projects == null || !isUpToDate(entry, configuration.getResolutionStrategy().getCachePolicy(), moduleReplacements)) {
+            return new Lookup(key, fingerprint, moduleReplacements, null);
+        }
+        LOGGER.debug("Reusing resolved graph for {}.", configuration);
+        return new Lookup(key, fingerprint, moduleReplacements, new CachedGraph(entry, projects));
+    }
+
+    @Nullable
+    private String calculateFingerprint(ConfigurationInternal configuration, List<? extends ResolutionAwareRepository> repositories, GlobalDependencyResolutionRules metadataHandler) {
+        if (refreshDependencies) {
+            return null;
+        }
+        ResolutionStrategyInternal resolutionStrategy = configuration.getResolutionStrategy();
+        if (resolutionStrategy.getDependencySubstitution().hasDependencySubstitutionRules()
+            || !resolutionStrategy.getComponentSelection().getRules().isEmpty()
+            || metadataHandler.getComponentMetadataProcessor().hasRules()) {
+            return null;
+        }
+
+        StringBuilder builder = new StringBuilder();
+        builder.append(resolutionStrategy.getConflictResolution().getClass().getName()).append('\n');
+        for (ModuleVersionSelector forcedModule : resolutionStrategy.getForcedModules()) {
+            builder.append(forcedModule.getGroup()).append(':').append(forcedModule.getName()).append(':').append(forcedModule.getVersion()).append('\n');
+        }
+        for (ResolutionAwareRepository repository : repositories) {
+            ConfiguredModuleComponentRepository resolver = repository.createResolver();
+            if (resolver.isLocal()) {
+                // Meta-data from local repositories is not cached, so changes to it must be picked up by every build
+                return null;
+            }
+            builder.append(resolver.getId()).append('\n');
+        }
+        if (!appendComponent(configuration.toRootComponentMetaData(), builder)) {
+            return null;
+        }
+        return HashUtil.createCompactMD5(builder.toString());
+    }
+
+    @Nullable
+    private String calculateFingerprint(ComponentResolveMetaData component) {
+        StringBuilder builder = new StringBuilder();
+        if (!appendComponent(component, builder)) {
+            return null;
+        }
+        return HashUtil.createCompactMD5(builder.toString());
+    }
+
+    private boolean appendComponent(ComponentResolveMetaData component, StringBuilder builder) {
+        builder.append(component.getComponentId().getDisplayName()).append('\n');
+        builder.append(component.getId()).append(':').append(component.getStatus()).append('\n');
+        for (String name : new TreeSet<String>(component.getConfigurationNames())) {
+            ConfigurationMetaData configuration = component.getConfiguration(name);
+            builder.append(name).append(new TreeSet<String>(configuration.getHierarchy())).append(configuration.isTransitive()).append(configuration.isVisible()).append('\n');
+            for (ExcludeRule excludeRule : configuration.getExcludeRules()) {
+                appendExcludeRule(excludeRule, builder);
+            }
+        }
+        for (DependencyMetaData dependency : component.getDependencies()) {
+            if (dependency.isChanging()) {
+                return false;
+            }
+            if (dependency instanceof DslOriginDependencyMetaData && ((DslOriginDependencyMetaData) dependency).getSource() instanceof ClientModule) {
+                return false;
+            }
+            ModuleVersionSelector requested = dependency.getRequested();
+            builder.append(dependency.getSelector().getDisplayName()).append(' ');
+            builder.append(requested.getGroup()).append(':').append(requested.getName()).append(':').append(requested.getVersion());
+            builder.append(dependency.isForce()).append(dependency.isTransitive()).append('\n');
+            for (String moduleConfiguration : dependency.getModuleConfigurations()) {
+                builder.append(moduleConfiguration).append("->").append(Arrays.asList(dependency.getDependencyConfigurations(moduleConfiguration, moduleConfiguration))).append('\n');
+            }
+            for (IvyArtifactName artifact : dependency.getArtifacts()) {
+                builder.append(artifact.getName()).append(':').append(artifact.getType()).append(':').append(artifact.getExtension()).append(':').append(artifact.getClassifier()).append('\n');
+            }
+            for (ExcludeRule excludeRule : dependency.getExcludeRules(Arrays.asList(dependency.getModuleConfigurations()))) {
+                appendExcludeRule(excludeRule, builder);
+            }
+        }
+        return true;
+    }
+
+    private void appendExcludeRule(ExcludeRule excludeRule, StringBuilder builder) {
+        builder.append("exclude ").append(excludeRule.getId()).append(' ').append(excludeRule.getMatcher().getName()).append(Arrays.asList(excludeRule.getConfigurations())).append('\n');
+    }
+
+    /**
+     * Returns the meta-data of the projects in the graph, or null when the declared dependencies of any of them have changed.
+     */
+    @Nullable
+    private Map<String, LocalComponentMetaData> loadUnchangedProjects(ResolvedGraphCacheEntry entry) {
+        Map<String, LocalComponentMetaData> projects = new HashMap<String, LocalComponentMetaData>();
+        for (Map.Entry<String, String> project : entry.projectFingerprints.entrySet()) {
+            LocalComponentMetaData metaData = projectComponentRegistry.getProject(project.getKey());
+            if (metaData == null || !project.getValue().equals(calculateFingerprint(metaData))) {
+                return null;
+            }
+            projects.put(project.getKey(), metaData);
+        }
+        return projects;
+    }
+
+    private boolean isUpToDate(ResolvedGraphCacheEntry entry, CachePolicy cachePolicy, ModuleReplacementsData moduleReplacements) {
+        for (ModuleIdentifier module : entry.modules) {
+            if (moduleReplacements.getReplacementFor(module) != null) {
+                return false;
+            }
+        }
+        long age = timeProvider.getCurrentTime() - entry.createTimestamp;
+        for (ModuleVersionIdentifier selected : entry.dynamicVersions) {
+            if (cachePolicy.mustRefreshVersionList(selected.getModule(), Collections.singleton(selected), age)) {
+                return false;
+            }
+        }
+        for (ModuleVersionIdentifier changing : entry.changingModules) {
+            if (cachePolicy.mustRefreshChangingModule(DefaultModuleComponentIdentifier.newId(changing), new DefaultResolvedModuleVersion(changing), age)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The result of looking up the persisted graph of a configuration.
+     */
+    public class Lookup {
+        private final String key;
+        private final String fingerprint;
+        private final ModuleReplacementsData moduleReplacements;
+        private final CachedGraph cachedGraph;
+
+        private Lookup(String key, String fingerprint, ModuleReplacementsData moduleReplacements, CachedGraph cachedGraph) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.moduleReplacements = moduleReplacements;
+            this.cachedGraph = cachedGraph;
+        }
+
+        /**
+         * Returns the persisted graph, or null when there is none that can be reused.
+         */
+        @Nullable
+        public CachedGraph getCachedGraph() {
+            return cachedGraph;
+        }
+
+        /**
+         * Starts recording the graph that is about to be resolved, so that it can be persisted. Returns null when the graph cannot be persisted.
+         */
+        @Nullable
+        public ResolvedGraphRecorder startRecording(BinaryStore newModelStore) {
+            if (fingerprint == null) {
+                return null;
+            }
+            return new ResolvedGraphRecorder(newModelStore, versionSelectorScheme);
+        }
+
+        /**
+         * Persists the recorded graph, if it can be reused by later builds. Otherwise, discards any graph persisted for the configuration.
+         */
+        public void store(ResolvedGraphRecorder recorder) {
+            final ResolvedGraphCacheEntry entry = createEntry(recorder);
+            cacheLockingManager.useCache(String.format("store resolved graph %s", key), new Runnable() {
+                public void run() {
+                    if (entry == null) {
+                        getCache().remove(key);
+                    } else {
+                        getCache().put(key, entry);
+                    }
+                }
+            });
+        }
+
+        @Nullable
+        private ResolvedGraphCacheEntry createEntry(ResolvedGraphRecorder recorder) {
+            if (!recorder.isReusable()) {
+                return null;
+            }
+            for (ModuleIdentifier module : recorder.getModules()) {
+                if (moduleReplacements.getReplacementFor(module) != null) {
+                    return null;
+                }
+            }
+            Map<String, String> projectFingerprints = new HashMap<String, String>();
+            for (ResolvedProjectConfiguration projectConfiguration : recorder.getProjectConfigurations()) {
+                String projectPath = projectConfiguration.getId().getProjectPath();
+                if (projectFingerprints.containsKey(projectPath)) {
+                    continue;
+                }
+                LocalComponentMetaData metaData = projectComponentRegistry.getProject(projectPath);
+                String projectFingerprint = metaData == null ? null : calculateFingerprint(metaData);
+                if (projectFingerprint == null) {
+                    return null;
+                }
+                projectFingerprints.put(projectPath, projectFingerprint);
+            }
+            return new ResolvedGraphCacheEntry(fingerprint, timeProvider.getCurrentTime(), projectFingerprints, recorder.getProjectConfigurations(),
+                recorder.getModules(), recorder.getDynamicVersions(), recorder.getChangingModules(), recorder.getNewModelRecords());
+        }
+    }
+
+    /**
+     * A persisted graph that can be reused.
+     */
+    public static class CachedGraph {
+        private final ResolvedGraphCacheEntry entry;
+        private final Map<String, LocalComponentMetaData> projects;
+
+        private CachedGraph(ResolvedGraphCacheEntry entry, Map<String, LocalComponentMetaData> projects) {
+            this.entry = entry;
+            this.projects = projects;
+        }
+
+        /**
+         * The records of the new model, as written by {@link org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.StreamingResolutionResultBuilder}.
+         */
+        public byte[] getNewModelRecords() {
+            return entry.newModelRecords;
+        }
+
+        /**
+         * Notifies the given builder of the project configurations in the graph, using the current build dependencies of each configuration.
+         */
+        public void replayLocalComponents(ResolvedLocalComponentsResultBuilder builder) {
+            for (ResolvedProjectConfiguration projectConfiguration : entry.projectConfigurations) {
+                ProjectComponentIdentifier componentId = projectConfiguration.getId();
+                builder.projectConfigurationResolved(componentId, projectConfiguration.getTargetConfiguration());
+                ConfigurationMetaData configurationMetaData = projects.get(componentId.getProjectPath()).getConfiguration(projectConfiguration.getTargetConfiguration());
+                if (configurationMetaData instanceof LocalConfigurationMetaData) {
+                    builder.localComponentResolved(componentId, ((LocalConfigurationMetaData) configurationMetaData).getDirectBuildDependencies());
+                }
+            }
+        }
+    }
+
+    private static class ResolvedGraphCacheEntry {
+        private final String fingerprint;
+        private final long createTimestamp;
+        private final Map<String, String> projectFingerprints;
+        private final List<ResolvedProjectConfiguration> projectConfigurations;
+        private final Set<ModuleIdentifier> modules;
+        private final Set<ModuleVersionIdentifier> dynamicVersions;
+        private final Set<ModuleVersionIdentifier> changingModules;
+        private final byte[] newModelRecords;
+
+        private ResolvedGraphCacheEntry(String fingerprint, long createTimestamp, Map<String, String> projectFingerprints, List<ResolvedProjectConfiguration> projectConfigurations,
+                                        Set<ModuleIdentifier> modules, Set<ModuleVersionIdentifier> dynamicVersions, Set<ModuleVersionIdentifier> changingModules, byte[] newModelRecords) {
+            this.fingerprint = fingerprint;
+            this.createTimestamp = createTimestamp;
+            this.projectFingerprints = projectFingerprints;
+            this.projectConfigurations = projectConfigurations;
+            this.modules = modules;
+            this.dynamicVersions = dynamicVersions;
+            this.changingModules = changingModules;
+            this.newModelRecords = newModelRecords;
+        }
+    }
+
+    private static class ResolvedGraphCacheEntrySerializer implements Serializer<ResolvedGraphCacheEntry> {
+        public void write(Encoder encoder, ResolvedGraphCacheEntry value) throws Exception {
+            encoder.writeString(value.fingerprint);
+            encoder.writeLong(value.createTimestamp);
+            encoder.writeSmallInt(value.projectFingerprints.size());
+            for (Map.Entry<String, String> project : value.projectFingerprints.entrySet()) {
+                encoder.writeString(project.getKey());
+                encoder.writeString(project.getValue());
+            }
+            encoder.writeSmallInt(value.projectConfigurations.size());
+            for (ResolvedProjectConfiguration projectConfiguration : value.projectConfigurations) {
+                encoder.writeString(projectConfiguration.getId().getProjectPath());
+                encoder.writeString(projectConfiguration.getTargetConfiguration());
+            }
+            encoder.writeSmallInt(value.modules.size());
+            for (ModuleIdentifier module : value.modules) {
+                encoder.writeString(module.getGroup());
+                encoder.writeString(module.getName());
+            }
+            writeIds(encoder, value.dynamicVersions);
+            writeIds(encoder, value.changingModules);
+            encoder.writeBinary(value.newModelRecords);
+        }
+
+        public ResolvedGraphCacheEntry read(Decoder decoder) throws Exception {
+            String fingerprint = decoder.readString();
+            long createTimestamp = decoder.readLong();
+            int projectCount = decoder.readSmallInt();
+            Map<String, String> projectFingerprints = new HashMap<String, String>(projectCount);
+            for (int i = 0; i < projectCount; i++) {
+                projectFingerprints.put(decoder.readString(), decoder.readString());
+            }
+            int projectConfigurationCount = decoder.readSmallInt();
+            List<ResolvedProjectConfiguration> projectConfigurations = new ArrayList<ResolvedProjectConfiguration>(projectConfigurationCount);
+            for (int i = 0; i < projectConfigurationCount; i++) {
+                projectConfigurations.add(new DefaultResolvedProjectConfiguration(new DefaultProjectComponentIdentifier(decoder.readString()), decoder.readString()));
+            }
+            int moduleCount = decoder.readSmallInt();
+            Set<ModuleIdentifier> modules = new LinkedHashSet<ModuleIdentifier>(moduleCount);
+            for (int i = 0; i < moduleCount; i++) {
+                modules.add(DefaultModuleIdentifier.newId(decoder.readString(), decoder.readString()));
+            }
+            Set<ModuleVersionIdentifier> dynamicVersions = readIds(decoder);
+            Set<ModuleVersionIdentifier> changingModules = readIds(decoder);
+            byte[] newModelRecords = decoder.readBinary();
+            return new ResolvedGraphCacheEntry(fingerprint, createTimestamp, projectFingerprints, projectConfigurations, modules, dynamicVersions, changingModules, newModelRecords);
+        }
+
+        private void writeIds(Encoder encoder, Set<ModuleVersionIdentifier> ids) throws Exception {
+            encoder.writeSmallInt(ids.size());
+            for (ModuleVersionIdentifier id : ids) {
+                encoder.writeString(id.getGroup());
+                encoder.writeString(id.getName());
+                encoder.writeString(id.getVersion());
+            }
+        }
+
+        private Set<ModuleVersionIdentifier> readIds(Decoder decoder) throws Exception {
+            int count = decoder.readSmallInt();
+            Set<ModuleVersionIdentifier> ids = new LinkedHashSet<ModuleVersionIdentifier>(count);
+            for (int i = 0; i < count; i++) {
+                ids.add(DefaultModuleVersionIdentifier.newId(decoder.readString(), decoder.readString(), decoder.readString()));
+            }
+            return ids;
+        }
+    }
+}
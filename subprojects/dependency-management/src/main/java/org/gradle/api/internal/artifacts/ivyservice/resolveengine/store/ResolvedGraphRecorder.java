@@ -0,0 +1,174 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
+
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.projectresult.DefaultResolvedProjectConfiguration;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.projectresult.ResolvedProjectConfiguration;
+import org.gradle.api.internal.cache.BinaryStore;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the information required to persist a resolved graph and to later decide whether it can be reused: the records written to the
+ * new model store, the project configurations that were reached, and the modules whose selection may change over time.
+ */
+public class ResolvedGraphRecorder implements DependencyGraphVisitor {
+    private final RecordingBinaryStore newModelStore;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final List<ResolvedProjectConfiguration> projectConfigurations = new ArrayList<ResolvedProjectConfiguration>();
+    private final Set<ModuleIdentifier> modules = new LinkedHashSet<ModuleIdentifier>();
+    private final Set<ModuleVersionIdentifier> dynamicVersions = new LinkedHashSet<ModuleVersionIdentifier>();
+    private final Set<ModuleVersionIdentifier> changingModules = new LinkedHashSet<ModuleVersionIdentifier>();
+    private ComponentIdentifier rootId;
+    private boolean reusable = true;
+
+    public ResolvedGraphRecorder(BinaryStore newModelStore, VersionSelectorScheme versionSelectorScheme) {
+        this.newModelStore = new RecordingBinaryStore(newModelStore);
+        this.versionSelectorScheme = versionSelectorScheme;
+    }
+
+    /**
+     * Returns the store that the new model should be written to, so that its records are captured.
+     */
+    public BinaryStore getNewModelStore() {
+        return newModelStore;
+    }
+
+    @Override
+    public void start(DependencyGraphNode root) {
+        rootId = root.getComponentId();
+    }
+
+    @Override
+    public void visitNode(DependencyGraphNode resolvedConfiguration) {
+        ComponentIdentifier componentId = resolvedConfiguration.getComponentId();
+        if (rootId.equals(componentId)) {
+            return;
+        }
+        if (componentId instanceof ProjectComponentIdentifier) {
+            projectConfigurations.add(new DefaultResolvedProjectConfiguration((ProjectComponentIdentifier) componentId, resolvedConfiguration.getNodeId().getConfiguration()));
+        } else if (componentId instanceof ModuleComponentIdentifier) {
+            modules.add(resolvedConfiguration.toId().getModule());
+            if (resolvedConfiguration.getMetaData().getComponent().isChanging()) {
+                changingModules.add(resolvedConfiguration.toId());
+            }
+        } else {
+            // Some other kind of local component, whose meta-data we cannot check later
+            reusable = false;
+        }
+    }
+
+    @Override
+    public void visitEdge(DependencyGraphNode resolvedConfiguration) {
+        for (DependencyGraphEdge dependency : resolvedConfiguration.getOutgoingEdges()) {
+            if (dependency.getFailure() != null) {
+                reusable = false;
+                continue;
+            }
+            ComponentSelector requested = dependency.getRequested();
+            if (requested instanceof ModuleComponentSelector
+                && versionSelectorScheme.parseSelector(((ModuleComponentSelector) requested).getVersion()).isDynamic()) {
+                dynamicVersions.add(dependency.getSelected());
+            }
+        }
+    }
+
+    @Override
+    public void finish(DependencyGraphNode root) {
+    }
+
+    /**
+     * Returns false when the graph contains failures or components that cannot be checked for changes.
+     */
+    public boolean isReusable() {
+        return reusable;
+    }
+
+    public List<ResolvedProjectConfiguration> getProjectConfigurations() {
+        return projectConfigurations;
+    }
+
+    public Set<ModuleIdentifier> getModules() {
+        return modules;
+    }
+
+    /**
+     * The versions that were selected for dynamic version selectors.
+     */
+    public Set<ModuleVersionIdentifier> getDynamicVersions() {
+        return dynamicVersions;
+    }
+
+    public Set<ModuleVersionIdentifier> getChangingModules() {
+        return changingModules;
+    }
+
+    public byte[] getNewModelRecords() {
+        return newModelStore.getRecords();
+    }
+
+    private static class RecordingBinaryStore implements BinaryStore {
+        private final BinaryStore delegate;
+        private final ByteArrayOutputStream records = new ByteArrayOutputStream();
+        private final KryoBackedEncoder encoder = new KryoBackedEncoder(records);
+
+        public RecordingBinaryStore(BinaryStore delegate) {
+            this.delegate = delegate;
+        }
+
+        public void write(WriteAction write) {
+            delegate.write(write);
+            try {
+                write.write(encoder);
+            } catch (Exception e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        public BinaryData done() {
+            encoder.flush();
+            return delegate.done();
+        }
+
+        public byte[] getRecords() {
+            encoder.flush();
+            return records.toByteArray();
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+}
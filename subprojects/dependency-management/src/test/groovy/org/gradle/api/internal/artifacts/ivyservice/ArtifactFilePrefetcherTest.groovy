@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.gradle.api.artifacts.ResolvedModuleVersion
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ResolveOperationExecutor
+import org.gradle.internal.Factory
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier
+import org.gradle.internal.component.model.IvyArtifactName
+import org.gradle.internal.resolve.ArtifactResolveException
+import org.gradle.logging.ProgressLogger
+import org.gradle.logging.ProgressLoggerFactory
+import spock.lang.Specification
+
+class ArtifactFilePrefetcherTest extends Specification {
+    def operationExecutor = Mock(ResolveOperationExecutor)
+    def progressLogger = Mock(ProgressLogger)
+    def progressLoggerFactory = Stub(ProgressLoggerFactory) {
+        newOperation(_ as Class) >> progressLogger
+    }
+    def prefetcher = new ArtifactFilePrefetcher(operationExecutor, progressLoggerFactory)
+
+    def "resolves the files of unresolved module artifacts as a batch"() {
+        def file1 = new File("a.jar")
+        def file2 = new File("b.jar")
+        def source1 = Mock(Factory)
+        def source2 = Mock(Factory)
+        def artifact1 = artifact(source1)
+        def artifact2 = artifact(source2)
+
+        when:
+        prefetcher.prefetch("config", [artifact1, artifact2])
+
+        then:
+        1 * progressLogger.started()
+        1 * operationExecutor.executeAll("Resolve artifacts for config", { it.size() == 2 }) >> { String name, Collection<Runnable> operations -> operations*.run() }
+        1 * source1.create() >> file1
+        1 * source2.create() >> file2
+        2 * progressLogger.progress({ it.contains("artifacts") })
+        1 * progressLogger.completed({ it.startsWith("2/2 artifacts") })
+
+        and:
+        artifact1.resolved
+        artifact1.file == file1
+        artifact2.file == file2
+    }
+
+    def "does not prefetch a single artifact or artifacts that are already resolved"() {
+        def source = Stub(Factory) {
+            create() >> new File("a.jar")
+        }
+        def resolved = artifact(source)
+        resolved.file
+
+        when:
+        prefetcher.prefetch("config", [resolved, artifact(Mock(Factory))])
+
+        then:
+        0 * operationExecutor._
+        0 * progressLogger._
+    }
+
+    def "does not prefetch artifacts of local components"() {
+        when:
+        prefetcher.prefetch("config", [artifact(Mock(Factory), Stub(ComponentArtifactIdentifier)), artifact(Mock(Factory), Stub(ComponentArtifactIdentifier))])
+
+        then:
+        0 * operationExecutor._
+    }
+
+    def "leaves an artifact that fails to resolve unresolved"() {
+        def source1 = Mock(Factory)
+        def source2 = Mock(Factory)
+        def artifact1 = artifact(source1)
+        def artifact2 = artifact(source2)
+
+        when:
+        prefetcher.prefetch("config", [artifact1, artifact2])
+
+        then:
+        1 * operationExecutor.executeAll(_, _) >> { String name, Collection<Runnable> operations -> operations*.run() }
+        1 * source1.create() >> { throw new ArtifactResolveException("broken") }
+        1 * source2.create() >> new File("b.jar")
+
+        and:
+        !artifact1.resolved
+        artifact2.resolved
+    }
+
+    def artifact(Factory<File> source, ComponentArtifactIdentifier id = Stub(ModuleComponentArtifactIdentifier)) {
+        return new DefaultResolvedArtifact(Stub(ResolvedModuleVersion), Stub(IvyArtifactName), id, source)
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor
+import org.apache.ivy.plugins.matcher.ExactPatternMatcher
+import org.apache.ivy.plugins.matcher.GlobPatternMatcher
+import org.apache.ivy.plugins.matcher.RegexpPatternMatcher
+import org.gradle.api.internal.artifacts.ivyservice.IvyXmlModuleDescriptorWriter
+import org.gradle.api.internal.artifacts.ivyservice.NamespaceId
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.DescriptorParseContext
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyXmlModuleDescriptorParser
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.ResolverStrategy
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ModuleDescriptorSerializerTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+
+    ResolverStrategy resolverStrategy = Stub()
+    IvyXmlModuleDescriptorParser parser = new IvyXmlModuleDescriptorParser(resolverStrategy)
+    ModuleDescriptorSerializer serializer = new ModuleDescriptorSerializer(resolverStrategy)
+
+    def setup() {
+        resolverStrategy.getPatternMatcher("exact") >> ExactPatternMatcher.INSTANCE
+        resolverStrategy.getPatternMatcher("glob") >> GlobPatternMatcher.INSTANCE
+        resolverStrategy.getPatternMatcher("regexp") >> RegexpPatternMatcher.INSTANCE
+    }
+
+    def "serialized descriptor has the same content as the parsed descriptor"() {
+        given:
+        def md = parse """
+<ivy-module version="2.0" xmlns:e="http://ant.apache.org/ivy/extra">
+    <info organisation="myorg" module="mymodule" branch="trunk" revision="1.2" status="release" publication="20151017120000" e:buildNr="815">
+        <license name="Apache" url="http://www.apache.org/licenses/LICENSE-2.0"/>
+        <description homepage="http://myorg.org/mymodule">A module</description>
+        <e:someInfo>info value</e:someInfo>
+    </info>
+    <configurations>
+        <conf name="compile" description="Compile classpath" e:confAttr="value"/>
+        <conf name="runtime" extends="compile"/>
+        <conf name="private" visibility="private" transitive="false"/>
+    </configurations>
+    <publications>
+        <artifact name="mymodule" type="jar" ext="jar" conf="compile,runtime"/>
+        <artifact name="mymodule" type="source" ext="jar" conf="private" e:classifier="sources"/>
+    </publications>
+    <dependencies>
+        <dependency org="org1" name="mod1" rev="1.0" revConstraint="latest.release" conf="compile->default"/>
+        <dependency org="org2" name="mod2" rev="2.0" force="true" changing="true" transitive="false" conf="runtime->runtime,master;private->*">
+            <artifact name="art" type="zip" ext="zip" conf="runtime"/>
+            <include name="inc" type="jar" ext="jar" matcher="glob"/>
+            <exclude org="org3" module="mod3" name="*" type="*" ext="*" matcher="exact" conf="runtime"/>
+        </dependency>
+        <exclude org="org4" module="mod4" artifact="*" type="*" ext="*" matcher="regexp"/>
+    </dependencies>
+</ivy-module>
+"""
+
+        when:
+        def copy = roundTrip(md)
+
+        then:
+        copy.moduleRevisionId == md.moduleRevisionId
+        copy.resolvedPublicationDate == md.resolvedPublicationDate
+        copy.status == "release"
+        copy.extraInfo[new NamespaceId("http://ant.apache.org/ivy/extra", "someInfo")] == "info value"
+        copy.configurations*.name == ["compile", "runtime", "private"]
+        copy.dependencies*.dependencyRevisionId == md.dependencies*.dependencyRevisionId
+        copy.dependencies*.dynamicConstraintDependencyRevisionId == md.dependencies*.dynamicConstraintDependencyRevisionId
+        copy.dependencies[1].getDependencyConfigurations("runtime") == ["runtime", "master"] as String[]
+        copy.dependencies[1].getIncludeRules("runtime").length == 1
+        copy.dependencies[1].getExcludeRules("runtime")[0].matcher == ExactPatternMatcher.INSTANCE
+        copy.allExcludeRules[0].matcher == RegexpPatternMatcher.INSTANCE
+
+        and:
+        asXml(copy) == asXml(md)
+    }
+
+    def "serialized minimal descriptor has the same content as the parsed descriptor"() {
+        given:
+        def md = parse """
+<ivy-module version="1.0">
+    <info organisation="myorg" module="mymodule" revision="myrev"/>
+</ivy-module>
+"""
+
+        when:
+        def copy = roundTrip(md)
+
+        then:
+        copy.moduleRevisionId.branch == null
+        copy.resolvedPublicationDate == null
+        copy.configurations*.name == ["default"]
+        copy.getArtifacts("default").length == 1
+
+        and:
+        asXml(copy) == asXml(md)
+    }
+
+    ModuleDescriptor parse(String text) {
+        def file = temporaryFolder.file("ivy.xml")
+        file.text = text
+        return parser.parseMetaData(Stub(DescriptorParseContext), file, false).descriptor
+    }
+
+    ModuleDescriptor roundTrip(ModuleDescriptor md) {
+        def outstr = new ByteArrayOutputStream()
+        def encoder = new KryoBackedEncoder(outstr)
+        serializer.write(encoder, md)
+        encoder.flush()
+        return serializer.read(new KryoBackedDecoder(new ByteArrayInputStream(outstr.toByteArray())))
+    }
+
+    String asXml(ModuleDescriptor md) {
+        def file = temporaryFolder.file("written.xml")
+        new IvyXmlModuleDescriptorWriter().write(md, file)
+        return file.text
+    }
+}
@@ -940,6 +940,88 @@ class DependencyGraphBuilderTest extends Specification {
         modules(result) == ids(forced, b)
     }
 
+    def "prefetches the meta-data for each level of the graph ahead of traversing it"() {
+        given:
+        def operationExecutor = Mock(ResolveOperationExecutor)
+        builder = new DependencyGraphBuilder(idResolver, metaDataResolver, moduleResolver, dependencyToConfigurationResolver, new DefaultConflictHandler(conflictResolver, moduleReplacements), operationExecutor)
+        def a = revision("a")
+        def b = revision("b")
+        def c = revision("c")
+        def d = revision("d")
+        traverses root, a
+        traverses root, b
+        traverses a, c
+        traverses b, d
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        2 * operationExecutor.executeAll(_, { it.size() == 2 }) >> { String name, Collection<Runnable> operations -> operations*.run() }
+        0 * operationExecutor._
+
+        and:
+        modules(result) == ids(a, b, c, d)
+    }
+
+    def "does not prefetch the meta-data of a version that conflicts with a version already in the graph"() {
+        given:
+        def operationExecutor = Mock(ResolveOperationExecutor)
+        _ * operationExecutor.executeAll(_, _) >> { String name, Collection<Runnable> operations -> operations*.run() }
+        builder = new DependencyGraphBuilder(idResolver, metaDataResolver, moduleResolver, dependencyToConfigurationResolver, new DefaultConflictHandler(conflictResolver, moduleReplacements), operationExecutor)
+        def selected = revision('a', '1.2')
+        def evicted = revision('a', '1.1')
+        def b = revision('b')
+        def c = revision('c')
+        def d = revision('d')
+        def e = revision('e')
+        def f = revision('f')
+        traverses root, selected
+        traverses selected, c
+        traverses root, b
+        traverses b, d
+        doesNotTraverse d, evicted
+        traverses d, f
+        doesNotResolve evicted, e
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        1 * conflictResolver.select(!null) >> {
+            Collection<ComponentResolutionState> candidates = it[0]
+            return candidates.find { it.version == '1.2' }
+        }
+
+        and:
+        modules(result) == ids(selected, b, c, d, f)
+    }
+
+    def "resolves a dependency again when it could not be prefetched"() {
+        given:
+        def operationExecutor = Mock(ResolveOperationExecutor)
+        _ * operationExecutor.executeAll(_, _) >> { String name, Collection<Runnable> operations -> operations*.run() }
+        builder = new DependencyGraphBuilder(idResolver, metaDataResolver, moduleResolver, dependencyToConfigurationResolver, new DefaultConflictHandler(conflictResolver, moduleReplacements), operationExecutor)
+        def a = revision("a")
+        def b = revision("b")
+        def dependencyMetaData = dependsOn(root, a.id)
+        traverses root, b
+        1 * idResolver.resolve(dependencyMetaData, _) >> { throw new RuntimeException("broken") }
+        selectorResolvesTo(dependencyMetaData, a.componentId, a.id)
+        1 * metaDataResolver.resolve(a.componentId, _, _) >> { ComponentIdentifier id, ComponentOverrideMetadata requestMetaData, BuildableComponentResolveResult result ->
+            result.resolved(a)
+        }
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        modules(result) == ids(a, b)
+    }
+
     def revision(String name, String revision = '1.0') {
         // TODO Shouldn't really be using the local component implementation here
         def id = newId("group", name, revision)
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store
+
+import org.gradle.api.artifacts.ModuleIdentifier
+import org.gradle.api.artifacts.ModuleVersionIdentifier
+import org.gradle.api.artifacts.ModuleVersionSelector
+import org.gradle.api.artifacts.component.ComponentSelector
+import org.gradle.api.internal.artifacts.ComponentMetadataProcessor
+import org.gradle.api.internal.artifacts.ComponentModuleMetadataProcessor
+import org.gradle.api.internal.artifacts.ComponentSelectionRulesInternal
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal
+import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DependencySubstitutionsInternal
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConfiguredModuleComponentRepository
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectComponentRegistry
+import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.LatestConflictResolution
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.projectresult.DefaultResolvedProjectConfiguration
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository
+import org.gradle.api.internal.cache.BinaryStore
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectRegistry
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.Factory
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.local.model.DefaultLocalComponentMetaData
+import org.gradle.internal.component.local.model.DefaultProjectComponentIdentifier
+import org.gradle.internal.component.local.model.DefaultProjectComponentSelector
+import org.gradle.internal.component.local.model.LocalComponentMetaData
+import org.gradle.internal.component.model.IvyArtifactName
+import org.gradle.internal.component.model.LocalComponentDependencyMetaData
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.BuildCommencedTimeProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import static org.gradle.api.internal.artifacts.DefaultModuleIdentifier.newId as newModuleId
+import static org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier.newId
+import static org.gradle.api.internal.artifacts.DefaultModuleVersionSelector.newSelector
+
+class ResolvedGraphCacheTest extends Specification {
+    static final long VERSION_LIST_TTL = 1000
+
+    @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
+
+    def entries = [:]
+    def persistentCache = Stub(PersistentIndexedCache) {
+        get(_) >> { String key -> entries[key] }
+        put(_, _) >> { String key, value -> entries[key] = value }
+        remove(_) >> { String key -> entries.remove(key) }
+    }
+    def cacheLockingManager = Stub(CacheLockingManager) {
+        createCache("resolved-graphs", _, _) >> persistentCache
+        useCache(_, _ as Factory) >> { String operation, Factory action -> action.create() }
+        useCache(_, _ as Runnable) >> { String operation, Runnable action -> action.run() }
+    }
+    long now = 0
+    def timeProvider = Stub(BuildCommencedTimeProvider) {
+        getCurrentTime() >> { now }
+    }
+    Map<String, LocalComponentMetaData> projects = [:]
+    def projectComponentRegistry = Stub(ProjectComponentRegistry) {
+        getProject(_) >> { String path -> projects[path] }
+    }
+    def projectRegistry = Stub(ProjectRegistry) {
+        getProject(":") >> Stub(ProjectInternal) {
+            getRootDir() >> temp.testDirectory
+        }
+    }
+
+    def rootComponent = component(":", newSelector("org", "lib", "1.+"))
+    Set<ModuleVersionSelector> forcedModules = [] as Set
+    def cachePolicy = Stub(CachePolicy) {
+        mustRefreshVersionList(_, _, _) >> { ModuleIdentifier module, Set<ModuleVersionIdentifier> versions, long age -> age >= VERSION_LIST_TTL }
+    }
+    def conflictResolution = new LatestConflictResolution()
+    def resolutionStrategy = Stub(ResolutionStrategyInternal) {
+        getDependencySubstitution() >> Stub(DependencySubstitutionsInternal)
+        getComponentSelection() >> Stub(ComponentSelectionRulesInternal) {
+            getRules() >> []
+        }
+        getConflictResolution() >> { conflictResolution }
+        getForcedModules() >> { forcedModules }
+        getCachePolicy() >> { cachePolicy }
+    }
+    def configuration = Stub(ConfigurationInternal) {
+        getPath() >> ":compile"
+        getResolutionStrategy() >> resolutionStrategy
+        toRootComponentMetaData() >> { rootComponent }
+    }
+    List<ResolutionAwareRepository> repositories = [repository("maven")]
+    boolean metadataRules
+    Map<ModuleIdentifier, ModuleIdentifier> replacements = [:]
+    def metadataHandler = Stub(GlobalDependencyResolutionRules) {
+        getComponentMetadataProcessor() >> Stub(ComponentMetadataProcessor) {
+            hasRules() >> { metadataRules }
+        }
+        getModuleMetadataProcessor() >> Stub(ComponentModuleMetadataProcessor) {
+            getModuleReplacements() >> Stub(ModuleReplacementsData) {
+                getReplacementFor(_) >> { ModuleIdentifier module -> replacements[module] }
+            }
+        }
+    }
+
+    def "reuses persisted graph when nothing has changed"() {
+        given:
+        storeGraph(recorder())
+
+        when:
+        def graph = lookup().cachedGraph
+
+        then:
+        graph != null
+        graph.newModelRecords == [1, 2, 3] as byte[]
+    }
+
+    def "does not reuse graph when a declared dependency has changed"() {
+        given:
+        storeGraph(recorder())
+
+        when:
+        rootComponent = component(":", newSelector("org", "lib", "2.+"))
+
+        then:
+        lookup().cachedGraph == null
+    }
+
+    def "does not reuse graph when the repositories have changed"() {
+        given:
+        storeGraph(recorder())
+
+        when:
+        repositories = [repository("maven"), repository("ivy")]
+
+        then:
+        lookup().cachedGraph == null
+    }
+
+    def "does not reuse graph when the forced modules have changed"() {
+        given:
+        storeGraph(recorder())
+
+        when:
+        forcedModules = [newSelector("org", "lib", "1.2")] as Set
+
+        then:
+        lookup().cachedGraph == null
+    }
+
+    def "does not reuse graph when a dependency of a project in the graph has changed"() {
+        given:
+        rootComponent = component(":", DefaultProjectComponentSelector.newSelector(":lib"), newSelector("org", "lib", "1.0"))
+        projects[":lib"] = component(":lib", newSelector("org", "other", "1.0"))
+        storeGraph(recorder(projectConfigurations: [new DefaultResolvedProjectConfiguration(DefaultProjectComponentIdentifier.newId(":lib"), "compile")]))
+
+        expect:
+        lookup().cachedGraph != null
+
+        when:
+        projects[":lib"] = component(":lib", newSelector("org", "other", "2.0"))
+
+        then:
+        lookup().cachedGraph == null
+    }
+
+    def "does not reuse graph when a module in the graph has been replaced"() {
+        given:
+        storeGraph(recorder())
+
+        when:
+        replacements[newModuleId("org", "lib")] = newModuleId("org", "new-lib")
+
+        then:
+        lookup().cachedGraph == null
+    }
+
+    def "does not reuse graph when a dynamic version in the graph is due for a refresh"() {
+        given:
+        storeGraph(recorder(dynamicVersions: [newId("org", "lib", "1.3")] as Set))
+
+        when:
+        now = VERSION_LIST_TTL - 1
+
+        then:
+        lookup().cachedGraph != null
+
+        when:
+        now = VERSION_LIST_TTL
+
+        then:
+        lookup().cachedGraph == null
+    }
+
+    def "does not use persisted graphs when refreshing dependencies"() {
+        given:
+        storeGraph(recorder())
+
+        when:
+        def graphLookup = cache(true).lookup(configuration, repositories, metadataHandler)
+
+        then:
+        graphLookup.cachedGraph == null
+        graphLookup.startRecording(Stub(BinaryStore)) == null
+    }
+
+    def "does not use persisted graphs when there are component metadata rules"() {
+        given:
+        storeGraph(recorder())
+
+        when:
+        metadataRules = true
+        def graphLookup = lookup()
+
+        then:
+        graphLookup.cachedGraph == null
+        graphLookup.startRecording(Stub(BinaryStore)) == null
+    }
+
+    def "discards persisted graph when the graph resolved for it cannot be persisted"() {
+        given:
+        storeGraph(recorder())
+        def graphLookup = lookup()
+
+        expect:
+        graphLookup.cachedGraph != null
+
+        when:
+        graphLookup.store(recorder(reusable: false))
+
+        then:
+        lookup().cachedGraph == null
+        entries.isEmpty()
+    }
+
+    private void storeGraph(ResolvedGraphRecorder recorder) {
+        lookup().store(recorder)
+    }
+
+    private ResolvedGraphCache.Lookup lookup() {
+        return cache(false).lookup(configuration, repositories, metadataHandler)
+    }
+
+    private ResolvedGraphCache cache(boolean refreshDependencies) {
+        return new ResolvedGraphCache(cacheLockingManager, timeProvider, projectComponentRegistry, new DefaultVersionSelectorScheme(), projectRegistry, refreshDependencies)
+    }
+
+    private ResolvedGraphRecorder recorder(Map<String, ?> args = [:]) {
+        return Stub(ResolvedGraphRecorder) {
+            isReusable() >> args.get("reusable", true)
+            getModules() >> ([newModuleId("org", "lib")] as Set)
+            getProjectConfigurations() >> args.get("projectConfigurations", [])
+            getDynamicVersions() >> args.get("dynamicVersions", [] as Set)
+            getChangingModules() >> ([] as Set)
+            getNewModelRecords() >> ([1, 2, 3] as byte[])
+        }
+    }
+
+    private ResolutionAwareRepository repository(String id) {
+        return Stub(ResolutionAwareRepository) {
+            createResolver() >> Stub(ConfiguredModuleComponentRepository) {
+                getId() >> id
+                isLocal() >> false
+            }
+        }
+    }
+
+    private static LocalComponentMetaData component(String path, ModuleVersionSelector requested) {
+        return component(path, DefaultModuleComponentSelector.newSelector(requested), requested)
+    }
+
+    private static LocalComponentMetaData component(String path, ComponentSelector selector, ModuleVersionSelector requested) {
+        def metaData = new DefaultLocalComponentMetaData(newId("org", path == ":" ? "root" : path.substring(1), "1.0"), DefaultProjectComponentIdentifier.newId(path), "integration")
+        metaData.addConfiguration("compile", "", [] as Set, ["compile"] as Set, true, true, null)
+        metaData.addDependency(new LocalComponentDependencyMetaData(selector, requested, "compile", "default",
+            [] as Set<IvyArtifactName>, [] as org.apache.ivy.core.module.descriptor.ExcludeRule[], false, false, true))
+        return metaData
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store
+
+import org.gradle.api.artifacts.ModuleVersionIdentifier
+import org.gradle.api.artifacts.component.ComponentIdentifier
+import org.gradle.api.artifacts.component.ComponentSelector
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DefaultInternalDependencyResult
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DummyStore
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ModuleVersionSelection
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.StreamingResolutionResultBuilder
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.local.model.DefaultLibraryBinaryIdentifier
+import org.gradle.internal.component.local.model.DefaultProjectComponentIdentifier
+import org.gradle.internal.component.model.ComponentResolveMetaData
+import org.gradle.internal.component.model.ConfigurationMetaData
+import org.gradle.internal.resolve.ModuleVersionResolveException
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import static org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier.newId
+import static org.gradle.api.internal.artifacts.DefaultModuleVersionSelector.newSelector
+import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ResolutionResultPrinter.printGraph
+import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.VersionSelectionReasons.REQUESTED
+
+class ResolvedGraphRecorderTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
+
+    def originalStore = new DefaultBinaryStore(temp.file("original.bin"))
+    def replayStore = new DefaultBinaryStore(temp.file("replay.bin"))
+    def recorder = new ResolvedGraphRecorder(originalStore, new DefaultVersionSelectorScheme())
+
+    def cleanup() {
+        originalStore.close()
+        replayStore.close()
+    }
+
+    def "records new model so that it can be replayed by another builder"() {
+        def builder = new StreamingResolutionResultBuilder(recorder.newModelStore, new DummyStore())
+        builder.start(newId("org", "root", "1.0"), new DefaultModuleComponentIdentifier("org", "root", "1.0"))
+        builder.resolvedModuleVersion(selection("org", "dep1", "2.0"))
+        builder.resolvedModuleVersion(selection("org", "dep2", "3.0"))
+        builder.resolvedConfiguration(newId("org", "root", "1.0"), [
+            new DefaultInternalDependencyResult(DefaultModuleComponentSelector.newSelector("org", "dep1", "2.0"), newId("org", "dep1", "2.0"), REQUESTED, null)
+        ])
+        builder.resolvedConfiguration(newId("org", "dep1", "2.0"), [
+            new DefaultInternalDependencyResult(DefaultModuleComponentSelector.newSelector("org", "dep2", "3.0"), newId("org", "dep2", "3.0"), REQUESTED, null)
+        ])
+        def original = builder.complete()
+
+        when:
+        def replayed = new StreamingResolutionResultBuilder(replayStore, new DummyStore()).complete(recorder.newModelRecords)
+
+        then:
+        printGraph(replayed.root) == """org:root:1.0
+  org:dep1:2.0 [root]
+    org:dep2:3.0 [dep1]
+"""
+        printGraph(replayed.root) == printGraph(original.root)
+    }
+
+    def "records project configurations, dynamic versions and changing modules"() {
+        def root = rootNode([edge(DefaultModuleComponentSelector.newSelector("org", "dynamic", "1.+"), newId("org", "dynamic", "1.2")),
+                         edge(DefaultModuleComponentSelector.newSelector("org", "changing", "1.0"), newId("org", "changing", "1.0"))])
+        def project = node(new DefaultProjectComponentIdentifier(":a"), newId("org", "a", "1.0"))
+        def dynamic = node(DefaultModuleComponentIdentifier.newId("org", "dynamic", "1.2"), newId("org", "dynamic", "1.2"))
+        def changing = node(DefaultModuleComponentIdentifier.newId("org", "changing", "1.0"), newId("org", "changing", "1.0"), true)
+
+        when:
+        visit(root, project, dynamic, changing)
+
+        then:
+        recorder.reusable
+        recorder.projectConfigurations*.id*.projectPath == [":a"]
+        recorder.projectConfigurations*.targetConfiguration == ["default"]
+        recorder.modules*.name == ["dynamic", "changing"]
+        recorder.dynamicVersions == [newId("org", "dynamic", "1.2")] as Set
+        recorder.changingModules == [newId("org", "changing", "1.0")] as Set
+    }
+
+    def "graph with failures is not reusable"() {
+        def failure = new ModuleVersionResolveException(newSelector("org", "missing", "1.0"), "broken")
+        def root = rootNode([edge(DefaultModuleComponentSelector.newSelector("org", "missing", "1.0"), null, failure)])
+
+        when:
+        visit(root)
+
+        then:
+        !recorder.reusable
+    }
+
+    def "graph with other local components is not reusable"() {
+        def root = rootNode([])
+        def library = node(new DefaultLibraryBinaryIdentifier(":a", "lib", "api"), newId("org", "lib", "1.0"))
+
+        when:
+        visit(root, library)
+
+        then:
+        !recorder.reusable
+    }
+
+    private void visit(DependencyGraphNode root, DependencyGraphNode... nodes) {
+        def all = [root] + (nodes as List)
+        recorder.start(root)
+        all.each { recorder.visitNode(it) }
+        all.each { recorder.visitEdge(it) }
+        recorder.finish(root)
+    }
+
+    private DependencyGraphNode rootNode(List<DependencyGraphEdge> edges) {
+        return node(new DefaultProjectComponentIdentifier(":"), newId("org", "root", "1.0"), false, edges)
+    }
+
+    private DependencyGraphNode node(ComponentIdentifier componentId, ModuleVersionIdentifier id, boolean changing = false, List<DependencyGraphEdge> edges = []) {
+        def component = Stub(ComponentResolveMetaData) {
+            isChanging() >> changing
+        }
+        def metaData = Stub(ConfigurationMetaData) {
+            getComponent() >> component
+        }
+        return Stub(DependencyGraphNode) {
+            getComponentId() >> componentId
+            toId() >> id
+            getNodeId() >> new ResolvedConfigurationIdentifier(id, "default")
+            getMetaData() >> metaData
+            getOutgoingEdges() >> (edges as Set)
+        }
+    }
+
+    private DependencyGraphEdge edge(ComponentSelector requested, ModuleVersionIdentifier selected, ModuleVersionResolveException failure = null) {
+        return Stub(DependencyGraphEdge) {
+            getRequested() >> requested
+            getSelected() >> selected
+            getFailure() >> failure
+        }
+    }
+
+    private ModuleVersionSelection selection(String group, String name, String version) {
+        return Stub(ModuleVersionSelection) {
+            getId() >> newId(group, name, version)
+            getSelectionReason() >> REQUESTED
+            getComponentId() >> DefaultModuleComponentIdentifier.newId(group, name, version)
+        }
+    }
+}
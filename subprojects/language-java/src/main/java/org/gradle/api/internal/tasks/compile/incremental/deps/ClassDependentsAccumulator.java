@@ -42,6 +42,22 @@ public class ClassDependentsAccumulator {
         }
     }
 
+    /**
+     * Adds the dependents from an analysis of another set of classes, for example the classes of a jar.
+     */
+    public void addAnalysis(ClassSetAnalysisData analysis) {
+        for (Map.Entry<String, DependentsSet> entry : analysis.dependents.entrySet()) {
+            DefaultDependentsSet d = rememberClass(entry.getKey());
+            if (entry.getValue().isDependencyToAll()) {
+                d.setDependencyToAll(true);
+            } else {
+                for (String dependent : entry.getValue().getDependentClasses()) {
+                    d.addDependent(dependent);
+                }
+            }
+        }
+    }
+
     private DefaultDependentsSet rememberClass(String className) {
         DependentsSet d = dependents.get(className);
         if (d == null) {
@@ -103,4 +103,14 @@ class ClassDependentsAccumulatorTest extends Specification {
         accumulator.dependentsMap["b"].dependentClasses == ["a"] as Set
         accumulator.dependentsMap["a"].dependentClasses.isEmpty()
     }
+
+    def "merges dependents of other analysis"() {
+        accumulator.addClass("a", false, ["b"])
+        accumulator.addAnalysis(new ClassSetAnalysisData([b: new DefaultDependentsSet(["c"]), c: new DefaultDependentsSet(), d: new DependencyToAll()]))
+
+        expect:
+        accumulator.dependentsMap.b.dependentClasses == ["a", "c"] as Set
+        accumulator.dependentsMap.c.dependentClasses.isEmpty()
+        accumulator.dependentsMap.d.dependencyToAll
+    }
 }
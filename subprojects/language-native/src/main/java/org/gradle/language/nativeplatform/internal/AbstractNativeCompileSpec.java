@@ -16,6 +16,7 @@
 
 package org.gradle.language.nativeplatform.internal;
 
+import org.gradle.internal.hash.HashValue;
 import org.gradle.internal.operations.logging.BuildOperationLogger;
 import org.gradle.nativeplatform.internal.AbstractBinaryToolSpec;
 import org.gradle.nativeplatform.toolchain.internal.NativeCompileSpec;
@@ -36,6 +37,7 @@ public abstract class AbstractNativeCompileSpec extends AbstractBinaryToolSpec i
     private File prefixHeaderFile;
     private File preCompiledHeaderObjectFile;
     private Map<File, SourceIncludes> sourceFileIncludes;
+    private Map<File, HashValue> translationUnitHashes = Collections.emptyMap();
     private String preCompiledHeader;
 
     public List<File> getIncludeRoots() {
@@ -169,4 +171,14 @@ public abstract class AbstractNativeCompileSpec extends AbstractBinaryToolSpec i
     public void setSourceFileIncludes(Map<File, SourceIncludes> map) {
         this.sourceFileIncludes = map;
     }
+
+    @Override
+    public Map<File, HashValue> getTranslationUnitHashes() {
+        return translationUnitHashes;
+    }
+
+    @Override
+    public void setTranslationUnitHashes(Map<File, HashValue> map) {
+        this.translationUnitHashes = map;
+    }
 }
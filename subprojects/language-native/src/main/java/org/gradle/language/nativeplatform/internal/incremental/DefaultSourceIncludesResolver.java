@@ -15,6 +15,7 @@
  */
 package org.gradle.language.nativeplatform.internal.incremental;
 
+import org.gradle.api.Nullable;
 import org.gradle.language.nativeplatform.internal.Include;
 import org.gradle.language.nativeplatform.internal.SourceIncludes;
 import org.gradle.util.GFileUtils;
@@ -27,9 +28,18 @@ import java.util.Set;
 
 public class DefaultSourceIncludesResolver implements SourceIncludesResolver {
     private final List<File> includePaths;
+    private final IncludeAnalysisCache includeAnalysisCache;
 
     public DefaultSourceIncludesResolver(List<File> includePaths) {
+        this(includePaths, null);
+    }
+
+    /**
+     * @param includeAnalysisCache the cache to locate includes with, or null to look for includes directly in the file system.
+     */
+    public DefaultSourceIncludesResolver(List<File> includePaths, @Nullable IncludeAnalysisCache includeAnalysisCache) {
         this.includePaths = includePaths;
+        this.includeAnalysisCache = includeAnalysisCache;
     }
 
     public Set<ResolvedInclude> resolveIncludes(File sourceFile, SourceIncludes includes) {
@@ -58,11 +68,23 @@ public class DefaultSourceIncludesResolver implements SourceIncludesResolver {
 
     private void searchForDependency(Set<ResolvedInclude> dependencies, List<File> searchPath, String include) {
         for (File searchDir : searchPath) {
-            File candidate = new File(searchDir, include);
-            if (candidate.isFile()) {
-                dependencies.add(new ResolvedInclude(include, GFileUtils.canonicalise(candidate)));
+            File includeFile = locateInclude(searchDir, include);
+            if (includeFile != null) {
+                dependencies.add(new ResolvedInclude(include, includeFile));
                 return;
             }
         }
     }
+
+    /**
+     * Returns the file for the given include in the given directory, or null when there is no such file.
+     */
+    @Nullable
+    File locateInclude(File searchDir, String include) {
+        if (includeAnalysisCache != null) {
+            return includeAnalysisCache.locateInclude(searchDir, include);
+        }
+        File candidate = new File(searchDir, include);
+        return candidate.isFile() ? GFileUtils.canonicalise(candidate) : null;
+    }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.Task;
+import org.gradle.api.execution.TaskExecutionListener;
+import org.gradle.api.tasks.TaskState;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.language.nativeplatform.internal.SourceIncludes;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the results of include analysis that can be shared by all native compile tasks of a build: the file that an include resolves to in a given
+ * include directory, and the includes parsed from a given version of a source or header file.
+ *
+ * <p>Resolved includes are discarded for the outputs of each task that has executed, so that headers generated by a task are found by the tasks that
+ * run after it. Parsed includes are keyed by the hash of the file, so they do not go stale.</p>
+ *
+ * <p>Thread-safe.</p>
+ */
+public class IncludeAnalysisCache implements TaskExecutionListener {
+    private static final File MISSING = new File("");
+    private final ConcurrentMap<IncludeKey, File> includeFiles = new ConcurrentHashMap<IncludeKey, File>();
+    private final ConcurrentMap<ParsedKey, SourceIncludes> parsedIncludes = new ConcurrentHashMap<ParsedKey, SourceIncludes>();
+
+    /**
+     * Locates the file that the given include resolves to in the given include directory.
+     *
+     * @return the canonical file, or null when the include directory does not contain the include.
+     */
+    @Nullable
+    public File locateInclude(File includeDir, String include) {
+        IncludeKey key = new IncludeKey(includeDir, include);
+        File includeFile = includeFiles.get(key);
+        if (includeFile == null) {
+            File candidate = new File(includeDir, include);
+            includeFile = candidate.isFile() ? GFileUtils.canonicalise(candidate) : MISSING;
+            includeFiles.put(key, includeFile);
+        }
+        return includeFile == MISSING ? null : includeFile;
+    }
+
+    /**
+     * Returns the includes of the given version of a file, parsing the file when no parser with the same configuration has parsed this version of the
+     * file before.
+     */
+    public SourceIncludes parseIncludes(File file, byte[] hash, SourceIncludesParser parser) {
+        ParsedKey key = new ParsedKey(file, new HashValue(hash), parser);
+        SourceIncludes includes = parsedIncludes.get(key);
+        if (includes == null) {
+            includes = parser.parseIncludes(file);
+            parsedIncludes.put(key, includes);
+        }
+        return includes;
+    }
+
+    public void beforeExecute(Task task) {
+    }
+
+    public void afterExecute(Task task, TaskState state) {
+        if (!state.getDidWork() || includeFiles.isEmpty()) {
+            return;
+        }
+        for (File outputFile : task.getOutputs().getFiles()) {
+            discardIncludesUnder(outputFile);
+        }
+    }
+
+    private void discardIncludesUnder(File outputFile) {
+        // The output may be a generated header itself, or a directory containing generated headers
+        String outputPath = outputFile.getAbsolutePath();
+        String outputDirPrefix = outputPath + File.separator;
+        for (Iterator<IncludeKey> iterator = includeFiles.keySet().iterator(); iterator.hasNext();) {
+            IncludeKey key = iterator.next();
+            String path = key.getPath();
+            if (path.equals(outputPath) || path.startsWith(outputDirPrefix)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static class IncludeKey {
+        private final File includeDir;
+        private final String include;
+
+        IncludeKey(File includeDir, String include) {
+            this.includeDir = includeDir;
+            this.include = include;
+        }
+
+        String getPath() {
+            return new File(includeDir, include).getAbsolutePath();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            IncludeKey other = (IncludeKey) o;
+            return includeDir.equals(other.includeDir) && include.equals(other.include);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * includeDir.hashCode() + include.hashCode();
+        }
+    }
+
+    private static class ParsedKey {
+        private final File file;
+        private final HashValue hash;
+        private final SourceIncludesParser parser;
+
+        ParsedKey(File file, HashValue hash, SourceIncludesParser parser) {
+            this.file = file;
+            this.hash = hash;
+            this.parser = parser;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ParsedKey other = (ParsedKey) o;
+            return file.equals(other.file) && hash.equals(other.hash) && parser.equals(other.parser);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * file.hashCode() + hash.hashCode()) + parser.hashCode();
+        }
+    }
+}
@@ -16,8 +16,12 @@
 package org.gradle.language.nativeplatform.internal.incremental;
 
 import org.gradle.api.internal.changedetection.state.FileSnapshotter;
+import org.gradle.api.Nullable;
 import org.gradle.cache.PersistentStateCache;
-import org.gradle.language.nativeplatform.internal.SourceIncludes;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,19 +35,33 @@ public class IncrementalCompileProcessor {
     private final SourceIncludesParser sourceIncludesParser;
     private final SourceIncludesResolver sourceIncludesResolver;
     private final FileSnapshotter snapshotter;
+    private final IncludeAnalysisCache includeAnalysisCache;
+    private final BuildOperationProcessor buildOperationProcessor;
 
     public IncrementalCompileProcessor(PersistentStateCache<CompilationState> previousCompileStateCache, SourceIncludesResolver sourceIncludesResolver, SourceIncludesParser sourceIncludesParser,
                                        FileSnapshotter snapshotter) {
+        this(previousCompileStateCache, sourceIncludesResolver, sourceIncludesParser, snapshotter, null, null);
+    }
+
+    /**
+     * @param includeAnalysisCache the cache of parsed includes to share with other compile tasks, or null to parse each changed file.
+     * @param buildOperationProcessor the processor to parse and resolve the includes of files in parallel with, or null to do so on the calling thread.
+     */
+    public IncrementalCompileProcessor(PersistentStateCache<CompilationState> previousCompileStateCache, SourceIncludesResolver sourceIncludesResolver, SourceIncludesParser sourceIncludesParser,
+                                       FileSnapshotter snapshotter, @Nullable IncludeAnalysisCache includeAnalysisCache, @Nullable BuildOperationProcessor buildOperationProcessor) {
         this.previousCompileStateCache = previousCompileStateCache;
         this.sourceIncludesResolver = sourceIncludesResolver;
         this.sourceIncludesParser = sourceIncludesParser;
         this.snapshotter = snapshotter;
+        this.includeAnalysisCache = includeAnalysisCache;
+        this.buildOperationProcessor = buildOperationProcessor;
     }
 
     public IncrementalCompilation processSourceFiles(Collection<File> sourceFiles) {
         CompilationState previousCompileState = previousCompileStateCache.get();
         final IncrementalCompileFiles result = new IncrementalCompileFiles(previousCompileState);
 
+        result.analyze(sourceFiles);
         for (File sourceFile : sourceFiles) {
             result.processSource(sourceFile);
         }
@@ -58,6 +76,7 @@ public class IncrementalCompileProcessor {
         private final CompilationState previous;
         private final CompilationState current = new CompilationState();
         private final Map<File, Boolean> processed = new HashMap<File, Boolean>();
+        private final Map<File, CompilationFileState> analyzed = new HashMap<File, CompilationFileState>();
 
         public IncrementalCompileFiles(CompilationState previousCompileState) {
             this.previous = previousCompileState == null ? new CompilationState() : previousCompileState;
@@ -70,6 +89,54 @@ public class IncrementalCompileProcessor {
             }
         }
 
+        /**
+         * Hashes the given files and the files they include, then parses and resolves their includes. The files of each level of the include graph
+         * are parsed and resolved in parallel. Hashing stays on the calling thread, which holds the lock on the file hash cache.
+         */
+        public void analyze(Collection<File> sourceFiles) {
+            List<File> level = new ArrayList<File>(sourceFiles);
+            while (!level.isEmpty()) {
+                List<AnalyzeIncludesOperation> operations = new ArrayList<AnalyzeIncludesOperation>();
+                for (File file : level) {
+                    if (analyzed.containsKey(file)) {
+                        continue;
+                    }
+                    if (!file.exists()) {
+                        analyzed.put(file, null);
+                        continue;
+                    }
+                    CompilationFileState newState = new CompilationFileState(snapshotter.snapshot(file).getHash());
+                    analyzed.put(file, newState);
+                    operations.add(new AnalyzeIncludesOperation(file, previous.getState(file), newState));
+                }
+
+                runAll(operations);
+
+                level = new ArrayList<File>();
+                for (AnalyzeIncludesOperation operation : operations) {
+                    for (ResolvedInclude dep : operation.newState.getResolvedIncludes()) {
+                        if (!dep.isUnknown() && !analyzed.containsKey(dep.getFile())) {
+                            level.add(dep.getFile());
+                        }
+                    }
+                }
+            }
+        }
+
+        private void runAll(List<AnalyzeIncludesOperation> operations) {
+            if (buildOperationProcessor == null || operations.size() < 2) {
+                for (AnalyzeIncludesOperation operation : operations) {
+                    operation.run();
+                }
+                return;
+            }
+            BuildOperationQueue<AnalyzeIncludesOperation> queue = buildOperationProcessor.newQueue(new AnalyzeIncludesWorker(), null);
+            for (AnalyzeIncludesOperation operation : operations) {
+                queue.add(operation);
+            }
+            queue.waitForCompletion();
+        }
+
         public boolean checkChangedAndUpdateState(File file) {
             boolean changed = false;
 
@@ -77,7 +144,9 @@ public class IncrementalCompileProcessor {
                 return processed.get(file);
             }
 
-            if (!file.exists()) {
+            CompilationFileState newState = analyzed.get(file);
+            if (newState == null) {
+                // Does not exist
                 return true;
             }
 
@@ -85,16 +154,10 @@ public class IncrementalCompileProcessor {
             processed.put(file, false);
 
             CompilationFileState previousState = previous.getState(file);
-            CompilationFileState newState = new CompilationFileState(snapshotter.snapshot(file).getHash());
-
             if (!sameHash(previousState, newState)) {
                 changed = true;
-                newState.setSourceIncludes(sourceIncludesParser.parseIncludes(file));
-            } else {
-                newState.setSourceIncludes(previousState.getSourceIncludes());
             }
 
-            newState.setResolvedIncludes(resolveIncludes(file, newState.getSourceIncludes()));
             // Compare the previous resolved includes with resolving now.
             if (!sameResolved(previousState, newState)) {
                 changed = true;
@@ -125,10 +188,6 @@ public class IncrementalCompileProcessor {
             return previousState != null && newState.getResolvedIncludes().equals(previousState.getResolvedIncludes());
         }
 
-        private Set<ResolvedInclude> resolveIncludes(File file, SourceIncludes sourceIncludes) {
-            return sourceIncludesResolver.resolveIncludes(file, sourceIncludes);
-        }
-
         public List<File> getModifiedSources() {
             return recompile;
         }
@@ -143,4 +202,41 @@ public class IncrementalCompileProcessor {
             return removed;
         }
     }
+
+    private class AnalyzeIncludesOperation implements BuildOperation, Runnable {
+        private final File file;
+        private final CompilationFileState previousState;
+        private final CompilationFileState newState;
+
+        AnalyzeIncludesOperation(File file, @Nullable CompilationFileState previousState, CompilationFileState newState) {
+            this.file = file;
+            this.previousState = previousState;
+            this.newState = newState;
+        }
+
+        public void run() {
+            if (previousState != null && Arrays.equals(newState.getHash(), previousState.getHash())) {
+                newState.setSourceIncludes(previousState.getSourceIncludes());
+            } else if (includeAnalysisCache != null) {
+                newState.setSourceIncludes(includeAnalysisCache.parseIncludes(file, newState.getHash(), sourceIncludesParser));
+            } else {
+                newState.setSourceIncludes(sourceIncludesParser.parseIncludes(file));
+            }
+            newState.setResolvedIncludes(sourceIncludesResolver.resolveIncludes(file, newState.getSourceIncludes()));
+        }
+
+        public String getDescription() {
+            return "analyze includes of " + file.getName();
+        }
+    }
+
+    private static class AnalyzeIncludesWorker implements BuildOperationWorker<AnalyzeIncludesOperation> {
+        public String getDisplayName() {
+            return "include analyzer";
+        }
+
+        public void execute(AnalyzeIncludesOperation operation) {
+            operation.run();
+        }
+    }
 }
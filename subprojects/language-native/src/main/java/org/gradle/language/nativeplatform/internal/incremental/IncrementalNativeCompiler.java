@@ -15,6 +15,7 @@
  */
 package org.gradle.language.nativeplatform.internal.incremental;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.Transformer;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.changedetection.state.FileSnapshotter;
@@ -23,11 +24,13 @@ import org.gradle.api.internal.tasks.SimpleWorkResult;
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.cache.PersistentStateCache;
 import org.gradle.internal.Factory;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.internal.operations.BuildOperationProcessor;
 import org.gradle.language.base.internal.compile.Compiler;
 import org.gradle.language.base.internal.tasks.SimpleStaleClassCleaner;
 import org.gradle.language.nativeplatform.internal.SourceIncludes;
 import org.gradle.language.nativeplatform.internal.incremental.sourceparser.CSourceParser;
-import org.gradle.language.nativeplatform.internal.incremental.sourceparser.RegexBackedCSourceParser;
+import org.gradle.language.nativeplatform.internal.incremental.sourceparser.ScanningCSourceParser;
 import org.gradle.nativeplatform.toolchain.Clang;
 import org.gradle.nativeplatform.toolchain.Gcc;
 import org.gradle.nativeplatform.toolchain.NativeToolChain;
@@ -35,8 +38,7 @@ import org.gradle.nativeplatform.toolchain.internal.NativeCompileSpec;
 import org.gradle.util.CollectionUtils;
 
 import java.io.File;
-import java.util.Collection;
-import java.util.Map;
+import java.util.*;
 
 public class IncrementalNativeCompiler<T extends NativeCompileSpec> implements Compiler<T> {
     private final Compiler<T> delegateCompiler;
@@ -45,15 +47,25 @@ public class IncrementalNativeCompiler<T extends NativeCompileSpec> implements C
     private final TaskArtifactStateCacheAccess cacheAccess;
     private final FileSnapshotter fileSnapshotter;
     private final CompilationStateCacheFactory compilationStateCacheFactory;
+    private final IncludeAnalysisCache includeAnalysisCache;
+    private final BuildOperationProcessor buildOperationProcessor;
 
-    private final CSourceParser sourceParser = new RegexBackedCSourceParser();
+    private final CSourceParser sourceParser = new ScanningCSourceParser();
 
     public IncrementalNativeCompiler(TaskInternal task, TaskArtifactStateCacheAccess cacheAccess, FileSnapshotter fileSnapshotter, CompilationStateCacheFactory compilationStateCacheFactory,
                                      Compiler<T> delegateCompiler, NativeToolChain toolChain) {
+        this(task, cacheAccess, fileSnapshotter, compilationStateCacheFactory, null, null, delegateCompiler, toolChain);
+    }
+
+    public IncrementalNativeCompiler(TaskInternal task, TaskArtifactStateCacheAccess cacheAccess, FileSnapshotter fileSnapshotter, CompilationStateCacheFactory compilationStateCacheFactory,
+                                     @Nullable IncludeAnalysisCache includeAnalysisCache, @Nullable BuildOperationProcessor buildOperationProcessor,
+                                     Compiler<T> delegateCompiler, NativeToolChain toolChain) {
         this.task = task;
         this.cacheAccess = cacheAccess;
         this.fileSnapshotter = fileSnapshotter;
         this.compilationStateCacheFactory = compilationStateCacheFactory;
+        this.includeAnalysisCache = includeAnalysisCache;
+        this.buildOperationProcessor = buildOperationProcessor;
         this.delegateCompiler = delegateCompiler;
         this.importsAreIncludes = Clang.class.isAssignableFrom(toolChain.getClass()) || Gcc.class.isAssignableFrom(toolChain.getClass());
     }
@@ -70,6 +82,7 @@ public class IncrementalNativeCompiler<T extends NativeCompileSpec> implements C
         });
 
         spec.setSourceFileIncludes(mapIncludes(spec.getSourceFiles(), compilation.getFinalState()));
+        spec.setTranslationUnitHashes(hashTranslationUnits(spec.getSourceFiles(), CollectionUtils.toList(spec.getIncludeRoots()), compilation.getFinalState()));
 
         WorkResult workResult;
         if (spec.isIncrementalCompile()) {
@@ -97,6 +110,18 @@ public class IncrementalNativeCompiler<T extends NativeCompileSpec> implements C
         });
     }
 
+    private Map<File, HashValue> hashTranslationUnits(Collection<File> files, List<File> includeRoots, CompilationState compilationState) {
+        TranslationUnitHasher hasher = new TranslationUnitHasher(includeRoots, includeAnalysisCache);
+        Map<File, HashValue> hashes = new HashMap<File, HashValue>();
+        for (File file : files) {
+            HashValue hash = hasher.hash(file, compilationState);
+            if (hash != null) {
+                hashes.put(file, hash);
+            }
+        }
+        return hashes;
+    }
+
     protected WorkResult doIncrementalCompile(IncrementalCompilation compilation, T spec) {
         // Determine the actual sources to clean/compile
         spec.setSourceFiles(compilation.getRecompile());
@@ -125,8 +150,8 @@ public class IncrementalNativeCompiler<T extends NativeCompileSpec> implements C
     }
 
     private IncrementalCompileProcessor createProcessor(PersistentStateCache<CompilationState> compileStateCache, SourceIncludesParser sourceIncludesParser, Iterable<File> includes) {
-        DefaultSourceIncludesResolver dependencyParser = new DefaultSourceIncludesResolver(CollectionUtils.toList(includes));
+        DefaultSourceIncludesResolver dependencyParser = new DefaultSourceIncludesResolver(CollectionUtils.toList(includes), includeAnalysisCache);
 
-        return new IncrementalCompileProcessor(compileStateCache, dependencyParser, sourceIncludesParser, fileSnapshotter);
+        return new IncrementalCompileProcessor(compileStateCache, dependencyParser, sourceIncludesParser, fileSnapshotter, includeAnalysisCache, buildOperationProcessor);
     }
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.gradle.api.Nullable;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.language.nativeplatform.internal.Include;
+import org.gradle.language.nativeplatform.internal.IncludeType;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Calculates a hash of a source file together with the headers it includes, which identifies the translation unit independently of the location of the
+ * workspace.
+ *
+ * <p>The includes are visited in the order they appear in each file. For each include, the hash covers the include directive, the include root the header
+ * was found in, the path of the header relative to that root and the content of the header. The include root is either the directory of the including
+ * file or the position of an include path.</p>
+ */
+public class TranslationUnitHasher {
+    private final List<File> includePaths;
+    private final DefaultSourceIncludesResolver resolver;
+
+    /**
+     * @param includeAnalysisCache the cache to locate includes with, or null to look for includes directly in the file system.
+     */
+    public TranslationUnitHasher(List<File> includePaths, @Nullable IncludeAnalysisCache includeAnalysisCache) {
+        this.includePaths = new ArrayList<File>(includePaths.size());
+        for (File includePath : includePaths) {
+            this.includePaths.add(GFileUtils.canonicalise(includePath));
+        }
+        this.resolver = new DefaultSourceIncludesResolver(this.includePaths, includeAnalysisCache);
+    }
+
+    /**
+     * Calculates the hash of the given source file and the headers it includes, using the includes recorded in the given compilation state.
+     *
+     * @return the hash, or null when an include is a macro, or cannot be found in the directory of the including file or the include paths.
+     */
+    @Nullable
+    public HashValue hash(File sourceFile, CompilationState compilationState) {
+        CompilationFileState state = compilationState.getState(sourceFile);
+        if (state == null) {
+            return null;
+        }
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putBytes(state.getHash());
+        Set<File> visited = new HashSet<File>();
+        visited.add(sourceFile);
+        if (!hashIncludes(sourceFile, state, compilationState, visited, hasher)) {
+            return null;
+        }
+        return new HashValue(hasher.hash().asBytes());
+    }
+
+    private boolean hashIncludes(File file, CompilationFileState state, CompilationState compilationState, Set<File> visited, Hasher hasher) {
+        File includingDir = null;
+        for (Include include : state.getSourceIncludes().getIncludesAndImports()) {
+            if (include.getType() == IncludeType.MACRO) {
+                return false;
+            }
+            File includeRoot = null;
+            String includeRootName = null;
+            File includeFile = null;
+            if (include.getType() == IncludeType.QUOTED) {
+                if (includingDir == null) {
+                    includingDir = GFileUtils.canonicalise(file.getParentFile());
+                }
+                includeRoot = includingDir;
+                includeRootName = "<including directory>";
+                includeFile = resolver.locateInclude(includeRoot, include.getValue());
+            }
+            for (int i = 0; includeFile == null && i < includePaths.size(); i++) {
+                includeRoot = includePaths.get(i);
+                includeRootName = "<include path " + i + ">";
+                includeFile = resolver.locateInclude(includeRoot, include.getValue());
+            }
+            if (includeFile == null) {
+                // May be found in a directory the compiler searches by default, whose content is not known
+                return false;
+            }
+            CompilationFileState includeState = compilationState.getState(includeFile);
+            if (includeState == null) {
+                return false;
+            }
+
+            hasher.putString(include.getType().name(), Charsets.UTF_8);
+            hasher.putString(include.getValue(), Charsets.UTF_8);
+            hasher.putString(includeRootName, Charsets.UTF_8);
+            hasher.putString(GFileUtils.relativePath(includeRoot, includeFile), Charsets.UTF_8);
+            hasher.putBytes(includeState.getHash());
+
+            if (visited.add(includeFile) && !hashIncludes(includeFile, includeState, compilationState, visited, hasher)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental.sourceparser;
+
+import com.google.common.io.Files;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.language.nativeplatform.internal.Include;
+import org.gradle.language.nativeplatform.internal.SourceIncludes;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the include and import directives of a C source file by scanning its bytes, without decoding the file or creating a string per line.
+ *
+ * Finds the same directives as {@link RegexBackedCSourceParser}: comments are replaced by a single space and line-continuations are removed, in the
+ * same way as {@link PreprocessingReader}, and only lines that start with '#' are examined. The remaining lines are skipped over a byte at a time.
+ *
+ * Stateless and threadsafe.
+ */
+public class ScanningCSourceParser implements CSourceParser {
+    public SourceIncludes parseSource(File sourceFile) {
+        byte[] contents;
+        try {
+            contents = Files.toByteArray(sourceFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        DefaultSourceIncludes sourceIncludes = new DefaultSourceIncludes();
+        sourceIncludes.addAll(new Scanner(contents).scan());
+        return sourceIncludes;
+    }
+
+    private static class Scanner {
+        private static final byte[] INCLUDE = "include".getBytes();
+        private static final byte[] IMPORT = "import".getBytes();
+
+        private final byte[] contents;
+        private int pos;
+
+        /**
+         * The read-ahead characters, used for reading ahead up to 2 characters and pushing back into stream.
+         * A value of -1 indicates that no character is in the buffer.
+         */
+        private int readAhead0 = -1;
+        private int readAhead1 = -1;
+        private boolean inString;
+        private boolean quoted;
+
+        /**
+         * The characters of the current directive line after the '#'. Only directive lines are copied here.
+         */
+        private byte[] line = new byte[256];
+        private int lineLength;
+
+        Scanner(byte[] contents) {
+            this.contents = contents;
+        }
+
+        List<Include> scan() {
+            List<Include> includes = new ArrayList<Include>();
+            int ch = read();
+            while (ch != -1) {
+                // Skip leading whitespace, as String.trim() does
+                while (ch != -1 && ch <= ' ' && ch != '\n' && ch != '\r') {
+                    ch = read();
+                }
+                if (ch == '#') {
+                    ch = readDirective();
+                    Include include = matchDirective();
+                    if (include != null) {
+                        includes.add(include);
+                    }
+                } else {
+                    ch = skipLine(ch);
+                }
+                // ch is now a line separator or end of input
+                if (ch != -1) {
+                    ch = read();
+                }
+            }
+            return includes;
+        }
+
+        /**
+         * Copies the remainder of the current line into the line buffer.
+         *
+         * @return the line separator or -1.
+         */
+        private int readDirective() {
+            lineLength = 0;
+            int ch = read();
+            while (ch != -1 && ch != '\n' && ch != '\r') {
+                if (lineLength == line.length) {
+                    byte[] newLine = new byte[line.length * 2];
+                    System.arraycopy(line, 0, newLine, 0, lineLength);
+                    line = newLine;
+                }
+                line[lineLength++] = (byte) ch;
+                ch = read();
+            }
+            return ch;
+        }
+
+        /**
+         * Skips the remainder of the current line, jumping over the bytes that cannot start a comment, string, line-continuation or new line.
+         *
+         * @return the line separator or -1.
+         */
+        private int skipLine(int ch) {
+            while (ch != -1 && ch != '\n' && ch != '\r') {
+                if (readAhead0 == -1) {
+                    int start = pos;
+                    while (pos < contents.length && isPlain(contents[pos])) {
+                        pos++;
+                    }
+                    if (pos > start) {
+                        quoted = false;
+                    }
+                }
+                ch = read();
+            }
+            return ch;
+        }
+
+        private static boolean isPlain(byte b) {
+            return b != '\n' && b != '\r' && b != '/' && b != '"' && b != '\\';
+        }
+
+        /**
+         * Matches the directive line against {@code \s*(include|import)\s*((<[^>]+>)|("[^"]+")|(\w+))}, ignoring trailing whitespace.
+         */
+        private Include matchDirective() {
+            int end = lineLength;
+            while (end > 0 && (line[end - 1] & 0xff) <= ' ') {
+                end--;
+            }
+            int i = skipSpaces(0, end);
+            boolean isImport;
+            if (matchesIgnoreCase(INCLUDE, i, end)) {
+                isImport = false;
+                i += INCLUDE.length;
+            } else if (matchesIgnoreCase(IMPORT, i, end)) {
+                isImport = matches(IMPORT, i);
+                i += IMPORT.length;
+            } else {
+                return null;
+            }
+            i = skipSpaces(i, end);
+            if (i >= end) {
+                return null;
+            }
+            int valueStart = i;
+            byte first = line[i];
+            if (first == '<' || first == '"') {
+                byte close = first == '<' ? (byte) '>' : (byte) '"';
+                i++;
+                while (i < end && line[i] != close) {
+                    i++;
+                }
+                if (i != end - 1 || i == valueStart + 1) {
+                    return null;
+                }
+            } else {
+                while (i < end && isWordChar(line[i])) {
+                    i++;
+                }
+                if (i != end || i == valueStart) {
+                    return null;
+                }
+            }
+            return DefaultInclude.parse(new String(line, valueStart, end - valueStart), isImport);
+        }
+
+        private int skipSpaces(int i, int end) {
+            while (i < end && isSpace(line[i])) {
+                i++;
+            }
+            return i;
+        }
+
+        private static boolean isSpace(byte b) {
+            return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+        }
+
+        private static boolean isWordChar(byte b) {
+            return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_';
+        }
+
+        private boolean matchesIgnoreCase(byte[] expected, int start, int end) {
+            if (end - start < expected.length) {
+                return false;
+            }
+            for (int i = 0; i < expected.length; i++) {
+                int b = line[start + i];
+                if (b >= 'A' && b <= 'Z') {
+                    b += 'a' - 'A';
+                }
+                if (b != expected[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean matches(byte[] expected, int start) {
+            for (int i = 0; i < expected.length; i++) {
+                if (line[start + i] != expected[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns the next character with comments replaced by a single space and line-continuations removed. See {@link PreprocessingReader#read()}.
+         */
+        private int read() {
+            int ch = next();
+
+            if (ch == '\\') {
+                if (discardNewLine()) {
+                    return read();
+                }
+            }
+
+            if (ch == '"' && !quoted) {
+                inString = !inString;
+                quoted = false;
+            } else if (ch == '\\') {
+                quoted = !quoted;
+            } else {
+                quoted = false;
+                if (!inString && ch == '/') {
+                    ch = next();
+                    if (ch == '/') {
+                        while (ch != '\n' && ch != -1 && ch != '\r') {
+                            ch = next();
+                        }
+                    } else if (ch == '*') {
+                        while (ch != -1) {
+                            ch = next();
+                            if (ch == '*') {
+                                ch = next();
+                                while (ch == '*') {
+                                    ch = next();
+                                }
+
+                                if (ch == '/') {
+                                    ch = ' ';
+                                    break;
+                                }
+                            }
+                        }
+                    } else {
+                        pushBack(ch);
+                        ch = '/';
+                    }
+                }
+            }
+
+            return ch;
+        }
+
+        private boolean discardNewLine() {
+            int nextChar = next();
+            if (nextChar == '\n') {
+                return true;
+            } else if (nextChar == '\r') {
+                int followingChar = next();
+                if (followingChar == '\n') {
+                    return true;
+                }
+                pushBack(nextChar);
+                pushBack(followingChar);
+                return false;
+            } else {
+                pushBack(nextChar);
+                return false;
+            }
+        }
+
+        private int next() {
+            if (readAhead0 != -1) {
+                int ch = readAhead0;
+                readAhead0 = readAhead1;
+                readAhead1 = -1;
+                return ch;
+            }
+            if (pos < contents.length) {
+                return contents[pos++] & 0xff;
+            }
+            return -1;
+        }
+
+        private void pushBack(int ch) {
+            if (readAhead1 != -1) {
+                throw new IllegalStateException();
+            }
+            if (readAhead0 != -1) {
+                readAhead1 = ch;
+            } else {
+                readAhead0 = ch;
+            }
+        }
+    }
+}
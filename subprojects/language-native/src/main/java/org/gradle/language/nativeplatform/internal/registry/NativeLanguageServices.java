@@ -16,9 +16,11 @@
 
 package org.gradle.language.nativeplatform.internal.registry;
 
+import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.PluginServiceRegistry;
 import org.gradle.language.nativeplatform.internal.incremental.DefaultCompilationStateCacheFactory;
+import org.gradle.language.nativeplatform.internal.incremental.IncludeAnalysisCache;
 import org.gradle.language.nativeplatform.internal.incremental.IncrementalCompilerBuilder;
 
 public class NativeLanguageServices implements PluginServiceRegistry {
@@ -33,9 +35,18 @@ public class NativeLanguageServices implements PluginServiceRegistry {
 
     public void registerGradleServices(ServiceRegistration registration) {
         registration.add(DefaultCompilationStateCacheFactory.class);
+        registration.addProvider(new GradleScopeNativeLanguageServices());
     }
 
     public void registerProjectServices(ServiceRegistration registration) {
         registration.add(IncrementalCompilerBuilder.class);
     }
+
+    private static class GradleScopeNativeLanguageServices {
+        IncludeAnalysisCache createIncludeAnalysisCache(ListenerManager listenerManager) {
+            IncludeAnalysisCache includeAnalysisCache = new IncludeAnalysisCache();
+            listenerManager.addListener(includeAnalysisCache);
+            return includeAnalysisCache;
+        }
+    }
 }
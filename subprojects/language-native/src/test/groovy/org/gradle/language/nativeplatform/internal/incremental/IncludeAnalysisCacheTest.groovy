@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental
+
+import org.gradle.api.file.FileCollection
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.TaskOutputsInternal
+import org.gradle.api.tasks.TaskState
+import org.gradle.language.nativeplatform.internal.SourceIncludes
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class IncludeAnalysisCacheTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+
+    def cache = new IncludeAnalysisCache()
+    def includeDir = temporaryFolder.createDir("include")
+
+    def "locates include in include directory"() {
+        def header = includeDir.file("test.h").createFile()
+
+        expect:
+        cache.locateInclude(includeDir, "test.h") == header
+        cache.locateInclude(includeDir, "missing.h") == null
+    }
+
+    def "reuses located include until a task produces output in the include directory"() {
+        def task = Mock(TaskInternal)
+        def outputs = Mock(TaskOutputsInternal)
+        def outputFiles = Mock(FileCollection)
+        def state = Mock(TaskState)
+        task.getOutputs() >> outputs
+        outputs.getFiles() >> outputFiles
+        outputFiles.iterator() >> { [includeDir].iterator() }
+
+        given:
+        cache.locateInclude(includeDir, "generated.h")
+
+        when:
+        def header = includeDir.file("generated.h").createFile()
+
+        then:
+        cache.locateInclude(includeDir, "generated.h") == null
+
+        when:
+        state.getDidWork() >> true
+        cache.afterExecute(task, state)
+
+        then:
+        cache.locateInclude(includeDir, "generated.h") == header
+    }
+
+    def "reuses located include until a task produces it as an output file"() {
+        def task = Mock(TaskInternal)
+        def outputs = Mock(TaskOutputsInternal)
+        def outputFiles = Mock(FileCollection)
+        def state = Mock(TaskState)
+        def header = includeDir.file("generated.h")
+        task.getOutputs() >> outputs
+        outputs.getFiles() >> outputFiles
+        outputFiles.iterator() >> { [header].iterator() }
+
+        given:
+        cache.locateInclude(includeDir, "generated.h")
+        cache.locateInclude(includeDir, "other.h")
+
+        when:
+        header.createFile()
+        includeDir.file("other.h").createFile()
+
+        then:
+        cache.locateInclude(includeDir, "generated.h") == null
+
+        when:
+        state.getDidWork() >> true
+        cache.afterExecute(task, state)
+
+        then:
+        cache.locateInclude(includeDir, "generated.h") == header
+        cache.locateInclude(includeDir, "other.h") == null
+    }
+
+    def "keeps located includes when task did no work"() {
+        def task = Mock(TaskInternal)
+        def state = Mock(TaskState)
+
+        given:
+        cache.locateInclude(includeDir, "generated.h")
+        includeDir.file("generated.h").createFile()
+
+        when:
+        state.getDidWork() >> false
+        cache.afterExecute(task, state)
+
+        then:
+        0 * task.getOutputs()
+        cache.locateInclude(includeDir, "generated.h") == null
+    }
+
+    def "parses each version of a file once"() {
+        def parser = Mock(SourceIncludesParser)
+        def file = temporaryFolder.createFile("source.c")
+        def includes1 = Stub(SourceIncludes)
+        def includes2 = Stub(SourceIncludes)
+
+        when:
+        def first = cache.parseIncludes(file, [1, 2] as byte[], parser)
+        def second = cache.parseIncludes(file, [1, 2] as byte[], parser)
+
+        then:
+        1 * parser.parseIncludes(file) >> includes1
+        first.is(includes1)
+        second.is(includes1)
+
+        when:
+        def changed = cache.parseIncludes(file, [3, 4] as byte[], parser)
+
+        then:
+        1 * parser.parseIncludes(file) >> includes2
+        changed.is(includes2)
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental
+
+import org.gradle.internal.hash.HashValue
+import org.gradle.language.nativeplatform.internal.IncludeType
+import org.gradle.language.nativeplatform.internal.incremental.sourceparser.DefaultInclude
+import org.gradle.language.nativeplatform.internal.incremental.sourceparser.DefaultSourceIncludes
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.GFileUtils
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class TranslationUnitHasherTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def compilationState = new CompilationState()
+
+    def "hash is independent of the location of the workspace"() {
+        expect:
+        def hash1 = hashWorkspace("workspace1")
+        hash1 != null
+        hash1 == hashWorkspace("workspace2")
+    }
+
+    def "hash depends on the content of included headers"() {
+        def original = hashWorkspace("workspace1")
+
+        expect:
+        original != hashWorkspace("workspace2", [libContent: "changed"])
+    }
+
+    def "hash depends on the include directive of headers with the same content"() {
+        def original = hashWorkspace("workspace1")
+
+        expect:
+        original != hashWorkspace("workspace2", [libName: "other.h"])
+    }
+
+    def "hash depends on the include path in which a header is found"() {
+        def source1 = file("workspace1/src/main.c", "main", new DefaultInclude("lib.h", false, IncludeType.SYSTEM))
+        file("workspace1/include2/lib.h", "lib")
+        def source2 = file("workspace2/src/main.c", "main", new DefaultInclude("lib.h", false, IncludeType.SYSTEM))
+        file("workspace2/include1/lib.h", "lib")
+
+        expect:
+        hash(source1, [tmpDir.file("workspace1/include1"), tmpDir.file("workspace1/include2")]) != hash(source2, [tmpDir.file("workspace2/include1"), tmpDir.file("workspace2/include2")])
+    }
+
+    def "hash depends on the order of includes in an included header"() {
+        def source = file("src/main.c", "main", quoted("lib.h"))
+        file("src/a.h", "a")
+        file("src/b.h", "b")
+        file("src/lib.h", "lib", quoted("a.h"), quoted("b.h"))
+        def original = hash(source, [])
+
+        when:
+        file("src/lib.h", "lib", quoted("b.h"), quoted("a.h"))
+
+        then:
+        hash(source, []) != original
+    }
+
+    def "hashes each header once when included multiple times"() {
+        def source = file("src/main.c", "main", quoted("a.h"), quoted("b.h"))
+        file("src/a.h", "a", quoted("b.h"))
+        file("src/b.h", "b", quoted("a.h"))
+
+        expect:
+        hash(source, []) != null
+    }
+
+    @Unroll
+    def "does not hash translation unit with #description"() {
+        def source = file("src/main.c", "main", quoted("main.h"))
+        file("src/main.h", "main header", include)
+
+        expect:
+        hash(source, []) == null
+
+        where:
+        description                   | include
+        "unresolved quoted include"   | quoted("missing.h")
+        "unresolved system include"   | new DefaultInclude("stdio.h", false, IncludeType.SYSTEM)
+        "macro include"               | new DefaultInclude("HEADER", false, IncludeType.MACRO)
+    }
+
+    def "does not hash translation unit with include that has not been analyzed"() {
+        def source = file("src/main.c", "main", quoted("main.h"))
+        tmpDir.createFile("src/main.h")
+
+        expect:
+        hash(source, []) == null
+    }
+
+    private HashValue hashWorkspace(String name, Map<String, String> options = [:]) {
+        def libName = options.libName ?: "lib.h"
+        def source = file("$name/src/main.c", "main", quoted("main.h"), new DefaultInclude(libName, false, IncludeType.SYSTEM))
+        file("$name/src/main.h", "main header")
+        file("$name/include/$libName", options.libContent ?: "lib header")
+        return hash(source, [tmpDir.file("$name/include")])
+    }
+
+    private HashValue hash(File source, List<File> includePaths) {
+        return new TranslationUnitHasher(includePaths, null).hash(source, compilationState)
+    }
+
+    private static DefaultInclude quoted(String value) {
+        return new DefaultInclude(value, false, IncludeType.QUOTED)
+    }
+
+    private File file(String path, String content, DefaultInclude... includes) {
+        def file = GFileUtils.canonicalise(tmpDir.createFile(path))
+        file.text = content
+        def state = new CompilationFileState(content.bytes)
+        def sourceIncludes = new DefaultSourceIncludes()
+        sourceIncludes.addAll(includes as List)
+        state.sourceIncludes = sourceIncludes
+        compilationState.setState(file, state)
+        return file
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental.sourceparser
+
+class ScanningCSourceParserTest extends RegexBackedCSourceParserTest {
+    def setup() {
+        parser = new ScanningCSourceParser()
+    }
+
+    def "finds same directives as regex backed parser in large file"() {
+        when:
+        def text = new StringBuilder()
+        10000.times { i ->
+            text << "static const char *value$i = \"#include <not_a_header_$i>\"; /* #include \"commented$i\" */\n"
+            if (i % 100 == 0) {
+                text << "  #  include \"header$i\"  // trailing\n"
+                text << "#import <sys\\\n${i}.h>\n"
+                text << "#include MACRO_$i\n"
+            }
+        }
+        sourceFile << text
+
+        then:
+        parsedSource.includesAndImports == new RegexBackedCSourceParser().parseSource(sourceFile).includesAndImports
+        parsedSource.includesAndImports.size() == 300
+    }
+}
@@ -40,6 +40,7 @@ class DependencyResolutionStressTest extends Specification {
     @Rule TestNameTestDirectoryProvider workspace = new TestNameTestDirectoryProvider()
     GradleDistribution distribution = new UnderDevelopmentGradleDistribution()
     @Rule StressHttpServer server = new StressHttpServer()
+    @Rule SlowRepositoryServer slowRepository = new SlowRepositoryServer()
     @Rule ConcurrentTestUtil concurrent = new ConcurrentTestUtil()
 
     def setup() {
@@ -91,6 +92,95 @@ task check << {
         concurrent.finished()
     }
 
+    def "fetches the meta-data of each level of a wide dependency graph concurrently"() {
+        given:
+        def buildDir = workspace.file("wide")
+        buildDir.file('build.gradle') << """
+repositories {
+    ivy { url '${slowRepository.uri}' }
+}
+
+configurations {
+    compile
+}
+
+dependencies {
+    ${(0..<SlowRepositoryServer.WIDTH).collect { "compile 'org.gradle:lib-$it:1.0'" }.join('\n    ')}
+}
+
+task resolve << {
+    assert configurations.compile.incoming.resolutionResult.allComponents.size() == ${1 + SlowRepositoryServer.WIDTH * (1 + SlowRepositoryServer.FAN_OUT)}
+}
+"""
+
+        when:
+        def sequential = timeColdResolve(buildDir, "sequential", 1)
+        def concurrent = timeColdResolve(buildDir, "concurrent", 8)
+        println "* Resolved with 1 worker in ${sequential}ms, with 8 workers in ${concurrent}ms"
+
+        then:
+        concurrent < sequential / 2
+    }
+
+    private long timeColdResolve(File buildDir, String userHome, int maxWorkers) {
+        GradleExecuter executer = distribution.executer(workspace).
+                requireGradleHome().
+                withGradleUserHomeDir(workspace.file("user-home-$userHome"))
+        long start = System.currentTimeMillis()
+        executer.inDirectory(buildDir).withArgument("--max-workers=$maxWorkers").withTasks('resolve').run()
+        return System.currentTimeMillis() - start
+    }
+
+    /**
+     * An Ivy repository that takes a while to serve each module descriptor. Module lib-N depends on modules dep-N-0 to dep-N-(FAN_OUT - 1).
+     */
+    static class SlowRepositoryServer extends ExternalResource {
+        static final int WIDTH = 20
+        static final int FAN_OUT = 2
+        static final long LATENCY_MILLIS = 200
+        final Server server = new Server(0)
+
+        @Override
+        protected void before() {
+            server.addConnector(new SocketConnector())
+            server.addHandler(new AbstractHandler() {
+                void handle(String target, HttpServletRequest request, HttpServletResponse response, int dispatch) {
+                    def matcher = request.pathInfo =~ '^/org.gradle/([^/]+)/1.0/ivy-1.0.xml$'
+                    if (request.method == 'GET' && matcher.matches()) {
+                        Thread.sleep(LATENCY_MILLIS)
+                        def content = ivyFile(matcher.group(1)).bytes
+                        response.setContentLength(content.length)
+                        response.setContentType("text/xml")
+                        response.outputStream.write(content)
+                        request.handled = true
+                    }
+                }
+            })
+            server.start()
+        }
+
+        private static String ivyFile(String module) {
+            def dependencies = module.startsWith("lib-") ? (0..<FAN_OUT).collect { "<dependency org='org.gradle' name='dep-${module.substring(4)}-$it' rev='1.0'/>" } : []
+            return """<ivy-module version="2.0">
+    <info organisation="org.gradle" module="$module" revision="1.0"/>
+    <publications/>
+    <dependencies>
+        ${dependencies.join('\n        ')}
+    </dependencies>
+</ivy-module>
+"""
+        }
+
+        @Override
+        protected void after() {
+            server.stop()
+        }
+
+        URI getUri() {
+            return new URI("http://localhost:${server.connectors[0].localPort}/")
+        }
+    }
+
     static class StressHttpServer extends ExternalResource {
         final Server server = new Server(0)
         final Resources resources = new Resources()
@@ -37,4 +37,23 @@ class ParallelBuildPerformanceTest extends AbstractCrossBuildPerformanceTest {
         runner.run()
     }
 
+    def "critical path scheduling"() {
+        when:
+        runner.testId = "parallel builds with critical path scheduling"
+        runner.testGroup = "parallel builds"
+        runner.buildSpec {
+            projectName("multi").displayName("critical path").invocation {
+                tasksToRun("clean", "build").args("--parallel", "--max-workers=2", "--scheduling=critical-path")
+            }
+        }
+        runner.baseline {
+            projectName("multi").displayName("parallel").invocation {
+                tasksToRun("clean", "build").args("--parallel", "--max-workers=2")
+            }
+        }
+
+        then:
+        runner.run()
+    }
+
 }
@@ -38,10 +38,28 @@ class TestExecutionPerformanceTest extends AbstractCrossVersionPerformanceTest {
         result.assertCurrentVersionHasNotRegressed()
 
         where:
-        testProject         | maxExecutionTimeRegression
-        "withTestNG"        | millis(1000)
-        "withJUnit"         | millis(500)
-        "withVerboseTestNG" | millis(500)
-        "withVerboseJUnit"  | millis(500)
+        testProject            | maxExecutionTimeRegression
+        "withTestNG"           | millis(1000)
+        "withJUnit"            | millis(500)
+        "withVerboseTestNG"    | millis(500)
+        "withVerboseJUnit"     | millis(500)
+        "withManyVerboseJUnit" | millis(1000)
     }
-}
\ No newline at end of file
+
+    def "test report generation"() {
+        given:
+        runner.testId = "test report withManyVerboseJUnit"
+        runner.testProject = "withManyVerboseJUnit"
+        // The test task is up-to-date after the first run, so only the report is generated from the binary results
+        runner.tasksToRun = ['cleanTestReport', 'testReport']
+        runner.args = ['-q']
+        runner.maxExecutionTimeRegression = millis(500)
+        runner.targetVersions = ['2.0', '2.2.1', 'last']
+
+        when:
+        def result = runner.run()
+
+        then:
+        result.assertCurrentVersionHasNotRegressed()
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.gradle.nativeplatform.toolchain.internal;
 
+import org.gradle.internal.hash.HashValue;
 import org.gradle.language.nativeplatform.internal.SourceIncludes;
 import org.gradle.nativeplatform.internal.BinaryToolSpec;
 
@@ -81,4 +82,12 @@ public interface NativeCompileSpec extends BinaryToolSpec {
     Map<File, SourceIncludes> getSourceFileIncludes();
 
     void setSourceFileIncludes(Map<File, SourceIncludes> map);
+
+    /**
+     * Returns the hash of each source file combined with the hashes of the headers it includes, directly or transitively. Source files that include
+     * a header that could not be resolved have no entry.
+     */
+    Map<File, HashValue> getTranslationUnitHashes();
+
+    void setTranslationUnitHashes(Map<File, HashValue> map);
 }
@@ -19,8 +19,10 @@ package org.gradle.nativeplatform.toolchain.internal;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.Transformer;
 import org.gradle.api.internal.tasks.SimpleWorkResult;
+import org.gradle.api.internal.tasks.cache.TaskOutputCacheKey;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
@@ -37,8 +39,11 @@ import org.gradle.nativeplatform.internal.CompilerOutputFileNamingScheme;
 import org.gradle.util.CollectionUtils;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 abstract public class NativeCompiler<T extends NativeCompileSpec> implements Compiler<T> {
 
@@ -52,7 +57,14 @@ abstract public class NativeCompiler<T extends NativeCompileSpec> implements Com
 
     private final BuildOperationProcessor buildOperationProcessor;
 
+    private final NativeObjectFileCache objectFileCache;
+
     public NativeCompiler(BuildOperationProcessor buildOperationProcessor, CommandLineToolInvocationWorker commandLineToolInvocationWorker, CommandLineToolContext invocationContext, ArgsTransformer<T> argsTransformer, Transformer<T, T> specTransformer, String objectFileExtension, boolean useCommandFile) {
+        this(buildOperationProcessor, commandLineToolInvocationWorker, invocationContext, argsTransformer, specTransformer, objectFileExtension, useCommandFile, null);
+    }
+
+    public NativeCompiler(BuildOperationProcessor buildOperationProcessor, CommandLineToolInvocationWorker commandLineToolInvocationWorker, CommandLineToolContext invocationContext, ArgsTransformer<T> argsTransformer, Transformer<T, T> specTransformer, String objectFileExtension, boolean useCommandFile, @Nullable NativeObjectFileCache objectFileCache) {
+        this.objectFileCache = objectFileCache;
         this.invocationContext = invocationContext;
         this.objectFileExtension = objectFileExtension;
         this.useCommandFile = useCommandFile;
@@ -64,11 +76,26 @@ abstract public class NativeCompiler<T extends NativeCompileSpec> implements Com
 
     public WorkResult execute(T spec) {
         final T transformedSpec = specTransformer.transform(spec);
-        final List<String> genericArgs = getArguments(transformedSpec);
+        final List<String> toolArgs = getToolArguments(transformedSpec);
+        final List<String> genericArgs = getArguments(transformedSpec, toolArgs);
         final BuildOperationQueue<CommandLineToolInvocation> buildQueue = buildOperationProcessor.newQueue(commandLineToolInvocationWorker, spec.getOperationLogger().getLogLocation());
 
+        // Objects compiled against a pre-compiled header depend on more than the translation unit
+        boolean useObjectFileCache = objectFileCache != null && spec.getPreCompiledHeader() == null && spec.getPrefixHeaderFile() == null;
+        Map<File, TaskOutputCacheKey> objectFilesToCache = new LinkedHashMap<File, TaskOutputCacheKey>();
+
         File objectDir = transformedSpec.getObjectFileDir();
         for (File sourceFile : transformedSpec.getSourceFiles()) {
+            if (useObjectFileCache) {
+                TaskOutputCacheKey key = objectFileCache.createKey(toolArgs, transformedSpec.getIncludeRoots(), sourceFile, spec.getTranslationUnitHashes().get(sourceFile), objectFileExtension);
+                if (key != null) {
+                    File objectFile = getOutputFileDir(sourceFile, objectDir, objectFileExtension);
+                    if (objectFileCache.load(key, objectFile)) {
+                        continue;
+                    }
+                    objectFilesToCache.put(objectFile, key);
+                }
+            }
             CommandLineToolInvocation perFileInvocation =
                     createPerFileInvocation(genericArgs, sourceFile, objectDir, spec);
             buildQueue.add(perFileInvocation);
@@ -77,21 +104,34 @@ abstract public class NativeCompiler<T extends NativeCompileSpec> implements Com
         // Wait on all executions to complete or fail
         buildQueue.waitForCompletion();
 
+        for (Map.Entry<File, TaskOutputCacheKey> entry : objectFilesToCache.entrySet()) {
+            objectFileCache.store(entry.getValue(), entry.getKey());
+        }
+
         return new SimpleWorkResult(!transformedSpec.getSourceFiles().isEmpty());
     }
 
     protected List<String> getArguments(T spec) {
+        return getArguments(spec, getToolArguments(spec));
+    }
+
+    private List<String> getArguments(T spec, List<String> toolArgs) {
+        if (!useCommandFile) {
+            return toolArgs;
+        }
+        List<String> args = new ArrayList<String>(toolArgs);
+        // Shorten args and write out an options.txt file
+        // This must be called only once per execute()
+        addOptionsFileArgs(args, spec.getTempDir());
+        return args;
+    }
+
+    private List<String> getToolArguments(T spec) {
         List<String> args = argsTransformer.transform(spec);
 
         Action<List<String>> userArgTransformer = invocationContext.getArgAction();
         // modifies in place
         userArgTransformer.execute(args);
-
-        if (useCommandFile) {
-            // Shorten args and write out an options.txt file
-            // This must be called only once per execute()
-            addOptionsFileArgs(args, spec.getTempDir());
-        }
         return args;
     }
 
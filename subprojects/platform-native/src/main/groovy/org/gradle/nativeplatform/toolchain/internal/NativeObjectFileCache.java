@@ -0,0 +1,173 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.nativeplatform.toolchain.internal;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.tasks.cache.TaskOutputCache;
+import org.gradle.api.internal.tasks.cache.TaskOutputCacheKey;
+import org.gradle.api.internal.tasks.cache.TaskOutputCacheKeyBuilder;
+import org.gradle.api.internal.tasks.cache.TaskOutputReader;
+import org.gradle.api.internal.tasks.cache.TaskOutputWriter;
+import org.gradle.internal.hash.HashValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shares the object files of identical translation units between variants and workspaces, using a {@link TaskOutputCache} to store them.
+ *
+ * <p>An object file is identified by the compiler, the compiler arguments and the hash of the source file together with the headers it includes.
+ * Include roots are replaced by their position in the arguments, as the headers found in them are identified by their path relative to the include root
+ * and their content. The path of the source file is only part of the key when the compiler is asked to produce debug information, so objects that expand
+ * {@code __FILE__} may refer to the workspace that first compiled them.</p>
+ *
+ * <p>Object files are not cached when the arguments add include paths or headers other than the include roots, as the headers found through them are not
+ * part of the hash of the translation unit.</p>
+ */
+public class NativeObjectFileCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NativeObjectFileCache.class);
+    private static final List<String> INCLUDE_PATH_ARGS = Arrays.asList("-I", "/I");
+    private static final List<String> UNTRACKED_INCLUDE_ARGS = Arrays.asList(
+        "-isystem", "-iquote", "-idirafter", "-iprefix", "-iwithprefix", "-isysroot", "--sysroot", "-include", "-imacros", "-F", "/FI"
+    );
+
+    private final TaskOutputCache cache;
+    private final String compilerIdentity;
+
+    /**
+     * @param compilerIdentity describes the compiler implementation, version and executable, so that objects are only shared between invocations of the same compiler.
+     */
+    public NativeObjectFileCache(TaskOutputCache cache, String compilerIdentity) {
+        this.cache = cache;
+        this.compilerIdentity = compilerIdentity;
+    }
+
+    /**
+     * Calculates the key of the object file for the given source file.
+     *
+     * @return the key, or null when the object file cannot be cached, as not all the headers of the source file are known.
+     */
+    @Nullable
+    public TaskOutputCacheKey createKey(List<String> args, List<File> includeRoots, File sourceFile, @Nullable HashValue translationUnitHash, String objectFileExtension) {
+        if (translationUnitHash == null || addsUntrackedIncludes(args, includeRoots)) {
+            return null;
+        }
+        TaskOutputCacheKeyBuilder builder = new TaskOutputCacheKeyBuilder();
+        builder.putString(NativeObjectFileCache.class.getName());
+        builder.putString(compilerIdentity);
+        builder.putString(objectFileExtension);
+        builder.putInt(args.size());
+        for (String arg : args) {
+            int includeRoot = indexOfPath(includeRoots, arg);
+            builder.putString(includeRoot < 0 ? arg : "<include root " + includeRoot + ">");
+        }
+        builder.putString(producesDebugInfo(args) ? sourceFile.getAbsolutePath() : sourceFile.getName());
+        builder.putBytes(translationUnitHash.asByteArray());
+        return builder.build();
+    }
+
+    private static boolean addsUntrackedIncludes(List<String> args, List<File> includeRoots) {
+        for (int i = 0; i < args.size(); i++) {
+            String arg = args.get(i);
+            if (INCLUDE_PATH_ARGS.contains(arg)) {
+                i++;
+                if (i == args.size() || indexOfPath(includeRoots, args.get(i)) < 0) {
+                    return true;
+                }
+                continue;
+            }
+            for (String includePathArg : INCLUDE_PATH_ARGS) {
+                if (arg.startsWith(includePathArg) && indexOfPath(includeRoots, arg.substring(includePathArg.length())) < 0) {
+                    return true;
+                }
+            }
+            for (String includeArg : UNTRACKED_INCLUDE_ARGS) {
+                if (arg.startsWith(includeArg)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int indexOfPath(List<File> includeRoots, String arg) {
+        for (int i = 0; i < includeRoots.size(); i++) {
+            if (includeRoots.get(i).getAbsolutePath().equals(arg)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean producesDebugInfo(List<String> args) {
+        for (String arg : args) {
+            if ((arg.startsWith("-g") && !arg.equals("-g0")) || arg.equals("/Z7") || arg.equals("/Zi") || arg.equals("/ZI")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the cached object file with the given key to the given file, if present.
+     *
+     * @return true when the object file was restored, false when it should be compiled.
+     */
+    public boolean load(TaskOutputCacheKey key, final File objectFile) {
+        try {
+            boolean found = cache.load(key, new TaskOutputReader() {
+                public void readFrom(InputStream input) throws IOException {
+                    OutputStream output = new FileOutputStream(objectFile);
+                    try {
+                        ByteStreams.copy(input, output);
+                    } finally {
+                        output.close();
+                    }
+                }
+            });
+            if (found) {
+                LOGGER.debug("Restored {} from the {}.", objectFile, cache.getDescription());
+            }
+            return found;
+        } catch (Exception e) {
+            LOGGER.warn("Could not restore {} from the {}: {}", objectFile, cache.getDescription(), e.getMessage());
+            objectFile.delete();
+            return false;
+        }
+    }
+
+    public void store(TaskOutputCacheKey key, final File objectFile) {
+        try {
+            cache.store(key, new TaskOutputWriter() {
+                public void writeTo(OutputStream output) throws IOException {
+                    Files.copy(objectFile, output);
+                }
+            });
+        } catch (Exception e) {
+            LOGGER.warn("Could not store {} in the {}: {}", objectFile, cache.getDescription(), e.getMessage());
+        }
+    }
+}
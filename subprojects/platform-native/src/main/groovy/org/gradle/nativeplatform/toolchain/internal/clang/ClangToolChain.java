@@ -16,7 +16,9 @@
 
 package org.gradle.nativeplatform.toolchain.internal.clang;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.file.FileResolver;
+import org.gradle.api.internal.tasks.cache.TaskOutputCache;
 import org.gradle.internal.operations.BuildOperationProcessor;
 import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.reflect.Instantiator;
@@ -30,7 +32,11 @@ public class ClangToolChain extends AbstractGccCompatibleToolChain implements Cl
     public static final String DEFAULT_NAME = "clang";
 
     public ClangToolChain(String name, BuildOperationProcessor buildOperationProcessor, OperatingSystem operatingSystem, FileResolver fileResolver, ExecActionFactory execActionFactory, CompilerMetaDataProviderFactory metaDataProviderFactory, Instantiator instantiator) {
-        super(name, buildOperationProcessor, operatingSystem, fileResolver, execActionFactory, metaDataProviderFactory.clang(), instantiator);
+        this(name, buildOperationProcessor, operatingSystem, fileResolver, execActionFactory, metaDataProviderFactory, instantiator, null);
+    }
+
+    public ClangToolChain(String name, BuildOperationProcessor buildOperationProcessor, OperatingSystem operatingSystem, FileResolver fileResolver, ExecActionFactory execActionFactory, CompilerMetaDataProviderFactory metaDataProviderFactory, Instantiator instantiator, @Nullable TaskOutputCache objectFileCache) {
+        super(name, buildOperationProcessor, operatingSystem, fileResolver, execActionFactory, metaDataProviderFactory.clang(), instantiator, objectFileCache);
     }
 
     @Override
@@ -17,7 +17,9 @@ package org.gradle.nativeplatform.toolchain.internal.gcc;
 
 import com.google.common.collect.Maps;
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.file.FileResolver;
+import org.gradle.api.internal.tasks.cache.TaskOutputCache;
 import org.gradle.internal.Actions;
 import org.gradle.internal.operations.BuildOperationProcessor;
 import org.gradle.internal.os.OperatingSystem;
@@ -61,14 +63,27 @@ public abstract class AbstractGccCompatibleToolChain extends ExtendableToolChain
     private final Map<NativePlatform, PlatformToolProvider> toolProviders = Maps.newHashMap();
     private final CompilerMetaDataProvider metaDataProvider;
     private final Instantiator instantiator;
+    private final TaskOutputCache objectFileCache;
     private int configInsertLocation;
 
     public AbstractGccCompatibleToolChain(String name, BuildOperationProcessor buildOperationProcessor, OperatingSystem operatingSystem, FileResolver fileResolver, ExecActionFactory execActionFactory, CompilerMetaDataProvider metaDataProvider, Instantiator instantiator) {
-        this(name, buildOperationProcessor, operatingSystem, fileResolver, execActionFactory, new ToolSearchPath(operatingSystem), metaDataProvider, instantiator);
+        this(name, buildOperationProcessor, operatingSystem, fileResolver, execActionFactory, new ToolSearchPath(operatingSystem), metaDataProvider, instantiator, null);
+    }
+
+    /**
+     * @param objectFileCache the cache to share object files through, or null to always compile them.
+     */
+    public AbstractGccCompatibleToolChain(String name, BuildOperationProcessor buildOperationProcessor, OperatingSystem operatingSystem, FileResolver fileResolver, ExecActionFactory execActionFactory, CompilerMetaDataProvider metaDataProvider, Instantiator instantiator, @Nullable TaskOutputCache objectFileCache) {
+        this(name, buildOperationProcessor, operatingSystem, fileResolver, execActionFactory, new ToolSearchPath(operatingSystem), metaDataProvider, instantiator, objectFileCache);
     }
 
     AbstractGccCompatibleToolChain(String name, BuildOperationProcessor buildOperationProcessor, OperatingSystem operatingSystem, FileResolver fileResolver, ExecActionFactory execActionFactory, ToolSearchPath tools, CompilerMetaDataProvider metaDataProvider, Instantiator instantiator) {
+        this(name, buildOperationProcessor, operatingSystem, fileResolver, execActionFactory, tools, metaDataProvider, instantiator, null);
+    }
+
+    AbstractGccCompatibleToolChain(String name, BuildOperationProcessor buildOperationProcessor, OperatingSystem operatingSystem, FileResolver fileResolver, ExecActionFactory execActionFactory, ToolSearchPath tools, CompilerMetaDataProvider metaDataProvider, Instantiator instantiator, @Nullable TaskOutputCache objectFileCache) {
         super(name, buildOperationProcessor, operatingSystem, fileResolver);
+        this.objectFileCache = objectFileCache;
         this.execActionFactory = execActionFactory;
         this.toolSearchPath = tools;
         this.metaDataProvider = metaDataProvider;
@@ -142,7 +157,8 @@ public abstract class AbstractGccCompatibleToolChain extends ExtendableToolChain
             return new UnavailablePlatformToolProvider(targetPlatform.getOperatingSystem(), result);
         }
 
-        return new GccPlatformToolProvider(buildOperationProcessor, targetPlatform.getOperatingSystem(), toolSearchPath, configurableToolChain, execActionFactory, configurableToolChain.isCanUseCommandFile());
+        return new GccPlatformToolProvider(buildOperationProcessor, targetPlatform.getOperatingSystem(), toolSearchPath, configurableToolChain, execActionFactory, configurableToolChain.isCanUseCommandFile(),
+            configurableToolChain.getCompilerIdentity() == null ? null : objectFileCache, configurableToolChain.getCompilerIdentity());
     }
 
     protected void initTools(DefaultGccPlatformToolChain platformToolChain, ToolChainAvailability availability) {
@@ -159,6 +175,7 @@ public abstract class AbstractGccCompatibleToolChain extends ExtendableToolChain
                 // Assume all the other compilers are ok, if they happen to be installed
                 LOGGER.debug("Found {} with version {}", ToolType.C_COMPILER.getToolName(), versionResult);
                 found = true;
+                platformToolChain.setCompilerIdentity(String.format("%s %s %s", versionResult.isClang() ? "clang" : "gcc", versionResult.getVersion(), versionResult.getDefaultArchitecture().getName()));
                 initForImplementation(platformToolChain, versionResult);
                 break;
             }
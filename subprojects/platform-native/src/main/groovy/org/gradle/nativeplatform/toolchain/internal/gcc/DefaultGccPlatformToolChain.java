@@ -27,6 +27,7 @@ import java.util.*;
 public class DefaultGccPlatformToolChain implements GccPlatformToolChain, ToolRegistry {
     private final NativePlatform platform;
     private boolean canUseCommandFile = true;
+    private String compilerIdentity;
     private List<String> compilerProbeArgs = new ArrayList<String>();
     private final Map<ToolType, GccCommandLineToolConfigurationInternal> tools = new HashMap<ToolType, GccCommandLineToolConfigurationInternal>();
 
@@ -42,6 +43,17 @@ public class DefaultGccPlatformToolChain implements GccPlatformToolChain, ToolRe
         this.canUseCommandFile = canUseCommandFile;
     }
 
+    /**
+     * Describes the compiler implementation that was found when probing the compilers, or null when it is not known.
+     */
+    public String getCompilerIdentity() {
+        return compilerIdentity;
+    }
+
+    public void setCompilerIdentity(String compilerIdentity) {
+        this.compilerIdentity = compilerIdentity;
+    }
+
     public List<String> getCompilerProbeArgs() {
         return compilerProbeArgs;
     }
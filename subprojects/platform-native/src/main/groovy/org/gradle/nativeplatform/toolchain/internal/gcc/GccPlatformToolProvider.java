@@ -15,6 +15,8 @@
  */
 package org.gradle.nativeplatform.toolchain.internal.gcc;
 
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.tasks.cache.TaskOutputCache;
 import org.gradle.internal.operations.BuildOperationProcessor;
 import org.gradle.language.base.internal.compile.Compiler;
 import org.gradle.nativeplatform.internal.LinkerSpec;
@@ -27,14 +29,25 @@ import org.gradle.nativeplatform.toolchain.internal.tools.ToolRegistry;
 import org.gradle.nativeplatform.toolchain.internal.tools.ToolSearchPath;
 import org.gradle.process.internal.ExecActionFactory;
 
+import java.io.File;
+
 class GccPlatformToolProvider extends AbstractPlatformToolProvider {
     private final ToolSearchPath toolSearchPath;
     private final ToolRegistry toolRegistry;
     private final ExecActionFactory execActionFactory;
     private final boolean useCommandFile;
+    private final TaskOutputCache objectFileCache;
+    private final String compilerIdentity;
 
     GccPlatformToolProvider(BuildOperationProcessor buildOperationProcessor, OperatingSystemInternal targetOperatingSystem, ToolSearchPath toolSearchPath, ToolRegistry toolRegistry, ExecActionFactory execActionFactory, boolean useCommandFile) {
+        this(buildOperationProcessor, targetOperatingSystem, toolSearchPath, toolRegistry, execActionFactory, useCommandFile, null, null);
+    }
+
+    GccPlatformToolProvider(BuildOperationProcessor buildOperationProcessor, OperatingSystemInternal targetOperatingSystem, ToolSearchPath toolSearchPath, ToolRegistry toolRegistry, ExecActionFactory execActionFactory, boolean useCommandFile,
+                            @Nullable TaskOutputCache objectFileCache, @Nullable String compilerIdentity) {
         super(buildOperationProcessor, targetOperatingSystem);
+        this.objectFileCache = objectFileCache;
+        this.compilerIdentity = compilerIdentity;
         this.toolRegistry = toolRegistry;
         this.toolSearchPath = toolSearchPath;
         this.useCommandFile = useCommandFile;
@@ -44,7 +57,7 @@ class GccPlatformToolProvider extends AbstractPlatformToolProvider {
     @Override
     protected Compiler<CppCompileSpec> createCppCompiler() {
         GccCommandLineToolConfigurationInternal cppCompilerTool = toolRegistry.getTool(ToolType.CPP_COMPILER);
-        CppCompiler cppCompiler = new CppCompiler(buildOperationProcessor, commandLineTool(cppCompilerTool), context(cppCompilerTool), getObjectFileExtension(), useCommandFile);
+        CppCompiler cppCompiler = new CppCompiler(buildOperationProcessor, commandLineTool(cppCompilerTool), context(cppCompilerTool), getObjectFileExtension(), useCommandFile, objectFileCache(cppCompilerTool));
         return new OutputCleaningCompiler<CppCompileSpec>(cppCompiler, getObjectFileExtension());
     }
 
@@ -58,7 +71,7 @@ class GccPlatformToolProvider extends AbstractPlatformToolProvider {
     @Override
     protected Compiler<CCompileSpec> createCCompiler() {
         GccCommandLineToolConfigurationInternal cCompilerTool = toolRegistry.getTool(ToolType.C_COMPILER);
-        CCompiler cCompiler = new CCompiler(buildOperationProcessor, commandLineTool(cCompilerTool), context(cCompilerTool), getObjectFileExtension(), useCommandFile);
+        CCompiler cCompiler = new CCompiler(buildOperationProcessor, commandLineTool(cCompilerTool), context(cCompilerTool), getObjectFileExtension(), useCommandFile, objectFileCache(cCompilerTool));
         return new OutputCleaningCompiler<CCompileSpec>(cCompiler, getObjectFileExtension());
     }
 
@@ -72,7 +85,7 @@ class GccPlatformToolProvider extends AbstractPlatformToolProvider {
     @Override
     protected Compiler<ObjectiveCppCompileSpec> createObjectiveCppCompiler() {
         GccCommandLineToolConfigurationInternal objectiveCppCompilerTool = toolRegistry.getTool(ToolType.OBJECTIVECPP_COMPILER);
-        ObjectiveCppCompiler objectiveCppCompiler = new ObjectiveCppCompiler(buildOperationProcessor, commandLineTool(objectiveCppCompilerTool), context(objectiveCppCompilerTool), getObjectFileExtension(), useCommandFile);
+        ObjectiveCppCompiler objectiveCppCompiler = new ObjectiveCppCompiler(buildOperationProcessor, commandLineTool(objectiveCppCompilerTool), context(objectiveCppCompilerTool), getObjectFileExtension(), useCommandFile, objectFileCache(objectiveCppCompilerTool));
         return new OutputCleaningCompiler<ObjectiveCppCompileSpec>(objectiveCppCompiler, getObjectFileExtension());
     }
 
@@ -86,7 +99,7 @@ class GccPlatformToolProvider extends AbstractPlatformToolProvider {
     @Override
     protected Compiler<ObjectiveCCompileSpec> createObjectiveCCompiler() {
         GccCommandLineToolConfigurationInternal objectiveCCompilerTool = toolRegistry.getTool(ToolType.OBJECTIVEC_COMPILER);
-        ObjectiveCCompiler objectiveCCompiler = new ObjectiveCCompiler(buildOperationProcessor, commandLineTool(objectiveCCompilerTool), context(objectiveCCompilerTool), getObjectFileExtension(), useCommandFile);
+        ObjectiveCCompiler objectiveCCompiler = new ObjectiveCCompiler(buildOperationProcessor, commandLineTool(objectiveCCompilerTool), context(objectiveCCompilerTool), getObjectFileExtension(), useCommandFile, objectFileCache(objectiveCCompilerTool));
         return new OutputCleaningCompiler<ObjectiveCCompileSpec>(objectiveCCompiler, getObjectFileExtension());
     }
 
@@ -123,6 +136,20 @@ class GccPlatformToolProvider extends AbstractPlatformToolProvider {
         return new DefaultCommandLineToolInvocationWorker(key.getToolName(), toolSearchPath.locate(key, exeName).getTool(), execActionFactory);
     }
 
+    @Nullable
+    private NativeObjectFileCache objectFileCache(GccCommandLineToolConfigurationInternal tool) {
+        if (objectFileCache == null) {
+            return null;
+        }
+        File executable = toolSearchPath.locate(tool.getToolType(), tool.getExecutable()).getTool();
+        if (executable == null) {
+            return null;
+        }
+        // The compiler is identified by its location, size and timestamp as well as its version, as the version alone does not identify the system headers
+        String toolIdentity = String.format("%s %s %d %d", compilerIdentity, executable.getAbsolutePath(), executable.length(), executable.lastModified());
+        return new NativeObjectFileCache(objectFileCache, toolIdentity);
+    }
+
     private CommandLineToolContext context(GccCommandLineToolConfigurationInternal toolConfiguration) {
         MutableCommandLineToolContext baseInvocation = new DefaultMutableCommandLineToolContext();
         // MinGW requires the path to be set
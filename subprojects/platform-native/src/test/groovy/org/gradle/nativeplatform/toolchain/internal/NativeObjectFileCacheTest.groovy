@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.nativeplatform.toolchain.internal
+
+import org.gradle.api.internal.tasks.cache.TaskOutputCache
+import org.gradle.api.internal.tasks.cache.TaskOutputCacheKey
+import org.gradle.api.internal.tasks.cache.TaskOutputReader
+import org.gradle.api.internal.tasks.cache.TaskOutputWriter
+import org.gradle.internal.hash.HashValue
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class NativeObjectFileCacheTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def entries = [:]
+    def taskOutputCache = new TaskOutputCache() {
+        boolean load(TaskOutputCacheKey key, TaskOutputReader reader) {
+            if (!entries.containsKey(key)) {
+                return false
+            }
+            reader.readFrom(new ByteArrayInputStream(entries[key]))
+            return true
+        }
+
+        void store(TaskOutputCacheKey key, TaskOutputWriter writer) {
+            def output = new ByteArrayOutputStream()
+            writer.writeTo(output)
+            entries[key] = output.toByteArray()
+        }
+
+        String getDescription() {
+            return "test cache"
+        }
+    }
+    def cache = new NativeObjectFileCache(taskOutputCache, "gcc 4.8 x86_64")
+    def hash = new HashValue("1234")
+
+    def "key is independent of the location of include roots and source file"() {
+        def includes1 = tmpDir.file("workspace1/include")
+        def includes2 = tmpDir.file("workspace2/include")
+
+        expect:
+        def key1 = cache.createKey(["-c", "-I", includes1.absolutePath], [includes1], tmpDir.file("workspace1/src/main.c"), hash, ".o")
+        def key2 = cache.createKey(["-c", "-I", includes2.absolutePath], [includes2], tmpDir.file("workspace2/src/main.c"), hash, ".o")
+        key1 == key2
+    }
+
+    def "key includes the location of the source file when producing debug information"() {
+        expect:
+        cache.createKey(["-g"], [], tmpDir.file("workspace1/main.c"), hash, ".o") != cache.createKey(["-g"], [], tmpDir.file("workspace2/main.c"), hash, ".o")
+        cache.createKey(["-g0"], [], tmpDir.file("workspace1/main.c"), hash, ".o") == cache.createKey(["-g0"], [], tmpDir.file("workspace2/main.c"), hash, ".o")
+    }
+
+    def "key depends on compiler, arguments and translation unit"() {
+        def source = tmpDir.file("main.c")
+        def key = cache.createKey(["-O2"], [], source, hash, ".o")
+
+        expect:
+        key != cache.createKey(["-O3"], [], source, hash, ".o")
+        key != cache.createKey(["-O2"], [], source, new HashValue("5678"), ".o")
+        key != cache.createKey(["-O2"], [], source, hash, ".obj")
+        key != new NativeObjectFileCache(taskOutputCache, "clang 3.4 x86_64").createKey(["-O2"], [], source, hash, ".o")
+    }
+
+    def "source file without translation unit hash cannot be cached"() {
+        expect:
+        cache.createKey(["-O2"], [], tmpDir.file("main.c"), null, ".o") == null
+    }
+
+    @Unroll
+    def "source file cannot be cached when arguments #args add includes"() {
+        def includes = tmpDir.file("include")
+
+        expect:
+        cache.createKey(["-c", "-I", includes.absolutePath] + args, [includes], tmpDir.file("main.c"), hash, ".o") == null
+
+        where:
+        args << [
+            ["-I", "/usr/local/include"],
+            ["-I/usr/local/include"],
+            ["-isystem", "/usr/local/include"],
+            ["-isystem/usr/local/include"],
+            ["-iquote", "/usr/local/include"],
+            ["-idirafter", "/usr/local/include"],
+            ["--sysroot=/opt/sysroot"],
+            ["-include", "prefix.h"],
+            ["-imacros", "macros.h"],
+            ["-F", "/Library/Frameworks"]
+        ]
+    }
+
+    def "source file can be cached when arguments only add include roots"() {
+        def includes1 = tmpDir.file("include1")
+        def includes2 = tmpDir.file("include2")
+
+        expect:
+        cache.createKey(["-c", "-I", includes1.absolutePath, "-I" + includes2.absolutePath], [includes1, includes2], tmpDir.file("main.c"), hash, ".o") != null
+    }
+
+    def "restores stored object file"() {
+        def key = cache.createKey([], [], tmpDir.file("main.c"), hash, ".o")
+        def objectFile = tmpDir.createFile("objects1/main.o")
+        objectFile.text = "object"
+        def restoredFile = tmpDir.createDir("objects2").file("main.o")
+
+        expect:
+        !cache.load(key, restoredFile)
+
+        when:
+        cache.store(key, objectFile)
+
+        then:
+        cache.load(key, restoredFile)
+        restoredFile.text == "object"
+    }
+
+    def "does not restore object file when cache fails"() {
+        def failingCache = Stub(TaskOutputCache) {
+            load(_, _) >> { throw new IOException("broken") }
+        }
+        def objectFile = tmpDir.file("main.o")
+
+        expect:
+        !new NativeObjectFileCache(failingCache, "gcc").load(new TaskOutputCacheKey("abc"), objectFile)
+        !objectFile.exists()
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing;
+
+import org.gradle.api.Nullable;
+
+import java.util.Set;
+
+/**
+ * A subset of the test methods of a test class, which is executed separately from the other methods of the class so that a large test class can be
+ * spread over several forks.
+ */
+public class TestClassShardRunInfo implements TestClassRunInfo {
+    private final String testClassName;
+    private final Set<String> testMethodNames;
+    private final boolean excludesTestMethods;
+    private final transient Long previousDuration;
+
+    /**
+     * @param testMethodNames the names of the test methods that make up this shard, or that are excluded from this shard.
+     * @param excludesTestMethods whether the shard is made up of all test methods of the class except the given ones.
+     * @param previousDuration the duration in milliseconds of the test methods of this shard in the previous run. Only available in the build process.
+     */
+    public TestClassShardRunInfo(String testClassName, Set<String> testMethodNames, boolean excludesTestMethods, @Nullable Long previousDuration) {
+        this.testClassName = testClassName;
+        this.testMethodNames = testMethodNames;
+        this.excludesTestMethods = excludesTestMethods;
+        this.previousDuration = previousDuration;
+    }
+
+    public String getTestClassName() {
+        return testClassName;
+    }
+
+    public Set<String> getTestMethodNames() {
+        return testMethodNames;
+    }
+
+    public boolean isExcludesTestMethods() {
+        return excludesTestMethods;
+    }
+
+    @Nullable
+    public Long getPreviousDuration() {
+        return previousDuration;
+    }
+
+    public boolean includes(String testMethodName) {
+        return testMethodNames.contains(testMethodName) != excludesTestMethods;
+    }
+}
@@ -16,29 +16,49 @@
 
 package org.gradle.api.internal.tasks.testing.detection;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.file.EmptyFileVisitor;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The default test class scanner. Depending on the availability of a test framework detector,
  * a detection or filename scan is performed to find test classes.
+ *
+ * <p>When a build operation processor is available, the class files are passed to the test framework detector in batches on the build operation
+ * worker threads, as the candidate class files are visited, so that the first test classes are handed to the test class processor while the
+ * remaining class files are still being scanned.</p>
  */
 public class DefaultTestClassScanner implements Runnable {
+    // Number of class files scanned by a single build operation. Small enough to start executing tests early, large enough to amortize the cost of an operation.
+    private static final int DETECTION_BATCH_SIZE = 50;
     private final FileTree candidateClassFiles;
     private final TestFrameworkDetector testFrameworkDetector;
     private final TestClassProcessor testClassProcessor;
+    private final BuildOperationProcessor buildOperationProcessor;
 
     public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
                                    TestClassProcessor testClassProcessor) {
+        this(candidateClassFiles, testFrameworkDetector, testClassProcessor, null);
+    }
+
+    public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
+                                   TestClassProcessor testClassProcessor, @Nullable BuildOperationProcessor buildOperationProcessor) {
         this.candidateClassFiles = candidateClassFiles;
         this.testFrameworkDetector = testFrameworkDetector;
         this.testClassProcessor = testClassProcessor;
+        this.buildOperationProcessor = buildOperationProcessor;
     }
 
     public void run() {
@@ -51,11 +71,30 @@ public class DefaultTestClassScanner implements Runnable {
 
     private void detectionScan() {
         testFrameworkDetector.startDetection(testClassProcessor);
+        if (buildOperationProcessor == null) {
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                public void visitClassFile(FileVisitDetails fileDetails) {
+                    testFrameworkDetector.processTestClass(fileDetails.getFile());
+                }
+            });
+            return;
+        }
+
+        final BuildOperationQueue<DetectTestClassesOperation> queue = buildOperationProcessor.newQueue(new DetectTestClassesWorker(), null);
+        final List<File> batch = new ArrayList<File>(DETECTION_BATCH_SIZE);
         candidateClassFiles.visit(new ClassFileVisitor() {
             public void visitClassFile(FileVisitDetails fileDetails) {
-                testFrameworkDetector.processTestClass(fileDetails.getFile());
+                batch.add(fileDetails.getFile());
+                if (batch.size() == DETECTION_BATCH_SIZE) {
+                    queue.add(new DetectTestClassesOperation(new ArrayList<File>(batch)));
+                    batch.clear();
+                }
             }
         });
+        if (!batch.isEmpty()) {
+            queue.add(new DetectTestClassesOperation(batch));
+        }
+        queue.waitForCompletion();
     }
 
     private void filenameScan() {
@@ -68,6 +107,30 @@ public class DefaultTestClassScanner implements Runnable {
         });
     }
 
+    private static class DetectTestClassesOperation implements BuildOperation {
+        final List<File> classFiles;
+
+        DetectTestClassesOperation(List<File> classFiles) {
+            this.classFiles = classFiles;
+        }
+
+        public String getDescription() {
+            return String.format("detect test classes in %d class files starting with %s", classFiles.size(), classFiles.get(0));
+        }
+    }
+
+    private class DetectTestClassesWorker implements BuildOperationWorker<DetectTestClassesOperation> {
+        public String getDisplayName() {
+            return "test class detector";
+        }
+
+        public void execute(DetectTestClassesOperation operation) {
+            for (File classFile : operation.classFiles) {
+                testFrameworkDetector.processTestClass(classFile);
+            }
+        }
+    }
+
     private abstract class ClassFileVisitor extends EmptyFileVisitor {
         public void visitFile(FileVisitDetails fileDetails) {
             final File file = fileDetails.getFile();
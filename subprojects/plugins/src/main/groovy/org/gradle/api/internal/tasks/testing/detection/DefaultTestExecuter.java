@@ -16,32 +16,71 @@
 
 package org.gradle.api.internal.tasks.testing.detection;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.internal.tasks.testing.impact.SelectedTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.processors.ShardingTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
 import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
 import org.gradle.api.tasks.testing.Test;
 import org.gradle.internal.Factory;
 import org.gradle.internal.TrueTimeProvider;
+import org.gradle.internal.operations.BuildOperationProcessor;
 import org.gradle.internal.progress.OperationIdGenerator;
 import org.gradle.messaging.actor.ActorFactory;
 import org.gradle.process.internal.WorkerProcessBuilder;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * The default test class scanner factory.
  */
 public class DefaultTestExecuter implements TestExecuter {
     private final Factory<WorkerProcessBuilder> workerFactory;
     private final ActorFactory actorFactor;
+    private final BuildOperationProcessor buildOperationProcessor;
+    private final TestClassHeaderCache classHeaderCache;
+    private final Map<String, Long> previousTestClassDurations;
+    private final Set<String> selectedTestClasses;
+    private final Map<String, Map<String, Long>> previousTestMethodDurations;
+
+    public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactor, BuildOperationProcessor buildOperationProcessor,
+                               TestClassHeaderCache classHeaderCache, Map<String, Long> previousTestClassDurations) {
+        this(workerFactory, actorFactor, buildOperationProcessor, classHeaderCache, previousTestClassDurations, null);
+    }
 
-    public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactor) {
+    /**
+     * @param selectedTestClasses the names of the test classes to execute, or null to execute all detected test classes.
+     */
+    public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactor, BuildOperationProcessor buildOperationProcessor,
+                               TestClassHeaderCache classHeaderCache, Map<String, Long> previousTestClassDurations, @Nullable Set<String> selectedTestClasses) {
+        this(workerFactory, actorFactor, buildOperationProcessor, classHeaderCache, previousTestClassDurations, selectedTestClasses,
+            Collections.<String, Map<String, Long>>emptyMap());
+    }
+
+    /**
+     * @param selectedTestClasses the names of the test classes to execute, or null to execute all detected test classes.
+     * @param previousTestMethodDurations the durations of the test methods in the previous run, used to split large test classes over the forks. Test
+     * classes are not split when empty.
+     */
+    public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactor, BuildOperationProcessor buildOperationProcessor,
+                               TestClassHeaderCache classHeaderCache, Map<String, Long> previousTestClassDurations, @Nullable Set<String> selectedTestClasses,
+                               Map<String, Map<String, Long>> previousTestMethodDurations) {
         this.workerFactory = workerFactory;
         this.actorFactor = actorFactor;
+        this.buildOperationProcessor = buildOperationProcessor;
+        this.classHeaderCache = classHeaderCache;
+        this.previousTestClassDurations = previousTestClassDurations;
+        this.selectedTestClasses = selectedTestClasses;
+        this.previousTestMethodDurations = previousTestMethodDurations;
     }
 
     public void execute(final Test testTask, TestResultProcessor testResultProcessor) {
@@ -50,7 +89,7 @@ public class DefaultTestExecuter implements TestExecuter {
         final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
             public TestClassProcessor create() {
                 return new ForkingTestClassProcessor(workerFactory, testInstanceFactory, testTask,
-                    testTask.getClasspath(), testFramework.getWorkerConfigurationAction());
+                    testTask.getClasspath(), testFramework.getWorkerConfigurationAction(), testTask.isReuseForks());
             }
         };
         Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
@@ -60,18 +99,23 @@ public class DefaultTestExecuter implements TestExecuter {
         };
 
         TestClassProcessor processor = new MaxNParallelTestClassProcessor(testTask.getMaxParallelForks(),
-            reforkingProcessorFactory, actorFactor);
+            reforkingProcessorFactory, actorFactor, previousTestClassDurations);
+        if (testTask.getMaxParallelForks() > 1 && !previousTestMethodDurations.isEmpty()) {
+            processor = new ShardingTestClassProcessor(processor, testTask.getMaxParallelForks(), previousTestClassDurations, previousTestMethodDurations);
+        }
 
         final FileTree testClassFiles = testTask.getCandidateClassFiles();
+        TestClassProcessor detectedClassProcessor = selectedTestClasses == null ? processor : new SelectedTestClassProcessor(processor, selectedTestClasses);
 
         Runnable detector;
         if (testTask.isScanForTestClasses()) {
             TestFrameworkDetector testFrameworkDetector = testTask.getTestFramework().getDetector();
             testFrameworkDetector.setTestClassesDirectory(testTask.getTestClassesDir());
             testFrameworkDetector.setTestClasspath(testTask.getClasspath());
-            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor);
+            testFrameworkDetector.setClassHeaderCache(classHeaderCache);
+            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, detectedClassProcessor, buildOperationProcessor);
         } else {
-            detector = new DefaultTestClassScanner(testClassFiles, null, processor);
+            detector = new DefaultTestClassScanner(testClassFiles, null, detectedClassProcessor);
         }
 
         final Object testTaskOperationId = OperationIdGenerator.generateId(testTask);
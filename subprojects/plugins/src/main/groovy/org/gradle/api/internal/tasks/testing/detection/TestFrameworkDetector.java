@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.tasks.testing.detection;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 
@@ -28,4 +29,9 @@ public interface TestFrameworkDetector {
     void setTestClassesDirectory(File testClassesDir);
 
     void setTestClasspath(FileCollection classpath);
+
+    /**
+     * Sets the cache used to avoid reading class files that have already been scanned. May be null, in which case all class files are read.
+     */
+    void setClassHeaderCache(@Nullable TestClassHeaderCache classHeaderCache);
 }
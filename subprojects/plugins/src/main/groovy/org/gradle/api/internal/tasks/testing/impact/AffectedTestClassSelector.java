@@ -0,0 +1,188 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact;
+
+import org.gradle.api.Action;
+import org.gradle.api.Nullable;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
+import org.gradle.api.internal.tasks.testing.junit.result.TestFailure;
+import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult;
+import org.gradle.api.internal.tasks.testing.junit.result.TestOutputStore;
+import org.gradle.api.internal.tasks.testing.junit.result.TestResultSerializer;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.util.Clock;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Selects the test classes affected by the classes that changed on the test runtime classpath since the previous execution of a test task,
+ * and carries the results of the other test classes over from the previous execution.
+ *
+ * <p>All test classes are selected when there is no usable state of a previous execution, when the configuration of the task or a resource on the classpath
+ * changed, or when a changed class is a dependency to all classes, for example because it declares constants. Test classes that failed in the previous
+ * execution are always selected.</p>
+ */
+public class AffectedTestClassSelector {
+
+    private final static Logger LOG = Logging.getLogger(AffectedTestClassSelector.class);
+
+    private final TestClasspathSnapshotter snapshotter;
+    private final LocalTestClasspathSnapshotStore store;
+    private final File binaryResultsDir;
+    private final File previousResultsDir;
+    private TestClasspathSnapshot snapshot;
+    private Set<String> selectedTestClasses;
+
+    public AffectedTestClassSelector(TestClasspathSnapshotter snapshotter, LocalTestClasspathSnapshotStore store, File binaryResultsDir, File previousResultsDir) {
+        this.snapshotter = snapshotter;
+        this.store = store;
+        this.binaryResultsDir = binaryResultsDir;
+        this.previousResultsDir = previousResultsDir;
+    }
+
+    /**
+     * Snapshots the test runtime classpath and selects the test classes to execute. Must be called before the binary results of the previous execution are
+     * deleted. When only some test classes are selected, the binary results of the previous execution are moved aside, to be merged by
+     * {@link #mergeStaleResults(Map, TestOutputStore.Writer)}.
+     *
+     * @param configuration of the test task, other than its classpath. All test classes are selected when this changes.
+     * @param runAll whether to select all test classes regardless of the changes.
+     * @return the names of the selected test classes, or null when all test classes are selected.
+     */
+    @Nullable
+    public Set<String> selectTestClasses(String configuration, Iterable<File> classpath, boolean runAll) {
+        Clock clock = new Clock();
+        GFileUtils.deleteQuietly(previousResultsDir);
+        TestClasspathSnapshot previous = store.get();
+        snapshot = snapshotter.snapshot(configuration, classpath, previous);
+        LOG.info("Test classpath snapshot took {}.", clock.getTime());
+        if (runAll || previous == null) {
+            return null;
+        }
+
+        Set<String> affectedClasses = snapshot.getAffectedClassesSince(previous);
+        if (affectedClasses == null) {
+            LOG.info("All test classes are affected by the changes since the previous execution.");
+            return null;
+        }
+
+        TestResultSerializer previousResults = new TestResultSerializer(binaryResultsDir);
+        if (!previousResults.isHasResults()) {
+            return null;
+        }
+        final Set<String> selected = new HashSet<String>(affectedClasses);
+        try {
+            previousResults.read(new Action<TestClassResult>() {
+                public void execute(TestClassResult result) {
+                    if (result.getFailuresCount() > 0) {
+                        selected.add(result.getClassName());
+                    }
+                }
+            });
+            GFileUtils.moveDirectory(binaryResultsDir, previousResultsDir);
+        } catch (Exception e) {
+            LOG.info("Could not keep the test results of the previous execution, selecting all test classes.", e);
+            return null;
+        }
+        selectedTestClasses = selected;
+        return selected;
+    }
+
+    /**
+     * Adds the results of the previous execution for the test classes that were not selected and still exist on the classpath.
+     */
+    public void mergeStaleResults(final Map<String, TestClassResult> results, final TestOutputStore.Writer outputWriter) {
+        if (selectedTestClasses == null) {
+            return;
+        }
+        final long[] nextId = {nextId(results)};
+        final TestOutputStore.Reader outputReader = new TestOutputStore(previousResultsDir).reader();
+        try {
+            new TestResultSerializer(previousResultsDir).read(new Action<TestClassResult>() {
+                public void execute(TestClassResult staleResult) {
+                    String className = staleResult.getClassName();
+                    if (results.containsKey(className) || selectedTestClasses.contains(className) || !snapshot.containsClass(className)) {
+                        return;
+                    }
+                    TestClassResult classResult = new TestClassResult(nextId[0]++, className, staleResult.getStartTime());
+                    copyOutput(outputReader, staleResult.getId(), 0, outputWriter, classResult.getId(), 0);
+                    for (TestMethodResult staleMethodResult : staleResult.getResults()) {
+                        TestMethodResult methodResult = new TestMethodResult(nextId[0]++, staleMethodResult.getName(), staleMethodResult.getResultType(),
+                                staleMethodResult.getDuration(), staleMethodResult.getEndTime());
+                        for (TestFailure failure : staleMethodResult.getFailures()) {
+                            methodResult.addFailure(failure.getMessage(), failure.getStackTrace(), failure.getExceptionType());
+                        }
+                        classResult.add(methodResult);
+                        copyOutput(outputReader, staleResult.getId(), staleMethodResult.getId(), outputWriter, classResult.getId(), methodResult.getId());
+                    }
+                    results.put(className, classResult);
+                }
+            });
+        } finally {
+            try {
+                outputReader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Stores the snapshot of the classpath for the next execution. Must be called once the results of this execution have been written.
+     */
+    public void storeSnapshot() {
+        if (snapshot != null) {
+            store.put(snapshot);
+        }
+        GFileUtils.deleteQuietly(previousResultsDir);
+    }
+
+    private static long nextId(Map<String, TestClassResult> results) {
+        long maxId = 0;
+        for (TestClassResult classResult : results.values()) {
+            maxId = Math.max(maxId, classResult.getId());
+            for (TestMethodResult methodResult : classResult.getResults()) {
+                maxId = Math.max(maxId, methodResult.getId());
+            }
+        }
+        return maxId + 1;
+    }
+
+    private static void copyOutput(TestOutputStore.Reader reader, long staleClassId, long staleTestId, TestOutputStore.Writer writer, long classId, long testId) {
+        for (TestOutputEvent.Destination destination : TestOutputEvent.Destination.values()) {
+            StringWriter output = new StringWriter();
+            if (staleTestId == 0) {
+                reader.writeNonTestOutput(staleClassId, destination, output);
+            } else {
+                reader.writeTestOutput(staleClassId, staleTestId, destination, output);
+            }
+            if (output.getBuffer().length() > 0) {
+                writer.onOutput(classId, testId, new DefaultTestOutputEvent(destination, output.toString()));
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysis;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.MapSerializer;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.gradle.internal.serialize.BaseSerializerFactory.BYTE_ARRAY_SERIALIZER;
+import static org.gradle.internal.serialize.BaseSerializerFactory.STRING_SERIALIZER;
+
+/**
+ * The state of a test runtime classpath: the hashes of its classes and resources, and the dependencies between its classes.
+ */
+public class TestClasspathSnapshot {
+
+    final String configuration;
+    final Map<String, FileState> files;
+    final Map<String, byte[]> classHashes;
+    final Map<String, byte[]> resourceHashes;
+    final ClassSetAnalysisData analysis;
+
+    /**
+     * @param configuration of the test task, other than its classpath
+     * @param files state of the class files, resource files and jars on the classpath, by absolute path
+     * @param classHashes hashes of all classes on the classpath, by class name
+     * @param resourceHashes hashes of the resource files on the classpath and of the resources in each jar, by absolute path
+     * @param analysis of the dependencies between the classes on the classpath
+     */
+    public TestClasspathSnapshot(String configuration, Map<String, FileState> files, Map<String, byte[]> classHashes, Map<String, byte[]> resourceHashes,
+                                 ClassSetAnalysisData analysis) {
+        this.configuration = configuration;
+        this.files = files;
+        this.classHashes = classHashes;
+        this.resourceHashes = resourceHashes;
+        this.analysis = analysis;
+    }
+
+    public boolean containsClass(String className) {
+        return classHashes.containsKey(className);
+    }
+
+    /**
+     * Returns the classes that were added, changed or removed since the given snapshot, together with the classes that depend on them.
+     *
+     * @return the affected classes, or null when every class has to be considered affected.
+     */
+    @Nullable
+    public Set<String> getAffectedClassesSince(TestClasspathSnapshot previous) {
+        if (!configuration.equals(previous.configuration) || !sameHashes(resourceHashes, previous.resourceHashes)) {
+            return null;
+        }
+
+        Set<String> changed = new HashSet<String>();
+        for (Map.Entry<String, byte[]> previousClass : previous.classHashes.entrySet()) {
+            byte[] hash = classHashes.get(previousClass.getKey());
+            if (hash == null || !Arrays.equals(hash, previousClass.getValue())) {
+                changed.add(previousClass.getKey());
+            }
+        }
+        for (String className : classHashes.keySet()) {
+            if (!previous.classHashes.containsKey(className)) {
+                changed.add(className);
+            }
+        }
+
+        Set<String> affected = new HashSet<String>(changed);
+        ClassSetAnalysis previousAnalysis = new ClassSetAnalysis(previous.analysis);
+        ClassSetAnalysis currentAnalysis = new ClassSetAnalysis(analysis);
+        for (String className : changed) {
+            if (!addDependents(previousAnalysis, className, affected) || !addDependents(currentAnalysis, className, affected)) {
+                return null;
+            }
+        }
+        return affected;
+    }
+
+    private static boolean addDependents(ClassSetAnalysis analysis, String className, Set<String> affected) {
+        DependentsSet dependents = analysis.getRelevantDependents(className);
+        if (dependents.isDependencyToAll()) {
+            return false;
+        }
+        affected.addAll(dependents.getDependentClasses());
+        return true;
+    }
+
+    private static boolean sameHashes(Map<String, byte[]> hashes, Map<String, byte[]> otherHashes) {
+        if (hashes.size() != otherHashes.size()) {
+            return false;
+        }
+        for (Map.Entry<String, byte[]> entry : hashes.entrySet()) {
+            if (!Arrays.equals(entry.getValue(), otherHashes.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The length, modification time and hash of a file, used to avoid hashing files that did not change since the previous snapshot.
+     */
+    public static class FileState {
+        final long length;
+        final long lastModified;
+        final byte[] hash;
+
+        public FileState(long length, long lastModified, byte[] hash) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
+    public static class Serializer implements org.gradle.internal.serialize.Serializer<TestClasspathSnapshot> {
+
+        private final MapSerializer<String, FileState> filesSerializer = new MapSerializer<String, FileState>(STRING_SERIALIZER, new FileStateSerializer());
+        private final MapSerializer<String, byte[]> hashesSerializer = new MapSerializer<String, byte[]>(STRING_SERIALIZER, BYTE_ARRAY_SERIALIZER);
+        private final ClassSetAnalysisData.Serializer analysisSerializer = new ClassSetAnalysisData.Serializer();
+
+        public TestClasspathSnapshot read(Decoder decoder) throws Exception {
+            String configuration = decoder.readString();
+            Map<String, FileState> files = filesSerializer.read(decoder);
+            Map<String, byte[]> classHashes = hashesSerializer.read(decoder);
+            Map<String, byte[]> resourceHashes = hashesSerializer.read(decoder);
+            ClassSetAnalysisData analysis = analysisSerializer.read(decoder);
+            return new TestClasspathSnapshot(configuration, files, classHashes, resourceHashes, analysis);
+        }
+
+        public void write(Encoder encoder, TestClasspathSnapshot value) throws Exception {
+            encoder.writeString(value.configuration);
+            filesSerializer.write(encoder, value.files);
+            hashesSerializer.write(encoder, value.classHashes);
+            hashesSerializer.write(encoder, value.resourceHashes);
+            analysisSerializer.write(encoder, value.analysis);
+        }
+
+        private static class FileStateSerializer implements org.gradle.internal.serialize.Serializer<FileState> {
+            public FileState read(Decoder decoder) throws Exception {
+                long length = decoder.readSmallLong();
+                long lastModified = decoder.readLong();
+                byte[] hash = decoder.readBinary();
+                return new FileState(length, lastModified, hash);
+            }
+
+            public void write(Encoder encoder, FileState value) throws Exception {
+                encoder.writeSmallLong(value.length);
+                encoder.writeLong(value.lastModified);
+                encoder.writeBinary(value.hash);
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact;
+
+import com.google.common.base.Charsets;
+import org.gradle.api.Nullable;
+import org.gradle.api.file.EmptyFileVisitor;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.internal.changedetection.state.FileSnapshot;
+import org.gradle.api.internal.changedetection.state.FilesSnapshotSet;
+import org.gradle.api.internal.file.FileOperations;
+import org.gradle.api.internal.hash.DefaultHasher;
+import org.gradle.api.internal.hash.HashAlgorithm;
+import org.gradle.api.internal.hash.Hasher;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.CachingClassDependenciesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassAnalysis;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.DefaultClassDependenciesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.cache.GeneralCompileCaches;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassDependentsAccumulator;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
+import org.gradle.api.internal.tasks.compile.incremental.jar.CachingJarSnapshotter;
+import org.gradle.api.internal.tasks.compile.incremental.jar.JarArchive;
+import org.gradle.api.internal.tasks.compile.incremental.jar.JarSnapshot;
+import org.gradle.api.internal.tasks.compile.incremental.jar.JarSnapshotter;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Takes snapshots of test runtime classpaths. The class dependency analysis reuses the caches of incremental Java compilation, and files are hashed only
+ * when their length or modification time changed since the previous snapshot.
+ */
+public class TestClasspathSnapshotter {
+
+    private final FileOperations fileOperations;
+    private final GeneralCompileCaches compileCaches;
+    private final Hasher hasher = new DefaultHasher();
+
+    public TestClasspathSnapshotter(FileOperations fileOperations, GeneralCompileCaches compileCaches) {
+        this.fileOperations = fileOperations;
+        this.compileCaches = compileCaches;
+    }
+
+    public TestClasspathSnapshot snapshot(String configuration, Iterable<File> classpath, @Nullable TestClasspathSnapshot previous) {
+        return new SnapshotBuilder(configuration, previous).build(classpath);
+    }
+
+    private class SnapshotBuilder implements Hasher, FilesSnapshotSet {
+        private final String configuration;
+        private final TestClasspathSnapshot previous;
+        private final Map<String, TestClasspathSnapshot.FileState> files = new HashMap<String, TestClasspathSnapshot.FileState>();
+        private final Map<String, byte[]> classHashes = new HashMap<String, byte[]>();
+        private final Map<String, byte[]> resourceHashes = new HashMap<String, byte[]>();
+        private final ClassDependentsAccumulator accumulator = new ClassDependentsAccumulator("");
+        private final ClassDependenciesAnalyzer analyzer;
+        private final JarSnapshotter jarSnapshotter;
+
+        SnapshotBuilder(String configuration, @Nullable TestClasspathSnapshot previous) {
+            this.configuration = configuration;
+            this.previous = previous;
+            this.analyzer = new CachingClassDependenciesAnalyzer(new DefaultClassDependenciesAnalyzer(), this, compileCaches.getClassAnalysisCache());
+            // The classes of a jar are extracted to temporary files, so their hashes are not kept
+            ClassDependenciesAnalyzer jarClassesAnalyzer = new CachingClassDependenciesAnalyzer(new DefaultClassDependenciesAnalyzer(), hasher, compileCaches.getClassAnalysisCache());
+            this.jarSnapshotter = new CachingJarSnapshotter(hasher, jarClassesAnalyzer, compileCaches.getJarSnapshotCache(), this);
+        }
+
+        TestClasspathSnapshot build(Iterable<File> classpath) {
+            for (File file : classpath) {
+                if (file.isDirectory()) {
+                    visitDirectory(file);
+                } else if (file.isFile()) {
+                    visitJar(file);
+                }
+            }
+            return new TestClasspathSnapshot(configuration, files, classHashes, resourceHashes, new ClassSetAnalysisData(accumulator.getDependentsMap()));
+        }
+
+        private void visitDirectory(File dir) {
+            fileOperations.fileTree(dir).visit(new EmptyFileVisitor() {
+                @Override
+                public void visitFile(FileVisitDetails fileDetails) {
+                    File file = fileDetails.getFile();
+                    if (!fileDetails.getName().endsWith(".class")) {
+                        resourceHashes.put(file.getAbsolutePath(), hash(file));
+                        return;
+                    }
+                    String className = fileDetails.getPath().replaceAll("/", ".").replaceAll("\\.class$", "");
+                    if (classHashes.containsKey(className)) {
+                        // Shadowed by an earlier classpath entry
+                        return;
+                    }
+                    classHashes.put(className, hash(file));
+                    ClassAnalysis analysis = analyzer.getClassAnalysis(className, file);
+                    accumulator.addClass(className, analysis.isDependencyToAll(), analysis.getClassDependencies());
+                }
+            });
+        }
+
+        private void visitJar(File jar) {
+            boolean unchanged = isUnchanged(jar);
+            JarSnapshot jarSnapshot = jarSnapshotter.createSnapshot(new JarArchive(jar, fileOperations.zipTree(jar)));
+            for (Map.Entry<String, byte[]> entry : jarSnapshot.getHashes().entrySet()) {
+                if (!classHashes.containsKey(entry.getKey())) {
+                    classHashes.put(entry.getKey(), entry.getValue());
+                }
+            }
+            accumulator.addAnalysis(jarSnapshot.getAnalysis().getData());
+
+            String path = jar.getAbsolutePath();
+            byte[] previousResourcesHash = previous == null ? null : previous.resourceHashes.get(path);
+            resourceHashes.put(path, unchanged && previousResourcesHash != null ? previousResourcesHash : hashResources(jar));
+        }
+
+        private byte[] hashResources(File jar) {
+            final com.google.common.hash.Hasher resourcesHasher = hasher.getAlgorithm().getHashFunction().newHasher();
+            fileOperations.zipTree(jar).visit(new EmptyFileVisitor() {
+                @Override
+                public void visitFile(FileVisitDetails fileDetails) {
+                    if (!fileDetails.getName().endsWith(".class")) {
+                        resourcesHasher.putString(fileDetails.getPath(), Charsets.UTF_8);
+                        resourcesHasher.putBytes(hasher.hash(fileDetails.getFile()));
+                    }
+                }
+            });
+            return resourcesHasher.hash().asBytes();
+        }
+
+        private boolean isUnchanged(File file) {
+            TestClasspathSnapshot.FileState state = previous == null ? null : previous.files.get(file.getAbsolutePath());
+            return state != null && state.length == file.length() && state.lastModified == file.lastModified();
+        }
+
+        public byte[] hash(File file) {
+            String path = file.getAbsolutePath();
+            TestClasspathSnapshot.FileState state = files.get(path);
+            if (state == null) {
+                state = isUnchanged(file) ? previous.files.get(path) : new TestClasspathSnapshot.FileState(file.length(), file.lastModified(), hasher.hash(file));
+                files.put(path, state);
+            }
+            return state.hash;
+        }
+
+        public HashAlgorithm getAlgorithm() {
+            return hasher.getAlgorithm();
+        }
+
+        public FileSnapshot findSnapshot(File file) {
+            final byte[] hash = hash(file);
+            return new FileSnapshot() {
+                public byte[] getHash() {
+                    return hash;
+                }
+            };
+        }
+    }
+}
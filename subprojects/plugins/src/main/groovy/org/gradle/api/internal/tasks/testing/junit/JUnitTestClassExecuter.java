@@ -18,6 +18,8 @@ package org.gradle.api.internal.tasks.testing.junit;
 
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.Transformer;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestClassShardRunInfo;
 import org.gradle.api.internal.tasks.testing.filter.TestSelectionMatcher;
 import org.gradle.internal.concurrent.ThreadSafe;
 import org.gradle.util.CollectionUtils;
@@ -48,12 +50,12 @@ public class JUnitTestClassExecuter {
         this.executionListener = executionListener;
     }
 
-    public void execute(String testClassName) {
-        executionListener.testClassStarted(testClassName);
+    public void execute(TestClassRunInfo testClass) {
+        executionListener.testClassStarted(testClass.getTestClassName());
 
         Throwable failure = null;
         try {
-            runTestClass(testClassName);
+            runTestClass(testClass);
         } catch (Throwable throwable) {
             failure = throwable;
         }
@@ -61,8 +63,8 @@ public class JUnitTestClassExecuter {
         executionListener.testClassFinished(failure);
     }
 
-    private void runTestClass(String testClassName) throws ClassNotFoundException {
-        final Class<?> testClass = Class.forName(testClassName, false, applicationClassLoader);
+    private void runTestClass(TestClassRunInfo testClassInfo) throws ClassNotFoundException {
+        final Class<?> testClass = Class.forName(testClassInfo.getTestClassName(), false, applicationClassLoader);
         List<Filter> filters = new ArrayList<Filter>();
         if (options.hasCategoryConfiguration()) {
             Transformer<Class<?>, String> transformer = new Transformer<Class<?>, String>() {
@@ -84,6 +86,10 @@ public class JUnitTestClassExecuter {
             filters.add(new MethodNameFilter(options.getIncludedTests()));
         }
 
+        if (testClassInfo instanceof TestClassShardRunInfo) {
+            filters.add(new ShardFilter((TestClassShardRunInfo) testClassInfo));
+        }
+
         Request request = Request.aClass(testClass);
         Runner runner = request.getRunner();
         if (runner instanceof Filterable) {
@@ -142,4 +148,32 @@ public class JUnitTestClassExecuter {
             return "Includes matching test methods";
         }
     }
+
+    private static class ShardFilter extends org.junit.runner.manipulation.Filter {
+
+        private final TestClassShardRunInfo shard;
+
+        public ShardFilter(TestClassShardRunInfo shard) {
+            this.shard = shard;
+        }
+
+        @Override
+        public boolean shouldRun(Description description) {
+            String methodName = JUnitTestEventAdapter.methodName(description);
+            if (methodName != null) {
+                return shard.includes(methodName);
+            }
+            for (Description child : description.getChildren()) {
+                if (shouldRun(child)) {
+                    return true;
+                }
+            }
+            // Anything else, such as a class that cannot be initialized, belongs to the first shard only
+            return description.getChildren().isEmpty() && shard.isExcludesTestMethods();
+        }
+
+        public String describe() {
+            return "Includes the test methods of a shard";
+        }
+    }
 }
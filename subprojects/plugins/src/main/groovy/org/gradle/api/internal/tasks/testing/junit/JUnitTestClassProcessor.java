@@ -61,7 +61,7 @@ public class JUnitTestClassProcessor implements TestClassProcessor {
 
     public void processTestClass(TestClassRunInfo testClass) {
         LOGGER.debug("Executing test class {}", testClass.getTestClassName());
-        executer.execute(testClass.getTestClassName());
+        executer.execute(testClass);
     }
 
     public void stop() {
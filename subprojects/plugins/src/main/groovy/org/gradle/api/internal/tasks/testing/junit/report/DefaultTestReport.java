@@ -17,12 +17,17 @@ package org.gradle.api.internal.tasks.testing.junit.report;
 
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestFailure;
 import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
 import org.gradle.reporting.HtmlReportBuilder;
 import org.gradle.reporting.HtmlReportRenderer;
 import org.gradle.reporting.ReportRenderer;
@@ -34,8 +39,21 @@ import java.util.List;
 
 import static org.gradle.api.tasks.testing.TestResult.ResultType.SKIPPED;
 
+/**
+ * Generates the HTML test report. When a build operation processor is available, the pages of the test classes are rendered on the build operation
+ * worker threads.
+ */
 public class DefaultTestReport implements TestReporter {
     private final static Logger LOG = Logging.getLogger(DefaultTestReport.class);
+    private final BuildOperationProcessor buildOperationProcessor;
+
+    public DefaultTestReport() {
+        this(null);
+    }
+
+    public DefaultTestReport(@Nullable BuildOperationProcessor buildOperationProcessor) {
+        this.buildOperationProcessor = buildOperationProcessor;
+    }
 
     public void generateReport(TestResultsProvider resultsProvider, File reportDir) {
         LOG.info("Generating HTML test report...");
@@ -76,18 +94,59 @@ public class DefaultTestReport implements TestReporter {
                 public void render(AllTestResults model, HtmlReportBuilder output) throws IOException {
                     PackagePageRenderer packagePageRenderer = new PackagePageRenderer();
                     ClassPageRenderer classPageRenderer = new ClassPageRenderer(resultsProvider);
+                    BuildOperationQueue<RenderClassPageOperation> queue = buildOperationProcessor == null
+                            ? null
+                            : buildOperationProcessor.newQueue(new RenderClassPageWorker(resultsProvider, output), null);
 
                     output.renderHtmlPage("index.html", model, new OverviewPageRenderer());
                     for (PackageTestResults packageResults : model.getPackages()) {
                         output.renderHtmlPage(packageResults.getBaseUrl(), packageResults, packagePageRenderer);
                         for (ClassTestResults classResults : packageResults.getClasses()) {
-                            output.renderHtmlPage(classResults.getBaseUrl(), classResults, classPageRenderer);
+                            if (queue == null) {
+                                output.renderHtmlPage(classResults.getBaseUrl(), classResults, classPageRenderer);
+                            } else {
+                                queue.add(new RenderClassPageOperation(classResults));
+                            }
                         }
                     }
+                    if (queue != null) {
+                        queue.waitForCompletion();
+                    }
                 }
             }, reportDir);
         } catch (Exception e) {
             throw new GradleException(String.format("Could not generate test report to '%s'.", reportDir), e);
         }
     }
+
+    private static class RenderClassPageOperation implements BuildOperation {
+        final ClassTestResults classResults;
+
+        RenderClassPageOperation(ClassTestResults classResults) {
+            this.classResults = classResults;
+        }
+
+        public String getDescription() {
+            return String.format("render test report page for %s", classResults.getName());
+        }
+    }
+
+    private static class RenderClassPageWorker implements BuildOperationWorker<RenderClassPageOperation> {
+        private final TestResultsProvider resultsProvider;
+        private final HtmlReportBuilder output;
+
+        RenderClassPageWorker(TestResultsProvider resultsProvider, HtmlReportBuilder output) {
+            this.resultsProvider = resultsProvider;
+            this.output = output;
+        }
+
+        public String getDisplayName() {
+            return "test report page renderer";
+        }
+
+        public void execute(RenderClassPageOperation operation) {
+            // Page renderers hold the model of the page being rendered, so each page gets its own renderer
+            output.renderHtmlPage(operation.classResults.getBaseUrl(), operation.classResults, new ClassPageRenderer(resultsProvider));
+        }
+    }
 }
@@ -19,10 +19,15 @@ package org.gradle.api.internal.tasks.testing.junit.result;
 import org.apache.commons.io.IOUtils;
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
+import org.gradle.api.Nullable;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.util.Clock;
 import org.gradle.internal.FileUtils;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
 
 import java.io.BufferedOutputStream;
 import java.io.File;
@@ -31,39 +36,64 @@ import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 
+/**
+ * Writes a JUnit XML file for each test class. When a build operation processor is available, the files are written on the build operation worker
+ * threads as the test classes are visited.
+ */
 public class Binary2JUnitXmlReportGenerator {
 
     private final File testResultsDir;
     private final TestResultsProvider testResultsProvider;
+    private final BuildOperationProcessor buildOperationProcessor;
     JUnitXmlResultWriter saxWriter;
     private final static Logger LOG = Logging.getLogger(Binary2JUnitXmlReportGenerator.class);
 
     public Binary2JUnitXmlReportGenerator(File testResultsDir, TestResultsProvider testResultsProvider, TestOutputAssociation outputAssociation) {
+        this(testResultsDir, testResultsProvider, outputAssociation, null);
+    }
+
+    public Binary2JUnitXmlReportGenerator(File testResultsDir, TestResultsProvider testResultsProvider, TestOutputAssociation outputAssociation,
+                                          @Nullable BuildOperationProcessor buildOperationProcessor) {
         this.testResultsDir = testResultsDir;
         this.testResultsProvider = testResultsProvider;
+        this.buildOperationProcessor = buildOperationProcessor;
         this.saxWriter = new JUnitXmlResultWriter(getHostname(), testResultsProvider, outputAssociation);
     }
 
     public void generate() {
         Clock clock = new Clock();
-        testResultsProvider.visitClasses(new Action<TestClassResult>() {
-            public void execute(TestClassResult result) {
-                File file = new File(testResultsDir, getReportFileName(result));
-                OutputStream output = null;
-                try {
-                    output = new BufferedOutputStream(new FileOutputStream(file));
-                    saxWriter.write(result, output);
-                    output.close();
-                } catch (Exception e) {
-                    throw new GradleException(String.format("Could not write XML test results for %s to file %s.", result.getClassName(), file), e);
-                } finally {
-                    IOUtils.closeQuietly(output);
+        if (buildOperationProcessor == null) {
+            testResultsProvider.visitClasses(new Action<TestClassResult>() {
+                public void execute(TestClassResult result) {
+                    writeReport(result);
                 }
-            }
-        });
+            });
+        } else {
+            final BuildOperationQueue<WriteXmlReportOperation> queue = buildOperationProcessor.newQueue(new WriteXmlReportWorker(), null);
+            testResultsProvider.visitClasses(new Action<TestClassResult>() {
+                public void execute(TestClassResult result) {
+                    queue.add(new WriteXmlReportOperation(result));
+                }
+            });
+            queue.waitForCompletion();
+        }
         LOG.info("Finished generating test XML results ({}) into: {}", clock.getTime(), testResultsDir);
     }
 
+    private void writeReport(TestClassResult result) {
+        File file = new File(testResultsDir, getReportFileName(result));
+        OutputStream output = null;
+        try {
+            output = new BufferedOutputStream(new FileOutputStream(file));
+            saxWriter.write(result, output);
+            output.close();
+        } catch (Exception e) {
+            throw new GradleException(String.format("Could not write XML test results for %s to file %s.", result.getClassName(), file), e);
+        } finally {
+            IOUtils.closeQuietly(output);
+        }
+    }
+
     private String getReportFileName(TestClassResult result) {
         return "TEST-" + FileUtils.toSafeFileName(result.getClassName()) + ".xml";
     }
@@ -75,4 +105,26 @@ public class Binary2JUnitXmlReportGenerator {
             return "localhost";
         }
     }
-}
\ No newline at end of file
+
+    private static class WriteXmlReportOperation implements BuildOperation {
+        final TestClassResult result;
+
+        WriteXmlReportOperation(TestClassResult result) {
+            this.result = result;
+        }
+
+        public String getDescription() {
+            return String.format("write XML test results for %s", result.getClassName());
+        }
+    }
+
+    private class WriteXmlReportWorker implements BuildOperationWorker<WriteXmlReportOperation> {
+        public String getDisplayName() {
+            return "JUnit XML report writer";
+        }
+
+        public void execute(WriteXmlReportOperation operation) {
+            writeReport(operation.result);
+        }
+    }
+}
@@ -21,12 +21,17 @@ import com.esotericsoftware.kryo.io.Output;
 import com.google.common.collect.ImmutableMap;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.io.ByteBufferInputStream;
 import org.gradle.internal.io.RandomAccessFileInputStream;
+import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -216,9 +221,15 @@ public class TestOutputStore {
         }
     }
 
+    /**
+     * Reads the output of tests. The outputs file is mapped read-only into memory, so the output of different classes can be read concurrently
+     * without seeking a shared file handle. Outputs files too large to be mapped are read through the file, one read at a time. The file is also read
+     * this way on Windows, where a mapped file cannot be deleted until the mapping is garbage collected.
+     */
     public class Reader implements Closeable {
         private final Index index;
         private final RandomAccessFile dataFile;
+        private final MappedByteBuffer mappedData;
 
         public Reader() {
             File indexFile = getIndexFile();
@@ -263,7 +274,9 @@ public class TestOutputStore {
 
                 try {
                     dataFile = new RandomAccessFile(getOutputsFile(), "r");
-                } catch (FileNotFoundException e) {
+                    long length = dataFile.length();
+                    mappedData = length <= Integer.MAX_VALUE && !OperatingSystem.current().isWindows() ? dataFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length) : null;
+                } catch (IOException e) {
                     throw new UncheckedIOException(e);
                 }
             } else { // no outputs file
@@ -273,6 +286,7 @@ public class TestOutputStore {
 
                 index = null;
                 dataFile = null;
+                mappedData = null;
             }
         }
 
@@ -333,50 +347,63 @@ public class TestOutputStore {
             boolean ignoreTestLevel = !allClassOutput && testId == 0;
 
             try {
-                dataFile.seek(region.start);
-                long maxPos = region.stop - region.start;
-                KryoBackedDecoder decoder = new KryoBackedDecoder(new RandomAccessFileInputStream(dataFile));
-                while (decoder.getReadPosition() <= maxPos) {
-                    boolean readStdout = decoder.readBoolean();
-                    long readClassId = decoder.readSmallLong();
-                    long readTestId = decoder.readSmallLong();
-                    int readLength = decoder.readSmallInt();
-
-                    boolean isClassLevel = readTestId == 0;
-
-                    if (stdout != readStdout || classId != readClassId) {
-                        decoder.skipBytes(readLength);
-                        continue;
+                if (mappedData != null) {
+                    ByteBuffer data = mappedData.duplicate();
+                    data.position((int) region.start);
+                    readRegion(new ByteBufferInputStream(data), region, classId, testId, stdout, ignoreClassLevel, ignoreTestLevel, writer);
+                } else {
+                    synchronized (dataFile) {
+                        dataFile.seek(region.start);
+                        readRegion(new RandomAccessFileInputStream(dataFile), region, classId, testId, stdout, ignoreClassLevel, ignoreTestLevel, writer);
                     }
+                }
+            } catch (IOException e1) {
+                throw new UncheckedIOException(e1);
+            }
+        }
 
-                    if (ignoreClassLevel && isClassLevel) {
-                        decoder.skipBytes(readLength);
-                        continue;
-                    }
+        private void readRegion(InputStream data, Region region, long classId, long testId, boolean stdout, boolean ignoreClassLevel, boolean ignoreTestLevel,
+                                java.io.Writer writer) throws IOException {
+            long maxPos = region.stop - region.start;
+            KryoBackedDecoder decoder = new KryoBackedDecoder(data);
+            while (decoder.getReadPosition() <= maxPos) {
+                boolean readStdout = decoder.readBoolean();
+                long readClassId = decoder.readSmallLong();
+                long readTestId = decoder.readSmallLong();
+                int readLength = decoder.readSmallInt();
+
+                boolean isClassLevel = readTestId == 0;
+
+                if (stdout != readStdout || classId != readClassId) {
+                    decoder.skipBytes(readLength);
+                    continue;
+                }
 
-                    if (ignoreTestLevel && !isClassLevel) {
-                        decoder.skipBytes(readLength);
-                        continue;
-                    }
+                if (ignoreClassLevel && isClassLevel) {
+                    decoder.skipBytes(readLength);
+                    continue;
+                }
 
-                    if (testId == 0 || testId == readTestId) {
-                        byte[] stringBytes = new byte[readLength];
-                        decoder.readBytes(stringBytes);
-                        String message;
-                        try {
-                            message = new String(stringBytes, messageStorageCharset.name());
-                        } catch (UnsupportedEncodingException e) {
-                            // shouldn't happen
-                            throw UncheckedException.throwAsUncheckedException(e);
-                        }
+                if (ignoreTestLevel && !isClassLevel) {
+                    decoder.skipBytes(readLength);
+                    continue;
+                }
 
-                        writer.write(message);
-                    } else {
-                        decoder.skipBytes(readLength);
+                if (testId == 0 || testId == readTestId) {
+                    byte[] stringBytes = new byte[readLength];
+                    decoder.readBytes(stringBytes);
+                    String message;
+                    try {
+                        message = new String(stringBytes, messageStorageCharset.name());
+                    } catch (UnsupportedEncodingException e) {
+                        // shouldn't happen
+                        throw UncheckedException.throwAsUncheckedException(e);
                     }
+
+                    writer.write(message);
+                } else {
+                    decoder.skipBytes(readLength);
                 }
-            } catch (IOException e1) {
-                throw new UncheckedIOException(e1);
             }
         }
     }
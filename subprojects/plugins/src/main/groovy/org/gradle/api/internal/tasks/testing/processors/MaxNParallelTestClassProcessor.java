@@ -19,6 +19,7 @@ package org.gradle.api.internal.tasks.testing.processors;
 import org.gradle.internal.Factory;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestClassShardRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.UncheckedException;
@@ -26,27 +27,45 @@ import org.gradle.messaging.actor.Actor;
 import org.gradle.messaging.actor.ActorFactory;
 import org.gradle.messaging.dispatch.DispatchException;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Manages a set of parallel TestClassProcessors. Uses a simple round-robin algorithm to assign test classes to
- * processors.
+ * Manages a set of parallel TestClassProcessors. Test classes are queued, and each processor is handed the next queued test class when it has
+ * finished with its previous one, so that a processor that is busy with slow test classes does not hold up the rest of the run.
+ *
+ * <p>Queued test classes are handed out longest first, using the durations from the previous run, so that the slowest test classes are not
+ * started last. Test classes without a previous duration are handed out before all others.</p>
  */
 public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     private final int maxProcessors;
     private final Factory<TestClassProcessor> factory;
     private final ActorFactory actorFactory;
+    private final Map<String, Long> previousDurations;
+    private final Lock lock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+    private final PriorityQueue<QueuedTestClass> queue = new PriorityQueue<QueuedTestClass>();
+    private final List<TestClassProcessor> idleProcessors = new ArrayList<TestClassProcessor>();
+    private long sequence;
     private TestResultProcessor resultProcessor;
-    private int pos;
     private List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
     private List<Actor> actors = new ArrayList<Actor>();
     private Actor resultProcessorActor;
 
     public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory) {
+        this(maxProcessors, factory, actorFactory, Collections.<String, Long>emptyMap());
+    }
+
+    /**
+     * @param previousDurations the duration in milliseconds of each test class in the previous run, keyed by class name.
+     */
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> previousDurations) {
         this.maxProcessors = maxProcessors;
         this.factory = factory;
         this.actorFactory = actorFactory;
+        this.previousDurations = previousDurations;
     }
 
     public void startProcessing(TestResultProcessor resultProcessor) {
@@ -55,26 +74,122 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     }
 
     public void processTestClass(TestClassRunInfo testClass) {
-        TestClassProcessor processor;
-        if (processors.size() < maxProcessors) {
-            processor = factory.create();
-            Actor actor = actorFactory.createActor(processor);
-            processor = actor.getProxy(TestClassProcessor.class);
-            actors.add(actor);
-            processors.add(processor);
-            processor.startProcessing(resultProcessor);
-        } else {
-            processor = processors.get(pos);
-            pos = (pos + 1) % processors.size();
+        lock.lock();
+        try {
+            queue.add(new QueuedTestClass(testClass, previousDuration(testClass), sequence++));
+            TestClassProcessor processor;
+            if (!idleProcessors.isEmpty()) {
+                processor = idleProcessors.remove(idleProcessors.size() - 1);
+            } else if (processors.size() < maxProcessors) {
+                processor = startProcessor();
+            } else {
+                // Handed out when one of the processors has finished with its current test class
+                return;
+            }
+            processor.processTestClass(queue.remove().testClass);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Long previousDuration(TestClassRunInfo testClass) {
+        if (testClass instanceof TestClassShardRunInfo) {
+            return ((TestClassShardRunInfo) testClass).getPreviousDuration();
+        }
+        return previousDurations.get(testClass.getTestClassName());
+    }
+
+    private TestClassProcessor startProcessor() {
+        PullingTestClassProcessor target = new PullingTestClassProcessor(factory.create());
+        Actor actor = actorFactory.createActor(target);
+        TestClassProcessor processor = actor.getProxy(TestClassProcessor.class);
+        target.proxy = processor;
+        actors.add(actor);
+        processors.add(processor);
+        processor.startProcessing(resultProcessor);
+        return processor;
+    }
+
+    private void processorFinished(TestClassProcessor processor) {
+        lock.lock();
+        try {
+            QueuedTestClass next = queue.poll();
+            if (next == null) {
+                idleProcessors.add(processor);
+                condition.signalAll();
+            } else {
+                processor.processTestClass(next.testClass);
+            }
+        } finally {
+            lock.unlock();
         }
-        processor.processTestClass(testClass);
     }
 
     public void stop() {
+        lock.lock();
+        try {
+            while (!queue.isEmpty()) {
+                condition.await();
+            }
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            lock.unlock();
+        }
         try {
             CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
         } catch (DispatchException e) {
             throw UncheckedException.throwAsUncheckedException(e.getCause());
         }
     }
+
+    /**
+     * Asks for the next queued test class once the target processor has finished with the current one. Called from the processor's actor thread.
+     */
+    private class PullingTestClassProcessor implements TestClassProcessor {
+        private final TestClassProcessor processor;
+        private TestClassProcessor proxy;
+
+        PullingTestClassProcessor(TestClassProcessor processor) {
+            this.processor = processor;
+        }
+
+        public void startProcessing(TestResultProcessor resultProcessor) {
+            processor.startProcessing(resultProcessor);
+        }
+
+        public void processTestClass(TestClassRunInfo testClass) {
+            try {
+                processor.processTestClass(testClass);
+            } finally {
+                processorFinished(proxy);
+            }
+        }
+
+        public void stop() {
+            processor.stop();
+        }
+    }
+
+    private static class QueuedTestClass implements Comparable<QueuedTestClass> {
+        private final TestClassRunInfo testClass;
+        private final Long previousDuration;
+        private final long sequence;
+
+        QueuedTestClass(TestClassRunInfo testClass, Long previousDuration, long sequence) {
+            this.testClass = testClass;
+            this.previousDuration = previousDuration;
+            this.sequence = sequence;
+        }
+
+        public int compareTo(QueuedTestClass other) {
+            // Longest first, with unknown durations before all others, then in the order the test classes were queued
+            long duration = previousDuration == null ? Long.MAX_VALUE : previousDuration;
+            long otherDuration = other.previousDuration == null ? Long.MAX_VALUE : other.previousDuration;
+            if (duration != otherDuration) {
+                return duration > otherDuration ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : sequence == other.sequence ? 0 : 1;
+        }
+    }
 }
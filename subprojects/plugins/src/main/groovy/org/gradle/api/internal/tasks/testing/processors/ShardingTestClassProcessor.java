@@ -0,0 +1,135 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestClassShardRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+
+import java.util.*;
+
+/**
+ * Splits the test classes that took longer than an even share of the previous run over the available forks into shards of test methods, which are
+ * processed as separate test classes, so that a single large test class does not keep one fork busy while the others are idle.
+ *
+ * <p>The test methods are spread over the shards longest first, using the durations from the previous run. The first shard of a class is made up of
+ * all test methods except those of the other shards, so that test methods which did not exist in the previous run are still executed.</p>
+ */
+public class ShardingTestClassProcessor implements TestClassProcessor {
+    static final long MIN_SHARD_DURATION_MILLIS = 1000;
+    private final TestClassProcessor processor;
+    private final int maxShards;
+    private final Map<String, Map<String, Long>> previousMethodDurations;
+    private final long shareDuration;
+
+    /**
+     * @param maxShards the maximum number of shards to split a test class into, usually the number of forks.
+     * @param previousClassDurations the duration in milliseconds of each test class in the previous run, keyed by class name.
+     * @param previousMethodDurations the duration in milliseconds of each test method in the previous run, keyed by class name and then method name.
+     */
+    public ShardingTestClassProcessor(TestClassProcessor processor, int maxShards, Map<String, Long> previousClassDurations,
+                                      Map<String, Map<String, Long>> previousMethodDurations) {
+        this.processor = processor;
+        this.maxShards = maxShards;
+        this.previousMethodDurations = previousMethodDurations;
+        long totalDuration = 0;
+        for (Long duration : previousClassDurations.values()) {
+            totalDuration += duration;
+        }
+        this.shareDuration = totalDuration / maxShards;
+    }
+
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        processor.startProcessing(resultProcessor);
+    }
+
+    public void processTestClass(TestClassRunInfo testClass) {
+        for (TestClassRunInfo shard : shard(testClass)) {
+            processor.processTestClass(shard);
+        }
+    }
+
+    public void stop() {
+        processor.stop();
+    }
+
+    private List<? extends TestClassRunInfo> shard(TestClassRunInfo testClass) {
+        Map<String, Long> methodDurations = previousMethodDurations.get(testClass.getTestClassName());
+        if (methodDurations == null) {
+            return Collections.singletonList(testClass);
+        }
+        long classDuration = 0;
+        for (Long duration : methodDurations.values()) {
+            classDuration += duration;
+        }
+        int shardCount = (int) Math.min(Math.min(maxShards, methodDurations.size()), classDuration / MIN_SHARD_DURATION_MILLIS);
+        if (shardCount < 2 || classDuration <= shareDuration) {
+            return Collections.singletonList(testClass);
+        }
+
+        List<Map.Entry<String, Long>> methods = new ArrayList<Map.Entry<String, Long>>(methodDurations.entrySet());
+        Collections.sort(methods, new Comparator<Map.Entry<String, Long>>() {
+            public int compare(Map.Entry<String, Long> o1, Map.Entry<String, Long> o2) {
+                return o2.getValue().compareTo(o1.getValue());
+            }
+        });
+        PriorityQueue<Shard> shards = new PriorityQueue<Shard>();
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new Shard(i));
+        }
+        for (Map.Entry<String, Long> method : methods) {
+            Shard shortest = shards.remove();
+            shortest.methods.add(method.getKey());
+            shortest.duration += method.getValue();
+            shards.add(shortest);
+        }
+
+        List<Shard> sorted = new ArrayList<Shard>(shards);
+        Collections.sort(sorted, new Comparator<Shard>() {
+            public int compare(Shard o1, Shard o2) {
+                return o1.index - o2.index;
+            }
+        });
+        Set<String> otherMethods = new HashSet<String>();
+        List<TestClassRunInfo> result = new ArrayList<TestClassRunInfo>(shardCount);
+        for (Shard shard : sorted.subList(1, shardCount)) {
+            otherMethods.addAll(shard.methods);
+            result.add(new TestClassShardRunInfo(testClass.getTestClassName(), shard.methods, false, shard.duration));
+        }
+        Shard first = sorted.get(0);
+        result.add(0, new TestClassShardRunInfo(testClass.getTestClassName(), otherMethods, true, first.duration));
+        return result;
+    }
+
+    private static class Shard implements Comparable<Shard> {
+        private final int index;
+        private final Set<String> methods = new HashSet<String>();
+        private long duration;
+
+        Shard(int index) {
+            this.index = index;
+        }
+
+        public int compareTo(Shard other) {
+            if (duration != other.duration) {
+                return duration < other.duration ? -1 : 1;
+            }
+            return index - other.index;
+        }
+    }
+}
@@ -19,6 +19,7 @@ package org.gradle.api.internal.tasks.testing.testng;
 import org.gradle.api.GradleException;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestClassShardRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.filter.TestSelectionMatcher;
 import org.gradle.api.tasks.testing.testng.TestNGOptions;
@@ -33,13 +34,11 @@ import org.gradle.util.GFileUtils;
 import org.testng.*;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 public class TestNGTestClassProcessor implements TestClassProcessor {
     private final List<Class<?>> testClasses = new ArrayList<Class<?>>();
+    private final Map<String, ShardSelection> shardSelections = new HashMap<String, ShardSelection>();
     private final File testReportDir;
     private final TestNGSpec options;
     private final List<File> suiteFiles;
@@ -68,10 +67,26 @@ public class TestNGTestClassProcessor implements TestClassProcessor {
 
     public void processTestClass(TestClassRunInfo testClass) {
         // TODO - do this inside some 'testng' suite, so that failures and logging are attached to 'testng' rather than some 'test worker'
+        String testClassName = testClass.getTestClassName();
+        boolean loaded = shardSelections.containsKey(testClassName);
+        if (testClass instanceof TestClassShardRunInfo) {
+            // Several shards of the same class can be handed to one worker
+            ShardSelection selection = shardSelections.get(testClassName);
+            if (!loaded) {
+                shardSelections.put(testClassName, new ShardSelection((TestClassShardRunInfo) testClass));
+            } else if (selection != null) {
+                selection.add((TestClassShardRunInfo) testClass);
+            }
+        } else {
+            shardSelections.put(testClassName, null);
+        }
+        if (loaded) {
+            return;
+        }
         try {
-            testClasses.add(applicationClassLoader.loadClass(testClass.getTestClassName()));
+            testClasses.add(applicationClassLoader.loadClass(testClassName));
         } catch (Throwable e) {
-            throw new GradleException(String.format("Could not load test class '%s'.", testClass.getTestClassName()), e);
+            throw new GradleException(String.format("Could not load test class '%s'.", testClassName), e);
         }
     }
 
@@ -127,6 +142,10 @@ public class TestNGTestClassProcessor implements TestClassProcessor {
             testNg.addListener(new SelectedTestsFilter(options.getIncludedTests()));
         }
 
+        if (suiteFiles.isEmpty() && shardSelections.values().size() > Collections.frequency(shardSelections.values(), null)) {
+            testNg.addListener(new ShardFilter(shardSelections));
+        }
+
         if (!suiteFiles.isEmpty()) {
             testNg.setTestSuites(GFileUtils.toPaths(suiteFiles));
         } else {
@@ -159,4 +178,56 @@ public class TestNGTestClassProcessor implements TestClassProcessor {
             return filtered;
         }
     }
-}
\ No newline at end of file
+
+    private static class ShardFilter implements IMethodInterceptor {
+
+        private final Map<String, ShardSelection> shardSelections;
+
+        public ShardFilter(Map<String, ShardSelection> shardSelections) {
+            this.shardSelections = shardSelections;
+        }
+
+        public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+            List<IMethodInstance> filtered = new LinkedList<IMethodInstance>();
+            for (IMethodInstance candidate : methods) {
+                ShardSelection selection = shardSelections.get(candidate.getMethod().getTestClass().getName());
+                if (selection == null || selection.includes(candidate.getMethod().getMethodName())) {
+                    filtered.add(candidate);
+                }
+            }
+            return filtered;
+        }
+    }
+
+    /**
+     * The test methods of a class selected by the shards of the class that were handed to this worker.
+     */
+    private static class ShardSelection {
+        private Set<String> methodNames;
+        private boolean excludesMethods;
+
+        ShardSelection(TestClassShardRunInfo shard) {
+            methodNames = new HashSet<String>(shard.getTestMethodNames());
+            excludesMethods = shard.isExcludesTestMethods();
+        }
+
+        void add(TestClassShardRunInfo shard) {
+            if (!excludesMethods && !shard.isExcludesTestMethods()) {
+                methodNames.addAll(shard.getTestMethodNames());
+            } else if (excludesMethods && shard.isExcludesTestMethods()) {
+                methodNames.retainAll(shard.getTestMethodNames());
+            } else if (excludesMethods) {
+                methodNames.removeAll(shard.getTestMethodNames());
+            } else {
+                Set<String> excluded = new HashSet<String>(shard.getTestMethodNames());
+                excluded.removeAll(methodNames);
+                methodNames = excluded;
+                excludesMethods = true;
+            }
+        }
+
+        boolean includes(String methodName) {
+            return methodNames.contains(methodName) != excludesMethods;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collects the test events produced in a test worker into batches, which are sent on once they hold {@value #MAX_BATCH_EVENTS} events or
+ * {@value #MAX_BATCH_OUTPUT_CHARS} characters of output, or once their first event is {@value #MAX_BATCH_DELAY_MILLIS}ms old.
+ *
+ * <p>Thread-safe, as tests may produce output from any thread.</p>
+ */
+public class BatchingTestResultProcessor implements TestResultProcessor, Stoppable {
+    static final int MAX_BATCH_EVENTS = 500;
+    static final int MAX_BATCH_OUTPUT_CHARS = 32 * 1024;
+    static final long MAX_BATCH_DELAY_MILLIS = 100;
+    private final TestEventBatchListener listener;
+    private final StoppableExecutor executor;
+    private final Lock lock = new ReentrantLock();
+    // Held while a batch is taken and sent, so that batches are sent in order without blocking the threads that produce events
+    private final Lock sendLock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+    private TestEventBatch batch = new TestEventBatch();
+    private int batchOutputChars;
+    private long batchStarted;
+    private boolean stopped;
+
+    public BatchingTestResultProcessor(TestEventBatchListener listener, ExecutorFactory executorFactory) {
+        this.listener = listener;
+        executor = executorFactory.create("Test event batch sender");
+        executor.execute(new DelayedFlush());
+    }
+
+    public void started(TestDescriptorInternal test, TestStartEvent event) {
+        boolean full;
+        lock.lock();
+        try {
+            batch.started(test, event);
+            full = added(0);
+        } finally {
+            lock.unlock();
+        }
+        if (full) {
+            send();
+        }
+    }
+
+    public void completed(Object testId, TestCompleteEvent event) {
+        boolean full;
+        lock.lock();
+        try {
+            batch.completed(testId, event);
+            full = added(0);
+        } finally {
+            lock.unlock();
+        }
+        if (full) {
+            send();
+        }
+    }
+
+    public void output(Object testId, TestOutputEvent event) {
+        boolean full;
+        lock.lock();
+        try {
+            batch.output(testId, event);
+            full = added(event.getMessage().length());
+        } finally {
+            lock.unlock();
+        }
+        if (full) {
+            send();
+        }
+    }
+
+    public void failure(Object testId, Throwable result) {
+        boolean full;
+        lock.lock();
+        try {
+            batch.failure(testId, result);
+            full = added(0);
+        } finally {
+            lock.unlock();
+        }
+        if (full) {
+            send();
+        }
+    }
+
+    /**
+     * Sends the events collected so far.
+     */
+    public void flush() {
+        send();
+    }
+
+    /**
+     * Sends the events collected so far and stops sending delayed batches.
+     */
+    public void stop() {
+        lock.lock();
+        try {
+            stopped = true;
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        send();
+        executor.stop();
+    }
+
+    /**
+     * Returns true when the batch is full and should be sent.
+     */
+    private boolean added(int outputChars) {
+        if (batch.size() == 1) {
+            batchStarted = System.currentTimeMillis();
+            condition.signalAll();
+        }
+        batchOutputChars += outputChars;
+        return batch.size() >= MAX_BATCH_EVENTS || batchOutputChars >= MAX_BATCH_OUTPUT_CHARS;
+    }
+
+    /**
+     * Sends the current batch, without holding the lock, so that events can be added to the next batch while this one is sent.
+     */
+    private void send() {
+        sendLock.lock();
+        try {
+            TestEventBatch full;
+            lock.lock();
+            try {
+                if (batch.isEmpty()) {
+                    return;
+                }
+                full = batch;
+                batch = new TestEventBatch();
+                batchOutputChars = 0;
+            } finally {
+                lock.unlock();
+            }
+            listener.eventsProduced(full);
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    private class DelayedFlush implements Runnable {
+        public void run() {
+            lock.lock();
+            try {
+                while (!stopped) {
+                    if (batch.isEmpty()) {
+                        condition.await();
+                        continue;
+                    }
+                    long remaining = batchStarted + MAX_BATCH_DELAY_MILLIS - System.currentTimeMillis();
+                    if (remaining > 0) {
+                        condition.await(remaining, TimeUnit.MILLISECONDS);
+                    } else {
+                        lock.unlock();
+                        try {
+                            send();
+                        } finally {
+                            lock.lock();
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
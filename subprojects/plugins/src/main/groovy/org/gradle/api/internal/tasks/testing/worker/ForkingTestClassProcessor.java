@@ -23,28 +23,51 @@ import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.internal.Factory;
 import org.gradle.messaging.remote.ObjectConnection;
+import org.gradle.internal.UncheckedException;
+import org.gradle.process.ExecResult;
 import org.gradle.process.JavaForkOptions;
+import org.gradle.process.internal.ExecHandle;
+import org.gradle.process.internal.ExecHandleListener;
 import org.gradle.process.internal.WorkerProcess;
 import org.gradle.process.internal.WorkerProcessBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
-public class ForkingTestClassProcessor implements TestClassProcessor {
+/**
+ * Executes test classes in a worker process. {@link #processTestClass(TestClassRunInfo)} blocks until the worker has no more than one other test class
+ * waiting behind the current one, so that the caller can decide which test class the worker should execute next without leaving the worker idle.
+ */
+public class ForkingTestClassProcessor implements TestClassProcessor, TestClassProcessedListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ForkingTestClassProcessor.class);
+    private static final int MAX_OUTSTANDING_TEST_CLASSES = 2;
     private final Factory<WorkerProcessBuilder> workerFactory;
     private final WorkerTestClassProcessorFactory processorFactory;
     private final JavaForkOptions options;
     private final Iterable<File> classPath;
     private final Action<WorkerProcessBuilder> buildConfigAction;
+    private final boolean reuseForks;
     private RemoteTestClassProcessor remoteProcessor;
     private WorkerProcess workerProcess;
     private TestResultProcessor resultProcessor;
+    private TestEventBatchReplayer eventReplayer;
+    private final Lock lock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+    private int outstandingTestClasses;
+    private boolean workerStopped;
 
-    public ForkingTestClassProcessor(Factory<WorkerProcessBuilder> workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction) {
+    public ForkingTestClassProcessor(Factory<WorkerProcessBuilder> workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction,
+                                     boolean reuseForks) {
         this.workerFactory = workerFactory;
         this.processorFactory = processorFactory;
         this.options = options;
         this.classPath = classPath;
         this.buildConfigAction = buildConfigAction;
+        this.reuseForks = reuseForks;
     }
 
     public void startProcessing(TestResultProcessor resultProcessor) {
@@ -56,7 +79,44 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
             remoteProcessor = forkProcess();
         }
 
+        lock.lock();
+        try {
+            outstandingTestClasses++;
+        } finally {
+            lock.unlock();
+        }
         remoteProcessor.processTestClass(testClass);
+
+        lock.lock();
+        try {
+            while (outstandingTestClasses >= MAX_OUTSTANDING_TEST_CLASSES && !workerStopped) {
+                condition.await();
+            }
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void testClassProcessed() {
+        lock.lock();
+        try {
+            outstandingTestClasses--;
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void workerStopped() {
+        lock.lock();
+        try {
+            workerStopped = true;
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
     }
 
     RemoteTestClassProcessor forkProcess() {
@@ -64,16 +124,28 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         builder.setBaseName("Gradle Test Executor");
         builder.applicationClasspath(classPath);
         builder.setLoadApplicationInSystemClassLoader(true);
+        builder.setReusable(reuseForks);
         builder.worker(new TestWorker(processorFactory));
         options.copyTo(builder.getJavaCommand());
         buildConfigAction.execute(builder);
+        // Don't wait for test classes that a worker which has crashed will never finish
+        builder.getJavaCommand().listener(new ExecHandleListener() {
+            public void executionStarted(ExecHandle execHandle) {
+            }
+
+            public void executionFinished(ExecHandle execHandle, ExecResult execResult) {
+                workerStopped();
+            }
+        });
 
         workerProcess = builder.build();
         workerProcess.start();
 
         ObjectConnection connection = workerProcess.getConnection();
         connection.useParameterSerializer(TestEventSerializer.create());
-        connection.addIncoming(TestResultProcessor.class, resultProcessor);
+        eventReplayer = new TestEventBatchReplayer(resultProcessor);
+        connection.addIncoming(TestEventBatchListener.class, eventReplayer);
+        connection.addIncoming(TestClassProcessedListener.class, this);
         RemoteTestClassProcessor remoteProcessor = connection.addOutgoing(RemoteTestClassProcessor.class);
         connection.connect();
         remoteProcessor.startProcessing();
@@ -84,6 +156,7 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         if (remoteProcessor != null) {
             remoteProcessor.stop();
             workerProcess.waitForStop();
+            LOGGER.info("{} sent {} test events in {} batches ({} events/second).", workerProcess, eventReplayer.getEvents(), eventReplayer.getBatches(), eventReplayer.getEventsPerSecond());
         }
     }
 }
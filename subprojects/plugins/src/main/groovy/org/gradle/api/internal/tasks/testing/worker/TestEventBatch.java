@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A sequence of test events, recorded in the order they were received, which is sent from a test worker to the build process as a single message.
+ */
+public class TestEventBatch implements TestResultProcessor {
+    static final byte STARTED = 1;
+    static final byte COMPLETED = 2;
+    static final byte OUTPUT = 3;
+    static final byte FAILURE = 4;
+
+    private final List<Event> events;
+
+    public TestEventBatch() {
+        this(new ArrayList<Event>());
+    }
+
+    TestEventBatch(List<Event> events) {
+        this.events = events;
+    }
+
+    public void started(TestDescriptorInternal test, TestStartEvent event) {
+        events.add(new Event(STARTED, test.getId(), test, event));
+    }
+
+    public void completed(Object testId, TestCompleteEvent event) {
+        events.add(new Event(COMPLETED, testId, null, event));
+    }
+
+    public void output(Object testId, TestOutputEvent event) {
+        events.add(new Event(OUTPUT, testId, null, event));
+    }
+
+    public void failure(Object testId, Throwable result) {
+        events.add(new Event(FAILURE, testId, null, result));
+    }
+
+    public int size() {
+        return events.size();
+    }
+
+    public boolean isEmpty() {
+        return events.isEmpty();
+    }
+
+    List<Event> getEvents() {
+        return events;
+    }
+
+    /**
+     * Notifies the given processor of the events of this batch, in the order they were recorded.
+     */
+    public void replay(TestResultProcessor processor) {
+        for (Event event : events) {
+            switch (event.type) {
+                case STARTED:
+                    processor.started(event.test, (TestStartEvent) event.payload);
+                    break;
+                case COMPLETED:
+                    processor.completed(event.testId, (TestCompleteEvent) event.payload);
+                    break;
+                case OUTPUT:
+                    processor.output(event.testId, (TestOutputEvent) event.payload);
+                    break;
+                case FAILURE:
+                    processor.failure(event.testId, (Throwable) event.payload);
+                    break;
+                default:
+                    throw new IllegalStateException(String.format("Unexpected test event type %d.", event.type));
+            }
+        }
+    }
+
+    static class Event {
+        final byte type;
+        final Object testId;
+        final TestDescriptorInternal test;
+        final Object payload;
+
+        Event(byte type, Object testId, TestDescriptorInternal test, Object payload) {
+            this.type = type;
+            this.testId = testId;
+            this.test = test;
+            this.payload = payload;
+        }
+    }
+}
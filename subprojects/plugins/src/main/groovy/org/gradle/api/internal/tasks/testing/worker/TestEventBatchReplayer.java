@@ -0,0 +1,62 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+
+/**
+ * Replays the batches of test events received from a test worker into a result processor, and keeps track of the rate at which the worker produced
+ * events.
+ */
+public class TestEventBatchReplayer implements TestEventBatchListener {
+    private final TestResultProcessor resultProcessor;
+    private long batches;
+    private long events;
+    private long firstBatchReceived;
+    private long lastBatchReceived;
+
+    public TestEventBatchReplayer(TestResultProcessor resultProcessor) {
+        this.resultProcessor = resultProcessor;
+    }
+
+    public void eventsProduced(TestEventBatch batch) {
+        long now = System.currentTimeMillis();
+        if (batches == 0) {
+            firstBatchReceived = now;
+        }
+        lastBatchReceived = now;
+        batches++;
+        events += batch.size();
+        batch.replay(resultProcessor);
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+
+    /**
+     * Returns the number of events received per second, between the first and the last batch.
+     */
+    public long getEventsPerSecond() {
+        long elapsed = lastBatchReceived - firstBatchReceived;
+        return elapsed <= 0 ? events : events * 1000 / elapsed;
+    }
+}
@@ -22,11 +22,17 @@ import org.gradle.api.tasks.testing.TestResult;
 import org.gradle.internal.id.CompositeIdGenerator;
 import org.gradle.internal.serialize.*;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 public class TestEventSerializer {
     public static Serializer<Object[]> create() {
         BaseSerializerFactory factory = new BaseSerializerFactory();
         DefaultSerializerRegistry<Object> registry = new DefaultSerializerRegistry<Object>();
         registry.register(DefaultTestClassRunInfo.class, new DefaultTestClassRunInfoSerializer());
+        registry.register(TestClassShardRunInfo.class, new TestClassShardRunInfoSerializer());
         registry.register(CompositeIdGenerator.CompositeId.class, new IdSerializer());
         registry.register(DefaultTestSuiteDescriptor.class, new DefaultTestSuiteDescriptorSerializer());
         registry.register(WorkerTestClassProcessor.WorkerTestSuiteDescriptor.class, new WorkerTestSuiteDescriptorSerializer());
@@ -37,6 +43,7 @@ public class TestEventSerializer {
         registry.register(TestCompleteEvent.class, new TestCompleteEventSerializer());
         registry.register(DefaultTestOutputEvent.class, new DefaultTestOutputEventSerializer());
         registry.register(Throwable.class, factory.getSerializerFor(Throwable.class));
+        registry.register(TestEventBatch.class, new TestEventBatchSerializer(registry.build()));
         return new ObjectArraySerializer(registry.build());
     }
 
@@ -83,6 +90,28 @@ public class TestEventSerializer {
         }
     }
 
+    private static class TestClassShardRunInfoSerializer implements Serializer<TestClassShardRunInfo> {
+        public TestClassShardRunInfo read(Decoder decoder) throws Exception {
+            String testClassName = decoder.readString();
+            boolean excludesTestMethods = decoder.readBoolean();
+            int count = decoder.readSmallInt();
+            Set<String> testMethodNames = new HashSet<String>(count);
+            for (int i = 0; i < count; i++) {
+                testMethodNames.add(decoder.readString());
+            }
+            return new TestClassShardRunInfo(testClassName, testMethodNames, excludesTestMethods, null);
+        }
+
+        public void write(Encoder encoder, TestClassShardRunInfo value) throws Exception {
+            encoder.writeString(value.getTestClassName());
+            encoder.writeBoolean(value.isExcludesTestMethods());
+            encoder.writeSmallInt(value.getTestMethodNames().size());
+            for (String testMethodName : value.getTestMethodNames()) {
+                encoder.writeString(testMethodName);
+            }
+        }
+    }
+
     private static class TestStartEventSerializer implements Serializer<TestStartEvent> {
         final Serializer<CompositeIdGenerator.CompositeId> idSerializer = new NullableSerializer<CompositeIdGenerator.CompositeId>(new IdSerializer());
 
@@ -206,4 +235,102 @@ public class TestEventSerializer {
             encoder.writeString(value.getName());
         }
     }
+
+    /**
+     * Writes the events of a batch inline, with variable length ids and times relative to the previous event, and falls back to the tagged type
+     * serializer for the test descriptors and failures.
+     */
+    private static class TestEventBatchSerializer implements Serializer<TestEventBatch> {
+        private final Serializer<Object> valueSerializer;
+        private final Serializer<TestResult.ResultType> typeSerializer = new NullableSerializer<TestResult.ResultType>(new BaseSerializerFactory().getSerializerFor(TestResult.ResultType.class));
+        private final TestOutputEvent.Destination[] destinations = TestOutputEvent.Destination.values();
+
+        private TestEventBatchSerializer(Serializer<Object> valueSerializer) {
+            this.valueSerializer = valueSerializer;
+        }
+
+        public TestEventBatch read(Decoder decoder) throws Exception {
+            int count = decoder.readSmallInt();
+            List<TestEventBatch.Event> events = new ArrayList<TestEventBatch.Event>(count);
+            long time = 0;
+            for (int i = 0; i < count; i++) {
+                byte type = decoder.readByte();
+                switch (type) {
+                    case TestEventBatch.STARTED:
+                        TestDescriptorInternal test = (TestDescriptorInternal) valueSerializer.read(decoder);
+                        time += decoder.readSmallLong();
+                        Object parentId = decoder.readBoolean() ? readId(decoder) : null;
+                        events.add(new TestEventBatch.Event(type, test.getId(), test, new TestStartEvent(time, parentId)));
+                        break;
+                    case TestEventBatch.COMPLETED:
+                        Object completedId = readId(decoder);
+                        time += decoder.readSmallLong();
+                        events.add(new TestEventBatch.Event(type, completedId, null, new TestCompleteEvent(time, typeSerializer.read(decoder))));
+                        break;
+                    case TestEventBatch.OUTPUT:
+                        Object outputId = readId(decoder);
+                        TestOutputEvent.Destination destination = destinations[decoder.readSmallInt()];
+                        events.add(new TestEventBatch.Event(type, outputId, null, new DefaultTestOutputEvent(destination, decoder.readString())));
+                        break;
+                    case TestEventBatch.FAILURE:
+                        Object failedId = readId(decoder);
+                        events.add(new TestEventBatch.Event(type, failedId, null, valueSerializer.read(decoder)));
+                        break;
+                    default:
+                        throw new IllegalArgumentException(String.format("Unexpected test event type %d found.", type));
+                }
+            }
+            return new TestEventBatch(events);
+        }
+
+        public void write(Encoder encoder, TestEventBatch value) throws Exception {
+            List<TestEventBatch.Event> events = value.getEvents();
+            encoder.writeSmallInt(events.size());
+            long time = 0;
+            for (TestEventBatch.Event event : events) {
+                encoder.writeByte(event.type);
+                switch (event.type) {
+                    case TestEventBatch.STARTED:
+                        TestStartEvent startEvent = (TestStartEvent) event.payload;
+                        valueSerializer.write(encoder, event.test);
+                        encoder.writeSmallLong(startEvent.getStartTime() - time);
+                        time = startEvent.getStartTime();
+                        encoder.writeBoolean(startEvent.getParentId() != null);
+                        if (startEvent.getParentId() != null) {
+                            writeId(encoder, startEvent.getParentId());
+                        }
+                        break;
+                    case TestEventBatch.COMPLETED:
+                        TestCompleteEvent completeEvent = (TestCompleteEvent) event.payload;
+                        writeId(encoder, event.testId);
+                        encoder.writeSmallLong(completeEvent.getEndTime() - time);
+                        time = completeEvent.getEndTime();
+                        typeSerializer.write(encoder, completeEvent.getResultType());
+                        break;
+                    case TestEventBatch.OUTPUT:
+                        TestOutputEvent outputEvent = (TestOutputEvent) event.payload;
+                        writeId(encoder, event.testId);
+                        encoder.writeSmallInt(outputEvent.getDestination().ordinal());
+                        encoder.writeString(outputEvent.getMessage());
+                        break;
+                    case TestEventBatch.FAILURE:
+                        writeId(encoder, event.testId);
+                        valueSerializer.write(encoder, event.payload);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(String.format("Unexpected test event type %d.", event.type));
+                }
+            }
+        }
+
+        private Object readId(Decoder decoder) throws Exception {
+            return new CompositeIdGenerator.CompositeId(decoder.readSmallLong(), decoder.readSmallLong());
+        }
+
+        private void writeId(Encoder encoder, Object id) throws Exception {
+            CompositeIdGenerator.CompositeId compositeId = (CompositeIdGenerator.CompositeId) id;
+            encoder.writeSmallLong((Long) compositeId.getScope());
+            encoder.writeSmallLong((Long) compositeId.getId());
+        }
+    }
 }
@@ -20,20 +20,27 @@ import groovy.lang.Closure;
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
 import org.gradle.api.Incubating;
+import org.gradle.api.Nullable;
 import org.gradle.api.file.*;
 import org.gradle.api.internal.ConventionTask;
+import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.FileTreeElementComparator;
 import org.gradle.api.internal.file.FileTreeElementHasher;
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache;
+import org.gradle.api.internal.tasks.compile.incremental.cache.GeneralCompileCaches;
 import org.gradle.api.internal.tasks.options.Option;
 import org.gradle.api.internal.tasks.testing.DefaultTestTaskReports;
 import org.gradle.api.internal.tasks.testing.NoMatchingTestsReporter;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.detection.DefaultTestExecuter;
+import org.gradle.api.internal.tasks.testing.detection.TestClassHeaderCache;
 import org.gradle.api.internal.tasks.testing.detection.TestExecuter;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
+import org.gradle.api.internal.tasks.testing.impact.AffectedTestClassSelector;
+import org.gradle.api.internal.tasks.testing.impact.LocalTestClasspathSnapshotStore;
+import org.gradle.api.internal.tasks.testing.impact.TestClasspathSnapshotter;
 import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
 import org.gradle.api.internal.tasks.testing.junit.report.DefaultTestReport;
 import org.gradle.api.internal.tasks.testing.junit.report.TestReporter;
@@ -52,10 +59,12 @@ import org.gradle.api.tasks.testing.logging.TestLogging;
 import org.gradle.api.tasks.testing.logging.TestLoggingContainer;
 import org.gradle.api.tasks.util.PatternFilterable;
 import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.cache.CacheRepository;
 import org.gradle.internal.Factory;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.event.ListenerBroadcast;
 import org.gradle.internal.event.ListenerManager;
+import org.gradle.internal.operations.BuildOperationProcessor;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.listener.ClosureBackedMethodInvocationDispatch;
 import org.gradle.logging.ConsoleRenderer;
@@ -67,6 +76,7 @@ import org.gradle.process.ProcessForkOptions;
 import org.gradle.process.internal.DefaultJavaForkOptions;
 import org.gradle.process.internal.WorkerProcessBuilder;
 import org.gradle.util.ConfigureUtil;
+import org.gradle.util.SingleMessageLogger;
 
 import javax.inject.Inject;
 import java.io.File;
@@ -138,6 +148,10 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
     private TestFramework testFramework;
     private boolean scanForTestClasses = true;
     private long forkEvery;
+    private boolean reuseForks;
+    private boolean onlyAffectedTests;
+    private boolean runAllTests;
+    private boolean shardLargeTestClasses;
     private int maxParallelForks = 1;
     private TestReporter testReporter;
     private Integer candidateClassFilesHash;
@@ -182,6 +196,26 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         throw new UnsupportedOperationException();
     }
 
+    @Inject
+    protected BuildOperationProcessor getBuildOperationProcessor() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject
+    protected TestClassHeaderCache getTestClassHeaderCache() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject
+    protected GeneralCompileCaches getGeneralCompileCaches() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject
+    protected CacheRepository getCacheRepository() {
+        throw new UnsupportedOperationException();
+    }
+
     @Inject
     protected Factory<WorkerProcessBuilder> getProcessBuilderFactory() {
         throw new UnsupportedOperationException();
@@ -501,6 +535,25 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         }
 
         File binaryResultsDir = getBinResultsDir();
+        Map<String, Long> previousTestClassDurations = new HashMap<String, Long>();
+        Map<String, Map<String, Long>> previousTestMethodDurations = new HashMap<String, Map<String, Long>>();
+        boolean shardTestClasses = isShardLargeTestClasses() && getMaxParallelForks() > 1
+            && (getTestFramework() instanceof JUnitTestFramework || getTestFramework() instanceof TestNGTestFramework);
+        if (shardTestClasses) {
+            SingleMessageLogger.incubatingFeatureUsed("Sharding large test classes");
+        }
+        readPreviousTestDurations(binaryResultsDir, previousTestClassDurations, shardTestClasses ? previousTestMethodDurations : null);
+        AffectedTestClassSelector testClassSelector = null;
+        Set<String> selectedTestClasses = null;
+        if (isOnlyAffectedTests()) {
+            SingleMessageLogger.incubatingFeatureUsed("Running only affected tests");
+            testClassSelector = new AffectedTestClassSelector(new TestClasspathSnapshotter((FileOperations) getProject(), getGeneralCompileCaches()),
+                new LocalTestClasspathSnapshotStore(getCacheRepository(), this), binaryResultsDir, new File(getTemporaryDir(), "previousResults"));
+            selectedTestClasses = testClassSelector.selectTestClasses(getTestSelectionConfiguration(), getClasspath(), isRunAllTests());
+            if (selectedTestClasses != null) {
+                getLogger().info("Executing only the test classes affected by changes, {} classes selected.", selectedTestClasses.size());
+            }
+        }
         getProject().delete(binaryResultsDir);
         getProject().mkdir(binaryResultsDir);
 
@@ -521,11 +574,15 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         TestResultProcessor resultProcessor = new StateTrackingTestResultProcessor(testListenerInternalBroadcaster.getSource());
 
         if (testExecuter == null) {
-            testExecuter = new DefaultTestExecuter(getProcessBuilderFactory(), getActorFactory());
+            testExecuter = new DefaultTestExecuter(getProcessBuilderFactory(), getActorFactory(), getBuildOperationProcessor(), getTestClassHeaderCache(),
+                previousTestClassDurations, selectedTestClasses, previousTestMethodDurations);
         }
 
         try {
             testExecuter.execute(this, resultProcessor);
+            if (testClassSelector != null) {
+                testClassSelector.mergeStaleResults(results, outputWriter);
+            }
         } finally {
             testExecuter = null;
             testListenerBroadcaster.removeAll();
@@ -535,12 +592,15 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         }
 
         new TestResultSerializer(binaryResultsDir).write(results.values());
+        if (testClassSelector != null) {
+            testClassSelector.storeSnapshot();
+        }
 
         TestResultsProvider testResultsProvider = new InMemoryTestResultsProvider(results.values(), testOutputStore.reader());
 
         try {
             if (testReporter == null) {
-                testReporter = new DefaultTestReport();
+                testReporter = new DefaultTestReport(getBuildOperationProcessor());
             }
 
             JUnitXmlReport junitXml = reports.getJunitXml();
@@ -548,7 +608,8 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
                 TestOutputAssociation outputAssociation = junitXml.isOutputPerTestCase()
                         ? TestOutputAssociation.WITH_TESTCASE
                         : TestOutputAssociation.WITH_SUITE;
-                Binary2JUnitXmlReportGenerator binary2JUnitXmlReportGenerator = new Binary2JUnitXmlReportGenerator(junitXml.getDestination(), testResultsProvider, outputAssociation);
+                Binary2JUnitXmlReportGenerator binary2JUnitXmlReportGenerator = new Binary2JUnitXmlReportGenerator(junitXml.getDestination(), testResultsProvider, outputAssociation,
+                        getBuildOperationProcessor());
                 binary2JUnitXmlReportGenerator.generate();
             }
 
@@ -1008,6 +1069,99 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         this.maxParallelForks = maxParallelForks;
     }
 
+    /**
+     * Returns whether the JVMs of forked test processes are kept alive and reused by later executions of test tasks in the same build process, such as the Gradle daemon.
+     * When {@code true}, a JVM is reused only by test tasks with the same JVM arguments, and the test runtime classpath is loaded in a new isolated ClassLoader for each
+     * forked test process. When used with {@link #getForkEvery()}, a new test process is started in a reused JVM rather than in a new JVM. The default value is {@code false}.
+     *
+     * @return Whether forked test JVMs are reused.
+     */
+    @Incubating
+    public boolean isReuseForks() {
+        return getDebug() ? false : reuseForks;
+    }
+
+    /**
+     * Sets whether the JVMs of forked test processes are kept alive and reused by later executions of test tasks.
+     *
+     * @param reuseForks Whether forked test JVMs are reused.
+     */
+    @Incubating
+    public void setReuseForks(boolean reuseForks) {
+        this.reuseForks = reuseForks;
+    }
+
+    /**
+     * Returns whether only the test classes affected by the classes that changed since the previous execution of this task are executed. The test classes
+     * affected by a change are found by analyzing the dependencies between the classes on the test runtime classpath. The results of the other test classes
+     * are carried over from the previous execution into the reports. All test classes are executed when the configuration of this task or a resource on
+     * the classpath changed, and test classes that failed in the previous execution are always executed. The default value is {@code false}.
+     *
+     * @return Whether only the affected test classes are executed.
+     * @see #isRunAllTests()
+     */
+    @Incubating
+    public boolean isOnlyAffectedTests() {
+        return onlyAffectedTests;
+    }
+
+    /**
+     * Sets whether only the test classes affected by the classes that changed since the previous execution of this task are executed.
+     *
+     * @param onlyAffectedTests Whether only the affected test classes are executed.
+     */
+    @Incubating
+    public void setOnlyAffectedTests(boolean onlyAffectedTests) {
+        this.onlyAffectedTests = onlyAffectedTests;
+    }
+
+    /**
+     * Returns whether all test classes are executed, even when only the affected test classes would be executed. The default value is {@code false}.
+     *
+     * @return Whether all test classes are executed.
+     * @see #isOnlyAffectedTests()
+     */
+    @Incubating
+    public boolean isRunAllTests() {
+        return runAllTests;
+    }
+
+    /**
+     * Sets whether all test classes are executed, even when only the affected test classes would be executed.
+     *
+     * @param runAllTests Whether all test classes are executed.
+     */
+    @Incubating
+    @Option(option = "all-tests", description = "Executes all test classes, even when only the test classes affected by changes would be executed. [INCUBATING]")
+    public void setRunAllTests(boolean runAllTests) {
+        this.runAllTests = runAllTests;
+    }
+
+    /**
+     * Returns whether the test methods of a test class that took longer than an even share of the previous run over the forked test processes are split
+     * into subsets, which are executed in different forked test processes. The results of all subsets are combined under the test class in the reports.
+     * Only used with JUnit and TestNG when {@link #getMaxParallelForks()} is greater than 1. The default value is {@code false}.
+     *
+     * <p>The subsets of a class each run the class level setup of the class, such as {@code @BeforeClass} methods. With TestNG, a test method should
+     * not depend on test methods of the same class.</p>
+     *
+     * @return Whether large test classes are split over the forked test processes.
+     */
+    @Incubating
+    public boolean isShardLargeTestClasses() {
+        return shardLargeTestClasses;
+    }
+
+    /**
+     * Sets whether the test methods of large test classes are split over the forked test processes.
+     *
+     * @param shardLargeTestClasses Whether large test classes are split over the forked test processes.
+     */
+    @Incubating
+    public void setShardLargeTestClasses(boolean shardLargeTestClasses) {
+        this.shardLargeTestClasses = shardLargeTestClasses;
+    }
+
     /**
      * Returns the classes files to scan for test classes.
      *
@@ -1127,6 +1281,47 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         }
     }
 
+    private String getTestSelectionConfiguration() {
+        // All test classes are executed when any of these change
+        return getTestFramework().getClass().getName() + getAllJvmArgs() + new TreeMap<String, Object>(getEnvironment()) + getIncludes() + getExcludes()
+            + getFilter().getIncludePatterns();
+    }
+
+    private void readPreviousTestDurations(File binaryResultsDir, final Map<String, Long> classDurations, @Nullable final Map<String, Map<String, Long>> methodDurations) {
+        final boolean groupParameterizedMethods = getTestFramework() instanceof TestNGTestFramework;
+        TestResultSerializer serializer = new TestResultSerializer(binaryResultsDir);
+        if (serializer.isHasResults()) {
+            try {
+                serializer.read(new Action<TestClassResult>() {
+                    public void execute(TestClassResult result) {
+                        classDurations.put(result.getClassName(), result.getDuration());
+                        if (methodDurations == null) {
+                            return;
+                        }
+                        Map<String, Long> durations = new HashMap<String, Long>();
+                        for (TestMethodResult methodResult : result.getResults()) {
+                            String name = methodResult.getName();
+                            if (groupParameterizedMethods && name.indexOf('[') > 0) {
+                                // TestNG selects all invocations of a method with a data provider together
+                                name = name.substring(0, name.indexOf('['));
+                            }
+                            Long duration = durations.get(name);
+                            durations.put(name, methodResult.getDuration() + (duration == null ? 0 : duration));
+                        }
+                        methodDurations.put(result.getClassName(), durations);
+                    }
+                });
+            } catch (Exception e) {
+                // Only used to schedule the test classes, so carry on without them
+                getLogger().info("Could not read the test results of the previous run.", e);
+                classDurations.clear();
+                if (methodDurations != null) {
+                    methodDurations.clear();
+                }
+            }
+        }
+    }
+
     private void handleTestFailures() {
         String message = "There were failing tests";
 
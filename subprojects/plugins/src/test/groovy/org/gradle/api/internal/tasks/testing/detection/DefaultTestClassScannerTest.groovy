@@ -27,6 +27,9 @@ import org.jmock.Sequence
 import org.gradle.api.file.FileTree
 import static org.hamcrest.Matchers.*
 import org.gradle.api.file.FileVisitDetails
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.DefaultBuildOperationProcessor
+import static org.junit.Assert.assertThat
 
 @RunWith(JMock.class)
 public class DefaultTestClassScannerTest {
@@ -55,4 +58,32 @@ public class DefaultTestClassScannerTest {
         
         scanner.run()
     }
+
+    @Test
+    public void passesClassFilesToTestClassDetectorInBuildOperations() {
+        List<File> detected = Collections.synchronizedList([])
+        TestFrameworkDetector parallelDetector = [
+                startDetection: { TestClassProcessor p -> },
+                processTestClass: { File file -> detected << file; true }
+        ] as TestFrameworkDetector
+        DefaultBuildOperationProcessor buildOperationProcessor = new DefaultBuildOperationProcessor(new DefaultExecutorFactory(), 4)
+        List<File> classFiles = (1..120).collect { new File("class${it}.class") }
+        DefaultTestClassScanner scanner = new DefaultTestClassScanner(files, parallelDetector, processor, buildOperationProcessor)
+
+        context.checking {
+            one(files).visit(withParam(notNullValue()))
+            will { visitor ->
+                classFiles.each { file -> visitor.visitFile({ file } as FileVisitDetails) }
+            }
+        }
+
+        try {
+            scanner.run()
+        } finally {
+            buildOperationProcessor.stop()
+        }
+
+        assertThat(detected as Set, equalTo(classFiles as Set))
+        assertThat(detected.size(), equalTo(classFiles.size()))
+    }
 }
@@ -22,6 +22,8 @@ import org.gradle.api.file.FileTree
 import org.gradle.api.internal.tasks.testing.TestFramework
 import org.gradle.api.internal.tasks.testing.TestResultProcessor
 import org.gradle.api.tasks.testing.Test
+import org.gradle.internal.operations.BuildOperationProcessor
+import org.gradle.internal.operations.BuildOperationQueue
 import org.gradle.messaging.actor.Actor
 import org.gradle.messaging.actor.ActorFactory
 import spock.lang.Specification
@@ -39,8 +41,10 @@ class DefaultTestExecuterTest extends Specification {
     File testClassesDir = Mock()
     FileCollection testClasspath = Mock()
     Project project = Mock()
+    BuildOperationProcessor buildOperationProcessor = Mock()
+    TestClassHeaderCache classHeaderCache = Mock()
 
-    DefaultTestExecuter executer = new DefaultTestExecuter(workerFactory, actorFactory)
+    DefaultTestExecuter executer = new DefaultTestExecuter(workerFactory, actorFactory, buildOperationProcessor, classHeaderCache, [:])
 
     def setup() {
         _ * testTask.testFramework >> testFramework
@@ -51,6 +55,7 @@ class DefaultTestExecuterTest extends Specification {
         _ * resultProcessorActor.getProxy(_) >> resultProcessor
         _ * testTask.isScanForTestClasses() >> true
         _ * testFramework.getDetector() >> testFrameworkTestDetector
+        _ * buildOperationProcessor.newQueue(_, _) >> Mock(BuildOperationQueue)
     }
 
     def "testClassDirectory for testclassdetector is configured before executing"() {
@@ -69,4 +74,11 @@ class DefaultTestExecuterTest extends Specification {
         1 * testTask.getClasspath() >> testClasspath
         1 * testFrameworkTestDetector.setTestClasspath(testClasspath)
     }
+
+    def "class header cache for testclassdetector is configured before executing"() {
+        when:
+        executer.execute(testTask, testResultProcessor);
+        then:
+        1 * testFrameworkTestDetector.setClassHeaderCache(classHeaderCache)
+    }
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact
+
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult
+import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult
+import org.gradle.api.internal.tasks.testing.junit.result.TestOutputStore
+import org.gradle.api.internal.tasks.testing.junit.result.TestResultSerializer
+import org.gradle.api.tasks.testing.TestResult
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import static org.gradle.api.internal.tasks.compile.incremental.deps.DefaultDependentsSet.dependents
+import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdOut
+
+class AffectedTestClassSelectorTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
+    def snapshotter = Mock(TestClasspathSnapshotter)
+    def store = Mock(LocalTestClasspathSnapshotStore)
+    def classpath = [tmp.file("classes")]
+    def binaryResultsDir = tmp.createDir("results")
+    def previousResultsDir = tmp.file("previousResults")
+    def selector = new AffectedTestClassSelector(snapshotter, store, binaryResultsDir, previousResultsDir)
+
+    def previous = snapshot(A: 1, ATest: 2, BTest: 3, CTest: 4)
+
+    def "selects all test classes when there is no previous snapshot"() {
+        def current = snapshot(A: 1)
+
+        when:
+        def selected = selector.selectTestClasses("config", classpath, false)
+
+        then:
+        1 * store.get() >> null
+        1 * snapshotter.snapshot("config", classpath, null) >> current
+        selected == null
+
+        when:
+        selector.storeSnapshot()
+
+        then:
+        1 * store.put(current)
+    }
+
+    def "selects all test classes when forced"() {
+        given:
+        store.get() >> previous
+        snapshotter.snapshot("config", classpath, previous) >> snapshot(A: 5, ATest: 2, BTest: 3, CTest: 4)
+
+        expect:
+        selector.selectTestClasses("config", classpath, true) == null
+        binaryResultsDir.directory
+    }
+
+    def "selects affected and previously failed test classes and merges the results of the others"() {
+        given:
+        writePreviousResults()
+        store.get() >> previous
+        snapshotter.snapshot("config", classpath, previous) >> snapshot(A: 5, ATest: 2, BTest: 3)
+
+        when:
+        def selected = selector.selectTestClasses("config", classpath, false)
+
+        then:
+        selected == ["A", "ATest", "CTest"] as Set
+        !binaryResultsDir.exists()
+        previousResultsDir.directory
+
+        when:
+        binaryResultsDir.mkdirs()
+        def outputStore = new TestOutputStore(binaryResultsDir)
+        def writer = outputStore.writer()
+        def results = [ATest: new TestClassResult(1, "ATest", 100).add(new TestMethodResult(2, "test", TestResult.ResultType.SUCCESS, 10, 110))]
+        selector.mergeStaleResults(results, writer)
+        writer.close()
+
+        then:
+        results.keySet() == ["ATest", "BTest"] as Set
+        def merged = results.BTest
+        merged.id == 3
+        merged.results*.name == ["test"]
+        merged.results[0].id == 4
+        merged.results[0].resultType == TestResult.ResultType.SUCCESS
+
+        and:
+        def reader = outputStore.reader()
+        def output = new StringWriter()
+        reader.writeTestOutput(merged.id, merged.results[0].id, StdOut, output)
+        reader.close()
+        output.toString() == "[BTest output]"
+
+        when:
+        selector.storeSnapshot()
+
+        then:
+        1 * store.put(_)
+        !previousResultsDir.exists()
+    }
+
+    private void writePreviousResults() {
+        def writer = new TestOutputStore(binaryResultsDir).writer()
+        writer.onOutput(3, 4, new DefaultTestOutputEvent(StdOut, "[BTest output]"))
+        writer.close()
+        new TestResultSerializer(binaryResultsDir).write([
+            new TestClassResult(1, "ATest", 100).add(new TestMethodResult(2, "test", TestResult.ResultType.SUCCESS, 10, 110)),
+            new TestClassResult(3, "BTest", 100).add(new TestMethodResult(4, "test", TestResult.ResultType.SUCCESS, 10, 110)),
+            new TestClassResult(5, "CTest", 100).add(new TestMethodResult(6, "test", TestResult.ResultType.FAILURE, 10, 110))
+        ])
+    }
+
+    private static TestClasspathSnapshot snapshot(Map<String, Integer> classes) {
+        def hashes = classes.collectEntries { name, hash -> [name, [hash] as byte[]] }
+        def analysis = [A: dependents("ATest"), ATest: dependents(), BTest: dependents(), CTest: dependents()]
+        new TestClasspathSnapshot("config", [:], hashes, [:], new ClassSetAnalysisData(analysis))
+    }
+}
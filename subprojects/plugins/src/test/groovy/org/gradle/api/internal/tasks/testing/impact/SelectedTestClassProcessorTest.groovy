@@ -0,0 +1,44 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import spock.lang.Specification
+
+class SelectedTestClassProcessorTest extends Specification {
+    def delegate = Mock(TestClassProcessor)
+    def processor = new SelectedTestClassProcessor(delegate, ["org.gradle.SelectedTest"] as Set)
+
+    def "passes on selected test classes only"() {
+        def resultProcessor = Mock(TestResultProcessor)
+        def selected = new DefaultTestClassRunInfo("org.gradle.SelectedTest")
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(selected)
+        processor.processTestClass(new DefaultTestClassRunInfo("org.gradle.OtherTest"))
+        processor.stop()
+
+        then:
+        1 * delegate.startProcessing(resultProcessor)
+        1 * delegate.processTestClass(selected)
+        1 * delegate.stop()
+        0 * _
+    }
+}
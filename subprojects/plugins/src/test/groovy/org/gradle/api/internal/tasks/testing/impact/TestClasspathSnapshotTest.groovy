@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact
+
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData
+import org.gradle.api.internal.tasks.compile.incremental.deps.DefaultDependentsSet
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet
+import spock.lang.Specification
+
+import static org.gradle.api.internal.tasks.compile.incremental.deps.DefaultDependentsSet.dependents
+
+class TestClasspathSnapshotTest extends Specification {
+
+    // ATest -> A -> B, BTest -> B, CTest -> C
+    def analysis = [
+        A: dependents("ATest"), B: dependents("A", "BTest"), C: dependents("CTest"),
+        ATest: dependents(), BTest: dependents(), CTest: dependents()
+    ]
+    def hashes = [A: hash(1), B: hash(2), C: hash(3), ATest: hash(4), BTest: hash(5), CTest: hash(6)]
+    def previous = snapshot(hashes)
+
+    def "no classes are affected when nothing changed"() {
+        expect:
+        snapshot(hashes).getAffectedClassesSince(previous) == [] as Set
+    }
+
+    def "changed class affects its transitive dependents"() {
+        expect:
+        snapshot(hashes + [B: hash(7)]).getAffectedClassesSince(previous) == ["B", "A", "ATest", "BTest"] as Set
+        snapshot(hashes + [C: hash(7)]).getAffectedClassesSince(previous) == ["C", "CTest"] as Set
+    }
+
+    def "added and removed classes are affected"() {
+        def current = hashes + [DTest: hash(7)]
+        current.remove("C")
+
+        expect:
+        snapshot(current, analysis + [DTest: dependents()]).getAffectedClassesSince(previous) == ["C", "CTest", "DTest"] as Set
+    }
+
+    def "all classes are affected when a changed class is a dependency to all"() {
+        def current = snapshot(hashes + [C: hash(7)], analysis + [C: new DefaultDependentsSet(true, ["CTest"])])
+
+        expect:
+        current.getAffectedClassesSince(snapshot(hashes, analysis + [C: new DefaultDependentsSet(true, ["CTest"])])) == null
+    }
+
+    def "all classes are affected when the configuration changed"() {
+        def current = new TestClasspathSnapshot("other", [:], hashes, [:], new ClassSetAnalysisData(analysis))
+
+        expect:
+        current.getAffectedClassesSince(previous) == null
+    }
+
+    def "all classes are affected when a resource changed"() {
+        def current = new TestClasspathSnapshot("config", [:], hashes, ["/a.properties": hash(1)], new ClassSetAnalysisData(analysis))
+
+        expect:
+        current.getAffectedClassesSince(previous) == null
+    }
+
+    private TestClasspathSnapshot snapshot(Map<String, byte[]> classHashes, Map<String, DependentsSet> dependents = analysis) {
+        new TestClasspathSnapshot("config", [:], classHashes, [:], new ClassSetAnalysisData(dependents))
+    }
+
+    private static byte[] hash(int value) {
+        [value] as byte[]
+    }
+}
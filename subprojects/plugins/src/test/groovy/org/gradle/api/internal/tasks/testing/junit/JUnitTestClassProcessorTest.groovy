@@ -17,6 +17,7 @@
 package org.gradle.api.internal.tasks.testing.junit
 
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassShardRunInfo
 import org.gradle.api.internal.tasks.testing.TestResultProcessor
 import org.gradle.internal.TrueTimeProvider
 import org.gradle.internal.id.LongIdGenerator
@@ -245,6 +246,32 @@ class JUnitTestClassProcessorTest extends Specification {
         0 * processor.started(_, _)
     }
 
+    def "executes the test methods of a shard"() {
+        when:
+        classProcessor.startProcessing(processor)
+        classProcessor.processTestClass(new TestClassShardRunInfo(ATestClassWithSeveralMethods.name, ["pass", "fail"] as Set, false, null))
+        classProcessor.stop()
+
+        then:
+        1 * processor.started({ it.name == ATestClassWithSeveralMethods.name }, _)
+        1 * processor.started({ it.name == "pass" && it.className == ATestClassWithSeveralMethods.name }, _)
+        1 * processor.started({ it.name == "fail" && it.className == ATestClassWithSeveralMethods.name }, _)
+        0 * processor.started(_, _)
+    }
+
+    def "executes all test methods except those excluded from a shard"() {
+        when:
+        classProcessor.startProcessing(processor)
+        classProcessor.processTestClass(new TestClassShardRunInfo(ATestClassWithSeveralMethods.name, ["pass", "fail", "passSlowly"] as Set, true, null))
+        classProcessor.stop()
+
+        then:
+        1 * processor.started({ it.name == ATestClassWithSeveralMethods.name }, _)
+        1 * processor.started({ it.name == "pass2" && it.className == ATestClassWithSeveralMethods.name }, _)
+        1 * processor.started({ it.name == "passSlowly2" && it.className == ATestClassWithSeveralMethods.name }, _)
+        0 * processor.started(_, _)
+    }
+
     def "executes methods from multiple classes by pattern"() {
         classProcessor = withSpec(new JUnitSpec([] as Set, [] as Set, ["*Methods.*Slowly*"] as Set))
 
@@ -18,6 +18,8 @@ package org.gradle.api.internal.tasks.testing.junit.result
 
 import org.gradle.api.Action
 import org.gradle.api.GradleException
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.DefaultBuildOperationProcessor
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
 import spock.lang.Specification
@@ -54,6 +56,28 @@ class Binary2JUnitXmlReportGeneratorSpec extends Specification {
         0 * generator.saxWriter._
     }
 
+    def "writes results using build operation processor"() {
+        def processor = new DefaultBuildOperationProcessor(new DefaultExecutorFactory(), 4)
+        generator = new Binary2JUnitXmlReportGenerator(temp.testDirectory, resultsProvider, TestOutputAssociation.WITH_SUITE, processor)
+        generator.saxWriter = Mock(JUnitXmlResultWriter)
+        def results = (1..20).collect { new TestClassResult(it, "FooTest$it", 100).add(new TestMethodResult(it, "foo")) }
+
+        resultsProvider.visitClasses(_) >> { Action action ->
+            results.each { action.execute(it) }
+        }
+
+        when:
+        generator.generate()
+
+        then:
+        20 * generator.saxWriter.write({ it in results }, _)
+        0 * generator.saxWriter._
+        results.every { temp.testDirectory.file("TEST-${it.className}.xml").exists() }
+
+        cleanup:
+        processor.stop()
+    }
+
     def "adds context information to the failure if something goes wrong"() {
         def fooTest = new TestClassResult(1, 'FooTest', 100)
                 .add(new TestMethodResult(1, "foo"))
@@ -98,6 +98,28 @@ class TestOutputStoreSpec extends WorkspaceTest {
         reader.close()
     }
 
+    def "output can be read concurrently"() {
+        when:
+        def writer = output.writer()
+        20.times { classId ->
+            100.times { writer.onOutput(classId, 1, output(StdOut, "[out-\$classId]")) }
+        }
+        writer.close()
+        def reader = output.reader()
+        def results = Collections.synchronizedMap([:])
+        def threads = (0..<20).collect { classId ->
+            Thread.start { results[classId] = collectAllOutput(reader, classId, StdOut) }
+        }
+        threads*.join()
+
+        then:
+        results.size() == 20
+        results.every { classId, text -> text == "[out-\$classId]" * 100 }
+
+        cleanup:
+        reader.close()
+    }
+
     def DefaultTestOutputEvent output(TestOutputEvent.Destination destination, String msg) {
         new DefaultTestOutputEvent(destination, msg)
     }
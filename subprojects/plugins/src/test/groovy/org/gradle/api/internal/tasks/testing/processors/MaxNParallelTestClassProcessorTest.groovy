@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.testing.processors
 
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
 import org.gradle.api.internal.tasks.testing.TestResultProcessor
@@ -30,7 +31,9 @@ class MaxNParallelTestClassProcessorTest extends Specification {
     private final TestResultProcessor asyncResultProcessor = Mock()
     private final Actor resultProcessorActor = Mock()
     private final ActorFactory actorFactory = Mock()
-    private final MaxNParallelTestClassProcessor processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory)
+    private final Map<String, Long> previousDurations = [:]
+    private final MaxNParallelTestClassProcessor processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, previousDurations)
+    private final List<TestClassProcessor> targets = []
 
     def createsThreadSafeWrapperForResultProcessorOnStart() {
         when:
@@ -71,7 +74,7 @@ class MaxNParallelTestClassProcessorTest extends Specification {
 
         then:
         1 * factory.create() >> processor1
-        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actorFactory.createActor(_ as TestClassProcessor) >> actor1
         1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
         1 * asyncProcessor1.startProcessing(asyncResultProcessor)
         1 * asyncProcessor1.processTestClass(test)
@@ -101,7 +104,7 @@ class MaxNParallelTestClassProcessorTest extends Specification {
 
         then:
         1 * factory.create() >> processor1
-        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actorFactory.createActor(_ as TestClassProcessor) >> actor1
         1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
         1 * asyncProcessor1.startProcessing(asyncResultProcessor)
         1 * asyncProcessor1.processTestClass(test)
@@ -111,7 +114,7 @@ class MaxNParallelTestClassProcessorTest extends Specification {
 
         then:
         1 * factory.create() >> processor2
-        1 * actorFactory.createActor(processor2) >> actor2
+        1 * actorFactory.createActor(_ as TestClassProcessor) >> actor2
         1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
         1 * asyncProcessor2.startProcessing(asyncResultProcessor)
         1 * asyncProcessor2.processTestClass(test)
@@ -124,47 +127,105 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * asyncProcessor2.stop()
     }
 
-    def roundRobinsTestClassesToProcessors() {
-        TestClassRunInfo test = Mock()
+    def handsQueuedTestClassToFirstProcessorToFinish() {
+        def test1 = testClass("Test1")
+        def test2 = testClass("Test2")
+        def test3 = testClass("Test3")
+        def test4 = testClass("Test4")
         TestClassProcessor processor1 = Mock()
         TestClassProcessor processor2 = Mock()
         TestClassProcessor asyncProcessor1 = Mock()
         TestClassProcessor asyncProcessor2 = Mock()
-        Actor actor1 = Mock()
-        Actor actor2 = Mock()
 
         startProcessor()
 
         when:
-        processor.processTestClass(test)
+        processor.processTestClass(test1)
+        processor.processTestClass(test2)
+        processor.processTestClass(test3)
+        processor.processTestClass(test4)
 
         then:
-        1 * factory.create() >> processor1
-        1 * actorFactory.createActor(processor1) >> actor1
-        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
-        1 * asyncProcessor1.startProcessing(asyncResultProcessor)
-        1 * asyncProcessor1.processTestClass(test)
+        2 * factory.create() >>> [processor1, processor2]
+        2 * actorFactory.createActor(_ as TestClassProcessor) >> { TestClassProcessor target -> actorFor(target, targets.empty ? asyncProcessor1 : asyncProcessor2) }
+        1 * asyncProcessor1.processTestClass(test1)
+        1 * asyncProcessor2.processTestClass(test2)
+        0 * asyncProcessor1.processTestClass(_)
+        0 * asyncProcessor2.processTestClass(_)
 
         when:
-        processor.processTestClass(test)
+        targets[1].processTestClass(test2)
 
         then:
-        1 * factory.create() >> processor2
-        1 * actorFactory.createActor(processor2) >> actor2
-        1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
-        1 * asyncProcessor2.startProcessing(asyncResultProcessor)
-        1 * asyncProcessor2.processTestClass(test)
+        1 * processor2.processTestClass(test2)
+        1 * asyncProcessor2.processTestClass(test3)
+        0 * asyncProcessor1.processTestClass(_)
 
         when:
-        processor.processTestClass(test)
+        targets[1].processTestClass(test3)
 
         then:
-        1 * asyncProcessor1.processTestClass(test)
+        1 * processor2.processTestClass(test3)
+        1 * asyncProcessor2.processTestClass(test4)
+        0 * asyncProcessor1.processTestClass(_)
+    }
+
+    def handsIdleProcessorNextTestClass() {
+        def test1 = testClass("Test1")
+        def test2 = testClass("Test2")
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        def singleProcessor = new MaxNParallelTestClassProcessor(1, factory, actorFactory)
+
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        singleProcessor.startProcessing(resultProcessor)
 
         when:
-        processor.processTestClass(test)
+        singleProcessor.processTestClass(test1)
+        targets[0].processTestClass(test1)
+        singleProcessor.processTestClass(test2)
 
         then:
-        1 * asyncProcessor2.processTestClass(test)
+        1 * factory.create() >> processor1
+        1 * actorFactory.createActor(_ as TestClassProcessor) >> { TestClassProcessor target -> actorFor(target, asyncProcessor1) }
+        1 * asyncProcessor1.processTestClass(test1)
+        1 * asyncProcessor1.processTestClass(test2)
+    }
+
+    def handsOutQueuedTestClassesLongestFirst() {
+        def first = testClass("First")
+        def quick = testClass("Quick")
+        def slow = testClass("Slow")
+        def unknown = testClass("Unknown")
+        def medium = testClass("Medium")
+        previousDurations.putAll(Quick: 10L, Slow: 1000L, Medium: 100L)
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        def singleProcessor = new MaxNParallelTestClassProcessor(1, factory, actorFactory, previousDurations)
+        def order = []
+
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        singleProcessor.startProcessing(resultProcessor)
+        1 * factory.create() >> processor1
+        1 * actorFactory.createActor(_ as TestClassProcessor) >> { TestClassProcessor target -> actorFor(target, asyncProcessor1) }
+        _ * asyncProcessor1.processTestClass(_) >> { TestClassRunInfo test -> order << test.testClassName }
+
+        when:
+        [first, quick, slow, unknown, medium].each { singleProcessor.processTestClass(it) }
+        4.times { targets[0].processTestClass(null) }
+
+        then:
+        order == ["First", "Unknown", "Slow", "Medium", "Quick"]
+    }
+
+    private static TestClassRunInfo testClass(String name) {
+        return new DefaultTestClassRunInfo(name)
+    }
+
+    private Actor actorFor(TestClassProcessor target, TestClassProcessor proxy) {
+        targets << target
+        return [getProxy: { Class type -> proxy }, stop: {}] as Actor
     }
 }
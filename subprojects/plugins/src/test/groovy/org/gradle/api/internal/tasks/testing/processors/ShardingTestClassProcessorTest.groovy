@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassShardRunInfo
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import spock.lang.Specification
+
+class ShardingTestClassProcessorTest extends Specification {
+    def target = Mock(TestClassProcessor)
+    def classDurations = [Large: 12000L, Small: 2000L, Other: 2000L]
+    def methodDurations = [
+        Large: [a: 5000L, b: 3000L, c: 2000L, d: 1000L, e: 900L],
+        Small: [a: 1000L, b: 1000L],
+        Other: [a: 1000L, b: 1000L]
+    ]
+
+    def "delegates start and stop"() {
+        def processor = new ShardingTestClassProcessor(target, 2, classDurations, methodDurations)
+        def resultProcessor = Mock(TestResultProcessor)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.stop()
+
+        then:
+        1 * target.startProcessing(resultProcessor)
+        1 * target.stop()
+    }
+
+    def "splits test class that takes longer than a share of the previous run over the forks"() {
+        def processor = new ShardingTestClassProcessor(target, 3, classDurations, methodDurations)
+        def shards = []
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo("Large"))
+
+        then:
+        3 * target.processTestClass(_) >> { shards << it[0] }
+        0 * target._
+
+        and:
+        shards.every { it instanceof TestClassShardRunInfo && it.testClassName == "Large" }
+        shards[0].excludesTestMethods
+        shards[0].testMethodNames == ["b", "c", "d", "e"] as Set
+        shards[0].previousDuration == 5000L
+        !shards[1].excludesTestMethods
+        shards[1].testMethodNames == ["b", "e"] as Set
+        shards[1].previousDuration == 3900L
+        !shards[2].excludesTestMethods
+        shards[2].testMethodNames == ["c", "d"] as Set
+        shards[2].previousDuration == 3000L
+
+        and:
+        shards[0].includes("a")
+        shards[0].includes("new")
+        !shards[0].includes("b")
+    }
+
+    def "does not split test class that takes less than a share of the previous run"() {
+        def processor = new ShardingTestClassProcessor(target, 3, classDurations, methodDurations)
+        def testClass = new DefaultTestClassRunInfo("Small")
+
+        when:
+        processor.processTestClass(testClass)
+
+        then:
+        1 * target.processTestClass(testClass)
+        0 * target._
+    }
+
+    def "does not split test class without previous durations"() {
+        def processor = new ShardingTestClassProcessor(target, 3, classDurations, methodDurations)
+        def testClass = new DefaultTestClassRunInfo("New")
+
+        when:
+        processor.processTestClass(testClass)
+
+        then:
+        1 * target.processTestClass(testClass)
+        0 * target._
+    }
+
+    def "does not split test class into shards shorter than the minimum duration"() {
+        def processor = new ShardingTestClassProcessor(target, 8, [Large: 1500L], [Large: [a: 500L, b: 500L, c: 500L]])
+        def testClass = new DefaultTestClassRunInfo("Large")
+
+        when:
+        processor.processTestClass(testClass)
+
+        then:
+        1 * target.processTestClass(testClass)
+        0 * target._
+    }
+
+    def "does not split test class into more shards than it has test methods"() {
+        def processor = new ShardingTestClassProcessor(target, 8, [Large: 20000L], [Large: [a: 10000L, b: 10000L]])
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo("Large"))
+
+        then:
+        2 * target.processTestClass({ it instanceof TestClassShardRunInfo })
+        0 * target._
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.internal.tasks.testing.DefaultTestDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdOut
+
+class BatchingTestResultProcessorTest extends ConcurrentSpec {
+    def listener = Mock(TestEventBatchListener)
+    def target = Mock(TestResultProcessor)
+    def test = new DefaultTestDescriptor("id", "Foo", "bar")
+    def failure = new RuntimeException()
+
+    def "sends events in batches which replay in order"() {
+        def processor = new BatchingTestResultProcessor(listener, executorFactory)
+        def startEvent = new TestStartEvent(100)
+        def outputEvent = new DefaultTestOutputEvent(StdOut, "out")
+        def completeEvent = new TestCompleteEvent(200)
+        def batch = null
+
+        when:
+        processor.started(test, startEvent)
+        processor.output("id", outputEvent)
+        processor.failure("id", failure)
+        processor.completed("id", completeEvent)
+        processor.flush()
+
+        then:
+        1 * listener.eventsProduced(_) >> { batch = it[0] }
+        0 * listener._
+
+        when:
+        batch.replay(target)
+
+        then:
+        1 * target.started(test, startEvent)
+
+        then:
+        1 * target.output("id", outputEvent)
+
+        then:
+        1 * target.failure("id", failure)
+
+        then:
+        1 * target.completed("id", completeEvent)
+        0 * target._
+
+        cleanup:
+        processor.stop()
+    }
+
+    def "sends batch when it holds the maximum number of events"() {
+        def processor = new BatchingTestResultProcessor(listener, executorFactory)
+
+        when:
+        (BatchingTestResultProcessor.MAX_BATCH_EVENTS + 1).times {
+            processor.completed("id", new TestCompleteEvent(200))
+        }
+
+        then:
+        1 * listener.eventsProduced({ it.size() == BatchingTestResultProcessor.MAX_BATCH_EVENTS })
+        0 * listener._
+
+        when:
+        processor.stop()
+
+        then:
+        1 * listener.eventsProduced({ it.size() == 1 })
+        0 * listener._
+    }
+
+    def "sends batch when it holds the maximum amount of output"() {
+        def processor = new BatchingTestResultProcessor(listener, executorFactory)
+        def output = "x" * (BatchingTestResultProcessor.MAX_BATCH_OUTPUT_CHARS / 2)
+
+        when:
+        3.times {
+            processor.output("id", new DefaultTestOutputEvent(StdOut, output))
+        }
+
+        then:
+        1 * listener.eventsProduced({ it.size() == 2 })
+        0 * listener._
+
+        cleanup:
+        processor.stop()
+    }
+
+    def "sends batch once its first event is old enough"() {
+        def processor = new BatchingTestResultProcessor(listener, executorFactory)
+
+        when:
+        async {
+            processor.output("id", new DefaultTestOutputEvent(StdOut, "out"))
+            thread.blockUntil.sent
+            processor.stop()
+        }
+
+        then:
+        1 * listener.eventsProduced({ it.size() == 1 }) >> { instant.sent }
+        0 * listener._
+    }
+
+    def "collects events while a batch is being sent"() {
+        def processor = new BatchingTestResultProcessor(listener, executorFactory)
+        processor.completed("id", new TestCompleteEvent(200))
+
+        when:
+        async {
+            start {
+                processor.flush()
+            }
+            thread.blockUntil.sending
+            processor.completed("id", new TestCompleteEvent(300))
+            instant.added
+        }
+
+        then:
+        1 * listener.eventsProduced({ it.size() == 1 }) >> {
+            instant.sending
+            thread.blockUntil.added
+        }
+        0 * listener._
+
+        when:
+        processor.stop()
+
+        then:
+        1 * listener.eventsProduced({ it.size() == 1 })
+        0 * listener._
+    }
+
+    def "does not send empty batches"() {
+        def processor = new BatchingTestResultProcessor(listener, executorFactory)
+
+        when:
+        processor.flush()
+        processor.stop()
+
+        then:
+        0 * listener._
+    }
+}
@@ -21,12 +21,12 @@ import org.gradle.api.internal.tasks.testing.TestClassRunInfo
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
 import org.gradle.internal.Factory
 import org.gradle.process.JavaForkOptions
-import spock.lang.Specification
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 import spock.lang.Subject
 
-class ForkingTestClassProcessorTest extends Specification {
+class ForkingTestClassProcessorTest extends ConcurrentSpec {
 
-    @Subject processor = Spy(ForkingTestClassProcessor, constructorArgs: [Mock(Factory), Mock(WorkerTestClassProcessorFactory), Mock(JavaForkOptions), [new File("classpath.jar")], Mock(Action)])
+    @Subject processor = Spy(ForkingTestClassProcessor, constructorArgs: [Mock(Factory), Mock(WorkerTestClassProcessorFactory), Mock(JavaForkOptions), [new File("classpath.jar")], Mock(Action), false])
 
     def "starts worker process on first test"() {
         def test1 = Mock(TestClassRunInfo)
@@ -37,10 +37,49 @@ class ForkingTestClassProcessorTest extends Specification {
         processor.processTestClass(test1)
         processor.processTestClass(test2)
 
+        then:
+        1 * processor.forkProcess() >> remoteProcessor
+        1 * remoteProcessor.processTestClass(test1) >> { processor.testClassProcessed() }
+        1 * remoteProcessor.processTestClass(test2) >> { processor.testClassProcessed() }
+        0 * remoteProcessor._
+    }
+
+    def "does not wait for worker when it has no other test class to execute"() {
+        def test1 = Mock(TestClassRunInfo)
+        def remoteProcessor = Mock(RemoteTestClassProcessor)
+
+        when:
+        processor.processTestClass(test1)
+
         then:
         1 * processor.forkProcess() >> remoteProcessor
         1 * remoteProcessor.processTestClass(test1)
-        1 * remoteProcessor.processTestClass(test2)
         0 * remoteProcessor._
     }
+
+    def "waits for worker to finish previous test class before accepting another"() {
+        def test1 = Mock(TestClassRunInfo)
+        def test2 = Mock(TestClassRunInfo)
+        def remoteProcessor = Mock(RemoteTestClassProcessor)
+
+        when:
+        async {
+            processor.processTestClass(test1)
+            start {
+                thread.blockUntil.sent
+                instant.processed
+                processor.testClassProcessed()
+            }
+            processor.processTestClass(test2)
+            instant.returned
+        }
+
+        then:
+        instant.returned > instant.processed
+
+        and:
+        1 * processor.forkProcess() >> remoteProcessor
+        1 * remoteProcessor.processTestClass(test1)
+        1 * remoteProcessor.processTestClass(test2) >> { instant.sent }
+    }
 }
@@ -38,6 +38,21 @@ class TestEventSerializerTest extends SerializerSpec {
         result[0].testClassName == "some-test"
     }
 
+    def "serializes TestClassShardRunInfo"() {
+        def info = new TestClassShardRunInfo("some-test", ["a", "b"] as Set, true, 1000L)
+
+        when:
+        def result = serialize(info)
+
+        then:
+        result.length == 1
+        result[0] instanceof TestClassShardRunInfo
+        result[0].testClassName == "some-test"
+        result[0].testMethodNames == ["a", "b"] as Set
+        result[0].excludesTestMethods
+        result[0].previousDuration == null
+    }
+
     def "serializes CompositeId"() {
         def id = new CompositeIdGenerator.CompositeId(1L, 2L)
 
@@ -184,6 +199,46 @@ class TestEventSerializerTest extends SerializerSpec {
         result[0].cause.message == "cause"
     }
 
+    def "serializes TestEventBatch"() {
+        def id = new CompositeIdGenerator.CompositeId(1L, 2L)
+        def parentId = new CompositeIdGenerator.CompositeId(1L, 1L)
+        def batch = new TestEventBatch()
+        batch.started(new DefaultTestMethodDescriptor(id, "Foo", "bar"), new TestStartEvent(1000L, parentId))
+        batch.output(id, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdErr, "hi"))
+        batch.failure(id, new GradleException("broken"))
+        batch.completed(id, new TestCompleteEvent(1200L, TestResult.ResultType.FAILURE))
+        batch.completed(parentId, new TestCompleteEvent(900L))
+        def target = Mock(TestResultProcessor)
+
+        when:
+        def result = serialize(batch)
+
+        then:
+        result.length == 1
+        result[0] instanceof TestEventBatch
+        result[0].size() == 5
+
+        when:
+        result[0].replay(target)
+
+        then:
+        1 * target.started({ it instanceof DefaultTestMethodDescriptor && it.id == id && it.className == "Foo" && it.name == "bar" },
+            { it.startTime == 1000L && it.parentId == parentId })
+
+        then:
+        1 * target.output(id, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdErr, "hi"))
+
+        then:
+        1 * target.failure(id, { it.class == GradleException && it.message == "broken" })
+
+        then:
+        1 * target.completed(id, { it.endTime == 1200L && it.resultType == TestResult.ResultType.FAILURE })
+
+        then:
+        1 * target.completed(parentId, { it.endTime == 900L && it.resultType == null })
+        0 * target._
+    }
+
     def Object[] serialize(Object... source) {
         return super.serialize(source, serializer)
     }
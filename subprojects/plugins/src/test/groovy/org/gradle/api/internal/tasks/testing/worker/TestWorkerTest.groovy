@@ -19,7 +19,6 @@ package org.gradle.api.internal.tasks.testing.worker
 
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
-import org.gradle.api.internal.tasks.testing.TestResultProcessor
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
 import org.gradle.messaging.remote.ObjectConnection
 import org.gradle.process.internal.WorkerProcessContext
@@ -34,7 +33,8 @@ public class TestWorkerTest extends ConcurrentSpec {
     def factory = Mock(WorkerTestClassProcessorFactory)
     def processor = Mock(TestClassProcessor)
     def test = Mock(TestClassRunInfo)
-    def resultProcessor = Mock(TestResultProcessor)
+    def batchListener = Mock(TestEventBatchListener)
+    def processedListener = Mock(TestClassProcessedListener)
     def worker = new TestWorker(factory)
 
     def setup() {
@@ -55,7 +55,8 @@ public class TestWorkerTest extends ConcurrentSpec {
 
         and:
         1 * factory.create(_) >> processor
-        1 * connection.addOutgoing(TestResultProcessor) >> resultProcessor
+        1 * connection.addOutgoing(TestEventBatchListener) >> batchListener
+        1 * connection.addOutgoing(TestClassProcessedListener) >> processedListener
         1 * connection.addIncoming(RemoteTestClassProcessor, worker)
         1 * connection.useParameterSerializer(_)
         1 * connection.connect() >> {
@@ -69,6 +70,7 @@ public class TestWorkerTest extends ConcurrentSpec {
         }
         1 * processor.startProcessing(_)
         1 * processor.processTestClass(test)
+        1 * processedListener.testClassProcessed()
         1 * processor.stop()
     }
 }
@@ -22,6 +22,7 @@ import java.util.Collection;
 
 public class DefaultHttpSettings implements HttpSettings {
     private final HttpProxySettings proxySettings = new JavaSystemPropertiesHttpProxySettings();
+    private final HttpConnectionPoolSettings connectionPoolSettings = new JavaSystemPropertiesHttpConnectionPoolSettings();
     private final Collection<Authentication> authenticationSettings;
 
     public DefaultHttpSettings(Collection<Authentication> authenticationSettings) {
@@ -41,4 +42,9 @@ public class DefaultHttpSettings implements HttpSettings {
     public Collection<Authentication> getAuthenticationSettings() {
         return authenticationSettings;
     }
+
+    @Override
+    public HttpConnectionPoolSettings getConnectionPoolSettings() {
+        return connectionPoolSettings;
+    }
 }
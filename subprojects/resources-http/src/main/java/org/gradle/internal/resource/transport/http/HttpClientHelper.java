@@ -21,32 +21,58 @@ import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.impl.client.DecompressingHttpClient;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.impl.client.DefaultRedirectStrategy;
 import org.apache.http.impl.client.SystemDefaultHttpClient;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
 import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.util.EntityUtils;
 import org.gradle.api.UncheckedIOException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides some convenience and unified logging.
  */
-public class HttpClientHelper {
+public class HttpClientHelper implements Closeable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientHelper.class);
     private final HttpClient client;
-    private final BasicHttpContext httpContext = new BasicHttpContext();
+    private final ClientConnectionManager connectionManager;
+    private final long idleConnectionTimeout;
+    private final HttpClientStatistics statistics;
+    private final ThreadLocal<BasicHttpContext> httpContext = new ThreadLocal<BasicHttpContext>() {
+        @Override
+        protected BasicHttpContext initialValue() {
+            // The context holds per-connection authentication state, so is not shared between threads
+            return new BasicHttpContext();
+        }
+    };
 
     public HttpClientHelper(HttpSettings settings) {
+        this(settings, new HttpClientStatistics());
+    }
+
+    public HttpClientHelper(HttpSettings settings, final HttpClientStatistics statistics) {
         alwaysUseKeepAliveConnections();
-        DefaultHttpClient client = new SystemDefaultHttpClient();
+        final HttpConnectionPoolSettings poolSettings = settings.getConnectionPoolSettings();
+        DefaultHttpClient client = new SystemDefaultHttpClient() {
+            @Override
+            protected ClientConnectionManager createClientConnectionManager() {
+                return new InstrumentedClientConnectionManager(SchemeRegistryFactory.createSystemDefault(), poolSettings, statistics);
+            }
+        };
         client.setRedirectStrategy(new AlwaysRedirectRedirectStrategy());
         new HttpClientConfigurer(settings).configure(client);
+        this.connectionManager = client.getConnectionManager();
+        this.idleConnectionTimeout = poolSettings.getIdleConnectionTimeout();
+        this.statistics = statistics;
         this.client = new DecompressingHttpClient(client);
     }
 
@@ -108,9 +134,29 @@ public class HttpClientHelper {
 
     public HttpResponse performHttpRequest(HttpRequestBase request) throws IOException {
         // Without this, HTTP Client prohibits multiple redirects to the same location within the same context
-        httpContext.removeAttribute(DefaultRedirectStrategy.REDIRECT_LOCATIONS);
+        BasicHttpContext context = httpContext.get();
+        context.removeAttribute(DefaultRedirectStrategy.REDIRECT_LOCATIONS);
         LOGGER.debug("Performing HTTP {}: {}", request.getMethod(), request.getURI());
-        return client.execute(request, httpContext);
+        evictStaleConnections();
+        long start = System.currentTimeMillis();
+        HttpResponse response = client.execute(request, context);
+        statistics.requestCompleted(request.getMethod(), System.currentTimeMillis() - start);
+        return response;
+    }
+
+    private void evictStaleConnections() {
+        // Close connections the server has probably closed already, rather than discovering this when the connection is reused
+        connectionManager.closeExpiredConnections();
+        if (idleConnectionTimeout > 0) {
+            connectionManager.closeIdleConnections(idleConnectionTimeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Closes all connections of this client. The client cannot be used afterwards.
+     */
+    public void close() {
+        connectionManager.shutdown();
     }
 
     private HttpResponse processResponse(String source, String method, HttpResponse response) {
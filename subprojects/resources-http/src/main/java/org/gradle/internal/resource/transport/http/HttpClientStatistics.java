@@ -0,0 +1,172 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects the request latencies and connection pool utilization of the HTTP clients used by a build.
+ */
+public class HttpClientStatistics {
+    private final ConcurrentMap<String, Histogram> requestTimes = new ConcurrentHashMap<String, Histogram>();
+    private final Histogram leaseWaitTimes = new Histogram();
+    private final AtomicLong newConnections = new AtomicLong();
+    private final AtomicLong reusedConnections = new AtomicLong();
+    private final AtomicInteger peakLeased = new AtomicInteger();
+    private final AtomicInteger peakPending = new AtomicInteger();
+
+    /**
+     * Records the time taken to receive the response to a request.
+     */
+    public void requestCompleted(String method, long elapsedMillis) {
+        Histogram histogram = requestTimes.get(method);
+        if (histogram == null) {
+            Histogram newHistogram = new Histogram();
+            histogram = requestTimes.putIfAbsent(method, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+        histogram.record(elapsedMillis);
+    }
+
+    /**
+     * Records a connection leased from a pool.
+     *
+     * @param waitMillis the time spent waiting for the connection to become available.
+     * @param reused whether the connection was already open, or had to be opened for this lease.
+     * @param leased the number of connections leased from the pool, including this one.
+     * @param pending the number of requests still waiting for a connection from the pool.
+     */
+    public void connectionLeased(long waitMillis, boolean reused, int leased, int pending) {
+        leaseWaitTimes.record(waitMillis);
+        if (reused) {
+            reusedConnections.incrementAndGet();
+        } else {
+            newConnections.incrementAndGet();
+        }
+        updatePeak(peakLeased, leased);
+        updatePeak(peakPending, pending);
+    }
+
+    private static void updatePeak(AtomicInteger peak, int value) {
+        while (true) {
+            int current = peak.get();
+            if (value <= current || peak.compareAndSet(current, value)) {
+                return;
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return requestTimes.isEmpty() && leaseWaitTimes.getCount() == 0;
+    }
+
+    /**
+     * Discards the statistics collected so far.
+     */
+    public void reset() {
+        requestTimes.clear();
+        leaseWaitTimes.reset();
+        newConnections.set(0);
+        reusedConnections.set(0);
+        peakLeased.set(0);
+        peakPending.set(0);
+    }
+
+    /**
+     * Returns a description of each statistic, in display order.
+     */
+    public Map<String, String> getStatistics() {
+        Map<String, String> statistics = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, Histogram> entry : new TreeMap<String, Histogram>(requestTimes).entrySet()) {
+            statistics.put("HTTP " + entry.getKey() + " response time", entry.getValue().toString());
+        }
+        statistics.put("Connection lease wait time", leaseWaitTimes.toString());
+        statistics.put("Connections opened", String.valueOf(newConnections.get()));
+        statistics.put("Connections reused", String.valueOf(reusedConnections.get()));
+        statistics.put("Peak leased connections", String.valueOf(peakLeased.get()));
+        statistics.put("Peak pending connection requests", String.valueOf(peakPending.get()));
+        return statistics;
+    }
+
+    /**
+     * A histogram of durations, with exponentially growing buckets.
+     */
+    static class Histogram {
+        private static final long[] BOUNDS = {1, 10, 50, 100, 250, 500, 1000, 2500, 5000};
+
+        private final AtomicLongArray counts = new AtomicLongArray(BOUNDS.length + 1);
+        private final AtomicLong total = new AtomicLong();
+
+        void record(long millis) {
+            int bucket = 0;
+            while (bucket < BOUNDS.length && millis > BOUNDS[bucket]) {
+                bucket++;
+            }
+            counts.incrementAndGet(bucket);
+            total.addAndGet(millis);
+        }
+
+        long getCount() {
+            long count = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                count += counts.get(i);
+            }
+            return count;
+        }
+
+        void reset() {
+            for (int i = 0; i < counts.length(); i++) {
+                counts.set(i, 0);
+            }
+            total.set(0);
+        }
+
+        @Override
+        public String toString() {
+            long count = getCount();
+            StringBuilder builder = new StringBuilder();
+            builder.append(count).append(count == 1 ? " sample" : " samples");
+            if (count == 0) {
+                return builder.toString();
+            }
+            builder.append(", mean ").append(total.get() / count).append("ms");
+            for (int i = 0; i < counts.length(); i++) {
+                long bucketCount = counts.get(i);
+                if (bucketCount == 0) {
+                    continue;
+                }
+                builder.append(", ");
+                if (i < BOUNDS.length) {
+                    builder.append("<=").append(BOUNDS[i]).append("ms");
+                } else {
+                    builder.append(">").append(BOUNDS[BOUNDS.length - 1]).append("ms");
+                }
+                builder.append(": ").append(bucketCount);
+            }
+            return builder.toString();
+        }
+    }
+}
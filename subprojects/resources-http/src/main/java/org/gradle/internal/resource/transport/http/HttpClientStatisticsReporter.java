@@ -0,0 +1,57 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
+import org.gradle.profile.BuildProfile;
+import org.gradle.profile.ProfileListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * Reports the HTTP statistics of a build in the build output at info level, and in the profile report.
+ */
+public class HttpClientStatisticsReporter extends BuildAdapter implements ProfileListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientStatisticsReporter.class);
+    private final HttpClientStatistics statistics;
+
+    public HttpClientStatisticsReporter(HttpClientStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void buildFinished(BuildResult result) {
+        if (statistics.isEmpty() || !LOGGER.isInfoEnabled()) {
+            return;
+        }
+        for (Map.Entry<String, String> statistic : statistics.getStatistics().entrySet()) {
+            LOGGER.info("{}: {}", statistic.getKey(), statistic.getValue());
+        }
+    }
+
+    public void buildFinished(BuildProfile result) {
+        if (statistics.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, String> statistic : statistics.getStatistics().entrySet()) {
+            result.addNetworkStatistic(statistic.getKey(), statistic.getValue());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+/**
+ * Controls how many persistent connections are kept open to each server, and for how long.
+ */
+public interface HttpConnectionPoolSettings {
+    /**
+     * The maximum number of connections to lease for a single route, that is, a single server or proxy.
+     */
+    int getMaxConnectionsPerRoute();
+
+    /**
+     * The maximum number of connections to lease over all routes.
+     */
+    int getMaxConnections();
+
+    /**
+     * The time in milliseconds after which an idle connection is closed, or 0 to keep idle connections open until the server closes them.
+     */
+    long getIdleConnectionTimeout();
+}
@@ -16,25 +16,28 @@
 
 package org.gradle.internal.resource.transport.http;
 
+import org.gradle.api.internal.tasks.cache.RemoteTaskOutputCacheFactory;
 import org.gradle.authentication.http.BasicAuthentication;
 import org.gradle.authentication.http.DigestAuthentication;
 import org.gradle.internal.authentication.DefaultBasicAuthentication;
 import org.gradle.internal.authentication.DefaultDigestAuthentication;
 import org.gradle.internal.authentication.AuthenticationSchemeRegistry;
+import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.resource.connector.ResourceConnectorFactory;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.PluginServiceRegistry;
 
 public class HttpResourcesPluginServiceRegistry implements PluginServiceRegistry {
     public void registerGlobalServices(ServiceRegistration registration) {
-        registration.addProvider(new GlobalScopeServices());
     }
 
     public void registerBuildSessionServices(ServiceRegistration registration) {
     }
 
     public void registerBuildServices(ServiceRegistration registration) {
+        registration.addProvider(new BuildScopeServices());
         registration.addProvider(new AuthenticationSchemeAction());
+        registration.addProvider(new HttpClientStatisticsAction());
     }
 
     public void registerGradleServices(ServiceRegistration registration) {
@@ -43,9 +46,18 @@ public class HttpResourcesPluginServiceRegistry implements PluginServiceRegistry
     public void registerProjectServices(ServiceRegistration registration) {
     }
 
-    private static class GlobalScopeServices {
-        ResourceConnectorFactory createHttpConnectorFactory() {
-            return new HttpConnectorFactory();
+    // Each build, including nested builds, has its own statistics, so they are reported for the build that made the requests
+    private static class BuildScopeServices {
+        HttpClientStatistics createHttpClientStatistics() {
+            return new HttpClientStatistics();
+        }
+
+        ResourceConnectorFactory createHttpConnectorFactory(HttpClientStatistics statistics) {
+            return new HttpConnectorFactory(statistics);
+        }
+
+        RemoteTaskOutputCacheFactory createHttpTaskOutputCacheFactory(HttpClientStatistics statistics) {
+            return new HttpTaskOutputCacheFactory(statistics);
         }
     }
 
@@ -55,4 +67,11 @@ public class HttpResourcesPluginServiceRegistry implements PluginServiceRegistry
             authenticationSchemeRegistry.registerScheme(DigestAuthentication.class, DefaultDigestAuthentication.class);
         }
     }
+
+    private static class HttpClientStatisticsAction {
+        public void configure(ServiceRegistration registration, ListenerManager listenerManager, HttpClientStatistics statistics) {
+            // Registered before the build's profile listeners, so the statistics are added to the profile before the report is generated
+            listenerManager.addListener(new HttpClientStatisticsReporter(statistics));
+        }
+    }
 }
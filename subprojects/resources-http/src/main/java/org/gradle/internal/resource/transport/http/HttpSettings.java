@@ -24,4 +24,6 @@ public interface HttpSettings {
     HttpProxySettings getProxySettings();
 
     Collection<Authentication> getAuthenticationSettings();
+
+    HttpConnectionPoolSettings getConnectionPoolSettings();
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.FileEntity;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.util.EntityUtils;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.tasks.cache.TaskOutputCache;
+import org.gradle.api.internal.tasks.cache.TaskOutputCacheKey;
+import org.gradle.api.internal.tasks.cache.TaskOutputReader;
+import org.gradle.api.internal.tasks.cache.TaskOutputWriter;
+import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.URI;
+
+/**
+ * A {@link TaskOutputCache} that shares entries through an HTTP server, using GET to load an entry and PUT to store one.
+ *
+ * <p>The cache is an optimization only: when the server cannot be reached, does not respond within the timeout or responds with an error, loading
+ * reports a miss so that the task is executed locally.</p>
+ */
+public class HttpTaskOutputCache implements TaskOutputCache, Closeable {
+    public static final int DEFAULT_TIMEOUT_MILLIS = 30000;
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpTaskOutputCache.class);
+
+    private final HttpClientHelper http;
+    private final URI root;
+    private final int timeoutMillis;
+
+    public HttpTaskOutputCache(HttpClientHelper http, URI root, int timeoutMillis) {
+        this.http = http;
+        this.root = root.getPath().endsWith("/") ? root : URI.create(root.toString() + "/");
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public boolean load(TaskOutputCacheKey key, TaskOutputReader reader) {
+        URI location = root.resolve(key.getHashCode());
+        File download;
+        try {
+            download = download(location);
+        } catch (IOException e) {
+            LOGGER.warn("Could not load cached task outputs from '{}', the task will be executed instead: {}", location, e.getMessage());
+            return false;
+        }
+        if (download == null) {
+            return false;
+        }
+        try {
+            InputStream input = new BufferedInputStream(new FileInputStream(download));
+            try {
+                reader.readFrom(input);
+            } finally {
+                input.close();
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not read cached task outputs from '%s'.", location), e);
+        } finally {
+            GFileUtils.deleteQuietly(download);
+        }
+    }
+
+    /**
+     * Downloads the entry to a temporary file first, so that a connection failure part way through the transfer can still fall back to executing the task.
+     */
+    private File download(URI location) throws IOException {
+        HttpGet request = new HttpGet(location);
+        HttpResponse response = execute(request);
+        HttpEntity entity = response.getEntity();
+        try {
+            if (http.wasMissing(response)) {
+                LOGGER.info("Task outputs not found in cache. [HTTP GET: {}]", location);
+                return null;
+            }
+            if (!http.wasSuccessful(response)) {
+                throw unexpectedStatus("GET", location, response);
+            }
+            File download = File.createTempFile("task-outputs", ".zip");
+            try {
+                OutputStream output = new FileOutputStream(download);
+                try {
+                    entity.writeTo(output);
+                } finally {
+                    output.close();
+                }
+            } catch (IOException e) {
+                GFileUtils.deleteQuietly(download);
+                throw e;
+            }
+            return download;
+        } finally {
+            EntityUtils.consume(entity);
+        }
+    }
+
+    /**
+     * Packs the entry into a temporary file first, so that the request can be sent again when the server asks for authentication or the request is retried.
+     */
+    @Override
+    public void store(TaskOutputCacheKey key, TaskOutputWriter writer) {
+        URI location = root.resolve(key.getHashCode());
+        try {
+            File upload = File.createTempFile("task-outputs", ".zip");
+            try {
+                OutputStream output = new BufferedOutputStream(new FileOutputStream(upload));
+                try {
+                    writer.writeTo(output);
+                } finally {
+                    output.close();
+                }
+                HttpPut request = new HttpPut(location);
+                request.setEntity(new FileEntity(upload, ContentType.APPLICATION_OCTET_STREAM));
+                HttpResponse response = execute(request);
+                EntityUtils.consume(response.getEntity());
+                if (!http.wasSuccessful(response)) {
+                    throw unexpectedStatus("PUT", location, response);
+                }
+            } finally {
+                GFileUtils.deleteQuietly(upload);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not store task outputs to '%s'.", location), e);
+        }
+    }
+
+    private HttpResponse execute(HttpRequestBase request) throws IOException {
+        HttpConnectionParams.setConnectionTimeout(request.getParams(), timeoutMillis);
+        HttpConnectionParams.setSoTimeout(request.getParams(), timeoutMillis);
+        return http.performHttpRequest(request);
+    }
+
+    private static IOException unexpectedStatus(String method, URI location, HttpResponse response) {
+        return new IOException(String.format("Could not %s '%s'. Received status code %s from server: %s",
+            method, location, response.getStatusLine().getStatusCode(), response.getStatusLine().getReasonPhrase()));
+    }
+
+    @Override
+    public String getDescription() {
+        return "HTTP task output cache (" + root + ")";
+    }
+
+    @Override
+    public void close() {
+        http.close();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import com.google.common.collect.Sets;
+import org.gradle.api.internal.artifacts.repositories.DefaultPasswordCredentials;
+import org.gradle.api.internal.tasks.cache.RemoteTaskOutputCacheFactory;
+import org.gradle.api.internal.tasks.cache.TaskOutputCache;
+import org.gradle.authentication.Authentication;
+import org.gradle.internal.authentication.AllSchemesAuthentication;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+public class HttpTaskOutputCacheFactory implements RemoteTaskOutputCacheFactory {
+    private final HttpClientStatistics statistics;
+
+    public HttpTaskOutputCacheFactory(HttpClientStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Set<String> getSupportedSchemes() {
+        return Sets.newHashSet("http", "https");
+    }
+
+    @Override
+    public TaskOutputCache createCache(URI location) {
+        List<Authentication> authentications = Collections.emptyList();
+        String userInfo = location.getUserInfo();
+        if (userInfo != null) {
+            int separator = userInfo.indexOf(':');
+            String username = separator < 0 ? userInfo : userInfo.substring(0, separator);
+            String password = separator < 0 ? null : userInfo.substring(separator + 1);
+            authentications = Collections.<Authentication>singletonList(new AllSchemesAuthentication(new DefaultPasswordCredentials(username, password)));
+            location = withoutUserInfo(location);
+        }
+        HttpClientHelper http = new HttpClientHelper(new DefaultHttpSettings(authentications), statistics);
+        return new HttpTaskOutputCache(http, location, HttpTaskOutputCache.DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    private static URI withoutUserInfo(URI location) {
+        try {
+            return new URI(location.getScheme(), null, location.getHost(), location.getPort(), location.getPath(), location.getQuery(), location.getFragment());
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
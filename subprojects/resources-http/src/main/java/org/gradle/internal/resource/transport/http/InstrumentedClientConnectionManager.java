@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A connection pool that is sized from {@link HttpConnectionPoolSettings} and reports each connection it leases to {@link HttpClientStatistics}.
+ */
+class InstrumentedClientConnectionManager extends PoolingClientConnectionManager {
+    private final HttpClientStatistics statistics;
+
+    InstrumentedClientConnectionManager(SchemeRegistry schemeRegistry, HttpConnectionPoolSettings settings, HttpClientStatistics statistics) {
+        super(schemeRegistry);
+        this.statistics = statistics;
+        setDefaultMaxPerRoute(settings.getMaxConnectionsPerRoute());
+        setMaxTotal(settings.getMaxConnections());
+    }
+
+    @Override
+    public ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+        final ClientConnectionRequest request = super.requestConnection(route, state);
+        return new ClientConnectionRequest() {
+            public ManagedClientConnection getConnection(long timeout, TimeUnit tunit) throws InterruptedException, ConnectionPoolTimeoutException {
+                long start = System.currentTimeMillis();
+                ManagedClientConnection connection = request.getConnection(timeout, tunit);
+                PoolStats stats = getTotalStats();
+                statistics.connectionLeased(System.currentTimeMillis() - start, connection.isOpen(), stats.getLeased(), stats.getPending());
+                return connection;
+            }
+
+            public void abortRequest() {
+                request.abortRequest();
+            }
+        };
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class JavaSystemPropertiesHttpConnectionPoolSettings implements HttpConnectionPoolSettings {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JavaSystemPropertiesHttpConnectionPoolSettings.class);
+
+    public static final String MAX_CONNECTIONS_PER_ROUTE_PROPERTY = "org.gradle.internal.http.maxConnectionsPerRoute";
+    public static final String MAX_CONNECTIONS_PROPERTY = "org.gradle.internal.http.maxConnections";
+    public static final String IDLE_CONNECTION_TIMEOUT_PROPERTY = "org.gradle.internal.http.idleConnectionTimeout";
+
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 5;
+    private static final long DEFAULT_IDLE_CONNECTION_TIMEOUT = 30000;
+
+    private final int maxConnectionsPerRoute;
+    private final int maxConnections;
+    private final long idleConnectionTimeout;
+
+    public JavaSystemPropertiesHttpConnectionPoolSettings() {
+        this(System.getProperty(MAX_CONNECTIONS_PER_ROUTE_PROPERTY, System.getProperty("http.maxConnections")),
+                System.getProperty(MAX_CONNECTIONS_PROPERTY),
+                System.getProperty(IDLE_CONNECTION_TIMEOUT_PROPERTY));
+    }
+
+    JavaSystemPropertiesHttpConnectionPoolSettings(String maxConnectionsPerRouteString, String maxConnectionsString, String idleConnectionTimeoutString) {
+        // Same defaults as the JDK and SystemDefaultHttpClient: 'http.maxConnections' per route, and twice that in total
+        this.maxConnectionsPerRoute = (int) parse(MAX_CONNECTIONS_PER_ROUTE_PROPERTY, maxConnectionsPerRouteString, DEFAULT_MAX_CONNECTIONS_PER_ROUTE, 1);
+        this.maxConnections = (int) parse(MAX_CONNECTIONS_PROPERTY, maxConnectionsString, 2 * maxConnectionsPerRoute, maxConnectionsPerRoute);
+        this.idleConnectionTimeout = parse(IDLE_CONNECTION_TIMEOUT_PROPERTY, idleConnectionTimeoutString, DEFAULT_IDLE_CONNECTION_TIMEOUT, 0);
+    }
+
+    private static long parse(String key, String value, long defaultValue, long minValue) {
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            long result = Long.parseLong(value.trim());
+            if (result >= minValue) {
+                return result;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through
+        }
+        LOGGER.warn("Invalid value for java system property '{}': {}. Default value '{}' will be used.", key, value, defaultValue);
+        return defaultValue;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public long getIdleConnectionTimeout() {
+        return idleConnectionTimeout;
+    }
+}
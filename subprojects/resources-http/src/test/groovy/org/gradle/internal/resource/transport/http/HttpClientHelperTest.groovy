@@ -57,6 +57,7 @@ class HttpClientHelperTest extends Specification {
         return Stub(HttpSettings) {
             getCredentials() >> Stub(PasswordCredentials)
             getProxySettings() >> Stub(HttpProxySettings)
+            getConnectionPoolSettings() >> new JavaSystemPropertiesHttpConnectionPoolSettings(null, null, null)
         }
     }
 }
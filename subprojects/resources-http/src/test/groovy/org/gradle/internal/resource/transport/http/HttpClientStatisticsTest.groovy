@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http
+
+import spock.lang.Specification
+
+class HttpClientStatisticsTest extends Specification {
+    def statistics = new HttpClientStatistics()
+
+    def "is empty when nothing recorded"() {
+        expect:
+        statistics.empty
+    }
+
+    def "records response times per request method"() {
+        when:
+        statistics.requestCompleted("GET", 5)
+        statistics.requestCompleted("GET", 300)
+        statistics.requestCompleted("HEAD", 8000)
+
+        then:
+        !statistics.empty
+        statistics.statistics["HTTP GET response time"] == "2 samples, mean 152ms, <=10ms: 1, <=500ms: 1"
+        statistics.statistics["HTTP HEAD response time"] == "1 sample, mean 8000ms, >5000ms: 1"
+    }
+
+    def "records connection pool utilization"() {
+        when:
+        statistics.connectionLeased(0, false, 1, 0)
+        statistics.connectionLeased(20, true, 4, 2)
+        statistics.connectionLeased(0, true, 2, 0)
+
+        then:
+        statistics.statistics["Connection lease wait time"] == "3 samples, mean 6ms, <=1ms: 2, <=50ms: 1"
+        statistics.statistics["Connections opened"] == "1"
+        statistics.statistics["Connections reused"] == "2"
+        statistics.statistics["Peak leased connections"] == "4"
+        statistics.statistics["Peak pending connection requests"] == "2"
+    }
+
+    def "discards statistics on reset"() {
+        given:
+        statistics.requestCompleted("GET", 5)
+        statistics.connectionLeased(20, true, 4, 2)
+
+        when:
+        statistics.reset()
+
+        then:
+        statistics.empty
+        statistics.statistics == [
+            "Connection lease wait time": "0 samples",
+            "Connections opened": "0",
+            "Connections reused": "0",
+            "Peak leased connections": "0",
+            "Peak pending connection requests": "0"
+        ]
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http
+
+import org.gradle.api.UncheckedIOException
+import org.gradle.api.internal.tasks.cache.TaskOutputCacheKey
+import org.gradle.api.internal.tasks.cache.TaskOutputReader
+import org.gradle.api.internal.tasks.cache.TaskOutputWriter
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.test.fixtures.server.http.HttpServer
+import org.junit.Rule
+import spock.lang.Specification
+
+class HttpTaskOutputCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    @Rule
+    HttpServer server = new HttpServer()
+
+    def key = new TaskOutputCacheKey("0123abcd")
+    def factory = new HttpTaskOutputCacheFactory(new HttpClientStatistics())
+    def cache
+
+    def setup() {
+        server.start()
+        cache = factory.createCache(server.uri.resolve("/cache/"))
+    }
+
+    def "stores entry with PUT"() {
+        def destFile = tmpDir.file("uploaded")
+        server.expectPut("/cache/0123abcd", destFile)
+
+        when:
+        cache.store(key, writer("outputs"))
+
+        then:
+        destFile.text == "outputs"
+    }
+
+    def "loads entry with GET"() {
+        def srcFile = tmpDir.file("cached")
+        srcFile.text = "outputs"
+        server.expectGet("/cache/0123abcd", srcFile)
+
+        when:
+        def content = null
+        def found = cache.load(key, { InputStream input -> content = input.text } as TaskOutputReader)
+
+        then:
+        found
+        content == "outputs"
+    }
+
+    def "loads compressed entry"() {
+        def srcFile = tmpDir.file("cached")
+        srcFile.text = "outputs"
+        server.expectGetGZipped("/cache/0123abcd", srcFile)
+
+        when:
+        def content = null
+        def found = cache.load(key, { InputStream input -> content = input.text } as TaskOutputReader)
+
+        then:
+        found
+        content == "outputs"
+    }
+
+    def "reports a miss when entry is not found"() {
+        def reader = Mock(TaskOutputReader)
+        server.expectGetMissing("/cache/0123abcd")
+
+        when:
+        def found = cache.load(key, reader)
+
+        then:
+        !found
+        0 * reader._
+    }
+
+    def "reports a miss when server responds with an error"() {
+        def reader = Mock(TaskOutputReader)
+        server.expectGetBroken("/cache/0123abcd")
+
+        when:
+        def found = cache.load(key, reader)
+
+        then:
+        !found
+        0 * reader._
+    }
+
+    def "reports a miss when server cannot be reached"() {
+        def reader = Mock(TaskOutputReader)
+        server.stop()
+
+        when:
+        def found = cache.load(key, reader)
+
+        then:
+        !found
+        0 * reader._
+    }
+
+    def "fails to store entry when server responds with an error"() {
+        server.expectPut("/cache/0123abcd", tmpDir.file("uploaded"), 500)
+
+        when:
+        cache.store(key, writer("outputs"))
+
+        then:
+        def e = thrown(UncheckedIOException)
+        e.message == "Could not store task outputs to '${server.uri}/cache/0123abcd'."
+    }
+
+    def "uses credentials from location"() {
+        def srcFile = tmpDir.file("cached")
+        srcFile.text = "outputs"
+        server.expectGet("/cache/0123abcd", "user", "password", srcFile)
+        def uri = server.uri
+        cache = factory.createCache(new URI(uri.scheme, "user:password", uri.host, uri.port, "/cache", null, null))
+
+        when:
+        def content = null
+        def found = cache.load(key, { InputStream input -> content = input.text } as TaskOutputReader)
+
+        then:
+        found
+        content == "outputs"
+    }
+
+    def "stores entry when server asks for credentials"() {
+        def destFile = tmpDir.file("uploaded")
+        server.expectPut("/cache/0123abcd", "user", "password", destFile)
+        def uri = server.uri
+        cache = factory.createCache(new URI(uri.scheme, "user:password", uri.host, uri.port, "/cache", null, null))
+
+        when:
+        cache.store(key, writer("outputs"))
+
+        then:
+        destFile.text == "outputs"
+    }
+
+    def "cannot be used once closed"() {
+        server.expectPut("/cache/0123abcd", tmpDir.file("uploaded"))
+        cache.store(key, writer("outputs"))
+
+        when:
+        cache.close()
+        cache.store(key, writer("outputs"))
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def "description does not include credentials"() {
+        def uri = server.uri
+        cache = factory.createCache(new URI(uri.scheme, "user:password", uri.host, uri.port, "/cache", null, null))
+
+        expect:
+        cache.description == "HTTP task output cache (${uri}/cache/)"
+    }
+
+    private static TaskOutputWriter writer(String content) {
+        return { OutputStream output -> output.write(content.bytes) } as TaskOutputWriter
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http
+
+import spock.lang.Specification
+
+class JavaSystemPropertiesHttpConnectionPoolSettingsTest extends Specification {
+
+    def "uses default pool size when properties not set or invalid"() {
+        expect:
+        def settings = new JavaSystemPropertiesHttpConnectionPoolSettings(perRoute, total, null)
+        settings.maxConnectionsPerRoute == 5
+        settings.maxConnections == 10
+
+        where:
+        perRoute | total
+        null     | null
+        ""       | ""
+        "notInt" | "notInt"
+        "0"      | "-1"
+    }
+
+    def "total pool size defaults to twice the per route size and is at least the per route size"() {
+        expect:
+        def settings = new JavaSystemPropertiesHttpConnectionPoolSettings(perRoute, total, null)
+        settings.maxConnectionsPerRoute == maxPerRoute
+        settings.maxConnections == maxTotal
+
+        where:
+        perRoute | total | maxPerRoute | maxTotal
+        "8"      | null  | 8           | 16
+        "8"      | "20"  | 8           | 20
+        "8"      | "4"   | 8           | 16
+        "1"      | "1"   | 1           | 1
+    }
+
+    def "uses specified idle connection timeout and default when not set or invalid"() {
+        expect:
+        new JavaSystemPropertiesHttpConnectionPoolSettings(null, null, prop).idleConnectionTimeout == value
+
+        where:
+        prop     | value
+        null     | 30000
+        ""       | 30000
+        "notInt" | 30000
+        "-1"     | 30000
+        "0"      | 0
+        "1000"   | 1000
+    }
+}